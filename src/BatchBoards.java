@@ -0,0 +1,328 @@
+import java.util.Arrays;
+
+/**
+ * Many Kalah boards played in lockstep, for self-play and analysis jobs that try
+ * the same move on thousands of positions at once. The boards are stored as a
+ * structure of arrays: one {@code int} array per board index, using the layout
+ * described in {@code Rules}, holding that cell of every board.
+ * <p>
+ * {@link #move(int, int[])} computes the result of sowing in closed form, so that
+ * each cell is updated by one straight loop over all boards with no data dependent
+ * control flow, which the JIT compiler vectorizes; only the rare captures are made
+ * board by board.
+ * {@link #moveEach(int, int[])} plays the same move board by board through
+ * {@code Rules.KALAH}, and serves as the reference and the fallback for callers
+ * that only touch a few boards.
+ * <p>
+ * Moves follow {@code MancalaGame}'s select and commit: an empty pit leaves the
+ * board alone, and otherwise the turn passes unless the move earned an extra one.
+ */
+public final class BatchBoards
+{
+    private static final int PITS  = MancalaGame.MAX_PITS;
+    private static final int ROW   = MancalaGame.MAX_PITS + 1;
+    // Cells a sowing cycle passes through: the player's row and store and the opponent's row
+    private static final int CYCLE = 2 * PITS + 1;
+    // A sowing distance no move reaches, used for the opponent's store. Small
+    // enough that the arithmetic in move() cannot overflow
+    private static final int NEVER = 1 << 16;
+
+    private final int     size;
+    private final int[][] cells = new int[Rules.BOARD_SIZE][];
+    private final int[]   players;
+
+    /* Scratch */
+    private final int[] sown;
+    private final int[] last;
+    private final int[] landed;
+    private final int[] board = new int[Rules.BOARD_SIZE];
+
+    /**
+     * Constructs {@code size} boards, all in the opening position with
+     * {@code MancalaGame.MIN_INITIAL_STONES} stones per pit.
+     *
+     * @param size The amount of boards
+     */
+    public BatchBoards(int size)
+    {
+        this.size = size;
+        for(int i = 0; i < Rules.BOARD_SIZE; i++)
+        {
+            cells[i] = new int[size];
+        }
+        players = new int[size];
+        sown = new int[size];
+        last = new int[size];
+        landed = new int[size];
+        reset(MancalaGame.MIN_INITIAL_STONES);
+    }
+
+    /**
+     * Returns the amount of boards.
+     *
+     * @return The amount of boards
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Sets every board to the opening position with player A to move.
+     *
+     * @param initialStones The amount of stones in each pit
+     */
+    public void reset(int initialStones)
+    {
+        int[] opening = Rules.newBoard(initialStones);
+        for(int k = 0; k < Rules.BOARD_SIZE; k++)
+        {
+            Arrays.fill(cells[k], opening[k]);
+        }
+        Arrays.fill(players, MancalaGame.PLAYER_A);
+    }
+
+    /**
+     * Sets one board.
+     *
+     * @param index  The board
+     * @param board  The board array. See {@code Rules} for the layout
+     * @param player The player to move
+     */
+    public void set(int index, int[] board, int player)
+    {
+        for(int k = 0; k < Rules.BOARD_SIZE; k++)
+        {
+            cells[k][index] = board[k];
+        }
+        players[index] = player;
+    }
+
+    /**
+     * Copies one board.
+     *
+     * @param index The board
+     * @param dst   An array of at least {@code Rules.BOARD_SIZE} entries
+     * @return The player to move
+     */
+    public int get(int index, int[] dst)
+    {
+        for(int k = 0; k < Rules.BOARD_SIZE; k++)
+        {
+            dst[k] = cells[k][index];
+        }
+        return players[index];
+    }
+
+    /**
+     * Returns the player to move on one board.
+     *
+     * @param index The board
+     * @return The player
+     */
+    public int getPlayer(int index)
+    {
+        return players[index];
+    }
+
+    /**
+     * Plays the pit at {@code position} for the player to move on every board.
+     *
+     * @param position The position of the pit. The value should be within {@code 0 <= position < 6}
+     * @param results  An array of at least {@code size()} entries receiving each board's
+     *                 result, as returned by {@code Rules.move}
+     */
+    public void move(int position, int[] results)
+    {
+        int[] players = this.players;
+        int[] sown    = this.sown;
+        int[] last    = this.last;
+        int[] landed  = this.landed;
+        int   n       = size;
+
+        // The sowing loops run over all boards and select between the two players'
+        // cells by arithmetic on the player, which is 0 or 1, and with bit masks
+        // instead of conditionals, so that the JIT compiler can turn them into
+        // vector instructions
+
+        // Take the stones out of the selected pit. The last stone lands on cycle
+        // position + stones, where the cycle counts from the player's first pit
+        int[] pitA = cells[Rules.pit(MancalaGame.PLAYER_A, position)];
+        int[] pitB = cells[Rules.pit(MancalaGame.PLAYER_B, position)];
+        for(int i = 0; i < n; i++)
+        {
+            int p = players[i];
+            int a = pitA[i];
+            int b = pitB[i];
+            int s = a + (b - a) * p;
+            sown[i] = s;
+            last[i] = position + s - CYCLE * divideByCycle(position + s);
+            landed[i] = 0;
+            pitA[i] = a * p;
+            pitB[i] = b * (1 - p);
+        }
+
+        // A cell distance d stones along the cycle receives one stone per full lap
+        // the sowing makes past it: (stones - d) / 13 + 1 if the sowing reaches it.
+        // The new count of the player's own pit where the last stone lands is kept
+        // for the capture rule
+        for(int k = 0; k < Rules.BOARD_SIZE; k++)
+        {
+            int   distanceA = distance(MancalaGame.PLAYER_A, k, position);
+            int   distanceB = distance(MancalaGame.PLAYER_B, k, position);
+            int   ownA      = ownPit(MancalaGame.PLAYER_A, k);
+            int   ownB      = ownPit(MancalaGame.PLAYER_B, k);
+            int[] cell      = cells[k];
+            for(int i = 0; i < n; i++)
+            {
+                int p    = players[i];
+                int t    = sown[i] - (distanceA + (distanceB - distanceA) * p);
+                int v    = cell[i] + ((divideByCycle(t) + 1) & ~(t >> 31));
+                int mask = zeroMask(last[i] - (ownA + (ownB - ownA) * p));
+                cell[i] = v;
+                landed[i] = (v & mask) | (landed[i] & ~mask);
+            }
+        }
+
+        // Captures are rare, so they are made board by board. The selected pit of an
+        // illegal move is still empty, so illegal moves never capture
+        int[] storeA = cells[Rules.store(MancalaGame.PLAYER_A)];
+        int[] storeB = cells[Rules.store(MancalaGame.PLAYER_B)];
+        for(int i = 0; i < n; i++)
+        {
+            int p      = players[i];
+            int result = sown[i] == 0 ? Rules.ILLEGAL : last[i] == PITS ? Rules.EXTRA_TURN : 0;
+            if(landed[i] == 1)
+            {
+                int[] own      = cells[Rules.pit(p, last[i])];
+                int[] opposite = cells[Rules.pit(p ^ 1, PITS - 1 - last[i])];
+                int[] store    = p == MancalaGame.PLAYER_A ? storeA : storeB;
+                store[i] += opposite[i] + 1;
+                opposite[i] = 0;
+                own[i] = 0;
+                result |= Rules.CAPTURE;
+            }
+
+            // The turn passes after a legal move without an extra turn
+            results[i] = result;
+            players[i] = result == 0 || result == Rules.CAPTURE ? p ^ 1 : p;
+        }
+    }
+
+    /**
+     * Plays the pit at {@code position} for the player to move on every board, one
+     * board at a time through {@code Rules.KALAH}. Gives the same results as
+     * {@link #move(int, int[])}.
+     *
+     * @param position The position of the pit. The value should be within {@code 0 <= position < 6}
+     * @param results  An array of at least {@code size()} entries receiving each board's result
+     */
+    public void moveEach(int position, int[] results)
+    {
+        for(int i = 0; i < size; i++)
+        {
+            int player = get(i, board);
+            int result = Rules.KALAH.move(board, player, position);
+            results[i] = result;
+            if(result == Rules.ILLEGAL) continue;
+
+            if((result & Rules.EXTRA_TURN) == 0) player ^= 1;
+            set(i, board, player);
+        }
+    }
+
+    /**
+     * Ends the games on every board where either row is empty, collecting the
+     * remaining stones into the stores, the same way {@code Rules.KALAH} does.
+     * Further moves on a finished board are always illegal.
+     *
+     * @param winners An array of at least {@code size()} entries receiving each board's
+     *                winning player, or -1 if its game is still going
+     */
+    public void finish(int[] winners)
+    {
+        int[] rowA = sown;
+        int[] rowB = last;
+        int   n    = size;
+        Arrays.fill(rowA, 0, n, 0);
+        Arrays.fill(rowB, 0, n, 0);
+        for(int j = 0; j < PITS; j++)
+        {
+            int[] a = cells[Rules.pit(MancalaGame.PLAYER_A, j)];
+            int[] b = cells[Rules.pit(MancalaGame.PLAYER_B, j)];
+            for(int i = 0; i < n; i++)
+            {
+                rowA[i] += a[i];
+                rowB[i] += b[i];
+            }
+        }
+
+        // Selections are made with masks like in move(). The rows are left holding
+        // all bits set where the game goes on and 0 where it ended
+        int[] storeA = cells[Rules.store(MancalaGame.PLAYER_A)];
+        int[] storeB = cells[Rules.store(MancalaGame.PLAYER_B)];
+        for(int i = 0; i < n; i++)
+        {
+            int over = zeroMask(rowA[i]) | zeroMask(rowB[i]);
+            storeA[i] += rowA[i] & over;
+            storeB[i] += rowB[i] & over;
+            // Player B wins unless player A has more stones
+            int winner = 1 + ((storeB[i] - storeA[i]) >> 31);
+            winners[i] = (winner & over) | ~over;
+            rowA[i] = ~over;
+        }
+        for(int j = 0; j < PITS; j++)
+        {
+            int[] a = cells[Rules.pit(MancalaGame.PLAYER_A, j)];
+            int[] b = cells[Rules.pit(MancalaGame.PLAYER_B, j)];
+            for(int i = 0; i < n; i++)
+            {
+                a[i] &= rowA[i];
+                b[i] &= rowA[i];
+            }
+        }
+    }
+
+    /**
+     * Returns how many stones into a sowing from {@code position} the board cell
+     * {@code index} is passed for the first time, 13 for the emptied pit itself, or
+     * {@code NEVER} for the opponent's store.
+     */
+    private static int distance(int player, int index, int position)
+    {
+        if(index == Rules.store(player ^ 1)) return NEVER;
+
+        int cycle = (index - player * ROW + Rules.BOARD_SIZE) % Rules.BOARD_SIZE;
+        int d     = (cycle - position + CYCLE) % CYCLE;
+        return d == 0 ? CYCLE : d;
+    }
+
+    /**
+     * Returns the position of the board cell {@code index} among the player's own
+     * pits, or -1 if it is not one of them.
+     */
+    private static int ownPit(int player, int index)
+    {
+        int position = index - player * ROW;
+        return position >= 0 && position < PITS ? position : -1;
+    }
+
+    /**
+     * Returns -1, all bits set, if x is 0, otherwise 0. Written without negation or
+     * comparisons, which the JIT compiler does not vectorize.
+     */
+    private static int zeroMask(int x)
+    {
+        return ~((x | (~x + 1)) >> 31);
+    }
+
+    /**
+     * Returns x / 13 for 0 <= x <= 6563, which covers every amount of stones a
+     * board can hold, using a multiplication instead of a division. Negative x only
+     * has to stay negative.
+     */
+    private static int divideByCycle(int x)
+    {
+        return (x * 5042) >> 16;
+    }
+}
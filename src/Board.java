@@ -1,7 +1,5 @@
 import javax.swing.*;
 import java.awt.*;
-import java.awt.event.ComponentAdapter;
-import java.awt.event.ComponentEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 
@@ -17,9 +15,10 @@ public final class Board extends JPanel
     private MancalaGame game;
     private BoardTheme  theme;
 
-    private Mancala[]     mancalas;
-    private Pit[][]       pits;
-    private BoardListener listener;
+    private Mancala[]       mancalas;
+    private Pit[][]         pits;
+    private BoardListener   listener;
+    private LatencyRecorder latency;
 
     /**
      * Constructs a new board with the underlying game model {@code game}.
@@ -50,8 +49,10 @@ public final class Board extends JPanel
         {
             final int pos = i;
             mancalas[i] = new Mancala(0, theme);
+            mancalas[i].setStoneSeed(MancalaGame.MAX_PLAYERS * MancalaGame.MAX_PITS + i);
             add(mancalas[i]);
             game.getMancalaModel(i ^ 1).addChangeListener(e -> {
+                countListener();
                 MancalaModel model = (MancalaModel) e.getSource();
                 mancalas[pos].setStoneCount(model.getStones());
             });
@@ -65,14 +66,18 @@ public final class Board extends JPanel
             Pit       pitA = new Pit(stones, theme);
             Pit       pitB = new Pit(stones, theme);
 
-            pits[1][i] = pitA;
-            pits[0][MancalaGame.MAX_PITS - i - 1] = pitB;
+            pits[row(MancalaGame.PLAYER_A)][i] = pitA;
+            pits[row(MancalaGame.PLAYER_B)][MancalaGame.MAX_PITS - i - 1] = pitB;
+            pitA.setStoneSeed(i);
+            pitB.setStoneSeed(MancalaGame.MAX_PITS + i);
 
             game.getPitModel(MancalaGame.PLAYER_A, i).addChangeListener(e -> {
+                countListener();
                 PitModel model = (PitModel) e.getSource();
                 pitA.setStoneCount(model.getStones());
             });
             game.getPitModel(MancalaGame.PLAYER_B, MancalaGame.MAX_PITS - i - 1).addChangeListener(e -> {
+                countListener();
                 PitModel model = (PitModel) e.getSource();
                 pitB.setStoneCount(model.getStones());
             });
@@ -85,10 +90,7 @@ public final class Board extends JPanel
                 @Override
                 public void mouseClicked(MouseEvent e)
                 {
-                    if(listener != null)
-                    {
-                        listener.pitClicked(MancalaGame.PLAYER_A, pos);
-                    }
+                    pitClicked(e, MancalaGame.PLAYER_A, pos);
                 }
             });
 
@@ -97,42 +99,40 @@ public final class Board extends JPanel
                 @Override
                 public void mouseClicked(MouseEvent e)
                 {
-                    if(listener != null)
-                    {
-                        listener.pitClicked(MancalaGame.PLAYER_B,
-                                            MancalaGame.MAX_PITS - pos - 1);
-                    }
+                    pitClicked(e, MancalaGame.PLAYER_B, MancalaGame.MAX_PITS - pos - 1);
                 }
             });
         }
+    }
 
-        addComponentListener(new ComponentAdapter()
-        {
-            @Override
-            public void componentResized(ComponentEvent e)
-            {
-                int width  = getWidth();
-                int height = getHeight();
-                int dimen  = (width - PADDING * 2 - GAP * 7) / 8;
+    /**
+     * Positions the mancalas and pits to fill the board. Called by Swing whenever
+     * the board is validated after a size change, and by offscreen renderers after
+     * setting the size themselves.
+     */
+    @Override
+    public void doLayout()
+    {
+        int width  = getWidth();
+        int height = getHeight();
+        int dimen  = (width - PADDING * 2 - GAP * 7) / 8;
 
-                int mancalaHeight = height - PADDING * 2;
+        int mancalaHeight = height - PADDING * 2;
 
-                mancalas[0].setBounds(PADDING, PADDING,
-                                      dimen, mancalaHeight);
-                mancalas[1].setBounds(width - PADDING - dimen,
-                                      height - PADDING - mancalaHeight,
-                                      dimen, mancalaHeight);
+        mancalas[0].setBounds(PADDING, PADDING,
+                              dimen, mancalaHeight);
+        mancalas[1].setBounds(width - PADDING - dimen,
+                              height - PADDING - mancalaHeight,
+                              dimen, mancalaHeight);
 
-                for(int i = 0; i < MancalaGame.MAX_PITS; i++)
-                {
-                    int x  = PADDING * (i + 2) + dimen * (i + 1);
-                    int y1 = PADDING;
-                    int y2 = height - PADDING - dimen;
-                    pits[1][i].setBounds(x, y2, dimen, dimen);
-                    pits[0][MancalaGame.MAX_PITS - i - 1].setBounds(x, y1, dimen, dimen);
-                }
-            }
-        });
+        for(int i = 0; i < MancalaGame.MAX_PITS; i++)
+        {
+            int x  = PADDING * (i + 2) + dimen * (i + 1);
+            int y1 = PADDING;
+            int y2 = height - PADDING - dimen;
+            pits[1][i].setBounds(x, y2, dimen, dimen);
+            pits[0][MancalaGame.MAX_PITS - i - 1].setBounds(x, y1, dimen, dimen);
+        }
     }
 
     /**
@@ -164,6 +164,73 @@ public final class Board extends JPanel
         repaint();
     }
 
+    /**
+     * Shows the stone counts of {@code position} without going through the game's
+     * data models. The next change to a model overwrites the affected view again.
+     *
+     * @param position The board array. See {@code Rules} for the layout
+     * @see Rules
+     */
+    public void setPosition(int[] position)
+    {
+        for(int i = 0; i < MancalaGame.MAX_PLAYERS; i++)
+        {
+            // Each player's Mancala view sits on the opposite side of the board
+            mancalas[i].setStoneCount(position[Rules.store(i ^ 1)]);
+            for(int j = 0; j < MancalaGame.MAX_PITS; j++)
+            {
+                getPit(i, j).setStoneCount(position[Rules.pit(i, j)]);
+            }
+        }
+    }
+
+    /**
+     * Sets whether the pits and mancalas draw individual stones rather than counts.
+     *
+     * @param showStones True for stone mode
+     */
+    public void setShowStones(boolean showStones)
+    {
+        for(int i = 0; i < MancalaGame.MAX_PLAYERS; i++)
+        {
+            mancalas[i].setShowStones(showStones);
+            for(int j = 0; j < MancalaGame.MAX_PITS; j++)
+            {
+                pits[i][j].setShowStones(showStones);
+            }
+        }
+    }
+
+    /**
+     * Shades {@code player}'s pits with hint values between 0 and 1. A NaN
+     * value leaves the pit unshaded.
+     *
+     * @param player The player whose pits are shaded
+     * @param hints  The hint values, indexed by pit position
+     */
+    public void setPitHints(int player, float[] hints)
+    {
+        for(int i = 0; i < MancalaGame.MAX_PITS; i++)
+        {
+            getPit(player, i).setHint(hints[i]);
+            getPit(player ^ 1, i).setHint(Float.NaN);
+        }
+    }
+
+    /**
+     * Removes the hint shading from every pit.
+     */
+    public void clearPitHints()
+    {
+        for(int i = 0; i < MancalaGame.MAX_PLAYERS; i++)
+        {
+            for(int j = 0; j < MancalaGame.MAX_PITS; j++)
+            {
+                pits[i][j].setHint(Float.NaN);
+            }
+        }
+    }
+
     /**
      * Sets the board listner for this board. There can only be one listener at a time.
      *
@@ -174,6 +241,61 @@ public final class Board extends JPanel
         this.listener = listener;
     }
 
+    /**
+     * Sets the recorder measuring the latency of clicks, from the mouse event through
+     * the board listener, the game and the model listeners to the last repainted
+     * pit. There can only be one recorder at a time.
+     *
+     * @param latency The recorder, or null to stop measuring
+     */
+    public void setLatencyRecorder(LatencyRecorder latency)
+    {
+        this.latency = latency;
+        Runnable painted = latency == null ? null : latency::painted;
+        for(int i = 0; i < MancalaGame.MAX_PLAYERS; i++)
+        {
+            mancalas[i].setPaintListener(painted);
+            for(int j = 0; j < MancalaGame.MAX_PITS; j++)
+            {
+                pits[i][j].setPaintListener(painted);
+            }
+        }
+    }
+
+    /**
+     * Returns the view of one of {@code player}'s pits.
+     *
+     * @param player   The player
+     * @param position The pit position, as in the game's pit models
+     * @return The pit view
+     */
+    Pit getPit(int player, int position)
+    {
+        return pits[row(player)][position];
+    }
+
+    // The top row of views belongs to player B, the bottom row to player A. Within
+    // a row the views are indexed by pit position; doLayout mirrors the top row
+    private static int row(int player)
+    {
+        return player ^ 1;
+    }
+
+    private void pitClicked(MouseEvent e, int player, int position)
+    {
+        if(listener == null) return;
+
+        LatencyRecorder recorder = latency;
+        if(recorder != null) recorder.clickStarted(e.getWhen());
+        listener.pitClicked(player, position);
+        if(recorder != null) recorder.clickHandled();
+    }
+
+    private void countListener()
+    {
+        if(latency != null) latency.listenerCalled();
+    }
+
     /**
      * Paints the background of the board specfieied in the {@code BoardTheme}
      * class.
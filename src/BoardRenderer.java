@@ -0,0 +1,247 @@
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Renders board positions to images without a window. The renderer paints a real
+ * {@code Board}, so the images look exactly like the game, but the board is never
+ * added to a frame: it is sized, laid out and printed straight into an offscreen
+ * {@code BufferedImage}.
+ * <p>
+ * A renderer owns one board, one image and one PNG writer that are reused for
+ * every frame, so it must only be used by one thread. Batch jobs give every
+ * worker thread its own renderer.
+ * <p>
+ * Usage: {@code BoardRenderer [-threads n] [-size widthxheight] [-theme 1|2] [-stones] archive outputDir}
+ * writes every frame of every archived game as {@code <id>-<move>.png}.
+ */
+public final class BoardRenderer
+{
+    /**
+     * The default image width, matching the game window.
+     */
+    public static final int DEFAULT_WIDTH  = 1280;
+    /**
+     * The default image height, matching the board area of the game window.
+     */
+    public static final int DEFAULT_HEIGHT = 400;
+
+    private final Board           board;
+    private final BufferedImage   image;
+    private final ImageWriter     writer;
+    private final ImageWriteParam writeParam;
+
+    /**
+     * Constructs a new renderer.
+     *
+     * @param width      The image width
+     * @param height     The image height
+     * @param theme      The theme to paint with
+     * @param showStones True to draw individual stones rather than counts
+     */
+    public BoardRenderer(int width, int height, BoardTheme theme, boolean showStones)
+    {
+        board = new Board(new MancalaGame(), theme);
+        board.setShowStones(showStones);
+        board.setSize(width, height);
+        board.doLayout();
+        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+
+        writer = ImageIO.getImageWritersByFormatName("png").next();
+        writeParam = writer.getDefaultWriteParam();
+        if(writeParam.canWriteCompressed())
+        {
+            // Thumbnails are written far more often than they are read,
+            // so favor fast compression over small files
+            writeParam.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            writeParam.setCompressionQuality(0.9f);
+        }
+    }
+
+    /**
+     * Renders a position. The returned image is reused by the next call.
+     *
+     * @param position The board array. See {@code Rules} for the layout
+     * @return The image
+     */
+    public BufferedImage render(int[] position)
+    {
+        board.setPosition(position);
+
+        Graphics2D g2 = image.createGraphics();
+        try
+        {
+            board.printAll(g2);
+        }
+        finally
+        {
+            g2.dispose();
+        }
+        return image;
+    }
+
+    /**
+     * Renders the starting position and the position after every move of
+     * {@code game}, writing each frame to {@code directory} as {@code <id>-<move>.png}.
+     *
+     * @param game      The game
+     * @param directory The output directory
+     * @throws IOException If a frame cannot be written
+     */
+    public void renderReplay(GameRecord game, Path directory) throws IOException
+    {
+        int[] board  = Rules.newBoard(game.getInitialStones());
+        int   player = MancalaGame.PLAYER_A;
+        render(board);
+        write(directory.resolve(game.getId() + "-0.png"));
+
+        for(int i = 0; i < game.getMoveCount(); i++)
+        {
+            int position = game.getMove(i);
+            int result   = position < 0 || position >= MancalaGame.MAX_PITS
+                           ? Rules.ILLEGAL : Rules.KALAH.move(board, player, position);
+            if(result == Rules.ILLEGAL) throw new IOException("Illegal move " + i + " in game " + game.getId());
+            if((result & Rules.EXTRA_TURN) == 0) player ^= 1;
+            Rules.KALAH.finish(board, player);
+
+            render(board);
+            write(directory.resolve(game.getId() + "-" + (i + 1) + ".png"));
+        }
+    }
+
+    /**
+     * Writes the most recently rendered image as a PNG file.
+     *
+     * @param path The file
+     * @throws IOException If the file cannot be written
+     */
+    public void write(Path path) throws IOException
+    {
+        Files.deleteIfExists(path);
+        try(ImageOutputStream out = ImageIO.createImageOutputStream(path.toFile()))
+        {
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), writeParam);
+        }
+        finally
+        {
+            writer.setOutput(null);
+        }
+    }
+
+    /**
+     * The entry point of the batch renderer.
+     *
+     * @param args Command line arguments
+     * @throws Exception If rendering fails
+     */
+    public static void main(String[] args) throws Exception
+    {
+        System.setProperty("java.awt.headless", "true");
+
+        int        threads    = Runtime.getRuntime().availableProcessors();
+        int        width      = DEFAULT_WIDTH;
+        int        height     = DEFAULT_HEIGHT;
+        BoardTheme theme      = BoardTheme.THEME_1;
+        boolean    showStones = false;
+        int        i          = 0;
+        for(; i < args.length - 2; i++)
+        {
+            switch(args[i])
+            {
+                case "-threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "-size":
+                    String[] size = args[++i].split("x");
+                    width = Integer.parseInt(size[0]);
+                    height = Integer.parseInt(size[1]);
+                    break;
+                case "-theme":
+                    theme = args[++i].equals("2") ? BoardTheme.THEME_2 : BoardTheme.THEME_1;
+                    break;
+                case "-stones":
+                    showStones = true;
+                    break;
+                default:
+                    i = args.length;
+            }
+        }
+        if(i != args.length - 2)
+        {
+            System.err.println("Usage: BoardRenderer [-threads n] [-size widthxheight] [-theme 1|2] [-stones] " +
+                               "archive outputDir");
+            System.exit(1);
+        }
+
+        Path archive   = Paths.get(args[args.length - 2]);
+        Path directory = Paths.get(args[args.length - 1]);
+        Files.createDirectories(directory);
+
+        // One renderer per worker thread, reused for every frame that thread draws
+        final int        w = width, h = height;
+        final BoardTheme t = theme;
+        final boolean    s = showStones;
+        ThreadLocal<BoardRenderer> renderers = ThreadLocal.withInitial(() -> new BoardRenderer(w, h, t, s));
+
+        // Games are read lazily and handed out one at a time, with a bounded amount
+        // in flight, since a single game is already plenty of work for a thread
+        ExecutorService              pool     = Executors.newFixedThreadPool(threads);
+        Semaphore                    inFlight = new Semaphore(threads * 4);
+        AtomicReference<Exception>   failure  = new AtomicReference<>();
+        // Lines that are no game are skipped and counted rather than failing the job
+        long[]                       skipped  = new long[1];
+
+        long start = System.nanoTime();
+        try(Stream<String> lines = GameArchive.lines(archive))
+        {
+            lines.forEach(line -> {
+                GameRecord game = GameArchive.tryParse(line);
+                if(game == null)
+                {
+                    skipped[0]++;
+                    return;
+                }
+
+                inFlight.acquireUninterruptibly();
+                pool.execute(() -> {
+                    try
+                    {
+                        renderers.get().renderReplay(game, directory);
+                    }
+                    catch(IOException | RuntimeException e)
+                    {
+                        failure.compareAndSet(null, e);
+                    }
+                    finally
+                    {
+                        inFlight.release();
+                    }
+                });
+            });
+        }
+        finally
+        {
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+        if(failure.get() != null) throw failure.get();
+
+        System.out.printf("Rendered %s in %.1f s, skipped %d malformed lines%n", archive,
+                          (System.nanoTime() - start) / 1e9, skipped[0]);
+    }
+}
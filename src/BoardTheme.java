@@ -50,6 +50,17 @@ public interface BoardTheme
      */
     ShapeType getPitShape();
 
+    /**
+     * Returns the color used to shade pits when hints are shown. The color
+     * is drawn translucent, stronger for better pits.
+     *
+     * @return The color
+     */
+    default Color getHintColor()
+    {
+        return new Color(0x33CC33);
+    }
+
     /**
      * The first base theme.
      */
@@ -0,0 +1,109 @@
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A computer player searching on a worker pool. The player runs an iterative
+ * deepening {@code MoveSearch} on a copy of the position and answers with the
+ * best pit of the deepest finished search once its think time is up, once it
+ * finds a forced win, or once it reaches its maximum depth, whichever comes
+ * first.
+ * <p>
+ * The deadline holds even when the pool is too busy to start the search in time,
+ * in which case the first legal pit is played. Cancelling the returned future
+ * stops the search at the next visited position.
+ */
+public final class ComputerPlayer implements Player
+{
+    /**
+     * The default time a move may take in milliseconds.
+     */
+    public static final long DEFAULT_THINK_TIME = 1000;
+    /**
+     * The default deepest search.
+     */
+    public static final int  DEFAULT_MAX_DEPTH  = 14;
+
+    private final ExecutorService          pool;
+    private final ScheduledExecutorService timer;
+    private final long                     thinkTime;
+    private final int                      maxDepth;
+
+    /**
+     * Constructs a new computer player with the default think time and depth.
+     *
+     * @param pool  The pool to search on
+     * @param timer The scheduler enforcing the deadlines
+     * @see #ComputerPlayer(ExecutorService, ScheduledExecutorService, long, int)
+     */
+    public ComputerPlayer(ExecutorService pool, ScheduledExecutorService timer)
+    {
+        this(pool, timer, DEFAULT_THINK_TIME, DEFAULT_MAX_DEPTH);
+    }
+
+    /**
+     * Constructs a new computer player.
+     *
+     * @param pool      The pool to search on
+     * @param timer     The scheduler enforcing the deadlines
+     * @param thinkTime The time a move may take in milliseconds
+     * @param maxDepth  The deepest search
+     */
+    public ComputerPlayer(ExecutorService pool, ScheduledExecutorService timer, long thinkTime, int maxDepth)
+    {
+        this.pool = pool;
+        this.timer = timer;
+        this.thinkTime = thinkTime;
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws RuntimeException If the game has a pending commit or is over
+     */
+    @Override
+    public CompletableFuture<Integer> chooseMove(MancalaGame game)
+    {
+        if(game.isGameOver()) throw new RuntimeException("The game is already over");
+        if(game.hasPendingCommit()) throw new RuntimeException("The game's data has to be committed first");
+
+        // Everything the search needs is copied here, on the event dispatch thread
+        int[] position = game.copyPosition(new int[Rules.BOARD_SIZE]);
+        int   player   = game.getCurrentPlayer();
+        long  deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(thinkTime);
+
+        CompletableFuture<Integer> move   = new CompletableFuture<>();
+        AtomicInteger              best   = new AtomicInteger(firstLegalPit(position, player));
+        MoveSearch                 search = new MoveSearch(game.getRules(), player, maxDepth,
+                                                           () -> move.isDone() || System.nanoTime() - deadline >= 0);
+
+        pool.execute(() -> {
+            float[] scores = new float[MancalaGame.MAX_PITS];
+            for(int depth = 1; depth <= maxDepth && search.scorePits(position, depth, scores); depth++)
+            {
+                int pit = MoveSearch.bestPit(scores);
+                best.set(pit);
+                if(scores[pit] >= MoveSearch.WIN_SCORE) break;
+            }
+            move.complete(best.get());
+        });
+
+        ScheduledFuture<?> timeout = timer.schedule(() -> move.complete(best.get()), thinkTime,
+                                                    TimeUnit.MILLISECONDS);
+        move.whenComplete((pit, e) -> timeout.cancel(false));
+        return move;
+    }
+
+    private static int firstLegalPit(int[] position, int player)
+    {
+        for(int i = 0; i < MancalaGame.MAX_PITS; i++)
+        {
+            if(position[Rules.pit(player, i)] != 0) return i;
+        }
+        return -1;
+    }
+}
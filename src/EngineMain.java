@@ -0,0 +1,148 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * An engine speaking the {@code EngineProtocol} on standard input and output,
+ * playing with the same iterative deepening {@code MoveSearch} as the computer
+ * player. It serves as the reference engine for bot authors and as a sparring
+ * partner in referee matches.
+ * <p>
+ * The search stops a safety margin before the time given by {@code go}, so that
+ * the reply makes it through the pipe in time.
+ */
+public final class EngineMain
+{
+    /**
+     * The default deepest search.
+     */
+    public static final int DEFAULT_MAX_DEPTH = 20;
+
+    // Part of the move time left for writing and reading the reply
+    private static final long SAFETY_MARGIN_DIVISOR = 10;
+    private static final long MIN_SAFETY_MARGIN     = 5;
+
+    private final int         maxDepth;
+    private final PrintStream out;
+
+    private int   initialStones = MancalaGame.MAX_INITIAL_STONES;
+    private Rules rules         = Rules.KALAH;
+    private int[] board         = Rules.newBoard(initialStones);
+    private int   player        = MancalaGame.PLAYER_A;
+
+    /**
+     * Constructs a new engine.
+     *
+     * @param maxDepth The deepest search
+     * @param out      The stream the replies are written to
+     */
+    public EngineMain(int maxDepth, PrintStream out)
+    {
+        this.maxDepth = maxDepth;
+        this.out = out;
+    }
+
+    /**
+     * Handles commands until {@code quit} or the end of the input.
+     *
+     * @param in The commands
+     * @throws IOException If the commands cannot be read
+     */
+    public void run(BufferedReader in) throws IOException
+    {
+        String line;
+        while((line = in.readLine()) != null)
+        {
+            String[] tokens = EngineProtocol.tokens(line);
+            if(tokens.length == 0) continue;
+
+            switch(tokens[0])
+            {
+                case EngineProtocol.NEW_GAME:
+                    initialStones = Integer.parseInt(tokens[1]);
+                    rules = Rules.VARIANTS[Integer.parseInt(tokens[2])];
+                    setPosition(tokens);
+                    break;
+                case EngineProtocol.POSITION:
+                    setPosition(tokens);
+                    break;
+                case EngineProtocol.GO:
+                    out.println(EngineProtocol.bestMove(chooseMove(Long.parseLong(tokens[1]))));
+                    out.flush();
+                    break;
+                case EngineProtocol.IS_READY:
+                    out.println(EngineProtocol.READY_OK);
+                    out.flush();
+                    break;
+                case EngineProtocol.QUIT:
+                    return;
+                default:
+                    break;
+            }
+        }
+    }
+
+    // Replays the moves of a position command from the opening. Any other command
+    // resets to the opening
+    private void setPosition(String[] tokens)
+    {
+        board = Rules.newBoard(initialStones);
+        player = MancalaGame.PLAYER_A;
+        if(!tokens[0].equals(EngineProtocol.POSITION)) return;
+
+        for(int i = 1; i < tokens.length; i++)
+        {
+            int result = rules.move(board, player, Integer.parseInt(tokens[i]));
+            if(result == Rules.ILLEGAL) throw new IllegalArgumentException("Illegal move " + tokens[i]);
+            if((result & Rules.EXTRA_TURN) == 0) player ^= 1;
+            rules.finish(board, player);
+        }
+    }
+
+    private int chooseMove(long millis)
+    {
+        long margin   = Math.max(MIN_SAFETY_MARGIN, millis / SAFETY_MARGIN_DIVISOR);
+        long deadline = System.nanoTime() + (millis - margin) * 1_000_000L;
+
+        MoveSearch search = new MoveSearch(rules, player, maxDepth, () -> System.nanoTime() - deadline >= 0);
+        float[]    scores = new float[MancalaGame.MAX_PITS];
+        int        best   = -1;
+        for(int depth = 1; depth <= maxDepth && search.scorePits(board, depth, scores); depth++)
+        {
+            best = MoveSearch.bestPit(scores);
+            if(scores[best] >= MoveSearch.WIN_SCORE) break;
+        }
+
+        // Out of time before even the first depth finished: any legal pit will do
+        for(int i = 0; best == -1 && i < MancalaGame.MAX_PITS; i++)
+        {
+            if(board[Rules.pit(player, i)] != 0) best = i;
+        }
+        return best;
+    }
+
+    /**
+     * Runs the engine on standard input and output.
+     *
+     * @param args Command line arguments
+     * @throws IOException If the commands cannot be read
+     */
+    public static void main(String[] args) throws IOException
+    {
+        int maxDepth = DEFAULT_MAX_DEPTH;
+        if(args.length == 2 && args[0].equals("-depth"))
+        {
+            maxDepth = Integer.parseInt(args[1]);
+        }
+        else if(args.length != 0)
+        {
+            System.err.println("Usage: EngineMain [-depth n]");
+            System.exit(1);
+        }
+
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        new EngineMain(maxDepth, new PrintStream(System.out, false, "UTF-8")).run(in);
+    }
+}
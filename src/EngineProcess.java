@@ -0,0 +1,141 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An engine subprocess seen from the referee. Commands are written without
+ * waiting for anything, several of them in one flush, and the engine's output is
+ * read by a daemon thread into a queue, so a reply is awaited with a timeout and
+ * a hung or crashed engine never blocks the referee. The engine's standard error
+ * goes to the referee's.
+ */
+public final class EngineProcess implements Closeable
+{
+    // Time an engine gets to quit before it is killed
+    private static final long QUIT_TIMEOUT = 500;
+    // Queued in place of a line once the engine's output ends
+    private static final String END = new String("end of output");
+
+    private final Process               process;
+    private final Writer                in;
+    private final BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+
+    /**
+     * Starts an engine.
+     *
+     * @param command The program and its arguments
+     * @throws IOException If the program cannot be started
+     */
+    public EngineProcess(List<String> command) throws IOException
+    {
+        process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        in = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+
+        Thread reader = new Thread(() -> {
+            try(BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream(),
+                                                                              StandardCharsets.UTF_8)))
+            {
+                String line;
+                while((line = out.readLine()) != null)
+                {
+                    lines.add(line);
+                }
+            }
+            catch(IOException e)
+            {
+                // The engine is gone, which the referee learns from the end marker
+            }
+            lines.add(END);
+        }, "Engine " + command.get(0));
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Writes commands to the engine in one flush.
+     *
+     * @param commands The command lines
+     * @return True if the commands were written, false if the engine is gone
+     */
+    public boolean send(String... commands)
+    {
+        try
+        {
+            for(String command : commands)
+            {
+                in.write(command);
+                in.write('\n');
+            }
+            in.flush();
+            return true;
+        }
+        catch(IOException e)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Waits for a line starting with {@code reply}, skipping other lines.
+     *
+     * @param reply  The first token of the awaited line
+     * @param millis The time to wait at most
+     * @return The line, or null if it did not arrive in time or the engine is gone
+     * @throws InterruptedException If the thread is interrupted while waiting
+     */
+    public String await(String reply, long millis) throws InterruptedException
+    {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        while(true)
+        {
+            String line = lines.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if(line == null) return null;
+            if(line == END)
+            {
+                // Leave the marker for later calls
+                lines.add(END);
+                return null;
+            }
+
+            String[] tokens = EngineProtocol.tokens(line);
+            if(tokens.length > 0 && tokens[0].equals(reply)) return line;
+        }
+    }
+
+    /**
+     * Returns true if the engine is still running.
+     *
+     * @return True if the engine is running, false otherwise
+     */
+    public boolean isAlive()
+    {
+        return process.isAlive();
+    }
+
+    /**
+     * Asks the engine to quit, and kills it if it does not.
+     */
+    @Override
+    public void close()
+    {
+        send(EngineProtocol.QUIT);
+        try
+        {
+            if(!process.waitFor(QUIT_TIMEOUT, TimeUnit.MILLISECONDS)) process.destroyForcibly();
+        }
+        catch(InterruptedException e)
+        {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
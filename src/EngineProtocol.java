@@ -0,0 +1,132 @@
+/**
+ * The line-based text protocol between a referee and an engine, a program that
+ * plays Mancala in any language it likes. The referee writes commands to the
+ * engine's standard input and reads replies from its standard output, one per
+ * line, with tokens separated by spaces.
+ * <p>
+ * Commands sent to the engine:
+ * <ul>
+ * <li>{@code newgame <stones> <variant>} starts a new game with the given stones
+ * per pit, played by the rule variant at that index of {@code Rules.VARIANTS}
+ * (0 is Kalah).</li>
+ * <li>{@code position [<pit> ...]} sets the position to the one reached from the
+ * opening by the given moves, each the position of the selected pit from 0 to 5
+ * as counted by the player making it. Whose move each one was follows from the
+ * rules.</li>
+ * <li>{@code go <millis>} asks for a move in the current position, which has to
+ * arrive within the given time.</li>
+ * <li>{@code isready} asks for a {@code readyok} once every earlier command is
+ * handled.</li>
+ * <li>{@code quit} ends the engine.</li>
+ * </ul>
+ * Replies from the engine:
+ * <ul>
+ * <li>{@code bestmove <pit>} answers a {@code go}.</li>
+ * <li>{@code readyok} answers an {@code isready}.</li>
+ * <li>Any other line, such as {@code info} lines, is ignored.</li>
+ * </ul>
+ * Commands are pipelined: the referee does not wait for anything but the
+ * {@code bestmove} it asked for, so an engine has to handle each command in the
+ * order it arrives and may find the next ones already waiting on its input.
+ *
+ * @see EngineMain
+ * @see Referee
+ */
+public final class EngineProtocol
+{
+    /**
+     * The command starting a new game.
+     */
+    public static final String NEW_GAME  = "newgame";
+    /**
+     * The command setting the position.
+     */
+    public static final String POSITION  = "position";
+    /**
+     * The command asking for a move.
+     */
+    public static final String GO        = "go";
+    /**
+     * The command asking whether the engine has caught up.
+     */
+    public static final String IS_READY  = "isready";
+    /**
+     * The command ending the engine.
+     */
+    public static final String QUIT      = "quit";
+    /**
+     * The reply carrying a move.
+     */
+    public static final String BEST_MOVE = "bestmove";
+    /**
+     * The reply telling that the engine has caught up.
+     */
+    public static final String READY_OK  = "readyok";
+
+    private EngineProtocol()
+    {
+    }
+
+    /**
+     * Formats a {@code newgame} command.
+     *
+     * @param initialStones The stones per pit
+     * @param rules         The rule variant
+     * @return The command line
+     */
+    public static String newGame(int initialStones, Rules rules)
+    {
+        return NEW_GAME + " " + initialStones + " " + Rules.indexOf(rules);
+    }
+
+    /**
+     * Formats a {@code position} command.
+     *
+     * @param moves The selected pits since the opening
+     * @param count The amount of moves
+     * @return The command line
+     */
+    public static String position(int[] moves, int count)
+    {
+        StringBuilder line = new StringBuilder(POSITION);
+        for(int i = 0; i < count; i++)
+        {
+            line.append(' ').append(moves[i]);
+        }
+        return line.toString();
+    }
+
+    /**
+     * Formats a {@code go} command.
+     *
+     * @param millis The time the move may take
+     * @return The command line
+     */
+    public static String go(long millis)
+    {
+        return GO + " " + millis;
+    }
+
+    /**
+     * Formats a {@code bestmove} reply.
+     *
+     * @param pit The position of the selected pit
+     * @return The reply line
+     */
+    public static String bestMove(int pit)
+    {
+        return BEST_MOVE + " " + pit;
+    }
+
+    /**
+     * Splits a line into its tokens.
+     *
+     * @param line The line
+     * @return The tokens, an empty array for a blank line
+     */
+    public static String[] tokens(String line)
+    {
+        String trimmed = line.trim();
+        return trimmed.isEmpty() ? new String[0] : trimmed.split("\\s+");
+    }
+}
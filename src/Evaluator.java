@@ -0,0 +1,267 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A learned evaluation function estimating the chance that the player to move
+ * wins a position. The estimate is a logistic function of a weighted sum of
+ * features seen from the player to move: the stones in each of their pits and
+ * store, the same for the opponent, the amount of their moves earning an extra
+ * turn, the opponent's stones lying opposite their empty pits, and a bias. Stone
+ * counts are divided by the stones in play, so one set of weights serves every
+ * amount of initial stones.
+ * <p>
+ * The weights are trained by {@code SelfPlayTrainer} and kept in a small binary
+ * file. Evaluating never allocates, and
+ * {@link #evaluate(int[][], int[], int, float[])} evaluates a whole batch of
+ * leaves in one call, so a search can score millions of positions per second. An
+ * evaluator is only read while evaluating, so searches on several threads can
+ * share one as long as nobody calls {@link #adjust(float[], float)}.
+ */
+public final class Evaluator
+{
+    /**
+     * The amount of features and weights.
+     */
+    public static final int FEATURES = 17;
+
+    private static final int PITS  = MancalaGame.MAX_PITS;
+    private static final int ROW   = MancalaGame.MAX_PITS + 1;
+    private static final int MAGIC = 0x4D414E45;
+
+    /* Feature Layout */
+    // Features 0 to 6 are the mover's pits and store, 7 to 13 the opponent's
+    private static final int OPPONENT    = ROW;
+    private static final int EXTRA_TURNS = 2 * ROW;
+    private static final int CAPTURABLE  = 2 * ROW + 1;
+    private static final int BIAS        = 2 * ROW + 2;
+
+    // The untrained weights only count the stones in the stores
+    private static final float STORE_WEIGHT = 8;
+
+    // The logistic function is interpolated from a table, which is much faster than
+    // Math.exp and within 1e-6 of it. Beyond the range it is 0 or 1 as far as a float can tell
+    private static final float   SIGMOID_RANGE = 16;
+    private static final int     SIGMOID_STEPS = 128;
+    private static final float[] SIGMOID       = new float[(int) (2 * SIGMOID_RANGE) * SIGMOID_STEPS + 2];
+
+    static
+    {
+        for(int i = 0; i < SIGMOID.length; i++)
+        {
+            SIGMOID[i] = (float) (1 / (1 + Math.exp(SIGMOID_RANGE - (double) i / SIGMOID_STEPS)));
+        }
+    }
+
+    private final float[] weights = new float[FEATURES];
+
+    /**
+     * Constructs an untrained evaluator, which scores positions by the difference
+     * between the stores.
+     */
+    public Evaluator()
+    {
+        weights[PITS] = STORE_WEIGHT;
+        weights[OPPONENT + PITS] = -STORE_WEIGHT;
+    }
+
+    /**
+     * Constructs an evaluator with the given weights.
+     *
+     * @param weights The weights, {@code FEATURES} of them. The array is copied
+     * @throws IllegalArgumentException If there are not {@code FEATURES} weights
+     */
+    public Evaluator(float[] weights)
+    {
+        if(weights.length != FEATURES)
+        {
+            throw new IllegalArgumentException("There have to be " + FEATURES + " weights");
+        }
+        System.arraycopy(weights, 0, this.weights, 0, FEATURES);
+    }
+
+    /**
+     * Reads an evaluator from a weights file written by {@link #save(Path)}.
+     *
+     * @param file The weights file
+     * @return The evaluator
+     * @throws IOException If the file cannot be read or does not hold weights
+     */
+    public static Evaluator load(Path file) throws IOException
+    {
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file))))
+        {
+            if(in.readInt() != MAGIC || in.readInt() != FEATURES)
+            {
+                throw new IOException(file + " is not a weights file");
+            }
+            float[] weights = new float[FEATURES];
+            for(int i = 0; i < FEATURES; i++)
+            {
+                weights[i] = in.readFloat();
+            }
+            return new Evaluator(weights);
+        }
+    }
+
+    /**
+     * Writes the weights to a file.
+     *
+     * @param file The weights file, which is replaced
+     * @throws IOException If the file cannot be written
+     */
+    public void save(Path file) throws IOException
+    {
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file))))
+        {
+            out.writeInt(MAGIC);
+            out.writeInt(FEATURES);
+            for(float weight : weights)
+            {
+                out.writeFloat(weight);
+            }
+        }
+    }
+
+    /**
+     * Copies the weights into {@code dst}.
+     *
+     * @param dst An array of at least {@code FEATURES} entries
+     * @return {@code dst}
+     */
+    public float[] getWeights(float[] dst)
+    {
+        System.arraycopy(weights, 0, dst, 0, FEATURES);
+        return dst;
+    }
+
+    /**
+     * Adds {@code step} times {@code direction} to the weights.
+     *
+     * @param direction The change of each weight, {@code FEATURES} of them
+     * @param step      The factor to apply
+     */
+    public void adjust(float[] direction, float step)
+    {
+        for(int i = 0; i < FEATURES; i++)
+        {
+            weights[i] += step * direction[i];
+        }
+    }
+
+    /**
+     * Estimates the chance that {@code player} wins with them to move on {@code board}.
+     *
+     * @param board  The board array
+     * @param player The player to move
+     * @return The chance, between 0 and 1
+     */
+    public float evaluate(int[] board, int player)
+    {
+        return sigmoid(sum(board, player));
+    }
+
+    /**
+     * Evaluates the first {@code count} boards, as in {@link #evaluate(int[], int)}.
+     *
+     * @param boards  The board arrays
+     * @param players The player to move on each board
+     * @param count   The amount of boards to evaluate
+     * @param values  Receives the chance of each board
+     */
+    public void evaluate(int[][] boards, int[] players, int count, float[] values)
+    {
+        for(int i = 0; i < count; i++)
+        {
+            values[i] = sigmoid(sum(boards[i], players[i]));
+        }
+    }
+
+    /**
+     * Computes the features of a position. The estimate of {@link #evaluate(int[], int)}
+     * is the logistic function of the features weighted by the weights, so the
+     * features are also the direction in which the weights raise the estimate.
+     *
+     * @param board  The board array
+     * @param player The player to move
+     * @param dst    An array of at least {@code FEATURES} entries
+     * @return {@code dst}
+     */
+    public static float[] features(int[] board, int player, float[] dst)
+    {
+        int   own      = Rules.pit(player, 0);
+        int   opponent = Rules.pit(player ^ 1, 0);
+        float scale    = 1f / stonesInPlay(board);
+
+        int extraTurns = 0;
+        int capturable = 0;
+        for(int i = 0; i < PITS; i++)
+        {
+            int stones = board[own + i];
+            dst[i] = stones * scale;
+            dst[OPPONENT + i] = board[opponent + i] * scale;
+            if(stones == PITS - i) extraTurns++;
+            if(stones == 0) capturable += board[opponent + PITS - 1 - i];
+        }
+        dst[PITS] = board[own + PITS] * scale;
+        dst[OPPONENT + PITS] = board[opponent + PITS] * scale;
+        dst[EXTRA_TURNS] = (float) extraTurns / PITS;
+        dst[CAPTURABLE] = capturable * scale;
+        dst[BIAS] = 1;
+        return dst;
+    }
+
+    // The weighted sum of features(board, player), without the array. The two
+    // sides are summed separately to shorten the chains of dependent additions
+    private float sum(int[] board, int player)
+    {
+        int own      = Rules.pit(player, 0);
+        int opponent = Rules.pit(player ^ 1, 0);
+
+        int   ownStore      = board[own + PITS];
+        int   opponentStore = board[opponent + PITS];
+        int   total         = ownStore + opponentStore;
+        float ownStones     = weights[PITS] * ownStore;
+        float opponents     = weights[OPPONENT + PITS] * opponentStore;
+        int   extraTurns    = 0;
+        int   capturable    = 0;
+        for(int i = 0; i < PITS; i++)
+        {
+            int count = board[own + i];
+            int other = board[opponent + i];
+            total += count + other;
+            ownStones += weights[i] * count;
+            opponents += weights[OPPONENT + i] * other;
+            extraTurns += count == PITS - i ? 1 : 0;
+            capturable += count == 0 ? board[opponent + PITS - 1 - i] : 0;
+        }
+
+        float stones = ownStones + opponents + weights[CAPTURABLE] * capturable;
+        return stones / total + weights[EXTRA_TURNS] * extraTurns / PITS + weights[BIAS];
+    }
+
+    private static int stonesInPlay(int[] board)
+    {
+        int total = 0;
+        for(int i = 0; i < Rules.BOARD_SIZE; i++)
+        {
+            total += board[i];
+        }
+        return total;
+    }
+
+    private static float sigmoid(float x)
+    {
+        if(x <= -SIGMOID_RANGE) return SIGMOID[0];
+        if(x >= SIGMOID_RANGE) return SIGMOID[SIGMOID.length - 1];
+
+        float t     = (x + SIGMOID_RANGE) * SIGMOID_STEPS;
+        int   i     = (int) t;
+        float below = SIGMOID[i];
+        return below + (SIGMOID[i + 1] - below) * (t - i);
+    }
+}
@@ -0,0 +1,512 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sorts and deduplicates more records than fit in memory. A record is a fixed
+ * amount of {@code long} values, a single value by default, and records are
+ * ordered by their first value, then by their second and so on. Callers hand over
+ * the records in batches that do fit, each of which is sorted and written to a
+ * run file, possibly from several threads at once, and the runs are then merged
+ * into one sorted file without duplicates. When there are more runs than can be
+ * merged at once, groups of them are merged into longer runs first.
+ * <p>
+ * Files of records are plain sequences of big-endian longs, read back with a
+ * {@link Reader}.
+ */
+public final class ExternalSorter implements Closeable
+{
+    /**
+     * The default amount of runs merged at once.
+     */
+    public static final int DEFAULT_FAN_IN = 256;
+
+    private static final int BUFFER_SIZE    = 1 << 16;
+    // Ranges of records this short are sorted by insertion
+    private static final int INSERTION_SORT = 16;
+
+    private final Path          directory;
+    private final String        prefix;
+    private final int           fanIn;
+    private final int           width;
+    private final List<Path>    runs = new ArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * Constructs a new sorter of single values with the default fan-in.
+     *
+     * @param directory The directory the run files are written to
+     * @param prefix    The start of the run file names
+     * @see #ExternalSorter(Path, String, int, int)
+     */
+    public ExternalSorter(Path directory, String prefix)
+    {
+        this(directory, prefix, DEFAULT_FAN_IN);
+    }
+
+    /**
+     * Constructs a new sorter of single values.
+     *
+     * @param directory The directory the run files are written to
+     * @param prefix    The start of the run file names
+     * @param fanIn     The amount of runs merged at once, at least 2
+     * @see #ExternalSorter(Path, String, int, int)
+     */
+    public ExternalSorter(Path directory, String prefix, int fanIn)
+    {
+        this(directory, prefix, fanIn, 1);
+    }
+
+    /**
+     * Constructs a new sorter.
+     *
+     * @param directory The directory the run files are written to
+     * @param prefix    The start of the run file names
+     * @param fanIn     The amount of runs merged at once, at least 2
+     * @param width     The amount of values per record, at least 1
+     */
+    public ExternalSorter(Path directory, String prefix, int fanIn, int width)
+    {
+        if(fanIn < 2) throw new IllegalArgumentException("At least two runs have to be merged at once");
+        if(width < 1) throw new IllegalArgumentException("A record needs at least one value");
+        this.directory = directory;
+        this.prefix = prefix;
+        this.fanIn = fanIn;
+        this.width = width;
+    }
+
+    /**
+     * Sorts the first {@code count} records in place and writes them to a new run,
+     * leaving out duplicates. May be called from several threads at once.
+     *
+     * @param records The records, one after the other
+     * @param count   The amount of records
+     * @throws IOException If the run cannot be written
+     */
+    public void add(long[] records, int count) throws IOException
+    {
+        if(count == 0) return;
+        sort(records, width, 0, count);
+
+        Path run = newRun();
+        try(DataOutputStream out = writer(run))
+        {
+            for(int i = 0; i < count; i++)
+            {
+                int offset = i * width;
+                if(i > 0 && compare(records, offset - width, records, offset, width) == 0) continue;
+                for(int j = 0; j < width; j++)
+                {
+                    out.writeLong(records[offset + j]);
+                }
+            }
+        }
+        synchronized(runs)
+        {
+            runs.add(run);
+        }
+    }
+
+    /**
+     * Returns the amount of runs waiting to be merged.
+     *
+     * @return The amount of runs
+     */
+    public int getRuns()
+    {
+        synchronized(runs)
+        {
+            return runs.size();
+        }
+    }
+
+    /**
+     * Merges every run added so far into {@code output}, sorted and without
+     * duplicates, and deletes the runs.
+     *
+     * @param output The output file, which is replaced
+     * @return The amount of records written
+     * @throws IOException If a run cannot be read or the output cannot be written
+     */
+    public long merge(Path output) throws IOException
+    {
+        try(DataOutputStream out = writer(output))
+        {
+            return merge(record -> {
+                for(long value : record)
+                {
+                    out.writeLong(value);
+                }
+            });
+        }
+    }
+
+    /**
+     * Merges every run added so far, handing the records to {@code sink} sorted and
+     * without duplicates, and deletes the runs.
+     *
+     * @param sink The sink taking the records
+     * @return The amount of records merged
+     * @throws IOException If a run cannot be read or the sink fails
+     */
+    public long merge(Sink sink) throws IOException
+    {
+        List<Path> pending;
+        synchronized(runs)
+        {
+            pending = new ArrayList<>(runs);
+            runs.clear();
+        }
+
+        // Every run this merge owns, so that none is left behind if it fails
+        List<Path> owned = new ArrayList<>(pending);
+        try
+        {
+            while(pending.size() > fanIn)
+            {
+                List<Path> merged = new ArrayList<>();
+                for(int i = 0; i < pending.size(); i += fanIn)
+                {
+                    List<Path> group = pending.subList(i, Math.min(i + fanIn, pending.size()));
+                    Path       run   = newRun();
+                    owned.add(run);
+                    merge(group, run);
+                    merged.add(run);
+                }
+                pending = merged;
+            }
+            return merge(pending, sink);
+        }
+        finally
+        {
+            for(Path run : owned)
+            {
+                Files.deleteIfExists(run);
+            }
+        }
+    }
+
+    /**
+     * Deletes the runs that have not been merged.
+     *
+     * @throws IOException If a run cannot be deleted
+     */
+    @Override
+    public void close() throws IOException
+    {
+        synchronized(runs)
+        {
+            for(Path run : runs)
+            {
+                Files.deleteIfExists(run);
+            }
+            runs.clear();
+        }
+    }
+
+    private Path newRun()
+    {
+        return directory.resolve(prefix + next.getAndIncrement() + ".run");
+    }
+
+    // Merges a group of runs into a longer run
+    private void merge(List<Path> group, Path run) throws IOException
+    {
+        try(DataOutputStream out = writer(run))
+        {
+            merge(group, record -> {
+                for(long value : record)
+                {
+                    out.writeLong(value);
+                }
+            });
+        }
+    }
+
+    // Merges and deletes the runs, returning the amount of records merged
+    private long merge(List<Path> group, Sink sink) throws IOException
+    {
+        PriorityQueue<Reader> heads = new PriorityQueue<>(Math.max(1, group.size()),
+                                                          (a, b) -> compare(a.record, 0, b.record, 0, width));
+        long   written = 0;
+        long[] last    = new long[width];
+        try
+        {
+            for(Path run : group)
+            {
+                Reader reader = new Reader(run, width);
+                if(reader.next())
+                {
+                    heads.add(reader);
+                }
+                else
+                {
+                    reader.close();
+                }
+            }
+
+            while(!heads.isEmpty())
+            {
+                Reader head = heads.poll();
+                if(written == 0 || compare(head.record, 0, last, 0, width) != 0)
+                {
+                    System.arraycopy(head.record, 0, last, 0, width);
+                    sink.accept(last);
+                    written++;
+                }
+
+                if(head.next())
+                {
+                    heads.add(head);
+                }
+                else
+                {
+                    head.close();
+                }
+            }
+        }
+        finally
+        {
+            for(Reader reader : heads)
+            {
+                reader.close();
+            }
+        }
+
+        for(Path run : group)
+        {
+            Files.delete(run);
+        }
+        return written;
+    }
+
+    /**
+     * Sorts the records {@code from} to {@code to}, exclusive, of an array of
+     * records.
+     *
+     * @param records The records, one after the other
+     * @param width   The amount of values per record
+     * @param from    The first record
+     * @param to      The record after the last
+     */
+    static void sort(long[] records, int width, int from, int to)
+    {
+        if(width == 1)
+        {
+            Arrays.sort(records, from, to);
+        }
+        else
+        {
+            sort(records, width, from, to, new long[width]);
+        }
+    }
+
+    private static void sort(long[] records, int width, int from, int to, long[] pivot)
+    {
+        while(to - from > INSERTION_SORT)
+        {
+            // Putting the median of three in the middle keeps sorted input fast and
+            // the pivot off the ends, so both sides shrink
+            int mid = (from + to - 1) >>> 1;
+            if(compare(records, mid * width, records, from * width, width) < 0) swap(records, width, mid, from);
+            if(compare(records, (to - 1) * width, records, mid * width, width) < 0)
+            {
+                swap(records, width, to - 1, mid);
+                if(compare(records, mid * width, records, from * width, width) < 0) swap(records, width, mid, from);
+            }
+
+            System.arraycopy(records, mid * width, pivot, 0, width);
+            int i = from - 1;
+            int j = to;
+            while(true)
+            {
+                do
+                {
+                    i++;
+                }
+                while(compare(records, i * width, pivot, 0, width) < 0);
+                do
+                {
+                    j--;
+                }
+                while(compare(records, j * width, pivot, 0, width) > 0);
+                if(i >= j) break;
+                swap(records, width, i, j);
+            }
+
+            // Recursing into the smaller side bounds the stack
+            if(j + 1 - from < to - j - 1)
+            {
+                sort(records, width, from, j + 1, pivot);
+                from = j + 1;
+            }
+            else
+            {
+                sort(records, width, j + 1, to, pivot);
+                to = j + 1;
+            }
+        }
+
+        for(int i = from + 1; i < to; i++)
+        {
+            for(int j = i; j > from && compare(records, j * width, records, (j - 1) * width, width) < 0; j--)
+            {
+                swap(records, width, j, j - 1);
+            }
+        }
+    }
+
+    // Compares the records starting at offset a of x and offset b of y
+    private static int compare(long[] x, int a, long[] y, int b, int width)
+    {
+        for(int i = 0; i < width; i++)
+        {
+            int order = Long.compare(x[a + i], y[b + i]);
+            if(order != 0) return order;
+        }
+        return 0;
+    }
+
+    private static void swap(long[] records, int width, int a, int b)
+    {
+        for(int i = 0; i < width; i++)
+        {
+            long value = records[a * width + i];
+            records[a * width + i] = records[b * width + i];
+            records[b * width + i] = value;
+        }
+    }
+
+    /**
+     * Opens a buffered writer of values.
+     *
+     * @param file The file, which is replaced
+     * @return The writer
+     * @throws IOException If the file cannot be opened
+     */
+    public static DataOutputStream writer(Path file) throws IOException
+    {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE));
+    }
+
+    /**
+     * Takes merged records in order.
+     */
+    public interface Sink
+    {
+        /**
+         * Takes the next record. The array is reused for the records after it.
+         *
+         * @param record The values of the record
+         * @throws IOException If the record cannot be taken
+         */
+        void accept(long[] record) throws IOException;
+    }
+
+    /**
+     * Reads a file of records front to back.
+     */
+    public static final class Reader implements Closeable
+    {
+        private final Path            file;
+        private final DataInputStream in;
+        private final long[]          record;
+
+        /**
+         * Opens a file of single values.
+         *
+         * @param file The file
+         * @throws IOException If the file cannot be opened
+         * @see #Reader(Path, int)
+         */
+        public Reader(Path file) throws IOException
+        {
+            this(file, 1);
+        }
+
+        /**
+         * Opens a file of records.
+         *
+         * @param file  The file
+         * @param width The amount of values per record
+         * @throws IOException If the file cannot be opened
+         */
+        public Reader(Path file, int width) throws IOException
+        {
+            this.file = file;
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE));
+            this.record = new long[width];
+        }
+
+        /**
+         * Moves on to the next record.
+         *
+         * @return True if there is a next record, false at the end of the file
+         * @throws IOException If the file cannot be read or ends within a record
+         */
+        public boolean next() throws IOException
+        {
+            try
+            {
+                record[0] = in.readLong();
+            }
+            catch(EOFException e)
+            {
+                return false;
+            }
+            try
+            {
+                for(int i = 1; i < record.length; i++)
+                {
+                    record[i] = in.readLong();
+                }
+            }
+            catch(EOFException e)
+            {
+                throw new IOException(file + " ends within a record", e);
+            }
+            return true;
+        }
+
+        /**
+         * Returns the first value of the current record.
+         *
+         * @return The value read by the last call to {@link #next()}
+         */
+        public long get()
+        {
+            return record[0];
+        }
+
+        /**
+         * Returns a value of the current record.
+         *
+         * @param index The index of the value within the record
+         * @return The value read by the last call to {@link #next()}
+         */
+        public long get(int index)
+        {
+            return record[index];
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void close() throws IOException
+        {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/**
+ * A batch job printing aggregate statistics over archived games. Each archive is
+ * streamed from disk and replayed on a fork-join pool, with every worker filling
+ * its own {@code GameStats} that are merged at the end.
+ * <p>
+ * Usage: {@code GameAnalytics [-threads n] archive...}
+ *
+ * @see GameArchive
+ */
+public final class GameAnalytics
+{
+    private GameAnalytics()
+    {
+    }
+
+    /**
+     * The entry point of the job.
+     *
+     * @param args Command line arguments
+     * @throws Exception If an archive cannot be read
+     */
+    public static void main(String[] args) throws Exception
+    {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int first   = 0;
+        if(args.length >= 2 && args[0].equals("-threads"))
+        {
+            threads = Integer.parseInt(args[1]);
+            first = 2;
+        }
+        if(first >= args.length)
+        {
+            System.err.println("Usage: GameAnalytics [-threads n] archive...");
+            System.exit(1);
+        }
+
+        Path[] archives = new Path[args.length - first];
+        for(int i = first; i < args.length; i++)
+        {
+            archives[i - first] = Paths.get(args[i]);
+        }
+
+        long      start = System.nanoTime();
+        GameStats stats = analyze(new ForkJoinPool(threads), archives);
+        double    secs  = (System.nanoTime() - start) / 1e9;
+
+        long total = stats.getGames() + stats.getUnfinishedGames() + stats.getInvalidGames();
+        System.out.printf("Games:            %d finished, %d unfinished, %d invalid (%.0f games/s)%n",
+                          stats.getGames(), stats.getUnfinishedGames(), stats.getInvalidGames(), total / secs);
+        System.out.printf("Average length:   %.2f moves%n", stats.getAverageLength());
+        System.out.printf("Extra turns:      %.2f%% of moves%n", stats.getExtraTurnRate() * 100);
+        System.out.printf("Captures:         %.2f%% of moves%n", stats.getCaptureRate() * 100);
+        for(int stones = MancalaGame.MIN_INITIAL_STONES; stones <= MancalaGame.MAX_INITIAL_STONES; stones++)
+        {
+            if(stats.getGames(stones) == 0) continue;
+
+            System.out.printf("%n%d stones: %d games, first player wins %.2f%%%n",
+                              stones, stats.getGames(stones), stats.getFirstPlayerWinRate(stones) * 100);
+            for(int move = 0; move < MancalaGame.MAX_PITS; move++)
+            {
+                System.out.printf("  first move %d: %10d games, first player wins %6.2f%%%n",
+                                  move, stats.getGames(stones, move), stats.getWinRate(stones, move) * 100);
+            }
+        }
+    }
+
+    /**
+     * Replays every game in {@code archives} on {@code pool} and returns the merged statistics.
+     *
+     * @param pool     The pool to replay on
+     * @param archives The archive files
+     * @return The statistics
+     * @throws IOException If an archive cannot be read
+     */
+    public static GameStats analyze(ForkJoinPool pool, Path... archives) throws IOException
+    {
+        GameStats stats = new GameStats();
+        for(Path archive : archives)
+        {
+            // Lines that are no game are counted as invalid rather than failing the job
+            try(Stream<String> lines = GameArchive.lines(archive))
+            {
+                // Running the terminal operation inside the pool makes the stream use its threads
+                stats.combine(pool.submit(() -> lines.parallel()
+                                                     .map(GameArchive::tryParse)
+                                                     .collect(GameStats::new, GameStats::accept,
+                                                              GameStats::combine)).get());
+            }
+            catch(InterruptedException | ExecutionException e)
+            {
+                throw new IOException("Could not analyze " + archive, e);
+            }
+        }
+        return stats;
+    }
+}
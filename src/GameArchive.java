@@ -0,0 +1,120 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+/**
+ * Reads and writes archived games. An archive is a text file with one game per
+ * line: the game identifier, the amount of stones each pit started with and then
+ * the selected pit of every committed move, separated by spaces. Blank lines and
+ * lines starting with {@code #} are ignored, as is white space around a line,
+ * such as the carriage return of a Windows line ending.
+ * <pre>
+ * # id stones moves...
+ * 17 4 2 5 0 3 ...
+ * </pre>
+ */
+public final class GameArchive
+{
+    private GameArchive()
+    {
+    }
+
+    /**
+     * Returns a lazily populated stream of the games in {@code path}. The file is
+     * read as the stream is consumed, so archives of any size can be processed.
+     * The stream should be closed after use.
+     *
+     * @param path The archive file
+     * @return The games
+     * @throws IOException If the file cannot be opened
+     */
+    public static Stream<GameRecord> read(Path path) throws IOException
+    {
+        return lines(path).map(GameArchive::parse);
+    }
+
+    /**
+     * Returns a lazily populated stream of the trimmed game lines in {@code path},
+     * without blank lines and comments. Jobs that should count malformed lines
+     * rather than fail on them parse these with {@link #tryParse(String)}. The
+     * stream should be closed after use.
+     *
+     * @param path The archive file
+     * @return The lines
+     * @throws IOException If the file cannot be opened
+     */
+    public static Stream<String> lines(Path path) throws IOException
+    {
+        return Files.lines(path, StandardCharsets.US_ASCII)
+                    .map(String::trim)
+                    .filter(line -> !line.isEmpty() && line.charAt(0) != '#');
+    }
+
+    /**
+     * Parses one line of an archive.
+     *
+     * @param line The line
+     * @return The game
+     * @throws IllegalArgumentException If the line is not a valid game
+     */
+    public static GameRecord parse(String line)
+    {
+        GameRecord game = tryParse(line);
+        if(game == null) throw new IllegalArgumentException("Not a game: " + line);
+        return game;
+    }
+
+    /**
+     * Parses one line of an archive, or returns null if it is not a valid game.
+     *
+     * @param line The line
+     * @return The game, or null
+     */
+    public static GameRecord tryParse(String line)
+    {
+        line = line.trim();
+        // Count the fields first so the moves array is allocated once
+        int fields = 0;
+        for(int i = 0; i < line.length(); i++)
+        {
+            if(line.charAt(i) != ' ' && (i == 0 || line.charAt(i - 1) == ' ')) fields++;
+        }
+        if(fields < 2) return null;
+
+        long  id     = 0;
+        int   stones = 0;
+        int[] moves  = new int[fields - 2];
+        int   field  = -1;
+        for(int i = 0; i < line.length(); i++)
+        {
+            char c = line.charAt(i);
+            if(c == ' ') continue;
+            if(c < '0' || c > '9') return null;
+
+            if(i == 0 || line.charAt(i - 1) == ' ') field++;
+            if(field == 0) id = id * 10 + c - '0';
+            else if(field == 1) stones = stones * 10 + c - '0';
+            else moves[field - 2] = moves[field - 2] * 10 + c - '0';
+        }
+        return new GameRecord(id, stones, moves);
+    }
+
+    /**
+     * Formats a game as one line of an archive, without the line separator.
+     *
+     * @param game The game
+     * @return The line
+     */
+    public static String format(GameRecord game)
+    {
+        StringBuilder builder = new StringBuilder();
+        builder.append(game.getId()).append(' ').append(game.getInitialStones());
+        for(int i = 0; i < game.getMoveCount(); i++)
+        {
+            builder.append(' ').append(game.getMove(i));
+        }
+        return builder.toString();
+    }
+}
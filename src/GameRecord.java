@@ -0,0 +1,81 @@
+import java.util.Arrays;
+
+/**
+ * A recorded game: an identifier, the amount of stones each pit started with and
+ * the pits selected by every committed move, in order. Whose move each selection
+ * was follows from the rules, so it is not stored.
+ *
+ * @see GameArchive
+ */
+public final class GameRecord
+{
+    private final long  id;
+    private final int   initialStones;
+    private final int[] moves;
+
+    /**
+     * Constructs a new game record.
+     *
+     * @param id            The game identifier
+     * @param initialStones The amount of stones each pit started with
+     * @param moves         The selected pits
+     */
+    public GameRecord(long id, int initialStones, int[] moves)
+    {
+        this.id = id;
+        this.initialStones = initialStones;
+        this.moves = moves;
+    }
+
+    /**
+     * Returns the game identifier.
+     *
+     * @return The identifier
+     */
+    public long getId()
+    {
+        return id;
+    }
+
+    /**
+     * Returns the amount of stones each pit started with.
+     *
+     * @return The initial amount of stones
+     */
+    public int getInitialStones()
+    {
+        return initialStones;
+    }
+
+    /**
+     * Returns the amount of moves in the game.
+     *
+     * @return The amount of moves
+     */
+    public int getMoveCount()
+    {
+        return moves.length;
+    }
+
+    /**
+     * Returns the pit selected by move {@code index}.
+     *
+     * @param index The move index, starting at 0
+     * @return The selected pit
+     */
+    public int getMove(int index)
+    {
+        return moves[index];
+    }
+
+    /**
+     * Returns a string representation of the class showing its data. Useful debugging.
+     *
+     * @return A string
+     */
+    @Override
+    public String toString()
+    {
+        return String.format("GameRecord[id=%d, initialStones=%d, moves=%s]", id, initialStones, Arrays.toString(moves));
+    }
+}
@@ -0,0 +1,250 @@
+/**
+ * Aggregate statistics over archived games. Each game is replayed through the
+ * {@code Rules.KALAH} engine, the same rules {@code MancalaGame} plays by default,
+ * and counted into primitive fields. An instance is meant to be filled by one
+ * thread and merged with the other threads' instances at the end, which is how
+ * {@code Stream.collect} uses it.
+ *
+ * @see GameAnalytics
+ */
+public final class GameStats
+{
+    private static final int STONE_COUNTS = MancalaGame.MAX_INITIAL_STONES - MancalaGame.MIN_INITIAL_STONES + 1;
+
+    /* Totals over finished games */
+    private long games;
+    private long moves;
+    private long extraTurns;
+    private long captures;
+    /* Games that were left out */
+    private long unfinishedGames;
+    private long invalidGames;
+
+    // Games and first player wins by initial stone count
+    private final long[] gamesByStones     = new long[STONE_COUNTS];
+    private final long[] winsByStones      = new long[STONE_COUNTS];
+    // Games and first player wins by initial stone count and first move
+    private final long[] gamesByFirstMove  = new long[STONE_COUNTS * MancalaGame.MAX_PITS];
+    private final long[] winsByFirstMove   = new long[STONE_COUNTS * MancalaGame.MAX_PITS];
+
+    // Scratch board reused for every replay
+    private final int[] board = new int[Rules.BOARD_SIZE];
+
+    /**
+     * Replays a game and adds it to the statistics. Games with illegal moves or
+     * moves after the end are counted as invalid, and games that stop before the
+     * end are counted as unfinished; neither is part of the other statistics.
+     *
+     * @param game The game, or null for an archive line that is no game, which is
+     *             counted as invalid
+     * @see GameArchive#tryParse(String)
+     */
+    public void accept(GameRecord game)
+    {
+        if(game == null)
+        {
+            invalidGames++;
+            return;
+        }
+
+        int stones = game.getInitialStones();
+        if(stones < MancalaGame.MIN_INITIAL_STONES || stones > MancalaGame.MAX_INITIAL_STONES ||
+           game.getMoveCount() == 0)
+        {
+            invalidGames++;
+            return;
+        }
+
+        for(int i = 0; i < Rules.BOARD_SIZE; i++)
+        {
+            board[i] = i % (MancalaGame.MAX_PITS + 1) == MancalaGame.MAX_PITS ? 0 : stones;
+        }
+
+        int player  = MancalaGame.PLAYER_A;
+        int winner  = -1;
+        int extra   = 0;
+        int capture = 0;
+        for(int i = 0; i < game.getMoveCount(); i++)
+        {
+            int position = game.getMove(i);
+            if(winner != -1 || position < 0 || position >= MancalaGame.MAX_PITS)
+            {
+                invalidGames++;
+                return;
+            }
+
+            int result = Rules.KALAH.move(board, player, position);
+            if(result == Rules.ILLEGAL)
+            {
+                invalidGames++;
+                return;
+            }
+
+            if((result & Rules.EXTRA_TURN) != 0) extra++;
+            else player ^= 1;
+            if((result & Rules.CAPTURE) != 0) capture++;
+
+            winner = Rules.KALAH.finish(board, player);
+        }
+
+        if(winner == -1)
+        {
+            unfinishedGames++;
+            return;
+        }
+
+        int stoneIndex = stones - MancalaGame.MIN_INITIAL_STONES;
+        int moveIndex  = stoneIndex * MancalaGame.MAX_PITS + game.getMove(0);
+        int win        = winner == MancalaGame.PLAYER_A ? 1 : 0;
+
+        games++;
+        moves += game.getMoveCount();
+        extraTurns += extra;
+        captures += capture;
+        gamesByStones[stoneIndex]++;
+        winsByStones[stoneIndex] += win;
+        gamesByFirstMove[moveIndex]++;
+        winsByFirstMove[moveIndex] += win;
+    }
+
+    /**
+     * Adds the statistics of {@code other} to these statistics.
+     *
+     * @param other The other statistics
+     */
+    public void combine(GameStats other)
+    {
+        games += other.games;
+        moves += other.moves;
+        extraTurns += other.extraTurns;
+        captures += other.captures;
+        unfinishedGames += other.unfinishedGames;
+        invalidGames += other.invalidGames;
+        for(int i = 0; i < STONE_COUNTS; i++)
+        {
+            gamesByStones[i] += other.gamesByStones[i];
+            winsByStones[i] += other.winsByStones[i];
+        }
+        for(int i = 0; i < gamesByFirstMove.length; i++)
+        {
+            gamesByFirstMove[i] += other.gamesByFirstMove[i];
+            winsByFirstMove[i] += other.winsByFirstMove[i];
+        }
+    }
+
+    /**
+     * Returns the amount of finished games.
+     *
+     * @return The amount of games
+     */
+    public long getGames()
+    {
+        return games;
+    }
+
+    /**
+     * Returns the amount of games that stopped before the end.
+     *
+     * @return The amount of games
+     */
+    public long getUnfinishedGames()
+    {
+        return unfinishedGames;
+    }
+
+    /**
+     * Returns the amount of games that could not be replayed.
+     *
+     * @return The amount of games
+     */
+    public long getInvalidGames()
+    {
+        return invalidGames;
+    }
+
+    /**
+     * Returns the average amount of moves in a finished game.
+     *
+     * @return The average game length
+     */
+    public double getAverageLength()
+    {
+        return ratio(moves, games);
+    }
+
+    /**
+     * Returns the fraction of moves that earned an extra turn.
+     *
+     * @return The extra turn frequency
+     */
+    public double getExtraTurnRate()
+    {
+        return ratio(extraTurns, moves);
+    }
+
+    /**
+     * Returns the fraction of moves that captured stones.
+     *
+     * @return The capture frequency
+     */
+    public double getCaptureRate()
+    {
+        return ratio(captures, moves);
+    }
+
+    /**
+     * Returns the amount of finished games that started with {@code stones} stones per pit.
+     *
+     * @param stones The initial amount of stones
+     * @return The amount of games
+     */
+    public long getGames(int stones)
+    {
+        return gamesByStones[stones - MancalaGame.MIN_INITIAL_STONES];
+    }
+
+    /**
+     * Returns the fraction of games won by the player who moved first, which is
+     * always player A, for games that started with {@code stones} stones per pit.
+     *
+     * @param stones The initial amount of stones
+     * @return The first player's win rate
+     */
+    public double getFirstPlayerWinRate(int stones)
+    {
+        int i = stones - MancalaGame.MIN_INITIAL_STONES;
+        return ratio(winsByStones[i], gamesByStones[i]);
+    }
+
+    /**
+     * Returns the amount of finished games that started with {@code stones} stones
+     * per pit and opened with {@code firstMove}.
+     *
+     * @param stones    The initial amount of stones
+     * @param firstMove The first selected pit
+     * @return The amount of games
+     */
+    public long getGames(int stones, int firstMove)
+    {
+        return gamesByFirstMove[(stones - MancalaGame.MIN_INITIAL_STONES) * MancalaGame.MAX_PITS + firstMove];
+    }
+
+    /**
+     * Returns the first player's win rate in games that started with {@code stones}
+     * stones per pit and opened with {@code firstMove}.
+     *
+     * @param stones    The initial amount of stones
+     * @param firstMove The first selected pit
+     * @return The win rate
+     */
+    public double getWinRate(int stones, int firstMove)
+    {
+        int i = (stones - MancalaGame.MIN_INITIAL_STONES) * MancalaGame.MAX_PITS + firstMove;
+        return ratio(winsByFirstMove[i], gamesByFirstMove[i]);
+    }
+
+    private static double ratio(long count, long total)
+    {
+        return total == 0 ? Double.NaN : (double) count / total;
+    }
+}
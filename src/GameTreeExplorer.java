@@ -0,0 +1,183 @@
+import javax.swing.*;
+import javax.swing.event.TreeExpansionEvent;
+import javax.swing.event.TreeExpansionListener;
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.TreePath;
+import javax.swing.tree.TreeSelectionModel;
+import java.awt.*;
+import java.util.Enumeration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A view for browsing the moves from a position, built on a {@code GameTreeModel}.
+ * The tree is a large model tree with a fixed row height, so it keeps layout
+ * state for the expanded nodes only and paints just the rows in sight, however
+ * many nodes lie below them. The selected node's position is shown on a
+ * {@code Board} above the tree.
+ */
+public final class GameTreeExplorer extends JPanel
+{
+    private static final int ROW_HEIGHT = 22;
+
+    private final GameTreeModel model;
+    private final JTree         tree;
+    private final Board         board;
+    private final JLabel        status;
+    private final int[]         position = new int[Rules.BOARD_SIZE];
+
+    /**
+     * Constructs a new explorer.
+     *
+     * @param rules  The rule variant
+     * @param start  The board array of the position to explore from
+     * @param player The player to move
+     * @param pool   The pool computing the nodes
+     * @param budget The amount of nodes kept in memory besides those of expanded nodes
+     */
+    public GameTreeExplorer(Rules rules, int[] start, int player, ExecutorService pool, int budget)
+    {
+        super(new BorderLayout());
+        model = new GameTreeModel(rules, start, player, pool, budget);
+        tree = new JTree(model);
+        tree.setLargeModel(true);
+        tree.setRowHeight(ROW_HEIGHT);
+        tree.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 13));
+        tree.getSelectionModel().setSelectionMode(TreeSelectionModel.SINGLE_TREE_SELECTION);
+        // The board only shows positions, so the game behind it is never played
+        board = new Board(new MancalaGame());
+        board.setPreferredSize(new Dimension(640, 200));
+        status = new JLabel(" ");
+
+        tree.addTreeExpansionListener(new TreeExpansionListener()
+        {
+            @Override
+            public void treeExpanded(TreeExpansionEvent event)
+            {
+                model.setExpanded(event.getPath().getLastPathComponent(), true);
+                // The tree opens the nodes that were expanded below this one again
+                // without telling its listeners, so their children are kept as well
+                Enumeration<TreePath> descendants = tree.getExpandedDescendants(event.getPath());
+                while(descendants != null && descendants.hasMoreElements())
+                {
+                    model.setExpanded(descendants.nextElement().getLastPathComponent(), true);
+                }
+                updateStatus();
+            }
+
+            @Override
+            public void treeCollapsed(TreeExpansionEvent event)
+            {
+                model.setExpanded(event.getPath().getLastPathComponent(), false);
+                updateStatus();
+            }
+        });
+        model.addTreeModelListener(new TreeModelListener()
+        {
+            @Override
+            public void treeNodesChanged(TreeModelEvent event)
+            {
+            }
+
+            @Override
+            public void treeNodesInserted(TreeModelEvent event)
+            {
+            }
+
+            @Override
+            public void treeNodesRemoved(TreeModelEvent event)
+            {
+            }
+
+            @Override
+            public void treeStructureChanged(TreeModelEvent event)
+            {
+                // After the tree has taken the change in
+                SwingUtilities.invokeLater(GameTreeExplorer.this::updateStatus);
+            }
+        });
+        tree.addTreeSelectionListener(e -> {
+            Object node = tree.getLastSelectedPathComponent();
+            if(node instanceof GameTreeModel.Node)
+            {
+                board.setPosition(((GameTreeModel.Node) node).getBoard(position));
+            }
+        });
+        board.setPosition(start);
+
+        JSplitPane split = new JSplitPane(JSplitPane.VERTICAL_SPLIT, board, new JScrollPane(tree));
+        split.setResizeWeight(0.3);
+        add(split, BorderLayout.CENTER);
+        add(status, BorderLayout.PAGE_END);
+        updateStatus();
+    }
+
+    /**
+     * Returns the model of the tree.
+     *
+     * @return The model
+     */
+    public GameTreeModel getModel()
+    {
+        return model;
+    }
+
+    private void updateStatus()
+    {
+        status.setText(String.format(" %,d nodes in memory, %,d rows", model.getCachedCount(), tree.getRowCount()));
+    }
+
+    /**
+     * Opens an explorer for a position in a window of its own.
+     *
+     * @param owner  The window the explorer belongs to, or null
+     * @param rules  The rule variant
+     * @param start  The board array of the position
+     * @param player The player to move
+     * @param pool   The pool computing the nodes
+     */
+    public static void showWindow(Window owner, Rules rules, int[] start, int player, ExecutorService pool)
+    {
+        JFrame frame = new JFrame("Mancala Game Tree");
+        frame.setContentPane(new GameTreeExplorer(rules, start, player, pool, GameTreeModel.DEFAULT_BUDGET));
+        frame.setSize(900, 700);
+        frame.setLocationRelativeTo(owner);
+        frame.setDefaultCloseOperation(owner == null ? WindowConstants.EXIT_ON_CLOSE
+                                                     : WindowConstants.DISPOSE_ON_CLOSE);
+        frame.setVisible(true);
+    }
+
+    /**
+     * Explores the opening position from the command line.
+     * <p>
+     * Usage: {@code GameTreeExplorer [-threads n] [stones]}
+     *
+     * @param args Command line arguments
+     */
+    public static void main(String[] args)
+    {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int stones  = MancalaGame.MAX_INITIAL_STONES;
+        int i       = 0;
+        if(args.length > 1 && args[0].equals("-threads"))
+        {
+            threads = Integer.parseInt(args[1]);
+            i = 2;
+        }
+        if(args.length - i > 1)
+        {
+            System.err.println("Usage: GameTreeExplorer [-threads n] [stones]");
+            System.exit(1);
+        }
+        if(i < args.length) stones = Integer.parseInt(args[i]);
+
+        ExecutorService pool  = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "Explorer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        int[]           start = Rules.newBoard(stones);
+        SwingUtilities.invokeLater(() -> showWindow(null, Rules.KALAH, start, MancalaGame.PLAYER_A, pool));
+    }
+}
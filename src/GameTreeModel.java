@@ -0,0 +1,527 @@
+import javax.swing.*;
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.TreeModel;
+import javax.swing.tree.TreePath;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * A tree model of the moves from a position, whose nodes are the positions after
+ * every pit the player to move can select. A move earning an extra turn leads to
+ * a node where the same player moves again, so extra turn chains are paths down
+ * the tree.
+ * <p>
+ * Children are computed only when a view asks for them, on a background pool,
+ * together with a search score for each. Until they arrive the node shows a
+ * single {@link #LOADING} child. Computed children are kept in a cache ordered by
+ * use, which drops the least recently used ones once the cache holds more nodes
+ * than its budget, except those of expanded nodes. Nodes are values identified by
+ * their moves from the root, so children computed again equal the dropped ones
+ * and the view keeps its paths.
+ * <p>
+ * Apart from the pool's work, the model is only used on the event dispatch thread.
+ */
+public final class GameTreeModel implements TreeModel
+{
+    /**
+     * The child shown while the children of a node are being computed.
+     */
+    public static final String LOADING = "Loading...";
+
+    /**
+     * The default amount of nodes the cache holds.
+     */
+    public static final int DEFAULT_BUDGET = 100_000;
+
+    /**
+     * The depth of the search scoring every move, including the move itself.
+     */
+    public static final int SCORE_DEPTH = 6;
+
+    private final Rules                   rules;
+    private final Node                    root;
+    private final ExecutorService         pool;
+    private final int                     budget;
+    private final List<TreeModelListener> listeners = new ArrayList<>();
+
+    /* Cache */
+    private final LinkedHashMap<Node, Node[]> children = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<Node>                   expanded = new HashSet<>();
+    private final Set<Node>                   loading  = new HashSet<>();
+    private int                               cached;
+
+    /**
+     * Constructs a new model.
+     *
+     * @param rules  The rule variant
+     * @param board  The board array of the root position. See {@code Rules} for the layout
+     * @param player The player to move at the root
+     * @param pool   The pool computing the children
+     * @param budget The amount of nodes the cache holds besides those of expanded nodes
+     */
+    public GameTreeModel(Rules rules, int[] board, int player, ExecutorService pool, int budget)
+    {
+        this.rules = rules;
+        this.pool = pool;
+        this.budget = budget;
+        int[] copy = board.clone();
+        root = new Node(null, -1, 0, rules.finish(copy, player), PositionCodec.encode(copy, player), Float.NaN);
+        // Views show the root expanded without telling
+        expanded.add(root);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object getRoot()
+    {
+        return root;
+    }
+
+    /**
+     * Returns the children of a node, or the {@link #LOADING} child while they are
+     * being computed.
+     * <p>
+     * {@inheritDoc}
+     */
+    @Override
+    public Object getChild(Object parent, int index)
+    {
+        Node[] nodes = getChildren(parent);
+        return nodes == null ? LOADING : nodes[index];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getChildCount(Object parent)
+    {
+        if(isLeaf(parent)) return 0;
+        Node[] nodes = getChildren(parent);
+        return nodes == null ? 1 : nodes.length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isLeaf(Object node)
+    {
+        return node == LOADING || ((Node) node).isGameOver();
+    }
+
+    /**
+     * Does nothing, since the nodes cannot be edited.
+     * <p>
+     * {@inheritDoc}
+     */
+    @Override
+    public void valueForPathChanged(TreePath path, Object newValue)
+    {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getIndexOfChild(Object parent, Object child)
+    {
+        if(parent == null || child == null || isLeaf(parent)) return -1;
+        Node[] nodes = children.get(parent);
+        if(nodes == null) return child == LOADING ? 0 : -1;
+        for(int i = 0; i < nodes.length; i++)
+        {
+            if(nodes[i].equals(child)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addTreeModelListener(TreeModelListener listener)
+    {
+        listeners.add(listener);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeTreeModelListener(TreeModelListener listener)
+    {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Keeps the children of an expanded node in the cache until it is collapsed.
+     *
+     * @param node     The node
+     * @param expanded True if the node was expanded, false if it was collapsed
+     */
+    public void setExpanded(Object node, boolean expanded)
+    {
+        if(!(node instanceof Node)) return;
+        if(expanded)
+        {
+            this.expanded.add((Node) node);
+            return;
+        }
+
+        // The view forgets the expanded nodes below a collapsed one as far as the cache is concerned
+        for(Iterator<Node> iterator = this.expanded.iterator(); iterator.hasNext(); )
+        {
+            if(iterator.next().descendsFrom((Node) node)) iterator.remove();
+        }
+        evict(null);
+    }
+
+    /**
+     * Returns the amount of nodes in the cache.
+     *
+     * @return The amount of cached nodes
+     */
+    public int getCachedCount()
+    {
+        return cached;
+    }
+
+    /**
+     * Returns the amount of nodes whose children are being computed.
+     *
+     * @return The amount of nodes
+     */
+    public int getLoadingCount()
+    {
+        return loading.size();
+    }
+
+    // Returns the cached children, or starts computing them and returns null
+    private Node[] getChildren(Object parent)
+    {
+        Node   node  = (Node) parent;
+        Node[] nodes = children.get(node);
+        if(nodes == null && loading.add(node))
+        {
+            pool.execute(() -> {
+                Node[] computed = expand(node);
+                SwingUtilities.invokeLater(() -> loaded(node, computed));
+            });
+        }
+        return nodes;
+    }
+
+    // Stores children computed by the pool and tells the views
+    private void loaded(Node node, Node[] nodes)
+    {
+        loading.remove(node);
+        children.put(node, nodes);
+        cached += nodes.length;
+        evict(node);
+
+        TreeModelEvent event = new TreeModelEvent(this, node.getPath());
+        for(int i = listeners.size() - 1; i >= 0; i--)
+        {
+            listeners.get(i).treeStructureChanged(event);
+        }
+    }
+
+    // Drops the least recently used children over the budget, keeping those of expanded
+    // nodes and of the node just loaded, which the views are about to ask for
+    private void evict(Node keep)
+    {
+        Iterator<Map.Entry<Node, Node[]>> iterator = children.entrySet().iterator();
+        while(cached > budget && iterator.hasNext())
+        {
+            Map.Entry<Node, Node[]> entry = iterator.next();
+            if(entry.getKey() == keep || expanded.contains(entry.getKey())) continue;
+            cached -= entry.getValue().length;
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Computes the children of a node with their scores. Runs on the pool.
+     *
+     * @param node The node
+     * @return The children in pit order
+     */
+    private Node[] expand(Node node)
+    {
+        int[]      board  = new int[Rules.BOARD_SIZE];
+        int[]      child  = new int[Rules.BOARD_SIZE];
+        int        player = PositionCodec.decode(node.code, board);
+        float[]    scores = new float[MancalaGame.MAX_PITS];
+        MoveSearch search = new MoveSearch(rules, player, SCORE_DEPTH, () -> false);
+        search.scorePits(board, SCORE_DEPTH, scores);
+
+        List<Node> nodes = new ArrayList<>(MancalaGame.MAX_PITS);
+        for(int pit = 0; pit < MancalaGame.MAX_PITS; pit++)
+        {
+            System.arraycopy(board, 0, child, 0, Rules.BOARD_SIZE);
+            int result = rules.move(child, player, pit);
+            if(result == Rules.ILLEGAL) continue;
+
+            int next   = (result & Rules.EXTRA_TURN) != 0 ? player : player ^ 1;
+            int winner = rules.finish(child, next);
+            nodes.add(new Node(node, pit, result, winner, PositionCodec.encode(child, next), scores[pit]));
+        }
+        return nodes.toArray(new Node[nodes.size()]);
+    }
+
+    /**
+     * A position in the tree and the move leading to it. Two nodes are equal if
+     * they are reached by the same moves from the same root.
+     */
+    public static final class Node
+    {
+        private final Node  parent;
+        private final int   pit;
+        private final int   result;
+        private final int   winner;
+        private final long  code;
+        private final float score;
+        private final int   depth;
+        private final int   hash;
+
+        private Node(Node parent, int pit, int result, int winner, long code, float score)
+        {
+            this.parent = parent;
+            this.pit = pit;
+            this.result = result;
+            this.winner = winner;
+            this.code = code;
+            this.score = score;
+            this.depth = parent == null ? 0 : parent.depth + 1;
+            this.hash = parent == null ? Long.hashCode(code) : parent.hash * 31 + pit;
+        }
+
+        /**
+         * Returns the pit selected to reach this node.
+         *
+         * @return The position of the pit, or -1 for the root
+         */
+        public int getPit()
+        {
+            return pit;
+        }
+
+        /**
+         * Returns the player who selected the pit.
+         *
+         * @return The player, or -1 for the root
+         */
+        public int getMover()
+        {
+            return parent == null ? -1 : PositionCodec.getPlayer(parent.code);
+        }
+
+        /**
+         * Returns the player to move in this node's position.
+         *
+         * @return The player
+         */
+        public int getPlayer()
+        {
+            return PositionCodec.getPlayer(code);
+        }
+
+        /**
+         * Checks if the move earned an extra turn.
+         *
+         * @return True for an extra turn
+         */
+        public boolean isExtraTurn()
+        {
+            return (result & Rules.EXTRA_TURN) != 0;
+        }
+
+        /**
+         * Checks if the move captured stones.
+         *
+         * @return True for a capture
+         */
+        public boolean isCapture()
+        {
+            return (result & Rules.CAPTURE) != 0;
+        }
+
+        /**
+         * Checks if the game is over in this node's position.
+         *
+         * @return True if the game is over
+         */
+        public boolean isGameOver()
+        {
+            return winner != -1;
+        }
+
+        /**
+         * Returns the winning player of this node's position.
+         *
+         * @return The winner, or -1 if the game goes on
+         */
+        public int getWinningPlayer()
+        {
+            return winner;
+        }
+
+        /**
+         * Returns the search score of the move for the player who made it.
+         *
+         * @return The score, or NaN for the root
+         */
+        public float getScore()
+        {
+            return score;
+        }
+
+        /**
+         * Returns the amount of moves from the root.
+         *
+         * @return The depth
+         */
+        public int getDepth()
+        {
+            return depth;
+        }
+
+        /**
+         * Copies the board array of this node's position.
+         *
+         * @param dst An array of at least {@code Rules.BOARD_SIZE} entries
+         * @return {@code dst}
+         */
+        public int[] getBoard(int[] dst)
+        {
+            PositionCodec.decode(code, dst);
+            return dst;
+        }
+
+        /**
+         * Returns the path from the root to this node.
+         *
+         * @return The path
+         */
+        public TreePath getPath()
+        {
+            Object[] path = new Object[depth + 1];
+            for(Node node = this; node != null; node = node.parent)
+            {
+                path[node.depth] = node;
+            }
+            return new TreePath(path);
+        }
+
+        /**
+         * Checks if this node is {@code ancestor} or lies below it.
+         *
+         * @param ancestor The node
+         * @return True if this node descends from {@code ancestor}
+         */
+        public boolean descendsFrom(Node ancestor)
+        {
+            Node node = this;
+            while(node != null && node.depth > ancestor.depth)
+            {
+                node = node.parent;
+            }
+            return ancestor.equals(node);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean equals(Object other)
+        {
+            if(this == other) return true;
+            if(!(other instanceof Node)) return false;
+
+            Node a = this;
+            Node b = (Node) other;
+            while(a != b)
+            {
+                if(a.hash != b.hash || a.depth != b.depth || a.pit != b.pit || a.code != b.code) return false;
+                a = a.parent;
+                b = b.parent;
+            }
+            return true;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+
+        /**
+         * Returns a one-line description of the move and the position, as shown in
+         * the tree.
+         *
+         * @return A string
+         */
+        @Override
+        public String toString()
+        {
+            int[]         board = getBoard(new int[Rules.BOARD_SIZE]);
+            StringBuilder text  = new StringBuilder();
+            if(parent == null)
+            {
+                text.append("Start, ");
+            }
+            else
+            {
+                text.append(getMover() == MancalaGame.PLAYER_A ? "A" : "B").append(" pit ").append(pit + 1);
+                if(isCapture()) text.append(", capture");
+                if(isExtraTurn()) text.append(", extra turn");
+                if(Math.abs(score) >= MoveSearch.WIN_SCORE)
+                {
+                    text.append(score > 0 ? ", wins" : ", loses");
+                }
+                else
+                {
+                    text.append(String.format(", score %+.0f", score));
+                }
+                text.append(" | ");
+            }
+
+            // Laid out as on the board: B's pits right to left above A's
+            text.append('[').append(board[Rules.store(MancalaGame.PLAYER_B)]).append("] ");
+            for(int j = MancalaGame.MAX_PITS - 1; j >= 0; j--)
+            {
+                text.append(board[Rules.pit(MancalaGame.PLAYER_B, j)]).append(j > 0 ? " " : " / ");
+            }
+            for(int j = 0; j < MancalaGame.MAX_PITS; j++)
+            {
+                text.append(board[Rules.pit(MancalaGame.PLAYER_A, j)]).append(' ');
+            }
+            text.append('[').append(board[Rules.store(MancalaGame.PLAYER_A)]).append(']');
+
+            if(winner != -1)
+            {
+                text.append(board[Rules.store(0)] == board[Rules.store(1)] ? ", draw"
+                                                                             : winner == MancalaGame.PLAYER_A
+                                                                               ? ", A wins" : ", B wins");
+            }
+            else
+            {
+                text.append(", ").append(getPlayer() == MancalaGame.PLAYER_A ? "A" : "B").append(" to move");
+            }
+            return text.toString();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+import javax.swing.*;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A background worker that scores each of the current player's pits while the
+ * player is thinking. The search runs off the event dispatch thread using
+ * iterative deepening, and every time a depth finishes the improved scores
+ * are published to the {@code Board}, which shades the pits accordingly.
+ * <p>
+ * The analyzer runs a {@code MoveSearch} on a board array copied from the game,
+ * so it never touches the models the views are listening to. Cancelling the
+ * worker stops the search at the next visited position.
+ */
+public final class HintAnalyzer extends SwingWorker<Void, float[]>
+{
+    /**
+     * The deepest search the analyzer will run before going idle.
+     */
+    public static final int MAX_DEPTH = 8;
+
+    private final int[]      position;
+    private final Board      board;
+    private final int        player;
+    private final MoveSearch search;
+
+    /**
+     * Constructs a new analyzer for the current position of {@code game}. Must
+     * be called on the event dispatch thread, since the position is copied here.
+     *
+     * @param game  The game to analyze
+     * @param board The board to shade
+     * @throws RuntimeException If the game has a pending commit
+     */
+    public HintAnalyzer(MancalaGame game, Board board)
+    {
+        if(game.hasPendingCommit()) throw new RuntimeException("The game's data has to be committed first");
+
+        this.position = game.copyPosition(new int[Rules.BOARD_SIZE]);
+        this.board = board;
+        this.player = game.getCurrentPlayer();
+        this.search = new MoveSearch(game.getRules(), player, MAX_DEPTH, this::isCancelled);
+    }
+
+    /**
+     * Runs the iterative deepening search, publishing the pit scores after
+     * every completed depth.
+     *
+     * @return Nothing
+     */
+    @Override
+    protected Void doInBackground()
+    {
+        float[] scores = new float[MancalaGame.MAX_PITS];
+        for(int depth = 1; depth <= MAX_DEPTH && !isCancelled(); depth++)
+        {
+            if(!search.scorePits(position, depth, scores)) return null;
+            publish(Arrays.copyOf(scores, scores.length));
+        }
+        return null;
+    }
+
+    /**
+     * Shades the board with the most recent scores. Runs on the event dispatch thread.
+     *
+     * @param chunks The scores published since the last call
+     */
+    @Override
+    protected void process(List<float[]> chunks)
+    {
+        if(isCancelled()) return;
+        board.setPitHints(player, normalize(chunks.get(chunks.size() - 1)));
+    }
+
+    /**
+     * Maps raw scores onto shades between 0 and 1, where the best pit is 1.
+     * Empty pits stay NaN so that they are not shaded.
+     *
+     * @param scores The raw scores
+     * @return The shades
+     */
+    private static float[] normalize(float[] scores)
+    {
+        float min = Float.POSITIVE_INFINITY;
+        float max = Float.NEGATIVE_INFINITY;
+        for(float score : scores)
+        {
+            if(Float.isNaN(score)) continue;
+            min = Math.min(min, score);
+            max = Math.max(max, score);
+        }
+
+        float[] shades = new float[scores.length];
+        for(int i = 0; i < scores.length; i++)
+        {
+            if(Float.isNaN(scores[i])) shades[i] = Float.NaN;
+            else shades[i] = max == min ? 1 : (scores[i] - min) / (max - min);
+        }
+        return shades;
+    }
+}
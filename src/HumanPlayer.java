@@ -0,0 +1,45 @@
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A person playing by clicking on the board. Registered as the board's listener,
+ * the player completes the pending move with the first click on a pit of the
+ * player whose turn it is.
+ */
+public final class HumanPlayer implements Player, Board.BoardListener
+{
+    private MancalaGame                game;
+    private CompletableFuture<Integer> pending;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<Integer> chooseMove(MancalaGame game)
+    {
+        this.game = game;
+        pending = new CompletableFuture<>();
+        return pending;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isHuman()
+    {
+        return true;
+    }
+
+    /**
+     * Completes the pending move if the click is on the current player's row.
+     *
+     * @param player   The player who owns the pit
+     * @param position The position of the pit
+     */
+    @Override
+    public void pitClicked(int player, int position)
+    {
+        if(pending == null || pending.isDone() || player != game.getCurrentPlayer()) return;
+        pending.complete(position);
+    }
+}
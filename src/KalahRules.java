@@ -0,0 +1,126 @@
+/**
+ * The standard Kalah rules. Stones are sown counterclockwise into the player's
+ * own store but not the opponent's, ending in the store earns another turn, and
+ * ending in an empty pit on the player's own row captures the opposite pit.
+ *
+ * @see Rules#KALAH
+ */
+public final class KalahRules implements Rules
+{
+    private static final int PITS = MancalaGame.MAX_PITS;
+    private static final int ROW  = MancalaGame.MAX_PITS + 1;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName()
+    {
+        return "Kalah";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int move(int[] board, int player, int position)
+    {
+        return move(board, player, position, true);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int finish(int[] board, int player)
+    {
+        return finish(board);
+    }
+
+    /**
+     * Ends the game if either row is empty. Shared with the strict capture variant.
+     *
+     * @param board The board array
+     * @return The winning player, or -1 if the game is still going
+     */
+    static int finish(int[] board)
+    {
+        for(int i = 0; i < MancalaGame.MAX_PLAYERS; i++)
+        {
+            int base = i * ROW;
+            if(board[base] + board[base + 1] + board[base + 2] +
+               board[base + 3] + board[base + 4] + board[base + 5] != 0)
+            {
+                continue;
+            }
+
+            // The opposite player collects the rest of their row
+            int other = (i ^ 1) * ROW;
+            for(int j = 0; j < PITS; j++)
+            {
+                board[other + PITS] += board[other + j];
+                board[other + j] = 0;
+            }
+
+            return board[PITS] > board[ROW + PITS] ? MancalaGame.PLAYER_A : MancalaGame.PLAYER_B;
+        }
+        return -1;
+    }
+
+    /**
+     * Plays a Kalah move. Shared with the strict capture variant; since the method
+     * is static and {@code captureEmpty} is a constant at each call site, the
+     * compiler specializes it for both variants.
+     *
+     * @param board        The board array
+     * @param player       The player making the move
+     * @param position     The position of the pit
+     * @param captureEmpty True if landing in an empty pit captures even when the opposite pit is empty
+     * @return {@code ILLEGAL}, or the result flags of the move
+     */
+    static int move(int[] board, int player, int position, boolean captureEmpty)
+    {
+        int row    = player;
+        int stones = board[row * ROW + position];
+        if(stones == 0) return ILLEGAL;
+
+        board[row * ROW + position++] = 0;
+
+        int result = 0;
+        while(stones > 0)
+        {
+            int base = row * ROW;
+            for(; position < PITS && stones > 0; position++)
+            {
+                board[base + position]++;
+                stones--;
+            }
+
+            if(stones > 0 && row == player)
+            {
+                board[base + PITS]++;
+                stones--;
+
+                if(stones == 0 && position == PITS) return result | EXTRA_TURN;
+            }
+
+            // Same capture rule as the original game: the pit before the current
+            // position was the last one sown, and the opposite pit mirrors its index
+            if(stones == 0 && row == player && board[base + position - 1] == 1)
+            {
+                int opposite = (row ^ 1) * ROW + PITS - position;
+                if(captureEmpty || board[opposite] != 0)
+                {
+                    board[base + PITS] += board[opposite] + 1;
+                    board[opposite] = 0;
+                    board[base + position - 1] = 0;
+                    result |= CAPTURE;
+                }
+            }
+
+            row ^= 1;
+            position = 0;
+        }
+        return result;
+    }
+}
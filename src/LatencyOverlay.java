@@ -0,0 +1,82 @@
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * A see-through view showing the click latency statistics of a
+ * {@code LatencyRecorder} in a corner, meant to be used as a frame's glass pane.
+ * The overlay repaints itself after every sample while it is showing.
+ */
+public final class LatencyOverlay extends JComponent
+{
+    private static final Font  OVERLAY_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 13);
+    private static final Color BACKGROUND   = new Color(0, 0, 0, 170);
+    private static final int   MARGIN       = 8;
+    private static final int   PADDING      = 6;
+
+    private final LatencyRecorder recorder;
+
+    /**
+     * Constructs a new overlay for {@code recorder}.
+     *
+     * @param recorder The recorder
+     */
+    public LatencyOverlay(LatencyRecorder recorder)
+    {
+        this.recorder = recorder;
+        setOpaque(false);
+    }
+
+    /**
+     * Shows or hides the overlay, following the recorder only while it is showing.
+     *
+     * @param visible True to show the overlay
+     */
+    @Override
+    public void setVisible(boolean visible)
+    {
+        super.setVisible(visible);
+        recorder.setSampleListener(visible ? this::repaint : null);
+    }
+
+    /**
+     * Paints the statistics in the top right corner.
+     *
+     * @param g The graphics object
+     */
+    @Override
+    protected void paintComponent(Graphics g)
+    {
+        String[] lines = {
+                String.format("clicks     %d", recorder.getCount()),
+                String.format("p50        %.1f ms", recorder.getPercentile(50) / 1000.0),
+                String.format("p99        %.1f ms", recorder.getPercentile(99) / 1000.0),
+                String.format("max        %.1f ms", recorder.getMax() / 1000.0),
+                String.format("paints     %.1f / click", recorder.getPaintsPerClick()),
+                String.format("listeners  %.1f / click", recorder.getListenersPerClick())
+        };
+
+        Graphics2D g2 = (Graphics2D) g;
+        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
+                            RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g2.setFont(OVERLAY_FONT);
+        FontMetrics metrics = g2.getFontMetrics();
+
+        int width = 0;
+        for(String line : lines)
+        {
+            width = Math.max(width, metrics.stringWidth(line));
+        }
+        width += PADDING * 2;
+        int height = metrics.getHeight() * lines.length + PADDING * 2;
+        int x      = getWidth() - width - MARGIN;
+        int y      = MARGIN;
+
+        g2.setColor(BACKGROUND);
+        g2.fillRoundRect(x, y, width, height, PADDING * 2, PADDING * 2);
+        g2.setColor(Color.WHITE);
+        for(int i = 0; i < lines.length; i++)
+        {
+            g2.drawString(lines[i], x + PADDING, y + PADDING + metrics.getAscent() + i * metrics.getHeight());
+        }
+    }
+}
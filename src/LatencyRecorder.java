@@ -0,0 +1,228 @@
+import javax.swing.*;
+import java.util.Arrays;
+
+/**
+ * Measures how long the board takes to answer a click. A click starts when the
+ * mouse event was created and ends once the repaints it caused have been
+ * painted; in between, the board counts the model listener callbacks it gets
+ * and the pits that paint themselves. Since a click may be answered by events
+ * it queues, such as a player's move being applied, the end is found by
+ * queueing checks behind the click until one sees that nothing was called or
+ * painted since the last one. Each click becomes one sample, and the
+ * latencies go into a histogram with buckets a power of two wide split into
+ * eight, so any percentile is known to within an eighth.
+ * <p>
+ * The recorder lives on the event dispatch thread, like the views feeding it,
+ * and is not thread safe.
+ *
+ * @see Board#setLatencyRecorder(LatencyRecorder)
+ */
+public final class LatencyRecorder
+{
+    // Latencies below this many microseconds get a bucket each
+    private static final int LINEAR_LIMIT = 16;
+    private static final int SUB_BITS     = 3;
+    private static final int SUB_BUCKETS  = 1 << SUB_BITS;
+    private static final int BUCKETS      = LINEAR_LIMIT + (Long.SIZE - 4) * SUB_BUCKETS;
+    // Checks queued before a click that keeps causing work is cut off
+    private static final int MAX_CHECKS   = 16;
+
+    private final long[] buckets = new long[BUCKETS];
+
+    private long     count;
+    private long     totalListeners;
+    private long     totalPaints;
+    private long     maxMicros;
+    private Runnable sampleListener;
+
+    /* Current Click */
+    private int     click;
+    private boolean clicking;
+    private long    start;
+    private long    lastPaint;
+    private int     listeners;
+    private int     paints;
+    private int     checkedWork;
+    private int     checks;
+
+    /**
+     * Starts a click.
+     *
+     * @param eventTime The time the mouse event was created, in milliseconds since
+     *                  the epoch, so that the time it waited in the event queue counts
+     */
+    public void clickStarted(long eventTime)
+    {
+        long queued = Math.max(0, System.currentTimeMillis() - eventTime);
+        click++;
+        clicking = true;
+        start = System.nanoTime() - queued * 1_000_000L;
+        lastPaint = 0;
+        listeners = 0;
+        paints = 0;
+        checks = 0;
+    }
+
+    /**
+     * Counts a model listener callback, if a click is going on.
+     */
+    public void listenerCalled()
+    {
+        if(clicking) listeners++;
+    }
+
+    /**
+     * Counts a painted view, if a click is going on.
+     */
+    public void painted()
+    {
+        if(!clicking) return;
+        paints++;
+        lastPaint = System.nanoTime();
+    }
+
+    /**
+     * Marks the click as handled. The click is recorded once the work it queued is
+     * done, including the repaints.
+     */
+    public void clickHandled()
+    {
+        if(!clicking) return;
+        checkedWork = listeners + paints;
+        int id = click;
+        SwingUtilities.invokeLater(() -> check(id));
+    }
+
+    // Records the click once a check finds no new work. A newer click replaces it
+    private void check(int id)
+    {
+        if(!clicking || id != click) return;
+        int work = listeners + paints;
+        if(work != checkedWork && ++checks < MAX_CHECKS)
+        {
+            checkedWork = work;
+            SwingUtilities.invokeLater(() -> check(id));
+            return;
+        }
+
+        clicking = false;
+        long end = paints == 0 ? System.nanoTime() : lastPaint;
+        record((end - start) / 1000, listeners, paints);
+    }
+
+    /**
+     * Records a sample.
+     *
+     * @param micros    The latency in microseconds
+     * @param listeners The amount of listener callbacks
+     * @param paints    The amount of painted views
+     */
+    public void record(long micros, int listeners, int paints)
+    {
+        micros = Math.max(0, micros);
+        buckets[bucket(micros)]++;
+        count++;
+        totalListeners += listeners;
+        totalPaints += paints;
+        maxMicros = Math.max(maxMicros, micros);
+        if(sampleListener != null) sampleListener.run();
+    }
+
+    /**
+     * Sets a callback run after each sample, such as repainting an overlay.
+     *
+     * @param sampleListener The callback, or null for none
+     */
+    public void setSampleListener(Runnable sampleListener)
+    {
+        this.sampleListener = sampleListener;
+    }
+
+    /**
+     * Returns the amount of samples.
+     *
+     * @return The amount of samples
+     */
+    public long getCount()
+    {
+        return count;
+    }
+
+    /**
+     * Returns a percentile of the latencies, rounded up to the end of its bucket.
+     *
+     * @param percentile The percentile, within {@code 0 < percentile <= 100}
+     * @return The latency in microseconds, or 0 if there are no samples
+     */
+    public long getPercentile(double percentile)
+    {
+        if(count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+        long seen = 0;
+        for(int i = 0; i < BUCKETS; i++)
+        {
+            seen += buckets[i];
+            if(seen >= rank) return Math.min(maxMicros, upperBound(i));
+        }
+        return maxMicros;
+    }
+
+    /**
+     * Returns the highest latency.
+     *
+     * @return The latency in microseconds
+     */
+    public long getMax()
+    {
+        return maxMicros;
+    }
+
+    /**
+     * Returns the average amount of listener callbacks per click.
+     *
+     * @return The average, or 0 if there are no samples
+     */
+    public double getListenersPerClick()
+    {
+        return count == 0 ? 0 : (double) totalListeners / count;
+    }
+
+    /**
+     * Returns the average amount of painted views per click.
+     *
+     * @return The average, or 0 if there are no samples
+     */
+    public double getPaintsPerClick()
+    {
+        return count == 0 ? 0 : (double) totalPaints / count;
+    }
+
+    /**
+     * Forgets every sample.
+     */
+    public void reset()
+    {
+        Arrays.fill(buckets, 0);
+        count = 0;
+        totalListeners = 0;
+        totalPaints = 0;
+        maxMicros = 0;
+    }
+
+    private static int bucket(long micros)
+    {
+        if(micros < LINEAR_LIMIT) return (int) micros;
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int sub      = (int) (micros >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR_LIMIT + (exponent - 4) * SUB_BUCKETS + sub;
+    }
+
+    // The highest latency that falls into a bucket
+    private static long upperBound(int bucket)
+    {
+        if(bucket < LINEAR_LIMIT) return bucket;
+        int exponent = (bucket - LINEAR_LIMIT) / SUB_BUCKETS + 4;
+        int sub      = (bucket - LINEAR_LIMIT) % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + sub + 1) << (exponent - SUB_BITS)) - 1;
+    }
+}
@@ -9,6 +9,8 @@ import java.awt.*;
 public final class Mancala extends Pit
 {
     private static final int MANCALA_CORNER_RADIUS = 64;
+    // A Mancala is taller than a pit, so it draws more stones before clustering
+    private static final int STONE_LIMIT           = 40;
 
     /**
      * Constructs a new mancala with {@code stoneCount} stones.
@@ -33,23 +35,26 @@ public final class Mancala extends Pit
     }
 
     /**
-     * Paints the mancala.
+     * Paints the shape of the mancala.
      *
-     * @param g The graphics object
+     * @param g2 The graphics object
      */
     @Override
-    protected void paintComponent(Graphics g)
+    protected void paintShape(Graphics2D g2)
     {
-        Graphics2D g2 = (Graphics2D) g;
-        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
-                            RenderingHints.VALUE_ANTIALIAS_ON);
-
         Rectangle r = getBounds();
         g2.setColor(theme.getMancalaColor());
         g2.fillRoundRect(0, 0,
                          r.width, r.height,
                          MANCALA_CORNER_RADIUS, MANCALA_CORNER_RADIUS);
+    }
 
-        paintStoneCount(g2);
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected int getStoneLimit()
+    {
+        return STONE_LIMIT;
     }
 }
@@ -1,6 +1,11 @@
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * An implementation of the Mancala game using two arrays to hold both
- * player's pits.
+ * player's pits. The moves themselves are played by the game's {@code Rules}
+ * engine on a scratch board array, and the results are copied back into the
+ * data models.
  *
  * @author Jeremy Asuncion
  */
@@ -36,6 +41,14 @@ public final class MancalaGame
     // A 2x6 array representation of the pits using the pit data models
     private PitModel[][] board;
 
+    /* Rules */
+    // The rule variant chosen at construction
+    private final Rules rules;
+    // The amount of stones each pit started with
+    private final int   initialStones;
+    // Scratch board array the rule engine plays on. See Rules for the layout
+    private final int[] scratch = new int[Rules.BOARD_SIZE];
+
     /* Game State */
     // Currently player A's turn
     private int     currentPlayer    = PLAYER_A;
@@ -55,6 +68,12 @@ public final class MancalaGame
     // When this value is no longer -1, calls to selectPit(),
     // commitLastSelection(), and undoLastSelection() will not follow through
     private int     winningPlayer    = -1;
+    // The player and pit of the pending selection
+    private int     selectedPlayer   = -1;
+    private int     selectedPosition = -1;
+
+    /* Move Listeners */
+    private List<MoveListener> moveListeners = new ArrayList<>();
 
 
     /**
@@ -72,9 +91,24 @@ public final class MancalaGame
      * filled in each pit.
      *
      * @param initialStones The amount of stones to fill in each pit
+     * @see #MancalaGame(int, Rules)
      */
     public MancalaGame(int initialStones)
     {
+        this(initialStones, Rules.KALAH);
+    }
+
+    /**
+     * Constructs a new Mancala game with {@code initialStones} stones
+     * filled in each pit, played with the rule variant {@code rules}.
+     *
+     * @param initialStones The amount of stones to fill in each pit
+     * @param rules         The rule variant
+     */
+    public MancalaGame(int initialStones, Rules rules)
+    {
+        this.rules = rules;
+        this.initialStones = initialStones;
         if(initialStones < MIN_INITIAL_STONES || initialStones > MAX_INITIAL_STONES)
         {
             throw new RuntimeException("Initial stones is not >=" + MIN_INITIAL_STONES +
@@ -94,6 +128,73 @@ public final class MancalaGame
         }
     }
 
+    /**
+     * Constructs a copy of {@code game}'s current position. The copy has its own
+     * data models, so no listeners are carried over and moves made on the copy
+     * never reach the original game's views.
+     *
+     * @param game The game to copy
+     * @throws RuntimeException If the game has a pending commit
+     */
+    public MancalaGame(MancalaGame game)
+    {
+        if(game.hasPendingCommit) throw new RuntimeException("The game's data has to be committed first");
+
+        rules = game.rules;
+        initialStones = game.initialStones;
+        mancalas = new MancalaModel[MAX_PLAYERS];
+        board = new PitModel[2][MAX_PITS];
+
+        for(int i = 0; i < MAX_PLAYERS; i++)
+        {
+            mancalas[i] = new MancalaModel();
+            mancalas[i].addStones(game.mancalas[i].getStones());
+            mancalas[i].commitChange();
+
+            for(int j = 0; j < MAX_PITS; j++)
+            {
+                board[i][j] = new PitModel(game.board[i][j].getStones());
+            }
+        }
+
+        currentPlayer = game.currentPlayer;
+        hasUndoAvailable = game.hasUndoAvailable;
+        winningPlayer = game.winningPlayer;
+    }
+
+    /**
+     * Constructs a game in a saved position, such as one kept by a
+     * {@code SessionStore}. The position is taken as committed, and the game checks
+     * it for a winner right away.
+     *
+     * @param initialStones    The amount of stones each pit started the game with
+     * @param rules            The rule variant
+     * @param position         The board array. See {@code Rules} for the layout
+     * @param currentPlayer    The player to move
+     * @param hasUndoAvailable True if the current player may still undo a selection
+     * @see #copyPosition(int[])
+     */
+    public MancalaGame(int initialStones, Rules rules, int[] position, int currentPlayer, boolean hasUndoAvailable)
+    {
+        this(initialStones, rules);
+
+        for(int i = 0; i < MAX_PLAYERS; i++)
+        {
+            mancalas[i].addStones(position[Rules.store(i)]);
+            mancalas[i].commitChange();
+
+            for(int j = 0; j < MAX_PITS; j++)
+            {
+                board[i][j].setStones(position[Rules.pit(i, j)]);
+                board[i][j].commitChange();
+            }
+        }
+
+        this.currentPlayer = currentPlayer;
+        this.hasUndoAvailable = hasUndoAvailable;
+        checkForWinners();
+    }
+
     /**
      * Returns the mancala model for the specified player.
      *
@@ -118,10 +219,73 @@ public final class MancalaGame
     }
 
     /**
-     * Clears all listeners for both Mancalas and pits
+     * Returns the rule variant the game is played with.
+     *
+     * @return The rules
+     */
+    public Rules getRules()
+    {
+        return rules;
+    }
+
+    /**
+     * Returns the amount of stones each pit started the game with.
+     *
+     * @return The initial amount of stones
+     */
+    public int getInitialStones()
+    {
+        return initialStones;
+    }
+
+    /**
+     * Copies the current stone counts into {@code dst} using the board array
+     * layout described in {@code Rules}.
+     *
+     * @param dst An array of at least {@code Rules.BOARD_SIZE} entries
+     * @return The array
+     * @see Rules
+     */
+    public int[] copyPosition(int[] dst)
+    {
+        for(int i = 0; i < MAX_PLAYERS; i++)
+        {
+            for(int j = 0; j < MAX_PITS; j++)
+            {
+                dst[Rules.pit(i, j)] = board[i][j].getStones();
+            }
+            dst[Rules.store(i)] = mancalas[i].getStones();
+        }
+        return dst;
+    }
+
+    /**
+     * Adds a move listener to the game. Move listeners are invoked once per
+     * committed or undone selection, rather than once per changed pit.
+     *
+     * @param listener A move listener
+     */
+    public void addMoveListener(MoveListener listener)
+    {
+        moveListeners.add(listener);
+    }
+
+    /**
+     * Removes a move listener from the game.
+     *
+     * @param listener A move listener
+     */
+    public void removeMoveListener(MoveListener listener)
+    {
+        moveListeners.remove(listener);
+    }
+
+    /**
+     * Clears all listeners for both Mancalas and pits, as well as the move listeners
      */
     public void clearListeners()
     {
+        moveListeners.clear();
         for(int i = 0; i < MAX_PLAYERS; i++)
         {
             mancalas[i].clearChangeListeners();
@@ -182,67 +346,22 @@ public final class MancalaGame
         }
 
         // This is the heart of the game yo
-        int row    = currentPlayer;
-        int stones = board[row][position++].removeAllStones();
+        int result = rules.move(copyPosition(scratch), currentPlayer, position);
 
         // If the pit is empty, then return
         // so that the user can make a valid selection.
-        if(stones == 0) return;
+        if(result == Rules.ILLEGAL) return;
 
         hasPendingCommit = true;
+        selectedPlayer = currentPlayer;
+        selectedPosition = position;
 
-        while(stones > 0)
-        {
-            // Add a stone to the next pit in the sequence
-            // until we reach the end of the row, or until we are out of stones
-            for(; position < MAX_PITS && stones > 0; position++)
-            {
-                board[row][position].addStone();
-                stones--;
-            }
-
-            // If there are still stones present
-            // and we are on the current player's row,
-            // add a stone to their Mancala
-            if(stones > 0 && row == currentPlayer)
-            {
-                mancalas[row].addStone();
-                stones--;
-
-                // If we stop at the Mancala, then the player gets another turn,
-                // so we end the loop here. We set the hasExtraTurn variable
-                // to true so that the player value doesn't get reassigned
-                if(stones == 0 && position == MAX_PITS)
-                {
-                    hasExtraTurn = true;
-                    break;
-                }
-            }
-
-            // If the board ends up on the current player's row,
-            // then we take the opposing player's stones from opposite pit
-            // Since we have already added the stones, we need to check
-            // the pit before the current one. If the pit was empty,
-            // then there should only be 1 stone in there.
-            if(stones == 0 && row == currentPlayer &&
-               position - 1 < MAX_PITS && board[row][position - 1].getStones() == 1)
-            {
-
-                // Since we aligned the rows on index, we need to reverse
-                // the index to get the opposite pit.
-                // Moreover, we are checking position - 1, so the index should be:
-                // i = MAX_PITS - (position - 1) + 1
-                //   = MAX_PITS - position
-                int oppositeStones = board[row ^ 1][MAX_PITS - position].removeAllStones();
-                // We also remove the stone from that pit
-                oppositeStones += board[row][position - 1].removeAllStones();
-                mancalas[row].addStones(oppositeStones);
-            }
+        // If we stop at the Mancala, then the player gets another turn.
+        // We set the hasExtraTurn variable to true so that the player
+        // value doesn't get reassigned
+        if((result & Rules.EXTRA_TURN) != 0) hasExtraTurn = true;
 
-            row ^= 1;
-            // Start on opposite player's row
-            position = 0;
-        }
+        updateModels();
     }
 
     /**
@@ -281,6 +400,21 @@ public final class MancalaGame
             currentPlayer ^= 1;
         }
         checkForWinners();
+
+        for(int i = 0; i < moveListeners.size(); i++)
+        {
+            moveListeners.get(i).selectionCommitted(this, selectedPlayer, selectedPosition);
+        }
+    }
+
+    /**
+     * Checks if a selection has been made that still has to be committed or undone.
+     *
+     * @return True if there is a pending commit, false otherwise
+     */
+    public boolean hasPendingCommit()
+    {
+        return hasPendingCommit;
     }
 
     /**
@@ -320,6 +454,11 @@ public final class MancalaGame
         }
         hasUndoAvailable = false;
         hasPendingCommit = false;
+
+        for(int i = 0; i < moveListeners.size(); i++)
+        {
+            moveListeners.get(i).selectionUndone(this, selectedPlayer, selectedPosition);
+        }
     }
 
     /**
@@ -327,37 +466,56 @@ public final class MancalaGame
      * case that happens.
      */
     private void checkForWinners()
+    {
+        winningPlayer = rules.finish(copyPosition(scratch), currentPlayer);
+        if(winningPlayer != -1) updateModels();
+    }
+
+    /**
+     * Copies the scratch board array back into the data models. Only the models
+     * whose stone count changed invoke their listeners.
+     */
+    private void updateModels()
     {
         for(int i = 0; i < MAX_PLAYERS; i++)
         {
-            boolean isRowEmpty = true;
-            for(int j = 0; j < MAX_PITS && isRowEmpty; j++)
+            for(int j = 0; j < MAX_PITS; j++)
             {
-                if(!board[i][j].isEmpty()) isRowEmpty = false;
+                board[i][j].setStones(scratch[Rules.pit(i, j)]);
             }
 
-            // If a row is empty, then we
-            // sum up the total stones
-            // in the opposite row and add it to that
-            // player's Mancala
-            if(isRowEmpty)
-            {
-                int stones = 0;
-                int player = i == PLAYER_A ? PLAYER_B : PLAYER_A;
-                for(int j = 0; j < MAX_PITS; j++)
-                {
-                    stones += board[player][j].removeAllStones();
-                }
-                mancalas[player].addStones(stones);
-
-                // We assign the winning player
-                // to be the player with the most stones.
-                winningPlayer = mancalas[PLAYER_A].getStones() > mancalas[PLAYER_B].getStones() ?
-                                PLAYER_A :
-                                PLAYER_B;
-
-                break;
-            }
+            // Stones never leave a store, so the difference is never negative
+            int stones = scratch[Rules.store(i)] - mancalas[i].getStones();
+            if(stones != 0) mancalas[i].addStones(stones);
+        }
+    }
+
+    /**
+     * An interface for listening to whole moves rather than single pit changes.
+     */
+    public interface MoveListener
+    {
+        /**
+         * Fired after a selection has been committed and the game has checked for a
+         * winner, so the game already reflects the resulting position.
+         *
+         * @param game     The game
+         * @param player   The player who made the selection
+         * @param position The selected pit
+         */
+        default void selectionCommitted(MancalaGame game, int player, int position)
+        {
+        }
+
+        /**
+         * Fired after a selection has been undone.
+         *
+         * @param game     The game
+         * @param player   The player who made the selection
+         * @param position The selected pit
+         */
+        default void selectionUndone(MancalaGame game, int player, int position)
+        {
         }
     }
 }
@@ -1,17 +1,112 @@
 import javax.swing.*;
+import javax.swing.event.MenuEvent;
+import javax.swing.event.MenuListener;
 import javax.swing.plaf.FontUIResource;
 import java.awt.*;
-import java.util.Enumeration;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Consumer;
 
 /**
  * Main class. Acts as the main controller for the application.
+ * <p>
+ * The window shows up with a game of the default options right away, and the
+ * options are asked once it has been painted. The menus are built when they are
+ * first opened, and the fonts are loaded in the background meanwhile.
  */
 public final class MancalaTester
 {
-    private static MancalaGame game;
-    private static Board       board;
+    /**
+     * If this system property is true, the application prints
+     * {@link #FIRST_PAINT} and exits once the window has been painted, which is
+     * what {@code StartupBenchmark} and the class data sharing archive use.
+     */
+    public static final String EXIT_AFTER_FIRST_PAINT = "mancala.exitAfterFirstPaint";
+    /**
+     * The line printed on the first paint.
+     */
+    public static final String FIRST_PAINT            = "First paint";
+
+    private static final int      WIDTH     = 1280;
+    private static final int      HEIGHT    = 500;
+    private static final String   FONT_NAME = "Comic Sans MS";
+    // The defaults of the components the application shows, rather than all of them
+    private static final String[] FONT_KEYS = {
+            "Button.font",
+            "CheckBoxMenuItem.font",
+            "Label.font",
+            "Menu.font",
+            "MenuBar.font",
+            "MenuItem.font",
+            "OptionPane.buttonFont",
+            "OptionPane.font",
+            "OptionPane.messageFont",
+            "Panel.font",
+            "PopupMenu.font",
+            "TextField.font",
+            "ToolBar.font",
+            "ToolTip.font"
+    };
+    // Loaded in the background, because the first dialog and menu need them
+    private static final String[] PRELOAD   = {
+            "javax.swing.JOptionPane",
+            "javax.swing.plaf.basic.BasicOptionPaneUI",
+            "javax.swing.JPopupMenu",
+            "javax.swing.JCheckBoxMenuItem",
+            "javax.swing.plaf.basic.BasicCheckBoxMenuItemUI"
+    };
+
+    // The most archived games listed at once
+    private static final int MAX_LISTED_GAMES = 10_000;
+
+    private static MancalaGame  game;
+    private static Board        board;
+    private static HintAnalyzer hintAnalyzer;
+    private static boolean      showHints;
+    private static boolean      showStones;
+    private static boolean      showLatency;
 
-    private static JFrame frame;
+    // Kept across games, so that the latency statistics cover the whole session
+    private static final LatencyRecorder latency = new LatencyRecorder();
+
+    /* Players */
+    // Computer players search on these daemon threads, never on the event dispatch thread
+    private static final ExecutorService          searchPool = Executors.newCachedThreadPool(daemon("Search"));
+    private static final ScheduledExecutorService timer      = Executors.newSingleThreadScheduledExecutor(
+            daemon("Search timer"));
+    // Clicks on the board go to the human player, who takes them whenever it is a person's turn
+    private static final HumanPlayer              human      = new HumanPlayer();
+    // Bots in other processes play through this file, see SharedBoardClient
+    private static final Path                     boardFile  = Paths.get(System.getProperty(
+            "mancala.board", Paths.get(System.getProperty("java.io.tmpdir"), "mancala.board").toString()));
+    // Opened by the first game against an external bot
+    private static SharedBoard                    sharedBoard;
+    // Archived games are looked up in this index, see PositionIndex
+    private static final Path                     indexFile  = Paths.get(System.getProperty(
+            "mancala.index", Paths.get(System.getProperty("java.io.tmpdir"), "mancala.index").toString()));
+    // Opened by the first lookup
+    private static PositionIndex                  positionIndex;
+
+    private static Player[]                   players;
+    // The move currently being chosen, or null while a selection waits for a commit
+    private static CompletableFuture<Integer> pendingMove;
+
+    private static JFrame         frame;
+    // The content pane of the frame, which the board is swapped in
+    private static JPanel         content;
+    private static JButton        undoButton;
+    private static JButton        commitButton;
+    private static JLabel         currentPlayerLabel;
+    // Created when the latency is first shown
+    private static LatencyOverlay overlay;
+    private static boolean        painted;
 
     /**
      * The entry point of the application.
@@ -20,10 +115,43 @@ public final class MancalaTester
      */
     public static void main(String[] args)
     {
-        SwingUtilities.invokeLater(MancalaTester::startNewGame);
+        daemon("Preload").newThread(MancalaTester::preload).start();
+        SwingUtilities.invokeLater(MancalaTester::initUI);
+    }
+
+    /**
+     * Loads the fonts and the classes needed soon after the first paint, so that
+     * the event dispatch thread finds them ready.
+     */
+    private static void preload()
+    {
+        BufferedImage image = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D    g2    = image.createGraphics();
+        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        for(int size : new int[] { 16, 24, 56 })
+        {
+            g2.setFont(new Font(FONT_NAME, Font.BOLD, size));
+            g2.drawString("Player AB 0123456789 <->", 0, 0);
+        }
+        g2.dispose();
+
+        for(String name : PRELOAD)
+        {
+            try
+            {
+                Class.forName(name);
+            }
+            catch(ClassNotFoundException e)
+            {
+                // Only a missed head start
+            }
+        }
     }
 
-    private static void startNewGame()
+    /**
+     * Asks for the game options and starts a game with them.
+     */
+    private static void chooseNewGame()
     {
         String[] options = {
                 "3 stones",
@@ -38,18 +166,101 @@ public final class MancalaTester
                                                      options,
                                                      options[0]);
 
-        game = new MancalaGame(selection == 0 ? MancalaGame.MIN_INITIAL_STONES : MancalaGame.MAX_INITIAL_STONES);
-        initUI();
-        initMenuBar();
+        String[] opponents = {
+                "Human vs Human",
+                "Human vs Computer",
+                "Computer vs Computer",
+                "Human vs External Bot"
+        };
+        int opponent = JOptionPane.showOptionDialog(frame,
+                                                    "Who is playing?",
+                                                    "Game Options",
+                                                    JOptionPane.DEFAULT_OPTION,
+                                                    JOptionPane.QUESTION_MESSAGE,
+                                                    null,
+                                                    opponents,
+                                                    opponents[0]);
+
+        startNewGame(selection == 0 ? MancalaGame.MIN_INITIAL_STONES : MancalaGame.MAX_INITIAL_STONES, opponent);
     }
 
-    private static void initUI()
+    /**
+     * Replaces the current game, if any, with a new one in the same window.
+     *
+     * @param initialStones The stones per pit
+     * @param opponent      The index of the chosen opponents, 0 for two people
+     */
+    private static void startNewGame(int initialStones, int opponent)
     {
-        frame = new JFrame("Mancala Game");
+        if(game != null)
+        {
+            cancelMove();
+            stopHints();
+            game.clearListeners();
+        }
+
+        Player computer = new ComputerPlayer(searchPool, timer);
+        if(opponent == 3) computer = openSharedBoard(computer);
+        players = new Player[MancalaGame.MAX_PLAYERS];
+        players[MancalaGame.PLAYER_A] = opponent == 2 ? computer : human;
+        players[MancalaGame.PLAYER_B] = opponent >= 1 ? computer : human;
+
+        game = new MancalaGame(initialStones);
+        if(computer == sharedBoard) sharedBoard.attach(game);
+
+        if(board != null) content.remove(board);
         board = new Board(game);
+        board.setShowStones(showStones);
+        board.setBoardListener(human);
+        board.setLatencyRecorder(latency);
+        content.add(board, BorderLayout.CENTER);
+        content.revalidate();
+        content.repaint();
 
-        Container pane = frame.getContentPane();
-        pane.add(board, BorderLayout.CENTER);
+        undoButton.setEnabled(false);
+        commitButton.setEnabled(false);
+        updatePlayerLabel();
+        requestMove();
+    }
+
+    /**
+     * Returns the shared board external bots play through, or {@code fallback} if the
+     * board file cannot be opened.
+     */
+    private static Player openSharedBoard(Player fallback)
+    {
+        try
+        {
+            if(sharedBoard == null) sharedBoard = new SharedBoard(boardFile);
+            return sharedBoard;
+        }
+        catch(IOException e)
+        {
+            JOptionPane.showMessageDialog(frame, "Cannot open " + boardFile + ": " + e.getMessage() +
+                                                 "\nThe computer plays instead.",
+                                          "External Bot", JOptionPane.ERROR_MESSAGE);
+            return fallback;
+        }
+    }
+
+    /**
+     * Builds the window once for the whole session and shows it with a game of the
+     * default options.
+     */
+    private static void initUI()
+    {
+        // Before any component is created, so that none has to be updated
+        setUIFont(new FontUIResource(FONT_NAME, Font.BOLD, 16));
+
+        content = new JPanel(new BorderLayout())
+        {
+            @Override
+            protected void paintChildren(Graphics g)
+            {
+                super.paintChildren(g);
+                if(!painted) firstPainted();
+            }
+        };
 
         JTextField playerADirection = new JTextField("Player A ->");
         JTextField playerBDirection = new JTextField("<- Player B");
@@ -57,54 +268,26 @@ public final class MancalaTester
         playerADirection.setHorizontalAlignment(JTextField.CENTER);
         playerBDirection.setHorizontalAlignment(JTextField.CENTER);
 
-        Font directionFont = new Font("Comic Sans MS", Font.BOLD, 24);
+        Font directionFont = new Font(FONT_NAME, Font.BOLD, 24);
         playerADirection.setFont(directionFont);
         playerBDirection.setFont(directionFont);
 
         playerADirection.setEditable(false);
         playerBDirection.setEditable(false);
 
-        JToolBar toolBar            = new JToolBar();
-        JButton  undoButton         = new JButton("Undo Selection");
-        JButton  commitButton       = new JButton("Commit Selection");
-        JLabel   currentPlayerLabel = new JLabel("Current Player: Player A");
-
-        undoButton.setEnabled(false);
-        commitButton.setEnabled(false);
-
-        Runnable setPlayerLabelCallback = () -> {
-            if(game.isGameOver())
-            {
-                String winningPlayer = game.getCurrentPlayer() == MancalaGame.PLAYER_A ? "A" : "B";
-                JOptionPane.showMessageDialog(frame,
-                                              "Player " + winningPlayer + " won!",
-                                              "Winner!",
-                                              JOptionPane.INFORMATION_MESSAGE);
-                return;
-            }
-
-            if(game.getCurrentPlayer() == MancalaGame.PLAYER_A)
-            {
-                currentPlayerLabel.setText("Current Player: Player A");
-            }
-            else
-            {
-                currentPlayerLabel.setText("Current Player: Player B");
-            }
-        };
+        JToolBar toolBar = new JToolBar();
+        undoButton = new JButton("Undo Selection");
+        commitButton = new JButton("Commit Selection");
+        currentPlayerLabel = new JLabel("Current Player: Player A");
 
         undoButton.addActionListener(e -> {
             game.undoLastSelection();
             undoButton.setEnabled(false);
             commitButton.setEnabled(false);
+            requestMove();
         });
 
-        commitButton.addActionListener(e -> {
-            game.commitLastSelection();
-            undoButton.setEnabled(false);
-            commitButton.setEnabled(false);
-            setPlayerLabelCallback.run();
-        });
+        commitButton.addActionListener(e -> commitSelection());
 
         toolBar.setFloatable(false);
         toolBar.add(undoButton);
@@ -116,90 +299,343 @@ public final class MancalaTester
         topPanel.add(toolBar, BorderLayout.PAGE_START);
         topPanel.add(playerBDirection, BorderLayout.PAGE_END);
 
-        pane.add(playerADirection, BorderLayout.PAGE_END);
-        pane.add(topPanel, BorderLayout.PAGE_START);
+        content.add(playerADirection, BorderLayout.PAGE_END);
+        content.add(topPanel, BorderLayout.PAGE_START);
+
+        JMenuBar menuBar = initMenuBar();
+        startNewGame(MancalaGame.MIN_INITIAL_STONES, 0);
 
-        board.setBoardListener(new Board.BoardListener()
+        if(GraphicsEnvironment.isHeadless() && Boolean.getBoolean(EXIT_AFTER_FIRST_PAINT))
         {
-            @Override
-            public void pitClicked(int player, int position)
-            {
-                if(!game.isGameOver() && player == game.getCurrentPlayer())
-                {
-                    game.selectPit(position);
-                    if(!game.hasUndoAvailable())
-                    {
-                        game.commitLastSelection();
-                        setPlayerLabelCallback.run();
-                    }
-                    else
-                    {
-                        undoButton.setEnabled(true);
-                        commitButton.setEnabled(true);
-                    }
-                }
-            }
-        });
+            paintOffscreen(menuBar);
+            return;
+        }
 
-        setUIFont(new FontUIResource("Comic Sans MS", Font.BOLD, 16));
+        frame = new JFrame("Mancala Game");
+        frame.setContentPane(content);
+        frame.setJMenuBar(menuBar);
         frame.setResizable(false);
-        frame.setSize(1280, 500);
+        frame.setSize(WIDTH, HEIGHT);
         frame.setLocationRelativeTo(null);
         frame.setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
         frame.setVisible(true);
     }
 
-    private static void initMenuBar()
+    /**
+     * Lays out the window's contents without a window and paints them into an
+     * image, so that the time to the first paint can be measured without a
+     * display. Only the window system's part of the start is left out.
+     *
+     * @param menuBar The menu bar of the window
+     */
+    private static void paintOffscreen(JMenuBar menuBar)
     {
-        JMenuBar menuBar = new JMenuBar();
+        JPanel window = new JPanel(new BorderLayout());
+        window.add(menuBar, BorderLayout.PAGE_START);
+        window.add(content, BorderLayout.CENTER);
+        window.setSize(WIDTH, HEIGHT);
+        // Validating needs a window, so the containers are laid out one by one
+        layOut(window);
 
-        JMenu viewMenu = new JMenu("View");
-        JMenu gameMenu = new JMenu("Game");
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D    g2    = image.createGraphics();
+        try
+        {
+            window.printAll(g2);
+        }
+        finally
+        {
+            g2.dispose();
+        }
+    }
 
-        JMenuItem theme1Item  = new JMenuItem("Theme 1");
-        JMenuItem theme2Item  = new JMenuItem("Theme 2");
-        JMenuItem newGameItem = new JMenuItem("Start New Game");
+    private static void layOut(Container container)
+    {
+        container.doLayout();
+        for(Component child : container.getComponents())
+        {
+            if(child instanceof Container) layOut((Container) child);
+        }
+    }
 
-        Font font = Font.getFont("Comic Sans MS");
-        theme1Item.setFont(font);
-        theme2Item.setFont(font);
-        newGameItem.setFont(font);
+    /**
+     * Asks for the game options once the window is on screen, or exits if only the
+     * time to the first paint was wanted.
+     */
+    private static void firstPainted()
+    {
+        painted = true;
+        if(Boolean.getBoolean(EXIT_AFTER_FIRST_PAINT))
+        {
+            System.out.println(FIRST_PAINT);
+            System.out.flush();
+            SwingUtilities.invokeLater(() -> System.exit(0));
+            return;
+        }
+        SwingUtilities.invokeLater(MancalaTester::chooseNewGame);
+    }
 
-        viewMenu.add(theme1Item);
-        viewMenu.add(theme2Item);
-        gameMenu.add(newGameItem);
+    private static JMenuBar initMenuBar()
+    {
+        JMenuBar menuBar = new JMenuBar();
+        menuBar.add(lazyMenu("Game", gameMenu -> {
+            JMenuItem newGameItem = new JMenuItem("Start New Game");
+            JMenuItem exploreItem = new JMenuItem("Explore Moves");
+            JMenuItem archiveItem = new JMenuItem("Find Archived Games");
+            gameMenu.add(newGameItem);
+            gameMenu.add(exploreItem);
+            gameMenu.add(archiveItem);
+            archiveItem.addActionListener(e -> findArchivedGames());
+            newGameItem.addActionListener(e -> chooseNewGame());
+            exploreItem.addActionListener(e -> GameTreeExplorer.showWindow(
+                    frame, game.getRules(), game.copyPosition(new int[Rules.BOARD_SIZE]), game.getCurrentPlayer(),
+                    searchPool));
+        }));
+        menuBar.add(lazyMenu("View", viewMenu -> {
+            JMenuItem         theme1Item  = new JMenuItem("Theme 1");
+            JMenuItem         theme2Item  = new JMenuItem("Theme 2");
+            JCheckBoxMenuItem stonesItem  = new JCheckBoxMenuItem("Show Stones", showStones);
+            JCheckBoxMenuItem hintsItem   = new JCheckBoxMenuItem("Show Hints", showHints);
+            JCheckBoxMenuItem latencyItem = new JCheckBoxMenuItem("Show Click Latency", showLatency);
 
-        menuBar.add(gameMenu);
-        menuBar.add(viewMenu);
+            viewMenu.add(theme1Item);
+            viewMenu.add(theme2Item);
+            viewMenu.addSeparator();
+            viewMenu.add(stonesItem);
+            viewMenu.add(hintsItem);
+            viewMenu.addSeparator();
+            viewMenu.add(latencyItem);
 
-        theme1Item.addActionListener(e -> board.setTheme(BoardTheme.THEME_1));
-        theme2Item.addActionListener(e -> board.setTheme(BoardTheme.THEME_2));
-        newGameItem.addActionListener(e -> {
-            frame.setVisible(false);
-            game.clearListeners();
-            startNewGame();
+            theme1Item.addActionListener(e -> board.setTheme(BoardTheme.THEME_1));
+            theme2Item.addActionListener(e -> board.setTheme(BoardTheme.THEME_2));
+            stonesItem.addActionListener(e -> {
+                showStones = stonesItem.isSelected();
+                board.setShowStones(showStones);
+            });
+            hintsItem.addActionListener(e -> {
+                showHints = hintsItem.isSelected();
+                stopHints();
+                startHints();
+            });
+            latencyItem.addActionListener(e -> {
+                showLatency = latencyItem.isSelected();
+                if(overlay == null)
+                {
+                    overlay = new LatencyOverlay(latency);
+                    frame.setGlassPane(overlay);
+                }
+                overlay.setVisible(showLatency);
+            });
+        }));
+        return menuBar;
+    }
+
+    /**
+     * Creates a menu whose items are built when it is first opened.
+     *
+     * @param title   The title of the menu
+     * @param builder Adds the items to the menu
+     * @return The empty menu
+     */
+    private static JMenu lazyMenu(String title, Consumer<JMenu> builder)
+    {
+        JMenu menu = new JMenu(title);
+        menu.addMenuListener(new MenuListener()
+        {
+            @Override
+            public void menuSelected(MenuEvent e)
+            {
+                if(menu.getMenuComponentCount() == 0) builder.accept(menu);
+            }
+
+            @Override
+            public void menuDeselected(MenuEvent e)
+            {
+            }
+
+            @Override
+            public void menuCanceled(MenuEvent e)
+            {
+            }
         });
-        frame.setJMenuBar(menuBar);
+        return menu;
+    }
+
+    /**
+     * Lists the archived games that reached the position on the board.
+     */
+    private static void findArchivedGames()
+    {
+        try
+        {
+            if(positionIndex == null) positionIndex = new PositionIndex(indexFile);
+        }
+        catch(IOException e)
+        {
+            JOptionPane.showMessageDialog(frame, "Cannot open " + indexFile + ": " + e.getMessage() +
+                                                 "\nBuild it with PositionIndex build " + indexFile + " archive...",
+                                          "Archived Games", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        long   code  = PositionIndex.key(game.getRules(), game.copyPosition(new int[Rules.BOARD_SIZE]),
+                                         game.getCurrentPlayer());
+        long   count = positionIndex.count(code);
+        long[] ids   = new long[(int) Math.min(count, MAX_LISTED_GAMES)];
+        positionIndex.getGames(code, 0, ids);
+
+        String[] games = new String[ids.length];
+        for(int i = 0; i < ids.length; i++)
+        {
+            games[i] = Long.toString(ids[i]);
+        }
+        JScrollPane list = new JScrollPane(new JList<>(games));
+        list.setPreferredSize(new Dimension(300, 300));
+        String message = count > ids.length ? String.format("%,d archived games reached this position, the first %,d:",
+                                                            count, ids.length)
+                                            : String.format("%,d archived games reached this position", count);
+        JOptionPane.showMessageDialog(frame, new Object[] { message, list }, "Archived Games",
+                                      JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    /**
+     * Asks the current player for a move. The move is chosen off the event dispatch
+     * thread if the player needs time, and applied back on it once chosen.
+     */
+    private static void requestMove()
+    {
+        if(game.isGameOver()) return;
+
+        Player                     player = players[game.getCurrentPlayer()];
+        CompletableFuture<Integer> move   = player.chooseMove(game);
+        pendingMove = move;
+        if(player.isHuman()) startHints();
+
+        move.thenAccept(position -> SwingUtilities.invokeLater(() -> {
+            // A move arriving after its game was abandoned or restarted is dropped
+            if(pendingMove == move) applyMove(player, position);
+        }));
+    }
+
+    /**
+     * Selects the chosen pit. A person may still undo the selection if they have an
+     * undo left, while a computer's selection is committed right away.
+     *
+     * @param player   The player who chose the pit
+     * @param position The position of the pit
+     */
+    private static void applyMove(Player player, int position)
+    {
+        pendingMove = null;
+        stopHints();
+        game.selectPit(position);
+
+        // An empty pit was picked, so the player has to choose again
+        if(!game.hasPendingCommit())
+        {
+            requestMove();
+        }
+        else if(player.isHuman() && game.hasUndoAvailable())
+        {
+            undoButton.setEnabled(true);
+            commitButton.setEnabled(true);
+        }
+        else
+        {
+            commitSelection();
+        }
+    }
+
+    private static void commitSelection()
+    {
+        game.commitLastSelection();
+        undoButton.setEnabled(false);
+        commitButton.setEnabled(false);
+        updatePlayerLabel();
+        requestMove();
     }
 
     /**
-     * Sets the global font of the Swing application. Found on
-     * <a href="http://stackoverflow.com/a/5824460">StackOverflow</a>.
+     * Cancels the move being chosen, if any.
+     */
+    private static void cancelMove()
+    {
+        if(pendingMove != null)
+        {
+            pendingMove.cancel(false);
+            pendingMove = null;
+        }
+    }
+
+    private static void updatePlayerLabel()
+    {
+        if(game.isGameOver())
+        {
+            String winningPlayer = game.getCurrentPlayer() == MancalaGame.PLAYER_A ? "A" : "B";
+            JOptionPane.showMessageDialog(frame,
+                                          "Player " + winningPlayer + " won!",
+                                          "Winner!",
+                                          JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+
+        if(game.getCurrentPlayer() == MancalaGame.PLAYER_A)
+        {
+            currentPlayerLabel.setText("Current Player: Player A");
+        }
+        else
+        {
+            currentPlayerLabel.setText("Current Player: Player B");
+        }
+    }
+
+    /**
+     * Starts analyzing the current position in the background if hints are
+     * enabled and the current player is a person who still has to pick a pit.
+     */
+    private static void startHints()
+    {
+        if(!showHints || game.isGameOver() || game.hasPendingCommit()) return;
+        if(!players[game.getCurrentPlayer()].isHuman()) return;
+
+        hintAnalyzer = new HintAnalyzer(game, board);
+        hintAnalyzer.execute();
+    }
+
+    /**
+     * Cancels the running analysis, if any, and removes the pit shading.
+     */
+    private static void stopHints()
+    {
+        if(hintAnalyzer != null)
+        {
+            hintAnalyzer.cancel(true);
+            hintAnalyzer = null;
+        }
+        board.clearPitHints();
+    }
+
+    private static ThreadFactory daemon(String name)
+    {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Sets the font of the components the application uses. Only the keys of those
+     * components are replaced, because reading every key of the defaults would
+     * create all of their lazy values, most of which are never used.
      *
      * @param fontResource The font resource
      */
     private static void setUIFont(FontUIResource fontResource)
     {
-        Enumeration keys = UIManager.getDefaults().keys();
-        while(keys.hasMoreElements())
+        for(String key : FONT_KEYS)
         {
-            Object key   = keys.nextElement();
-            Object value = UIManager.get(key);
-            if(value != null && value instanceof FontUIResource)
-            {
-                UIManager.put(key, fontResource);
-            }
+            UIManager.put(key, fontResource);
         }
     }
 }
-
@@ -9,6 +9,10 @@ import java.util.List;
 public abstract class Model
 {
     private List<ChangeListener> listeners;
+    // The event only ever carries this model as its source,
+    // so a single instance is shared by every notification.
+    // It is created up front so that no move ever allocates it
+    private final ChangeEvent    event;
 
     /**
      * Constructs a new model object.
@@ -16,6 +20,7 @@ public abstract class Model
     public Model()
     {
         listeners = new ArrayList<>();
+        event = new ChangeEvent(this);
     }
 
     /**
@@ -43,10 +48,9 @@ public abstract class Model
      */
     protected void invokeListeners()
     {
-        ChangeEvent event = new ChangeEvent(this);
-        for(ChangeListener listener : listeners)
+        for(int i = 0; i < listeners.size(); i++)
         {
-            listener.stateChanged(event);
+            listeners.get(i).stateChanged(event);
         }
     }
 
@@ -0,0 +1,102 @@
+/**
+ * A compact record of one committed move, read from a {@code MoveEventRing}.
+ * Consumers own their event instance and pass it to
+ * {@link MoveEventRing.Cursor#poll(MoveEvent)}, which overwrites it in place, so
+ * reading events does not allocate.
+ */
+public final class MoveEvent
+{
+    long  sequence = -1;
+    int   player;
+    int   position;
+    int   currentPlayer;
+    int   winningPlayer;
+    final int[] board = new int[Rules.BOARD_SIZE];
+
+    /**
+     * Returns the sequence number of the move. The first move published to a ring is 0.
+     *
+     * @return The sequence number
+     */
+    public long getSequence()
+    {
+        return sequence;
+    }
+
+    /**
+     * Returns the player who made the move.
+     *
+     * @return The player
+     */
+    public int getPlayer()
+    {
+        return player;
+    }
+
+    /**
+     * Returns the pit the player selected.
+     *
+     * @return The position of the pit
+     */
+    public int getPosition()
+    {
+        return position;
+    }
+
+    /**
+     * Returns the player to move after this move.
+     *
+     * @return The current player
+     */
+    public int getCurrentPlayer()
+    {
+        return currentPlayer;
+    }
+
+    /**
+     * Returns the winning player after this move, or -1 if the game is still going.
+     *
+     * @return The winning player
+     */
+    public int getWinningPlayer()
+    {
+        return winningPlayer;
+    }
+
+    /**
+     * Returns the amount of stones at {@code index} of the resulting board.
+     *
+     * @param index The board index. See {@code Rules} for the layout
+     * @return The amount of stones
+     * @see Rules#pit(int, int)
+     * @see Rules#store(int)
+     */
+    public int getStones(int index)
+    {
+        return board[index];
+    }
+
+    /**
+     * Copies the resulting board into {@code dst}.
+     *
+     * @param dst An array of at least {@code Rules.BOARD_SIZE} entries
+     * @return The array
+     */
+    public int[] copyBoard(int[] dst)
+    {
+        System.arraycopy(board, 0, dst, 0, Rules.BOARD_SIZE);
+        return dst;
+    }
+
+    /**
+     * Returns a string representation of the class showing its data. Useful debugging.
+     *
+     * @return A string
+     */
+    @Override
+    public String toString()
+    {
+        return String.format("MoveEvent[sequence=%d, player=%d, position=%d, currentPlayer=%d, winningPlayer=%d]",
+                             sequence, player, position, currentPlayer, winningPlayer);
+    }
+}
@@ -0,0 +1,213 @@
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A single producer, multiple consumer ring buffer of move events. Registered as a
+ * move listener on a game, the ring publishes every committed move exactly once,
+ * and any number of spectators read it through their own {@code Cursor} at their
+ * own pace, on their own threads.
+ * <p>
+ * The game never waits for a spectator. Each slot is guarded by its sequence
+ * number like a seqlock, so a spectator that falls more than a full ring behind
+ * notices that its slot has been overwritten and skips ahead to the latest move,
+ * counting the moves it dropped.
+ * <p>
+ * Events are stored in preallocated primitive arrays, so neither publishing nor
+ * reading allocates.
+ */
+public final class MoveEventRing implements MancalaGame.MoveListener
+{
+    // Ints stored per slot: player, position, current player, winning player and the board
+    private static final int HEADER = 4;
+    private static final int STRIDE = HEADER + Rules.BOARD_SIZE;
+
+    private final int                mask;
+    // The sequence of the event held in each slot, or -1 while it is written
+    private final AtomicLongArray    sequences;
+    private final AtomicIntegerArray data;
+    // The sequence of the latest published event
+    private final AtomicLong         published = new AtomicLong(-1);
+
+    /**
+     * Constructs a new ring holding the latest {@code capacity} moves.
+     *
+     * @param capacity The capacity. Must be a power of two
+     * @throws IllegalArgumentException If the capacity is not a positive power of two
+     */
+    public MoveEventRing(int capacity)
+    {
+        if(capacity <= 0 || Integer.bitCount(capacity) != 1)
+        {
+            throw new IllegalArgumentException("capacity must be a positive power of two");
+        }
+
+        mask = capacity - 1;
+        sequences = new AtomicLongArray(capacity);
+        data = new AtomicIntegerArray(capacity * STRIDE);
+        for(int i = 0; i < capacity; i++)
+        {
+            sequences.set(i, -1);
+        }
+    }
+
+    /**
+     * Returns the amount of events the ring holds.
+     *
+     * @return The capacity
+     */
+    public int getCapacity()
+    {
+        return mask + 1;
+    }
+
+    /**
+     * Returns the sequence number of the latest published event, or -1 if nothing
+     * has been published yet.
+     *
+     * @return The sequence number
+     */
+    public long getPublishedSequence()
+    {
+        return published.get();
+    }
+
+    /**
+     * Creates a cursor that starts reading at the next published event.
+     *
+     * @return The cursor
+     */
+    public Cursor newCursor()
+    {
+        return new Cursor(published.get() + 1);
+    }
+
+    /**
+     * Publishes the committed move. Must only be called from the thread playing the game.
+     *
+     * @param game     The game
+     * @param player   The player who made the selection
+     * @param position The selected pit
+     */
+    @Override
+    public void selectionCommitted(MancalaGame game, int player, int position)
+    {
+        long sequence = published.get() + 1;
+        int  slot     = (int) (sequence & mask);
+        int  base     = slot * STRIDE;
+
+        // Readers that see -1 or a different sequence know the slot is being rewritten.
+        // Lazy sets keep the stores in order without a full fence on each one.
+        sequences.lazySet(slot, -1);
+        data.lazySet(base, player);
+        data.lazySet(base + 1, position);
+        data.lazySet(base + 2, game.getCurrentPlayer());
+        data.lazySet(base + 3, game.getWinningPlayer());
+        for(int i = 0; i < MancalaGame.MAX_PLAYERS; i++)
+        {
+            for(int j = 0; j < MancalaGame.MAX_PITS; j++)
+            {
+                data.lazySet(base + HEADER + Rules.pit(i, j), game.getPitModel(i, j).getStones());
+            }
+            data.lazySet(base + HEADER + Rules.store(i), game.getMancalaModel(i).getStones());
+        }
+        sequences.lazySet(slot, sequence);
+        published.lazySet(sequence);
+    }
+
+    /**
+     * A spectator's read position in the ring. A cursor must only be used by one thread.
+     */
+    public final class Cursor
+    {
+        private long next;
+        private long dropped;
+
+        private Cursor(long next)
+        {
+            this.next = next;
+        }
+
+        /**
+         * Reads the next event into {@code event}. If the cursor fell behind by more
+         * than the ring's capacity, it skips to the latest event instead.
+         *
+         * @param event The event to fill in
+         * @return True if an event was read, false if there is no new event yet
+         */
+        public boolean poll(MoveEvent event)
+        {
+            while(true)
+            {
+                long latest = published.get();
+                if(next > latest) return false;
+                if(latest - next > mask)
+                {
+                    skipToLatest();
+                    continue;
+                }
+
+                int slot = (int) (next & mask);
+                int base = slot * STRIDE;
+                if(sequences.get(slot) != next)
+                {
+                    // Overwritten while we were looking, so we are too slow
+                    skipToLatest();
+                    continue;
+                }
+
+                event.player = data.get(base);
+                event.position = data.get(base + 1);
+                event.currentPlayer = data.get(base + 2);
+                event.winningPlayer = data.get(base + 3);
+                for(int i = 0; i < Rules.BOARD_SIZE; i++)
+                {
+                    event.board[i] = data.get(base + HEADER + i);
+                }
+
+                if(sequences.get(slot) != next)
+                {
+                    skipToLatest();
+                    continue;
+                }
+
+                event.sequence = next++;
+                return true;
+            }
+        }
+
+        /**
+         * Moves the cursor to the latest published event, so that the next call to
+         * {@link #poll(MoveEvent)} returns it. Every event skipped counts as dropped.
+         */
+        public void skipToLatest()
+        {
+            long latest = published.get();
+            if(latest > next)
+            {
+                dropped += latest - next;
+                next = latest;
+            }
+        }
+
+        /**
+         * Returns the amount of events this cursor skipped because it fell behind.
+         *
+         * @return The amount of dropped events
+         */
+        public long getDropped()
+        {
+            return dropped;
+        }
+
+        /**
+         * Returns the amount of published events this cursor has not read yet.
+         *
+         * @return The backlog
+         */
+        public long getBacklog()
+        {
+            return Math.max(0, published.get() + 1 - next);
+        }
+    }
+}
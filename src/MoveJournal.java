@@ -0,0 +1,456 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An append-only journal of moves that lets running games survive a JVM restart.
+ * Every registered game appends a small fixed-size record to a memory-mapped
+ * segment file whenever a selection is committed or undone. When a segment is
+ * full the journal rolls over to the next one.
+ * <p>
+ * Writes land in the page cache immediately. A background thread forces the
+ * current segment to disk every flush interval, so many appends share a single
+ * fsync; callers that need a move to be durable before they carry on can wait
+ * for it with {@link #awaitDurable(long)}.
+ * <p>
+ * {@link #recover(Path)} scans the segments and rebuilds every game by replaying
+ * its records through the game's rules, in parallel across games.
+ */
+public final class MoveJournal implements Closeable
+{
+    /**
+     * The default size of a segment file in bytes.
+     */
+    public static final int  DEFAULT_SEGMENT_SIZE   = 16 * 1024 * 1024;
+    /**
+     * The default time between forced flushes in milliseconds.
+     */
+    public static final long DEFAULT_FLUSH_INTERVAL = 10;
+
+    /* Record Layout */
+    // gameId (8), type (1), argument (1), player or variant (1), unused (1), checksum (4)
+    private static final int RECORD_SIZE = 16;
+    private static final int NEW_GAME    = 1;
+    private static final int COMMIT      = 2;
+    private static final int UNDO        = 3;
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private final Path directory;
+    private final int  segmentSize;
+
+    /* Current Segment */
+    private int              segment;
+    private FileChannel      channel;
+    private MappedByteBuffer buffer;
+
+    /* Group Commit */
+    // The journal position just past the last appended record
+    private long    appended;
+    // The journal position up to which records are known to be on disk
+    private long    durable;
+    private boolean closed;
+    private final Thread flusher;
+
+    // The listener journaling each registered game
+    private final Map<MancalaGame, MancalaGame.MoveListener> listeners = new ConcurrentHashMap<>();
+
+    /**
+     * Opens the journal in {@code directory} with the default segment size and
+     * flush interval, creating it if needed.
+     *
+     * @param directory The journal directory
+     * @throws IOException If the journal cannot be opened
+     * @see #MoveJournal(Path, int, long)
+     */
+    public MoveJournal(Path directory) throws IOException
+    {
+        this(directory, DEFAULT_SEGMENT_SIZE, DEFAULT_FLUSH_INTERVAL);
+    }
+
+    /**
+     * Opens the journal in {@code directory}, creating it if needed. New records
+     * are appended after the last valid record of the latest segment.
+     *
+     * @param directory     The journal directory
+     * @param segmentSize   The size of each segment file in bytes
+     * @param flushInterval The time between forced flushes in milliseconds
+     * @throws IOException If the journal cannot be opened
+     */
+    public MoveJournal(Path directory, int segmentSize, long flushInterval) throws IOException
+    {
+        if(segmentSize < RECORD_SIZE) throw new IllegalArgumentException("segmentSize is too small");
+
+        this.directory = directory;
+        this.segmentSize = segmentSize - segmentSize % RECORD_SIZE;
+        Files.createDirectories(directory);
+
+        List<Path> segments = listSegments(directory);
+        segment = segments.isEmpty() ? 0 : segments.size() - 1;
+        openSegment(segment);
+
+        // Continue after the last valid record
+        int offset = 0;
+        while(offset < this.segmentSize && readRecord(buffer, offset) != null)
+        {
+            offset += RECORD_SIZE;
+        }
+        buffer.position(offset);
+        appended = durable = (long) segment * this.segmentSize + offset;
+
+        flusher = new Thread(() -> runFlusher(flushInterval), "MoveJournal flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Starts journaling a new game. Must be called before any selection is made,
+     * since the game is rebuilt from its initial position during recovery.
+     *
+     * @param game   The game
+     * @param gameId An identifier for the game, unique within this journal
+     * @return The journal position of the game's first record
+     */
+    public long register(MancalaGame game, long gameId)
+    {
+        long position = append(gameId, NEW_GAME, game.getInitialStones(), Rules.indexOf(game.getRules()));
+        resume(game, gameId);
+        return position;
+    }
+
+    /**
+     * Continues journaling a game that has already been registered, such as a game
+     * returned by {@link #recover(Path)}. Once the journal is closed, the game's
+     * moves are no longer journaled.
+     *
+     * @param game   The game
+     * @param gameId The game's identifier
+     */
+    public void resume(MancalaGame game, long gameId)
+    {
+        MancalaGame.MoveListener listener = new MancalaGame.MoveListener()
+        {
+            @Override
+            public void selectionCommitted(MancalaGame game, int player, int position)
+            {
+                appendIfOpen(gameId, COMMIT, position, player);
+            }
+
+            @Override
+            public void selectionUndone(MancalaGame game, int player, int position)
+            {
+                appendIfOpen(gameId, UNDO, position, player);
+            }
+        };
+        MancalaGame.MoveListener previous = listeners.put(game, listener);
+        if(previous != null) game.removeMoveListener(previous);
+        game.addMoveListener(listener);
+    }
+
+    /**
+     * Stops journaling a game, leaving its other listeners in place. Does nothing
+     * if the game is not journaled.
+     *
+     * @param game The game
+     */
+    public void unregister(MancalaGame game)
+    {
+        MancalaGame.MoveListener listener = listeners.remove(game);
+        if(listener != null) game.removeMoveListener(listener);
+    }
+
+    /**
+     * Returns the journal position just past the last appended record.
+     *
+     * @return The position
+     */
+    public synchronized long getAppendedPosition()
+    {
+        return appended;
+    }
+
+    /**
+     * Forces every appended record to disk now.
+     *
+     * @throws IOException If the journal has been closed
+     */
+    public void sync() throws IOException
+    {
+        synchronized(this)
+        {
+            if(closed) throw new IOException("The journal is closed");
+        }
+        flush();
+    }
+
+    /**
+     * Waits until the record at {@code position} has been forced to disk by the
+     * flusher, which batches the fsyncs of everyone waiting.
+     *
+     * @param position A journal position returned by an append
+     * @throws InterruptedException If the thread is interrupted while waiting
+     */
+    public synchronized void awaitDurable(long position) throws InterruptedException
+    {
+        while(durable <= position && !closed)
+        {
+            wait();
+        }
+    }
+
+    /**
+     * Forces the remaining records to disk and closes the journal.
+     *
+     * @throws IOException If the segment cannot be closed
+     */
+    @Override
+    public void close() throws IOException
+    {
+        synchronized(this)
+        {
+            if(closed) return;
+            closed = true;
+        }
+        flusher.interrupt();
+        flush();
+        synchronized(this)
+        {
+            channel.close();
+            notifyAll();
+        }
+    }
+
+    /**
+     * Rebuilds every game recorded in the journal in {@code directory}. The records
+     * are read in order, and the games are replayed in parallel.
+     *
+     * @param directory The journal directory
+     * @return The games, keyed by their identifiers in the order they were registered
+     * @throws IOException If a segment cannot be read
+     */
+    public static Map<Long, MancalaGame> recover(Path directory) throws IOException
+    {
+        Map<Long, ByteBuffer> logs = new LinkedHashMap<>();
+        if(Files.isDirectory(directory))
+        {
+            for(Path path : listSegments(directory))
+            {
+                try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+                {
+                    MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                    for(int offset = 0; offset + RECORD_SIZE <= segment.capacity(); offset += RECORD_SIZE)
+                    {
+                        byte[] record = readRecord(segment, offset);
+                        if(record == null) break;
+
+                        long       gameId = segment.getLong(offset);
+                        ByteBuffer log    = logs.get(gameId);
+                        if(record[0] == NEW_GAME || log == null)
+                        {
+                            log = ByteBuffer.allocate(64);
+                        }
+                        else if(log.remaining() < record.length)
+                        {
+                            log.flip();
+                            log = ByteBuffer.allocate(log.capacity() * 2).put(log);
+                        }
+                        logs.put(gameId, log.put(record));
+                    }
+                }
+            }
+        }
+
+        Map<Long, MancalaGame> games = new ConcurrentHashMap<>();
+        logs.entrySet().parallelStream().forEach(entry -> {
+            MancalaGame game = replay(entry.getValue());
+            if(game != null) games.put(entry.getKey(), game);
+        });
+
+        Map<Long, MancalaGame> ordered = new LinkedHashMap<>();
+        for(Long gameId : logs.keySet())
+        {
+            if(games.containsKey(gameId)) ordered.put(gameId, games.get(gameId));
+        }
+        return ordered;
+    }
+
+    /**
+     * Replays the records of one game.
+     *
+     * @param log The game's records, three bytes each: type, argument, player
+     * @return The game, or null if the game's first record was lost
+     */
+    private static MancalaGame replay(ByteBuffer log)
+    {
+        log.flip();
+        if(log.get(0) != NEW_GAME) return null;
+
+        MancalaGame game = new MancalaGame(log.get(1), Rules.VARIANTS[log.get(2)]);
+        for(int i = 3; i + 3 <= log.limit(); i += 3)
+        {
+            game.selectPit(log.get(i + 1));
+            if(log.get(i) == COMMIT)
+            {
+                game.commitLastSelection();
+            }
+            else
+            {
+                game.undoLastSelection();
+            }
+        }
+        return game;
+    }
+
+    // Appends a record for a game's listener, which has nothing to journal to once the journal is closed
+    private synchronized void appendIfOpen(long gameId, int type, int argument, int player)
+    {
+        if(!closed) append(gameId, type, argument, player);
+    }
+
+    /**
+     * Appends a record, rolling over to a new segment if the current one is full.
+     *
+     * @return The journal position of the record
+     */
+    private synchronized long append(long gameId, int type, int argument, int player)
+    {
+        if(closed) throw new RuntimeException("The journal is closed");
+
+        if(!buffer.hasRemaining())
+        {
+            try
+            {
+                // Everything in the full segment has to be on disk before it is dropped
+                buffer.force();
+                durable = appended;
+                notifyAll();
+                channel.close();
+                openSegment(++segment);
+            }
+            catch(IOException e)
+            {
+                throw new RuntimeException("Could not roll over the journal segment", e);
+            }
+        }
+
+        long position = appended;
+        buffer.putLong(gameId);
+        buffer.put((byte) type);
+        buffer.put((byte) argument);
+        buffer.put((byte) player);
+        buffer.put((byte) 0);
+        buffer.putInt(checksum(gameId, type, argument, player));
+        appended += RECORD_SIZE;
+        return position;
+    }
+
+    /**
+     * Forces the current segment and wakes up everyone waiting for durability.
+     */
+    private void flush()
+    {
+        MappedByteBuffer segment;
+        long             position;
+        synchronized(this)
+        {
+            if(durable == appended) return;
+            segment = buffer;
+            position = appended;
+        }
+
+        // Forcing outside the lock lets appends continue during the fsync
+        segment.force();
+
+        synchronized(this)
+        {
+            durable = Math.max(durable, position);
+            notifyAll();
+        }
+    }
+
+    private void runFlusher(long flushInterval)
+    {
+        while(true)
+        {
+            try
+            {
+                Thread.sleep(flushInterval);
+            }
+            catch(InterruptedException e)
+            {
+                return;
+            }
+            flush();
+        }
+    }
+
+    private void openSegment(int index) throws IOException
+    {
+        Path path = directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+        channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                                   StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+    }
+
+    /**
+     * Reads and validates the record at {@code offset}.
+     *
+     * @return The type, argument and player of the record, or null if there is no
+     * valid record at the offset
+     */
+    private static byte[] readRecord(ByteBuffer segment, int offset)
+    {
+        if(offset + RECORD_SIZE > segment.capacity()) return null;
+
+        long gameId   = segment.getLong(offset);
+        int  type     = segment.get(offset + 8);
+        int  argument = segment.get(offset + 9);
+        int  player   = segment.get(offset + 10);
+        if(type < NEW_GAME || type > UNDO) return null;
+        if(segment.getInt(offset + 12) != checksum(gameId, type, argument, player)) return null;
+
+        return new byte[]{(byte) type, (byte) argument, (byte) player};
+    }
+
+    /**
+     * Returns a checksum for a record. The checksum is never 0, so the zero filled
+     * space after the last record never reads as a valid record.
+     */
+    private static int checksum(long gameId, int type, int argument, int player)
+    {
+        long h = gameId * 0x9E3779B97F4A7C15L + ((type << 16) | (argument << 8) | player);
+        h ^= h >>> 31;
+        h *= 0xBF58476D1CE4E5B9L;
+        h ^= h >>> 29;
+        return (int) h | 1;
+    }
+
+    private static List<Path> listSegments(Path directory) throws IOException
+    {
+        List<Path> segments = new ArrayList<>();
+        try(DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+                                                                    SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX))
+        {
+            for(Path path : stream)
+            {
+                segments.add(path);
+            }
+        }
+        // The segment numbers are zero padded, so names sort in order
+        Collections.sort(segments);
+        return segments;
+    }
+}
@@ -0,0 +1,136 @@
+import java.util.function.BooleanSupplier;
+
+/**
+ * A depth-limited minimax search over board arrays, shared by the hint analyzer
+ * and the computer player. Positions are scored by the difference between the
+ * stores from the point of view of the searching player, and finished games as
+ * won or lost outright.
+ * <p>
+ * The search plays moves with the game's {@code Rules} engine on its own stack of
+ * board arrays, so it never touches the game's models and can run on any thread.
+ * It checks {@code stopped} at every visited position and gives up as soon as it
+ * returns true.
+ */
+public final class MoveSearch
+{
+    /**
+     * The score of a won game. Scores beyond this are treated as won or lost games.
+     */
+    public static final int WIN_SCORE = 1000;
+
+    private final Rules           rules;
+    private final int             player;
+    private final BooleanSupplier stopped;
+    // One board array per ply so the search does not allocate
+    private final int[][]         stack;
+
+    /**
+     * Constructs a new search.
+     *
+     * @param rules    The rule variant to play by
+     * @param player   The player to score positions for
+     * @param maxDepth The deepest search that will be asked for
+     * @param stopped  Polled during the search; the search gives up once it returns true
+     */
+    public MoveSearch(Rules rules, int player, int maxDepth, BooleanSupplier stopped)
+    {
+        this.rules = rules;
+        this.player = player;
+        this.stopped = stopped;
+        this.stack = new int[maxDepth + 1][Rules.BOARD_SIZE];
+    }
+
+    /**
+     * Scores each of the player's pits in {@code position}, searching {@code depth}
+     * plies including the move itself.
+     *
+     * @param position The board array, with the player to move
+     * @param depth    The depth, at least 1 and at most the maximum depth
+     * @param scores   An array of {@code MancalaGame.MAX_PITS} entries receiving the
+     *                 scores. Empty pits are scored NaN
+     * @return True if the search finished, false if it was stopped and the scores are incomplete
+     */
+    public boolean scorePits(int[] position, int depth, float[] scores)
+    {
+        for(int i = 0; i < MancalaGame.MAX_PITS; i++)
+        {
+            int[] child = stack[depth];
+            System.arraycopy(position, 0, child, 0, Rules.BOARD_SIZE);
+            int next = play(child, player, i);
+            scores[i] = next == -1 ? Float.NaN : search(child, next, depth - 1);
+            if(stopped.getAsBoolean()) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the pit with the best score.
+     *
+     * @param scores The scores from {@link #scorePits(int[], int, float[])}
+     * @return The position of the pit, or -1 if every pit is empty
+     */
+    public static int bestPit(float[] scores)
+    {
+        int best = -1;
+        for(int i = 0; i < scores.length; i++)
+        {
+            if(Float.isNaN(scores[i])) continue;
+            if(best == -1 || scores[i] > scores[best]) best = i;
+        }
+        return best;
+    }
+
+    /**
+     * Scores a position from the point of view of the searching player.
+     *
+     * @param board  The board array
+     * @param toMove The player to move, or a value below -1 encoding the winner
+     * @param depth  The remaining depth
+     * @return The score
+     */
+    private int search(int[] board, int toMove, int depth)
+    {
+        if(toMove < -1)
+        {
+            return -toMove - 2 == player ? WIN_SCORE : -WIN_SCORE;
+        }
+        if(depth == 0 || stopped.getAsBoolean())
+        {
+            return board[Rules.store(player)] - board[Rules.store(player ^ 1)];
+        }
+
+        boolean maximizing = toMove == player;
+        int     best       = maximizing ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        int[]   child      = stack[depth];
+        for(int i = 0; i < MancalaGame.MAX_PITS; i++)
+        {
+            System.arraycopy(board, 0, child, 0, Rules.BOARD_SIZE);
+            int next = play(child, toMove, i);
+            if(next == -1) continue;
+
+            int score = search(child, next, depth - 1);
+            best = maximizing ? Math.max(best, score) : Math.min(best, score);
+        }
+        return best;
+    }
+
+    /**
+     * Plays the pit at {@code position} on {@code board} the same way the game
+     * does on a selection followed by a commit.
+     *
+     * @param board    The board array
+     * @param toMove   The player making the move
+     * @param position The pit to select
+     * @return -1 if the pit is empty, {@code -2 - winner} if the game ended,
+     * otherwise the player to move next
+     */
+    private int play(int[] board, int toMove, int position)
+    {
+        int result = rules.move(board, toMove, position);
+        if(result == Rules.ILLEGAL) return -1;
+
+        int next   = (result & Rules.EXTRA_TURN) != 0 ? toMove : toMove ^ 1;
+        int winner = rules.finish(board, next);
+        return winner == -1 ? next : -2 - winner;
+    }
+}
@@ -0,0 +1,478 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A view tiling many live games, for spectating a tournament in one window.
+ * Rather than one {@code Board} per game, each with a listener on every model
+ * and a repaint per changed pit, every game gets one {@code MoveEventRing}, and
+ * a single Swing timer polls all the rings a few dozen times a second. A table
+ * that moved any number of times since the last tick is drawn once, at its
+ * latest position, into its own image by one shared board used as a stamp, and
+ * only the changed tiles are repainted. Games may be played on any thread, and
+ * the cost of the view depends on the frame rate rather than on how fast the
+ * games move.
+ */
+public final class MultiTableView extends JComponent
+{
+    /**
+     * The default frame rate of the render loop.
+     */
+    public static final int DEFAULT_FPS = 30;
+
+    // Moves each table's ring holds, more than enough for one frame
+    private static final int   RING_CAPACITY = 64;
+    private static final int   GAP           = 4;
+    // The width of a board over its height, as in the game window
+    private static final float ASPECT        = 3.2f;
+    private static final Font  TITLE_FONT    = new Font(Font.SANS_SERIF, Font.BOLD, 12);
+    private static final Color TITLE_COLOR   = Color.WHITE;
+    // The smallest width the stamp paints at, below which the stone counts no longer fit
+    private static final int   STAMP_WIDTH   = 640;
+
+    private final List<Table> tables = new ArrayList<>();
+    private final Board       stamp;
+    // The stamp paints here when tiles are too small for its stone counts, and is scaled down
+    private BufferedImage     stampImage;
+    private final Timer       timer;
+    private final MoveEvent   event  = new MoveEvent();
+
+    /* Tiling */
+    private int columns;
+    private int tileWidth;
+    private int tileHeight;
+
+    /* Statistics */
+    private long ticks;
+    private long renders;
+
+    /**
+     * Constructs a new view without tables.
+     *
+     * @param theme The theme to paint the tables with
+     */
+    public MultiTableView(BoardTheme theme)
+    {
+        stamp = new Board(new MancalaGame(), theme);
+        timer = new Timer(1000 / DEFAULT_FPS, e -> tick());
+        setOpaque(true);
+        setBackground(Color.DARK_GRAY);
+        setPreferredSize(new Dimension(1280, 800));
+    }
+
+    /**
+     * Adds a table showing {@code game}. Must be called on the event dispatch
+     * thread, before the game's next move.
+     *
+     * @param game  The game
+     * @param title The title shown on the table
+     * @return The index of the table
+     */
+    public int addTable(MancalaGame game, String title)
+    {
+        Table table = new Table(title);
+        tables.add(table);
+        setGame(tables.size() - 1, game);
+        layoutTiles();
+        return tables.size() - 1;
+    }
+
+    /**
+     * Replaces the game a table shows, such as with the next game of a match. Must
+     * be called on the event dispatch thread, while neither game is moving.
+     *
+     * @param index The index of the table
+     * @param game  The game
+     */
+    public void setGame(int index, MancalaGame game)
+    {
+        Table table = tables.get(index);
+        if(table.game != null) table.game.removeMoveListener(table.ring);
+        table.game = game;
+        table.ring = new MoveEventRing(RING_CAPACITY);
+        table.cursor = table.ring.newCursor();
+        game.copyPosition(table.board);
+        table.winner = game.getWinningPlayer();
+        table.moves = 0;
+        table.changed = true;
+        table.dirty = true;
+        game.addMoveListener(table.ring);
+    }
+
+    /**
+     * Returns the amount of tables.
+     *
+     * @return The amount of tables
+     */
+    public int getTableCount()
+    {
+        return tables.size();
+    }
+
+    /**
+     * Sets the frame rate of the render loop.
+     *
+     * @param fps The frames per second
+     */
+    public void setFramesPerSecond(int fps)
+    {
+        timer.setDelay(1000 / Math.max(1, fps));
+    }
+
+    /**
+     * Returns the amount of ticks of the render loop so far.
+     *
+     * @return The amount of ticks
+     */
+    public long getTicks()
+    {
+        return ticks;
+    }
+
+    /**
+     * Returns the amount of times a table was drawn so far.
+     *
+     * @return The amount of table renders
+     */
+    public long getRenders()
+    {
+        return renders;
+    }
+
+    /**
+     * Starts the render loop once the view is showing.
+     */
+    @Override
+    public void addNotify()
+    {
+        super.addNotify();
+        timer.start();
+    }
+
+    /**
+     * Stops the render loop once the view is no longer showing.
+     */
+    @Override
+    public void removeNotify()
+    {
+        timer.stop();
+        super.removeNotify();
+    }
+
+    /**
+     * Tiles the tables anew after a size change.
+     */
+    @Override
+    public void doLayout()
+    {
+        layoutTiles();
+    }
+
+    /**
+     * Copies the latest position a table has seen, as of the last tick.
+     *
+     * @param index The index of the table
+     * @param dst   An array of at least {@code Rules.BOARD_SIZE} entries
+     * @return {@code dst}
+     */
+    int[] getPosition(int index, int[] dst)
+    {
+        System.arraycopy(tables.get(index).board, 0, dst, 0, Rules.BOARD_SIZE);
+        return dst;
+    }
+
+    /**
+     * Runs one step of the render loop: takes the latest move of every table and
+     * repaints the tiles that changed.
+     *
+     * @return The amount of tables that changed
+     */
+    int tick()
+    {
+        ticks++;
+        int changed = 0;
+        for(int i = 0; i < tables.size(); i++)
+        {
+            Table   table = tables.get(i);
+            boolean moved = table.changed;
+            // Only the latest position matters, the moves in between are never drawn
+            table.cursor.skipToLatest();
+            while(table.cursor.poll(event))
+            {
+                event.copyBoard(table.board);
+                table.winner = event.getWinningPlayer();
+                table.moves = (int) event.getSequence() + 1;
+                moved = true;
+            }
+            if(!moved) continue;
+
+            table.changed = false;
+            table.dirty = true;
+            changed++;
+            if(tileWidth > 0)
+            {
+                repaint(tileX(i), tileY(i), tileWidth, tileHeight);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Draws the tables, rendering the ones that changed into their images first.
+     *
+     * @param g The graphics object
+     */
+    @Override
+    protected void paintComponent(Graphics g)
+    {
+        g.setColor(getBackground());
+        g.fillRect(0, 0, getWidth(), getHeight());
+        if(tileWidth <= 0) return;
+
+        Rectangle clip = g.getClipBounds();
+        for(int i = 0; i < tables.size(); i++)
+        {
+            int x = tileX(i);
+            int y = tileY(i);
+            if(clip != null && !clip.intersects(x, y, tileWidth, tileHeight)) continue;
+
+            Table table = tables.get(i);
+            if(table.dirty || table.image == null) render(table);
+            g.drawImage(table.image, x, y, null);
+        }
+    }
+
+    private void render(Table table)
+    {
+        if(table.image == null || table.image.getWidth() != tileWidth || table.image.getHeight() != tileHeight)
+        {
+            table.image = new BufferedImage(tileWidth, tileHeight, BufferedImage.TYPE_INT_RGB);
+        }
+        stamp.setPosition(table.board);
+
+        if(stampImage != null)
+        {
+            Graphics2D stampGraphics = stampImage.createGraphics();
+            try
+            {
+                stamp.printAll(stampGraphics);
+            }
+            finally
+            {
+                stampGraphics.dispose();
+            }
+        }
+
+        Graphics2D g2 = table.image.createGraphics();
+        try
+        {
+            if(stampImage == null)
+            {
+                stamp.printAll(g2);
+            }
+            else
+            {
+                g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g2.drawImage(stampImage, 0, 0, tileWidth, tileHeight, null);
+            }
+
+            String status = table.winner == -1 ? table.moves + " moves"
+                                               : "Player " + (table.winner == MancalaGame.PLAYER_A ? "A" : "B") +
+                                                 " won";
+            g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g2.setFont(TITLE_FONT);
+            g2.setColor(TITLE_COLOR);
+            g2.drawString(table.title + "  " + status, GAP, g2.getFontMetrics().getAscent() + 1);
+        }
+        finally
+        {
+            g2.dispose();
+        }
+        table.dirty = false;
+        renders++;
+    }
+
+    // Picks the amount of columns giving the largest tiles of the board's shape
+    private void layoutTiles()
+    {
+        int count  = tables.size();
+        int width  = getWidth();
+        int height = getHeight();
+        tileWidth = 0;
+        tileHeight = 0;
+        if(count == 0 || width <= 0 || height <= 0) return;
+
+        for(int cols = 1; cols <= count; cols++)
+        {
+            int rows = (count + cols - 1) / cols;
+            int w    = Math.min((width - GAP) / cols - GAP, (int) (((height - GAP) / rows - GAP) * ASPECT));
+            if(w > tileWidth)
+            {
+                columns = cols;
+                tileWidth = w;
+            }
+        }
+        tileHeight = (int) (tileWidth / ASPECT);
+        if(tileWidth <= 0 || tileHeight <= 0)
+        {
+            tileWidth = 0;
+            return;
+        }
+
+        if(tileWidth < STAMP_WIDTH)
+        {
+            stampImage = new BufferedImage(STAMP_WIDTH, (int) (STAMP_WIDTH / ASPECT), BufferedImage.TYPE_INT_RGB);
+            stamp.setSize(stampImage.getWidth(), stampImage.getHeight());
+        }
+        else
+        {
+            stampImage = null;
+            stamp.setSize(tileWidth, tileHeight);
+        }
+        stamp.doLayout();
+        for(Table table : tables)
+        {
+            table.dirty = true;
+        }
+        repaint();
+    }
+
+    private int tileX(int index)
+    {
+        return GAP + (index % columns) * (tileWidth + GAP);
+    }
+
+    private int tileY(int index)
+    {
+        return GAP + (index / columns) * (tileHeight + GAP);
+    }
+
+    /**
+     * Spectates games between random and greedy players, each moving every few
+     * milliseconds, from the command line.
+     *
+     * @param args Command line arguments
+     */
+    public static void main(String[] args)
+    {
+        int tables = 36;
+        int delay  = 5;
+        int fps    = DEFAULT_FPS;
+        for(int i = 0; i < args.length; i++)
+        {
+            switch(args[i])
+            {
+                case "-tables":
+                    tables = Integer.parseInt(args[++i]);
+                    break;
+                case "-delay":
+                    delay = Integer.parseInt(args[++i]);
+                    break;
+                case "-fps":
+                    fps = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    System.err.println("Usage: MultiTableView [-tables n] [-delay millis] [-fps n]");
+                    System.exit(1);
+            }
+        }
+
+        MultiTableView view  = new MultiTableView(BoardTheme.THEME_1);
+        int            count = tables;
+        int            pause = delay;
+        view.setFramesPerSecond(fps);
+        SwingUtilities.invokeLater(() -> {
+            JFrame frame = new JFrame("Mancala Tables");
+            frame.setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
+            frame.add(view);
+            frame.pack();
+            frame.setVisible(true);
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(count, r -> {
+            Thread thread = new Thread(r, "Table");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for(int t = 0; t < count; t++)
+        {
+            int table = t;
+            pool.execute(() -> spectate(view, table, pause));
+        }
+    }
+
+    // Plays games on one table forever
+    private static void spectate(MultiTableView view, int table, int delay)
+    {
+        Random     random  = new Random(table);
+        Strategy[] players = {Strategy.greedy(new Evaluator()), Strategy::randomPit};
+        int[]      board   = new int[Rules.BOARD_SIZE];
+        // The threads add their tables in any order, so the view's index can differ
+        int[]      index   = new int[1];
+        try
+        {
+            for(int round = 0; ; round++)
+            {
+                MancalaGame game  = new MancalaGame(MancalaGame.MAX_INITIAL_STONES);
+                int         first = round & 1;
+                if(round == 0)
+                {
+                    SwingUtilities.invokeAndWait(() -> index[0] = view.addTable(game, "Table " + (table + 1)));
+                }
+                else
+                {
+                    SwingUtilities.invokeAndWait(() -> view.setGame(index[0], game));
+                }
+
+                while(!game.isGameOver())
+                {
+                    int player = game.getCurrentPlayer();
+                    game.selectPit(players[player ^ first].choosePit(Rules.KALAH, game.copyPosition(board), player,
+                                                                     random));
+                    game.commitLastSelection();
+                    Thread.sleep(delay);
+                }
+                Thread.sleep(1000);
+            }
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        catch(InvocationTargetException e)
+        {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * A game shown by the view. Only used on the event dispatch thread, apart from
+     * the ring, which the game's thread publishes to.
+     */
+    private static final class Table
+    {
+        private final String title;
+        private final int[]  board = new int[Rules.BOARD_SIZE];
+
+        private MancalaGame          game;
+        private MoveEventRing        ring;
+        private MoveEventRing.Cursor cursor;
+        private int                  winner;
+        private int                  moves;
+        // Changed since the last tick, and since the image was last drawn
+        private boolean              changed;
+        private boolean              dirty;
+        private BufferedImage        image;
+
+        private Table(String title)
+        {
+            this.title = title;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * Oware-style rules played on the same board. Stones are sown counterclockwise
+ * around the twelve pits only, skipping both stores and the starting pit, and
+ * there are no extra turns. When the last stone makes a pit on the opponent's
+ * row hold two or three stones, that pit and the consecutive preceding pits on
+ * the opponent's row holding two or three stones are captured, unless doing so
+ * would take every stone the opponent has left.
+ * <p>
+ * The game ends when the player to move has no stones, in which case each player
+ * keeps the stones on their own row, or when a player has captured more than
+ * half of the stones.
+ *
+ * @see Rules#OWARE
+ */
+public final class OwareRules implements Rules
+{
+    private static final int PITS = MancalaGame.MAX_PITS;
+    private static final int ROW  = MancalaGame.MAX_PITS + 1;
+
+    // The next pit in sowing order for every board index, skipping the stores
+    private static final int[] NEXT = {1, 2, 3, 4, 5, 7, -1, 8, 9, 10, 11, 12, 0, -1};
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName()
+    {
+        return "Oware";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int move(int[] board, int player, int position)
+    {
+        int origin = player * ROW + position;
+        int stones = board[origin];
+        if(stones == 0) return ILLEGAL;
+
+        board[origin] = 0;
+
+        int index = origin;
+        while(stones > 0)
+        {
+            index = NEXT[index];
+            if(index == origin) continue;
+
+            board[index]++;
+            stones--;
+        }
+
+        // Captures only happen on the opponent's row
+        int base = (player ^ 1) * ROW;
+        if(index < base || index >= base + PITS) return 0;
+
+        int captured = 0;
+        int last     = index;
+        for(; last >= base && (board[last] == 2 || board[last] == 3); last--)
+        {
+            captured += board[last];
+        }
+        if(captured == 0) return 0;
+
+        // Grand slam: taking every stone the opponent has forfeits the capture
+        int remaining = 0;
+        for(int i = base; i < base + PITS; i++)
+        {
+            remaining += board[i];
+        }
+        if(remaining == captured) return 0;
+
+        for(int i = index; i > last; i--)
+        {
+            board[i] = 0;
+        }
+        board[player * ROW + PITS] += captured;
+        return CAPTURE;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int finish(int[] board, int player)
+    {
+        int total = 0;
+        for(int stones : board)
+        {
+            total += stones;
+        }
+
+        int base    = player * ROW;
+        int onBoard = 0;
+        for(int i = base; i < base + PITS; i++)
+        {
+            onBoard += board[i];
+        }
+
+        if(onBoard != 0 && board[PITS] * 2 <= total && board[ROW + PITS] * 2 <= total) return -1;
+
+        // Each player keeps what is left on their own row
+        for(int i = 0; i < MancalaGame.MAX_PLAYERS; i++)
+        {
+            for(int j = 0; j < PITS; j++)
+            {
+                board[i * ROW + PITS] += board[i * ROW + j];
+                board[i * ROW + j] = 0;
+            }
+        }
+        return board[PITS] > board[ROW + PITS] ? MancalaGame.PLAYER_A : MancalaGame.PLAYER_B;
+    }
+}
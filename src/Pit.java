@@ -1,18 +1,58 @@
 import javax.swing.*;
 import java.awt.*;
 import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
 
 /**
  * A view representing a pit. A pit displays a count of how many stones
  * are inside of the pit in the center. The view is themeable using the
  * {@code BoardTheme} interface, via the strategy pattern.
+ * <p>
+ * In stone mode the pit draws every stone instead, copied from the sprites in
+ * {@code StoneSprites} and placed on a jittered spiral that only depends on the
+ * stone's index, so stones keep their place as the count changes. Past the
+ * stone limit the pit falls back to a small cluster of stones with the count
+ * on top, which keeps painting cheap late in the game.
+ * <p>
+ * The view is opaque: its shape and hint shading are antialiased once onto the
+ * theme's board color in a background image, which is copied on every paint
+ * until the size, theme or hint changes.
  */
 public class Pit extends JComponent
 {
     private static final Font PIT_FONT = new Font("Comic Sans MS", Font.BOLD, 56);
 
+    // The most stones a pit draws individually
+    private static final int     STONE_LIMIT    = 24;
+    // The amount of stones drawn in the clustered representation
+    private static final int     CLUSTER_STONES = 10;
+    // Spiral directions for every stone index, using the golden angle
+    private static final int     MAX_STONES     = 64;
+    private static final float[] SPIRAL_COS     = new float[MAX_STONES];
+    private static final float[] SPIRAL_SIN     = new float[MAX_STONES];
+
+    static
+    {
+        double goldenAngle = Math.PI * (3 - Math.sqrt(5));
+        for(int i = 0; i < MAX_STONES; i++)
+        {
+            SPIRAL_COS[i] = (float) Math.cos(i * goldenAngle);
+            SPIRAL_SIN[i] = (float) Math.sin(i * goldenAngle);
+        }
+    }
+
     protected BoardTheme theme;
     protected int        stoneCount;
+    protected float      hint = Float.NaN;
+    protected boolean    showStones;
+    protected int        stoneSeed;
+
+    private Runnable paintListener;
+
+    /* Background */
+    private BufferedImage background;
+    private BoardTheme    backgroundTheme;
+    private float         backgroundHint;
 
     /**
      * Constructs a new pit with {@code stoneCount} stones.
@@ -36,6 +76,7 @@ public class Pit extends JComponent
     {
         this.stoneCount = stoneCount;
         this.theme = theme;
+        setOpaque(true);
     }
 
     /**
@@ -60,6 +101,62 @@ public class Pit extends JComponent
         repaint();
     }
 
+    /**
+     * Returns true if the pit draws individual stones rather than a count.
+     *
+     * @return True if in stone mode, false otherwise
+     */
+    public boolean isShowingStones()
+    {
+        return showStones;
+    }
+
+    /**
+     * Sets whether the pit draws individual stones rather than a count.
+     *
+     * @param showStones True for stone mode
+     */
+    public void setShowStones(boolean showStones)
+    {
+        this.showStones = showStones;
+        repaint();
+    }
+
+    /**
+     * Sets the seed for the jitter of the stone placement, so that neighboring
+     * pits with the same count do not look identical.
+     *
+     * @param stoneSeed The seed
+     */
+    public void setStoneSeed(int stoneSeed)
+    {
+        this.stoneSeed = stoneSeed;
+        repaint();
+    }
+
+    /**
+     * Returns the hint shade of this pit, or NaN if the pit is not shaded.
+     *
+     * @return The hint shade
+     */
+    public float getHint()
+    {
+        return hint;
+    }
+
+    /**
+     * Sets the hint shade of this pit. The shade should be within {@code 0 <= hint <= 1},
+     * where 1 marks the best move. NaN removes the shading.
+     *
+     * @param hint The hint shade
+     */
+    public void setHint(float hint)
+    {
+        if(Float.compare(this.hint, hint) == 0) return;
+        this.hint = hint;
+        repaint();
+    }
+
     /**
      * Returns the current theme.
      *
@@ -81,6 +178,28 @@ public class Pit extends JComponent
         repaint();
     }
 
+    /**
+     * Sets a callback run every time the view has painted itself.
+     *
+     * @param paintListener The callback, or null for none
+     */
+    public void setPaintListener(Runnable paintListener)
+    {
+        this.paintListener = paintListener;
+    }
+
+    /**
+     * Paints the view and tells the paint listener.
+     *
+     * @param g The graphics object
+     */
+    @Override
+    public void paint(Graphics g)
+    {
+        super.paint(g);
+        if(paintListener != null) paintListener.run();
+    }
+
     /**
      * Paints the pit view. Layout and positioning should be handled by the
      * top level component.
@@ -91,9 +210,56 @@ public class Pit extends JComponent
     protected void paintComponent(Graphics g)
     {
         Graphics2D g2 = (Graphics2D) g;
+        g2.drawImage(getBackgroundImage(), 0, 0, null);
         g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
                             RenderingHints.VALUE_ANTIALIAS_ON);
+        paintContents(g2);
+    }
+
+    /**
+     * Returns the shape and hint shading of the view on the board color, rendering
+     * them again if the size, theme or hint changed since the last paint.
+     *
+     * @return The background image
+     */
+    private BufferedImage getBackgroundImage()
+    {
+        int width  = getWidth();
+        int height = getHeight();
+        if(background != null && background.getWidth() == width && background.getHeight() == height &&
+           backgroundTheme == theme && Float.compare(backgroundHint, hint) == 0)
+        {
+            return background;
+        }
 
+        background = new BufferedImage(Math.max(1, width), Math.max(1, height), BufferedImage.TYPE_INT_RGB);
+        backgroundTheme = theme;
+        backgroundHint = hint;
+
+        Graphics2D g2 = background.createGraphics();
+        try
+        {
+            g2.setColor(theme.getBoardColor());
+            g2.fillRect(0, 0, width, height);
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                                RenderingHints.VALUE_ANTIALIAS_ON);
+            paintShape(g2);
+            paintHint(g2);
+        }
+        finally
+        {
+            g2.dispose();
+        }
+        return background;
+    }
+
+    /**
+     * Paints the shape of the pit.
+     *
+     * @param g2 The graphics object
+     */
+    protected void paintShape(Graphics2D g2)
+    {
         Rectangle r = getBounds();
         g2.setColor(theme.getPitColor());
         // Paint different shapes depending on the shape type
@@ -106,8 +272,107 @@ public class Pit extends JComponent
                 g2.fillRect(0, 0, r.width, r.height);
                 break;
         }
+    }
+
+    /**
+     * Paints the stones or the stone count, depending on the mode.
+     *
+     * @param g2 The graphics object
+     */
+    protected void paintContents(Graphics2D g2)
+    {
+        if(showStones)
+        {
+            paintStones(g2);
+        }
+        else
+        {
+            paintStoneCount(g2);
+        }
+    }
 
-        paintStoneCount(g2);
+    /**
+     * Returns the most stones this view draws individually before switching
+     * to the clustered representation.
+     *
+     * @return The stone limit
+     */
+    protected int getStoneLimit()
+    {
+        return STONE_LIMIT;
+    }
+
+    /**
+     * Paints the individual stones, or a cluster of stones and the stone count
+     * once there are more stones than the stone limit.
+     *
+     * @param g2 The graphics object
+     */
+    protected void paintStones(Graphics2D g2)
+    {
+        Rectangle r         = getBounds();
+        int       limit     = Math.min(getStoneLimit(), MAX_STONES);
+        boolean   clustered = stoneCount > limit;
+        int       drawn     = clustered ? CLUSTER_STONES : stoneCount;
+        // Clustered stones are packed closer to the center to make room for the count
+        int       capacity  = clustered ? CLUSTER_STONES * 3 : limit;
+
+        int           diameter = Math.max(4, Math.min(r.width, r.height) / 6);
+        BufferedImage atlas    = StoneSprites.getAtlas(diameter);
+        float         radiusX  = (r.width - diameter) * 0.42f;
+        float         radiusY  = (r.height - diameter) * 0.42f;
+        float         jitter   = diameter * 0.3f;
+
+        for(int i = 0; i < drawn; i++)
+        {
+            int   hash   = mix(stoneSeed * MAX_STONES + i);
+            float radius = (float) Math.sqrt((i + 0.5f) / capacity);
+            float x      = r.width / 2f + SPIRAL_COS[i] * radius * radiusX + ((hash & 0xFF) / 255f - 0.5f) * jitter;
+            float y      = r.height / 2f + SPIRAL_SIN[i] * radius * radiusY + ((hash >>> 8 & 0xFF) / 255f - 0.5f) * jitter;
+            StoneSprites.drawStone(g2, atlas, diameter, (hash >>> 16) % StoneSprites.VARIANTS,
+                                   (int) x - diameter / 2, (int) y - diameter / 2);
+        }
+
+        if(clustered) paintStoneCount(g2);
+    }
+
+    /**
+     * Scrambles the bits of {@code value} for the placement jitter.
+     *
+     * @param value The value
+     * @return A nonnegative hash
+     */
+    private static int mix(int value)
+    {
+        int h = value * 0x9E3779B9;
+        h ^= h >>> 15;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return h & Integer.MAX_VALUE;
+    }
+
+    /**
+     * Shades the pit with the theme's hint color if the pit has a hint.
+     *
+     * @param g2 The graphics object
+     */
+    protected void paintHint(Graphics2D g2)
+    {
+        if(Float.isNaN(hint)) return;
+
+        Color     color = theme.getHintColor();
+        Rectangle r     = getBounds();
+        g2.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(),
+                              (int) (200 * Math.max(0, Math.min(1, hint)))));
+        switch(theme.getPitShape())
+        {
+            case CIRCLE:
+                g2.fillOval(0, 0, r.width, r.height);
+                break;
+            case SQUARE:
+                g2.fillRect(0, 0, r.width, r.height);
+                break;
+        }
     }
 
     /**
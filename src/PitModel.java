@@ -40,6 +40,21 @@ public final class PitModel extends Model
         return stones;
     }
 
+    /**
+     * Sets the amount of stones in the pit. The listeners are only invoked if
+     * the amount actually changes.
+     *
+     * @param stones The amount of stones
+     * @throws IllegalArgumentException If the amount is negative
+     */
+    public void setStones(int stones)
+    {
+        if(stones < 0) throw new IllegalArgumentException("stones cannot be negative");
+        if(this.stones == stones) return;
+        this.stones = stones;
+        invokeListeners();
+    }
+
     /**
      * Returns the amount of stones in this pit.
      *
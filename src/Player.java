@@ -0,0 +1,32 @@
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * An interface representing someone who picks moves in a game, be it a person
+ * clicking on the board or a computer. The controller asks the player to move
+ * whenever it is their turn and applies the chosen pit on the event dispatch
+ * thread once the returned future completes, so a player that takes its time
+ * never blocks the window.
+ */
+public interface Player
+{
+    /**
+     * Starts choosing a pit for the current player of {@code game}. Called on the
+     * event dispatch thread when the game has no pending commit. Cancelling the
+     * returned future abandons the choice.
+     *
+     * @param game The game
+     * @return A future completing with the position of the chosen pit
+     */
+    CompletableFuture<Integer> chooseMove(MancalaGame game);
+
+    /**
+     * Returns true if the player chooses pits by clicking on the board, and so is
+     * given the chance to undo a selection before committing it.
+     *
+     * @return True if the player is a person, false otherwise
+     */
+    default boolean isHuman()
+    {
+        return false;
+    }
+}
@@ -0,0 +1,117 @@
+/**
+ * Packs a position, meaning a board array and the player to move, into a single
+ * {@code long} and back. The fourteen stone counts are ranked as a composition of
+ * the total amount of stones using the combinatorial number system, which needs
+ * 43 bits for the 48 stones of a 4-stone game. The player to move takes the lowest
+ * bit and the total amount of stones the highest bits, so positions with different
+ * totals never share a code.
+ * <p>
+ * Codes are dense and unique, so they serve as exact keys for transposition
+ * tables, deduplication and indexes.
+ */
+public final class PositionCodec
+{
+    /**
+     * The most stones a position may hold in total.
+     */
+    public static final int MAX_STONES = 96;
+
+    private static final int  CELLS       = Rules.BOARD_SIZE;
+    private static final int  TOTAL_SHIFT = 56;
+    private static final long RANK_MASK   = (1L << TOTAL_SHIFT) - 1;
+
+    // BINOMIALS[n][k] = n choose k for the ranges the ranking needs
+    private static final long[][] BINOMIALS = new long[MAX_STONES + CELLS][CELLS];
+
+    static
+    {
+        for(int n = 0; n < BINOMIALS.length; n++)
+        {
+            BINOMIALS[n][0] = 1;
+            for(int k = 1; k < CELLS && k <= n; k++)
+            {
+                BINOMIALS[n][k] = BINOMIALS[n - 1][k - 1] + (k < n ? BINOMIALS[n - 1][k] : 0);
+            }
+        }
+    }
+
+    private PositionCodec()
+    {
+    }
+
+    /**
+     * Encodes a position.
+     *
+     * @param board  The board array. See {@code Rules} for the layout
+     * @param player The player to move
+     * @return The code
+     * @throws IllegalArgumentException If the board holds more than {@code MAX_STONES} stones
+     */
+    public static long encode(int[] board, int player)
+    {
+        // Lay the stones out as stars with a bar between neighboring cells,
+        // and rank the positions of the bars
+        long rank = 0;
+        int  bar  = -1;
+        for(int k = 0; k < CELLS - 1; k++)
+        {
+            bar += board[k] + 1;
+            rank += BINOMIALS[bar][k + 1];
+        }
+
+        int total = bar - (CELLS - 2) + board[CELLS - 1];
+        if(total > MAX_STONES) throw new IllegalArgumentException("Too many stones: " + total);
+        return (long) total << TOTAL_SHIFT | rank << 1 | player;
+    }
+
+    /**
+     * Decodes a position into {@code board}.
+     *
+     * @param code  The code
+     * @param board An array of at least {@code Rules.BOARD_SIZE} entries to fill in
+     * @return The player to move
+     */
+    public static int decode(long code, int[] board)
+    {
+        int  total = getTotalStones(code);
+        long rank  = (code & RANK_MASK) >>> 1;
+
+        // Find the bars from the last to the first
+        int next = total + CELLS - 1;
+        for(int k = CELLS - 2; k >= 0; k--)
+        {
+            int bar = next - 1;
+            while(BINOMIALS[bar][k + 1] > rank)
+            {
+                bar--;
+            }
+            rank -= BINOMIALS[bar][k + 1];
+            board[k + 1] = next - bar - 1;
+            next = bar;
+        }
+        board[0] = next;
+        return (int) (code & 1);
+    }
+
+    /**
+     * Returns the player to move in an encoded position.
+     *
+     * @param code The code
+     * @return The player
+     */
+    public static int getPlayer(long code)
+    {
+        return (int) (code & 1);
+    }
+
+    /**
+     * Returns the total amount of stones in an encoded position.
+     *
+     * @param code The code
+     * @return The amount of stones
+     */
+    public static int getTotalStones(long code)
+    {
+        return (int) (code >>> TOTAL_SHIFT);
+    }
+}
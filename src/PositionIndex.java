@@ -0,0 +1,497 @@
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/**
+ * An index of archived games by the positions they passed through. Every game is
+ * replayed with the rules of {@code MancalaGame}, and every position it reached,
+ * the starting one included, is keyed by its {@code PositionCodec} code. Finished
+ * positions are keyed with player A to move, as the player to move no longer
+ * matters once the game is over.
+ * <p>
+ * The index file holds (code, game id) entries sorted by code and then id,
+ * without duplicates, followed by the first code of every block of entries:
+ * <pre>
+ *  0  int    magic
+ *  4  int    version
+ *  8  long   amount of entries
+ * 16  int    entries per block
+ * 32  long[] code and game id of every entry
+ *  .  long[] first code of every block
+ * </pre>
+ * An opened index maps the entries and keeps the block codes in memory, so a
+ * lookup searches the block codes first and then reads a block or two of the
+ * mapped file, no matter how many entries there are.
+ * <p>
+ * The index is built on a fork-join pool, every worker filling its own buffer of
+ * entries and handing it to an {@code ExternalSorter} of two value records once
+ * full. The sorter's runs are merged into the index file at the end.
+ *
+ * @see GameArchive
+ */
+public final class PositionIndex implements Closeable
+{
+    /**
+     * The default amount of entries a worker buffers before writing a run.
+     */
+    public static final int DEFAULT_RUN_SIZE   = 1 << 21;
+    /**
+     * The default amount of entries per block, so that a block is a 4 KiB page.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 256;
+
+    private static final int MAGIC          = 0x4D504958;
+    private static final int VERSION        = 1;
+    private static final int HEADER        = 32;
+    private static final int ENTRY         = 16;
+    // The code and the game id
+    private static final int ENTRY_LONGS   = 2;
+    // Entries per mapped segment, since a buffer maps at most 2 GiB
+    private static final int SEGMENT_SHIFT = 26;
+    private static final int SEGMENT_MASK  = (1 << SEGMENT_SHIFT) - 1;
+
+    private final FileChannel        channel;
+    private final MappedByteBuffer[] segments;
+    private final long[]             blocks;
+    private final long               entries;
+    private final int                blockSize;
+
+    /**
+     * Opens an index file.
+     *
+     * @param file The file written by {@link #build(Path, Path, ForkJoinPool, Path...)}
+     * @throws IOException If the file cannot be mapped or is no index
+     */
+    public PositionIndex(Path file) throws IOException
+    {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        try
+        {
+            if(channel.size() < HEADER) throw new IOException(file + " is not a position index");
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER);
+            if(header.getInt(0) != MAGIC || header.getInt(4) != VERSION)
+            {
+                throw new IOException(file + " is not a position index");
+            }
+            entries = header.getLong(8);
+            blockSize = header.getInt(16);
+
+            int blockCount = (int) ((entries + blockSize - 1) / blockSize);
+            if(channel.size() != HEADER + entries * ENTRY + blockCount * 8L)
+            {
+                throw new IOException(file + " is not a complete position index");
+            }
+
+            segments = new MappedByteBuffer[(int) ((entries + SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+            for(int i = 0; i < segments.length; i++)
+            {
+                long first = (long) i << SEGMENT_SHIFT;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER + first * ENTRY,
+                                          Math.min(entries - first, 1L << SEGMENT_SHIFT) * ENTRY);
+            }
+
+            blocks = new long[blockCount];
+            ByteBuffer codes = channel.map(FileChannel.MapMode.READ_ONLY, HEADER + entries * ENTRY,
+                                           blockCount * 8L);
+            codes.asLongBuffer().get(blocks);
+        }
+        catch(IOException | RuntimeException e)
+        {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the key of a position as the index stores it.
+     *
+     * @param rules  The rule variant
+     * @param board  The board array. See {@code Rules} for the layout
+     * @param player The player to move
+     * @return The code of the position, with finished games collected
+     */
+    public static long key(Rules rules, int[] board, int player)
+    {
+        int[] copy = board.clone();
+        if(rules.finish(copy, player) != -1) player = MancalaGame.PLAYER_A;
+        return PositionCodec.encode(copy, player);
+    }
+
+    /**
+     * Returns the amount of games that reached a position.
+     *
+     * @param code The key of the position
+     * @return The amount of games
+     */
+    public long count(long code)
+    {
+        return lowerBound(code + 1) - lowerBound(code);
+    }
+
+    /**
+     * Copies the ids of games that reached a position, in ascending order.
+     *
+     * @param code   The key of the position
+     * @param offset The amount of ids to skip
+     * @param dst    The array receiving the ids
+     * @return The amount of ids copied
+     */
+    public int getGames(long code, long offset, long[] dst)
+    {
+        long first = lowerBound(code) + offset;
+        int  count = 0;
+        for(long i = first; count < dst.length && i < entries && keyAt(i) == code; i++)
+        {
+            dst[count++] = idAt(i);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the amount of entries in the index.
+     *
+     * @return The amount of (position, game) entries
+     */
+    public long getEntryCount()
+    {
+        return entries;
+    }
+
+    /**
+     * Closes the file. The index must not be used afterwards.
+     *
+     * @throws IOException If the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException
+    {
+        channel.close();
+    }
+
+    // Returns the first entry whose code is at least code, or the amount of entries
+    private long lowerBound(long code)
+    {
+        // The last block starting below the code holds the first entry unless it
+        // ends below the code too, in which case the next block starts with it
+        int lo = 0;
+        int hi = blocks.length;
+        while(lo < hi)
+        {
+            int mid = (lo + hi) >>> 1;
+            if(blocks[mid] < code) lo = mid + 1;
+            else hi = mid;
+        }
+        if(lo == 0) return 0;
+
+        long first = (long) (lo - 1) * blockSize;
+        long last  = Math.min((long) lo * blockSize, entries);
+        while(first < last)
+        {
+            long mid = (first + last) >>> 1;
+            if(keyAt(mid) < code) first = mid + 1;
+            else last = mid;
+        }
+        return first;
+    }
+
+    private long keyAt(long entry)
+    {
+        return segments[(int) (entry >>> SEGMENT_SHIFT)].getLong((int) (entry & SEGMENT_MASK) * ENTRY);
+    }
+
+    private long idAt(long entry)
+    {
+        return segments[(int) (entry >>> SEGMENT_SHIFT)].getLong((int) (entry & SEGMENT_MASK) * ENTRY + 8);
+    }
+
+    /**
+     * Builds an index of archived games with the default run and block sizes.
+     *
+     * @param output    The index file, which is replaced
+     * @param directory The directory the runs are written to
+     * @param pool      The pool to replay on
+     * @param archives  The archive files
+     * @return The amount of entries
+     * @throws IOException If an archive cannot be read, holds an illegal move, or a file cannot be written
+     * @see #build(Path, Path, ForkJoinPool, int, int, Path...)
+     */
+    public static long build(Path output, Path directory, ForkJoinPool pool, Path... archives) throws IOException
+    {
+        return build(output, directory, pool, DEFAULT_RUN_SIZE, DEFAULT_BLOCK_SIZE, archives);
+    }
+
+    /**
+     * Builds an index of archived games.
+     *
+     * @param output    The index file, which is replaced
+     * @param directory The directory the runs are written to
+     * @param pool      The pool to replay on
+     * @param runSize   The amount of entries a worker buffers before writing a run
+     * @param blockSize The amount of entries per block
+     * @param archives  The archive files
+     * @return The amount of entries
+     * @throws IOException If an archive cannot be read, holds an illegal move, or a file cannot be written
+     */
+    public static long build(Path output, Path directory, ForkJoinPool pool, int runSize, int blockSize,
+                             Path... archives) throws IOException
+    {
+        List<Buffer> buffers = new ArrayList<>();
+        try(ExternalSorter sorter = new ExternalSorter(directory, output.getFileName() + "-",
+                                                       ExternalSorter.DEFAULT_FAN_IN, ENTRY_LONGS))
+        {
+            ThreadLocal<Buffer> local = ThreadLocal.withInitial(() -> {
+                Buffer buffer = new Buffer(runSize, sorter);
+                synchronized(buffers)
+                {
+                    buffers.add(buffer);
+                }
+                return buffer;
+            });
+            for(Path archive : archives)
+            {
+                try(Stream<GameRecord> games = GameArchive.read(archive))
+                {
+                    // Running the terminal operation inside the pool makes the stream use its threads
+                    pool.submit(() -> games.parallel().forEach(game -> local.get().add(game))).get();
+                }
+                catch(InterruptedException | ExecutionException e)
+                {
+                    if(e.getCause() instanceof UncheckedIOException)
+                    {
+                        throw ((UncheckedIOException) e.getCause()).getCause();
+                    }
+                    throw new IOException("Could not index " + archive, e);
+                }
+            }
+            for(Buffer buffer : buffers)
+            {
+                buffer.flush();
+            }
+            return write(sorter, output, blockSize);
+        }
+        catch(UncheckedIOException e)
+        {
+            throw e.getCause();
+        }
+    }
+
+    // Merges the sorter's runs into the index file, returning the amount of entries
+    private static long write(ExternalSorter sorter, Path output, int blockSize) throws IOException
+    {
+        IndexWriter writer = new IndexWriter(output, blockSize);
+        try
+        {
+            sorter.merge(writer);
+        }
+        finally
+        {
+            writer.close();
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        header.putInt(MAGIC).putInt(VERSION).putLong(writer.entries).putInt(blockSize);
+        header.clear();
+        try(FileChannel channel = FileChannel.open(output, StandardOpenOption.WRITE))
+        {
+            while(header.hasRemaining())
+            {
+                channel.write(header, header.position());
+            }
+        }
+        return writer.entries;
+    }
+
+    /**
+     * Builds an index or looks up a position from the command line.
+     * <p>
+     * Usage: {@code PositionIndex build [-threads n] index archive...} or
+     * {@code PositionIndex find index stones pit...}, where the pits are
+     * the moves from the starting position to the one to look up.
+     *
+     * @param args Command line arguments
+     * @throws Exception If a file cannot be read or written
+     */
+    public static void main(String[] args) throws Exception
+    {
+        if(args.length >= 3 && args[0].equals("build"))
+        {
+            int threads = Runtime.getRuntime().availableProcessors();
+            int first   = 1;
+            if(args[1].equals("-threads"))
+            {
+                threads = Integer.parseInt(args[2]);
+                first = 3;
+            }
+            if(args.length - first >= 2)
+            {
+                Path   output   = Paths.get(args[first]).toAbsolutePath();
+                Path[] archives = new Path[args.length - first - 1];
+                for(int i = 0; i < archives.length; i++)
+                {
+                    archives[i] = Paths.get(args[first + 1 + i]);
+                }
+
+                long start   = System.nanoTime();
+                long entries = build(output, output.getParent(), new ForkJoinPool(threads), archives);
+                System.out.printf("%,d entries in %.1f s%n", entries, (System.nanoTime() - start) / 1e9);
+                return;
+            }
+        }
+        else if(args.length >= 3 && args[0].equals("find"))
+        {
+            int[] board  = Rules.newBoard(Integer.parseInt(args[2]));
+            int   player = MancalaGame.PLAYER_A;
+            for(int i = 3; i < args.length; i++)
+            {
+                int result = Rules.KALAH.move(board, player, Integer.parseInt(args[i]));
+                if(result == Rules.ILLEGAL) throw new IllegalArgumentException("Illegal move " + args[i]);
+                if((result & Rules.EXTRA_TURN) == 0) player ^= 1;
+                Rules.KALAH.finish(board, player);
+            }
+
+            try(PositionIndex index = new PositionIndex(Paths.get(args[1])))
+            {
+                long   code  = key(Rules.KALAH, board, player);
+                long   start = System.nanoTime();
+                long   count = index.count(code);
+                long   nanos = System.nanoTime() - start;
+                long[] games = new long[(int) Math.min(count, 100)];
+                index.getGames(code, 0, games);
+                System.out.printf("%,d games (%.1f us)%n", count, nanos / 1e3);
+                for(long game : games)
+                {
+                    System.out.println(game);
+                }
+            }
+            return;
+        }
+        System.err.println("Usage: PositionIndex build [-threads n] index archive...");
+        System.err.println("       PositionIndex find index stones pit...");
+        System.exit(1);
+    }
+
+    /**
+     * Writes the entries of the index file and remembers the first code of every block.
+     */
+    private static final class IndexWriter implements ExternalSorter.Sink, Closeable
+    {
+        private final DataOutputStream out;
+        private final int              blockSize;
+        private long[]                 blocks = new long[1024];
+        private long                   entries;
+
+        IndexWriter(Path output, int blockSize) throws IOException
+        {
+            this.out = ExternalSorter.writer(output);
+            this.blockSize = blockSize;
+            // The header is written once the amount of entries is known
+            out.write(new byte[HEADER]);
+        }
+
+        @Override
+        public void accept(long[] entry) throws IOException
+        {
+            if(entries % blockSize == 0)
+            {
+                int block = (int) (entries / blockSize);
+                if(block == blocks.length) blocks = Arrays.copyOf(blocks, block * 2);
+                blocks[block] = entry[0];
+            }
+            out.writeLong(entry[0]);
+            out.writeLong(entry[1]);
+            entries++;
+        }
+
+        // Appends the block codes
+        @Override
+        public void close() throws IOException
+        {
+            try
+            {
+                for(int i = 0; i < (entries + blockSize - 1) / blockSize; i++)
+                {
+                    out.writeLong(blocks[i]);
+                }
+            }
+            finally
+            {
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * The entries a worker collects until they fill a run.
+     */
+    private static final class Buffer
+    {
+        private final long[]         entries;
+        private final ExternalSorter sorter;
+        private final int[]          board = new int[Rules.BOARD_SIZE];
+        private int                  count;
+
+        Buffer(int size, ExternalSorter sorter)
+        {
+            this.entries = new long[ENTRY_LONGS * size];
+            this.sorter = sorter;
+        }
+
+        // Replays a game, adding the positions it reached
+        void add(GameRecord game)
+        {
+            System.arraycopy(Rules.newBoard(game.getInitialStones()), 0, board, 0, Rules.BOARD_SIZE);
+            int player = MancalaGame.PLAYER_A;
+            put(PositionCodec.encode(board, player), game.getId());
+            for(int i = 0; i < game.getMoveCount(); i++)
+            {
+                int position = game.getMove(i);
+                int result   = position < 0 || position >= MancalaGame.MAX_PITS
+                               ? Rules.ILLEGAL : Rules.KALAH.move(board, player, position);
+                if(result == Rules.ILLEGAL)
+                {
+                    throw new UncheckedIOException(new IOException("Illegal move " + i + " in game " + game.getId()));
+                }
+                if((result & Rules.EXTRA_TURN) == 0) player ^= 1;
+                int winner = Rules.KALAH.finish(board, player);
+                put(PositionCodec.encode(board, winner == -1 ? player : MancalaGame.PLAYER_A), game.getId());
+                if(winner != -1) break;
+            }
+        }
+
+        private void put(long code, long id)
+        {
+            if(ENTRY_LONGS * count == entries.length) flush();
+            entries[ENTRY_LONGS * count] = code;
+            entries[ENTRY_LONGS * count + 1] = id;
+            count++;
+        }
+
+        // Hands the entries to the sorter as a new run
+        void flush()
+        {
+            if(count == 0) return;
+            try
+            {
+                sorter.add(entries, count);
+            }
+            catch(IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+            count = 0;
+        }
+    }
+}
@@ -0,0 +1,383 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Solves the opening position of the six-pit game with depth-first proof-number
+ * search. The solver proves or disproves that player A wins under
+ * {@code Rules.KALAH}, exactly as {@code MancalaGame} plays it, where a tied game
+ * goes to player B.
+ * <p>
+ * Proof and disproof numbers are kept in a {@code ProofTable}, a memory-mapped
+ * file sized to the memory budget, so the search itself only needs memory for
+ * its stack. Stopping the solver loses nothing but the work since the operating
+ * system last wrote the table out, and running it again with the same table file
+ * resumes the search.
+ * <p>
+ * Usage: {@code ProofNumberSolver [-memory megabytes] [-table file] [-pv file] stones}
+ */
+public final class ProofNumberSolver
+{
+    /**
+     * The proof or disproof number of a position that cannot be proven or disproven.
+     */
+    public static final int  INFINITY               = Integer.MAX_VALUE;
+    /**
+     * The default memory budget for the table in megabytes.
+     */
+    public static final long DEFAULT_MEMORY         = 1024;
+    /**
+     * The time between progress reports in milliseconds.
+     */
+    public static final long REPORT_INTERVAL        = 10000;
+
+    private static final int PITS = MancalaGame.MAX_PITS;
+
+    private final Rules      rules   = Rules.KALAH;
+    private final ProofTable table;
+    private final int[]      entry   = new int[2];
+    private final int[]      scratch = new int[Rules.BOARD_SIZE];
+
+    // The children of the node at each depth of the search, and their codes
+    private final List<int[][]> children = new ArrayList<>();
+    private final List<long[]>  codes    = new ArrayList<>();
+
+    /* Progress */
+    private volatile long    nodes;
+    private volatile boolean stopped;
+
+    /**
+     * Constructs a new solver.
+     *
+     * @param table The table to keep proof and disproof numbers in
+     */
+    public ProofNumberSolver(ProofTable table)
+    {
+        this.table = table;
+    }
+
+    /**
+     * Solves the opening position, continuing from whatever the table already holds.
+     *
+     * @param initialStones The amount of stones in each pit
+     * @return True if player A wins, false if player B wins or the game is tied,
+     * or null if the solver was stopped first
+     */
+    public Boolean solve(int initialStones)
+    {
+        int[] board = Rules.newBoard(initialStones);
+        long  code  = PositionCodec.encode(board, MancalaGame.PLAYER_A);
+        while(!stopped)
+        {
+            if(table.lookup(code, entry))
+            {
+                if(entry[0] == 0) return true;
+                if(entry[1] == 0) return false;
+            }
+            search(board, code, MancalaGame.PLAYER_A, 0, INFINITY, INFINITY);
+        }
+        return null;
+    }
+
+    /**
+     * Stops a running {@link #solve(int)} as soon as possible. Safe to call from any thread.
+     */
+    public void stop()
+    {
+        stopped = true;
+    }
+
+    /**
+     * Returns the amount of positions expanded so far. Safe to call from any thread.
+     *
+     * @return The amount of positions
+     */
+    public long getNodes()
+    {
+        return nodes;
+    }
+
+    /**
+     * Returns the principal variation from the opening position: every move keeps
+     * the solved outcome, and the line is followed until the game ends or the table
+     * no longer holds the value of a position.
+     *
+     * @param initialStones The amount of stones in each pit
+     * @return The pit positions played, in order. Empty if the opening is not solved
+     */
+    public int[] getPrincipalVariation(int initialStones)
+    {
+        int[] board  = Rules.newBoard(initialStones);
+        int   player = MancalaGame.PLAYER_A;
+        int   value  = valueOf(board, player);
+        if(value == -1) return new int[0];
+
+        int[] moves = new int[0];
+        int[] child = new int[Rules.BOARD_SIZE];
+        while(rules.finish(board.clone(), player) == -1)
+        {
+            int best = -1;
+            int next = player;
+            for(int i = 0; i < PITS && best == -1; i++)
+            {
+                System.arraycopy(board, 0, child, 0, Rules.BOARD_SIZE);
+                int result = rules.move(child, player, i);
+                if(result == Rules.ILLEGAL) continue;
+
+                next = (result & Rules.EXTRA_TURN) != 0 ? player : player ^ 1;
+                if(valueOf(child, next) == value) best = i;
+            }
+            if(best == -1) break;
+
+            rules.move(board, player, best);
+            player = next;
+            moves = Arrays.copyOf(moves, moves.length + 1);
+            moves[moves.length - 1] = best;
+        }
+        return moves;
+    }
+
+    /**
+     * Expands the position until its proof number reaches {@code pnLimit} or its
+     * disproof number reaches {@code dnLimit}. Player A's positions are OR nodes,
+     * player B's are AND nodes.
+     */
+    private void search(int[] board, long code, int player, int depth, int pnLimit, int dnLimit)
+    {
+        nodes++;
+        // Settled when generated, but the table may have evicted the entry since
+        System.arraycopy(board, 0, scratch, 0, Rules.BOARD_SIZE);
+        int outcome = rules.finish(scratch, player);
+        if(outcome != -1)
+        {
+            boolean aWins = outcome == MancalaGame.PLAYER_A;
+            table.store(code, aWins ? 0 : INFINITY, aWins ? INFINITY : 0);
+            return;
+        }
+
+        if(children.size() == depth)
+        {
+            children.add(new int[PITS][Rules.BOARD_SIZE]);
+            codes.add(new long[PITS]);
+        }
+        int[][] boards = children.get(depth);
+        long[]  keys   = codes.get(depth);
+
+        // Generate the children once, and settle the ones that end the game right away
+        int count = 0;
+        for(int i = 0; i < PITS; i++)
+        {
+            int[] child = boards[count];
+            System.arraycopy(board, 0, child, 0, Rules.BOARD_SIZE);
+            int result = rules.move(child, player, i);
+            if(result == Rules.ILLEGAL) continue;
+
+            int next   = (result & Rules.EXTRA_TURN) != 0 ? player : player ^ 1;
+            int winner = rules.finish(child, next);
+            keys[count] = PositionCodec.encode(child, next);
+            if(winner != -1)
+            {
+                boolean aWins = winner == MancalaGame.PLAYER_A;
+                table.store(keys[count], aWins ? 0 : INFINITY, aWins ? INFINITY : 0);
+            }
+            count++;
+        }
+
+        boolean or = player == MancalaGame.PLAYER_A;
+        while(!stopped)
+        {
+            // At an OR node the proof number is the smallest child proof number and
+            // the disproof number the sum of the child disproof numbers. An AND node
+            // is the same with the two swapped
+            int  best     = 0;
+            int  smallest = INFINITY;
+            int  second   = INFINITY;
+            int  bestSum  = 0;
+            long sum      = 0;
+            for(int i = 0; i < count; i++)
+            {
+                int pn = 1;
+                int dn = 1;
+                if(table.lookup(keys[i], entry))
+                {
+                    pn = entry[0];
+                    dn = entry[1];
+                }
+
+                int min = or ? pn : dn;
+                int add = or ? dn : pn;
+                if(min < smallest || i == 0)
+                {
+                    second = smallest;
+                    smallest = min;
+                    best = i;
+                    bestSum = add;
+                }
+                else if(min < second)
+                {
+                    second = min;
+                }
+                sum = Math.min(sum + add, INFINITY);
+            }
+
+            int pn = or ? smallest : (int) sum;
+            int dn = or ? (int) sum : smallest;
+            table.store(code, pn, dn);
+            if(pn >= pnLimit || dn >= dnLimit) return;
+
+            // Descend into the most promising child until it stops being the most
+            // promising one or this node reaches its own limits
+            int minLimit = or ? pnLimit : dnLimit;
+            int sumLimit = or ? dnLimit : pnLimit;
+            int childMin = second == INFINITY ? minLimit : Math.min(minLimit, second + 1);
+            int childSum = (int) Math.min((long) sumLimit - sum + bestSum, INFINITY);
+
+            int next = PositionCodec.getPlayer(keys[best]);
+            if(or)
+            {
+                search(boards[best], keys[best], next, depth + 1, childMin, childSum);
+            }
+            else
+            {
+                search(boards[best], keys[best], next, depth + 1, childSum, childMin);
+            }
+        }
+    }
+
+    /**
+     * Returns the solved value of a position.
+     *
+     * @return 1 if player A wins, 0 if player B wins, or -1 if the position is not solved
+     */
+    private int valueOf(int[] board, int player)
+    {
+        int winner = rules.finish(board.clone(), player);
+        if(winner != -1) return winner == MancalaGame.PLAYER_A ? 1 : 0;
+        if(!table.lookup(PositionCodec.encode(board, player), entry)) return -1;
+        if(entry[0] == 0) return 1;
+        if(entry[1] == 0) return 0;
+        return -1;
+    }
+
+    /**
+     * The entry point of the solver.
+     *
+     * @param args Command line arguments
+     * @throws Exception If the table or the principal variation cannot be written
+     */
+    public static void main(String[] args) throws Exception
+    {
+        long   memory = DEFAULT_MEMORY;
+        Path   file   = null;
+        Path   pvFile = null;
+        int    i      = 0;
+        for(; i < args.length - 1; i++)
+        {
+            switch(args[i])
+            {
+                case "-memory":
+                    memory = Long.parseLong(args[++i]);
+                    break;
+                case "-table":
+                    file = Paths.get(args[++i]);
+                    break;
+                case "-pv":
+                    pvFile = Paths.get(args[++i]);
+                    break;
+                default:
+                    i = args.length;
+            }
+        }
+        if(i != args.length - 1)
+        {
+            System.err.println("Usage: ProofNumberSolver [-memory megabytes] [-table file] [-pv file] stones");
+            System.exit(1);
+        }
+
+        int stones = Integer.parseInt(args[args.length - 1]);
+        if(file == null) file = Paths.get("kalah-" + stones + ".pns");
+
+        try(ProofTable table = new ProofTable(file, memory * 1024 * 1024))
+        {
+            ProofNumberSolver solver = new ProofNumberSolver(table);
+            System.out.printf("Table %s: %d MB, %d entries in use, %d solved%n", file,
+                              table.getBytes() >> 20, table.getEntries(), table.getSolved());
+
+            // Stopping the process flushes the table, so the next run resumes from it
+            Thread main = Thread.currentThread();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                solver.stop();
+                try
+                {
+                    main.join();
+                }
+                catch(InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+
+            Thread reporter = new Thread(() -> report(solver, table), "ProofNumberSolver reporter");
+            reporter.setDaemon(true);
+            reporter.start();
+
+            long    start  = System.nanoTime();
+            Boolean result = solver.solve(stones);
+            reporter.interrupt();
+            if(result == null)
+            {
+                System.out.println("Stopped, run again with the same table to resume");
+                return;
+            }
+
+            double secs   = (System.nanoTime() - start) / 1e9;
+            String winner = result ? "Player A wins" : "Player B wins or ties";
+            System.out.printf("%d stones: %s (%d nodes in %.1f s)%n", stones, winner, solver.getNodes(), secs);
+
+            int[] pv = solver.getPrincipalVariation(stones);
+            System.out.println("Principal variation: " + Arrays.toString(pv));
+            if(pvFile != null)
+            {
+                List<String> lines = new ArrayList<>();
+                lines.add("# " + stones + " stones: " + winner);
+                lines.add(GameArchive.format(new GameRecord(0, stones, pv)));
+                Files.write(pvFile, lines, StandardCharsets.UTF_8);
+            }
+        }
+    }
+
+    private static void report(ProofNumberSolver solver, ProofTable table)
+    {
+        long lastNodes  = solver.getNodes();
+        long lastSolved = table.getSolved();
+        while(true)
+        {
+            try
+            {
+                Thread.sleep(REPORT_INTERVAL);
+            }
+            catch(InterruptedException e)
+            {
+                return;
+            }
+
+            long    nodes   = solver.getNodes();
+            long    solved  = table.getSolved();
+            Runtime runtime = Runtime.getRuntime();
+            long    heap    = runtime.totalMemory() - runtime.freeMemory();
+            System.out.printf("%,d nodes (%,.0f/s), %,d proven (%,.0f/s), table %.1f%% full, " +
+                              "%d MB table + %d MB heap%n",
+                              nodes, (nodes - lastNodes) * 1000.0 / REPORT_INTERVAL,
+                              solved, (solved - lastSolved) * 1000.0 / REPORT_INTERVAL,
+                              table.getEntries() * 100.0 / table.getCapacity(),
+                              table.getBytes() >> 20, heap >> 20);
+            lastNodes = nodes;
+            lastSolved = solved;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A fixed-size transposition table for the proof-number solver, stored in a
+ * memory-mapped file. The file is the table, so its size is the solver's memory
+ * budget, the operating system pages it in and out as needed, and a solver that
+ * is stopped can pick up where it left off by opening the same file again.
+ * <p>
+ * Entries are 16 bytes: a position code from {@code PositionCodec} followed by
+ * the proof and disproof numbers. A position is looked up in a small window of
+ * slots; when the window is full, the unsolved entry that was cheapest to
+ * compute is replaced, so solved positions are kept as long as possible.
+ */
+public final class ProofTable implements Closeable
+{
+    private static final long MAGIC       = 0x4D414E43504E3031L;
+    private static final int  HEADER      = 4096;
+    private static final int  ENTRY       = 16;
+    private static final int  PROBES      = 8;
+    // Each mapping covers 2^26 entries, one gigabyte
+    private static final int  CHUNK_SHIFT = 26;
+    private static final long CHUNK_MASK  = (1L << CHUNK_SHIFT) - 1;
+
+    /* Header Layout */
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int ENTRIES_OFFSET  = 16;
+    private static final int SOLVED_OFFSET   = 24;
+
+    private final FileChannel        channel;
+    private final MappedByteBuffer   header;
+    private final MappedByteBuffer[] chunks;
+    private final long               capacity;
+
+    private long entries;
+    private long solved;
+
+    /**
+     * Opens the table in {@code file}, creating it if it does not exist. An existing
+     * table is reused as is, so its capacity wins over {@code memoryBytes}.
+     *
+     * @param file        The table file
+     * @param memoryBytes The memory budget. The capacity is the largest power of two
+     *                    amount of entries that fits
+     * @throws IOException If the file cannot be opened or is not a proof table
+     */
+    public ProofTable(Path file, long memoryBytes) throws IOException
+    {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                                   StandardOpenOption.READ, StandardOpenOption.WRITE);
+        header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER);
+
+        if(header.getLong(0) == MAGIC)
+        {
+            capacity = header.getLong(CAPACITY_OFFSET);
+            entries = header.getLong(ENTRIES_OFFSET);
+            solved = header.getLong(SOLVED_OFFSET);
+        }
+        else if(channel.size() == HEADER)
+        {
+            if(memoryBytes < (long) ENTRY * PROBES) throw new IllegalArgumentException("memoryBytes is too small");
+            capacity = Long.highestOneBit(memoryBytes / ENTRY);
+            header.putLong(0, MAGIC);
+            header.putLong(CAPACITY_OFFSET, capacity);
+        }
+        else
+        {
+            throw new IOException(file + " is not a proof table");
+        }
+
+        int chunkCount = (int) ((capacity + CHUNK_MASK) >>> CHUNK_SHIFT);
+        chunks = new MappedByteBuffer[chunkCount];
+        for(int i = 0; i < chunkCount; i++)
+        {
+            long start = ((long) i << CHUNK_SHIFT) * ENTRY;
+            long size  = Math.min(capacity - ((long) i << CHUNK_SHIFT), 1L << CHUNK_SHIFT) * ENTRY;
+            chunks[i] = channel.map(FileChannel.MapMode.READ_WRITE, HEADER + start, size);
+        }
+    }
+
+    /**
+     * Returns the amount of entries the table can hold.
+     *
+     * @return The capacity
+     */
+    public long getCapacity()
+    {
+        return capacity;
+    }
+
+    /**
+     * Returns the amount of occupied entries.
+     *
+     * @return The amount of entries
+     */
+    public long getEntries()
+    {
+        return entries;
+    }
+
+    /**
+     * Returns the amount of entries holding solved positions.
+     *
+     * @return The amount of solved entries
+     */
+    public long getSolved()
+    {
+        return solved;
+    }
+
+    /**
+     * Returns the size of the table in bytes.
+     *
+     * @return The size
+     */
+    public long getBytes()
+    {
+        return HEADER + capacity * ENTRY;
+    }
+
+    /**
+     * Looks up a position.
+     *
+     * @param key    The position code
+     * @param result An array of at least two entries receiving the proof and disproof numbers
+     * @return True if the position was found, false otherwise
+     */
+    public boolean lookup(long key, int[] result)
+    {
+        long slot = index(key);
+        for(int i = 0; i < PROBES; i++, slot = (slot + 1) & (capacity - 1))
+        {
+            MappedByteBuffer chunk  = chunks[(int) (slot >>> CHUNK_SHIFT)];
+            int              offset = (int) (slot & CHUNK_MASK) * ENTRY;
+            long             stored = chunk.getLong(offset);
+            if(stored == 0) return false;
+            if(stored == key)
+            {
+                result[0] = chunk.getInt(offset + 8);
+                result[1] = chunk.getInt(offset + 12);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Stores the proof and disproof numbers of a position.
+     *
+     * @param key The position code. Must not be 0
+     * @param pn  The proof number
+     * @param dn  The disproof number
+     */
+    public void store(long key, int pn, int dn)
+    {
+        long slot        = index(key);
+        long victim      = -1;
+        long victimWork  = Long.MAX_VALUE;
+        for(int i = 0; i < PROBES; i++, slot = (slot + 1) & (capacity - 1))
+        {
+            MappedByteBuffer chunk  = chunks[(int) (slot >>> CHUNK_SHIFT)];
+            int              offset = (int) (slot & CHUNK_MASK) * ENTRY;
+            long             stored = chunk.getLong(offset);
+            if(stored == key || stored == 0)
+            {
+                if(stored == 0) entries++;
+                else if(isSolved(chunk.getInt(offset + 8), chunk.getInt(offset + 12))) solved--;
+                write(chunk, offset, key, pn, dn);
+                return;
+            }
+
+            int  storedPn = chunk.getInt(offset + 8);
+            int  storedDn = chunk.getInt(offset + 12);
+            long work     = isSolved(storedPn, storedDn) ? Long.MAX_VALUE - 1 : (long) storedPn + storedDn;
+            if(work < victimWork)
+            {
+                victim = slot;
+                victimWork = work;
+            }
+        }
+
+        MappedByteBuffer chunk  = chunks[(int) (victim >>> CHUNK_SHIFT)];
+        int              offset = (int) (victim & CHUNK_MASK) * ENTRY;
+        if(isSolved(chunk.getInt(offset + 8), chunk.getInt(offset + 12))) solved--;
+        write(chunk, offset, key, pn, dn);
+    }
+
+    /**
+     * Forces the table to disk, so that a later run can resume from it.
+     */
+    public void flush()
+    {
+        header.putLong(ENTRIES_OFFSET, entries);
+        header.putLong(SOLVED_OFFSET, solved);
+        header.force();
+        for(MappedByteBuffer chunk : chunks)
+        {
+            chunk.force();
+        }
+    }
+
+    /**
+     * Flushes and closes the table.
+     *
+     * @throws IOException If the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException
+    {
+        flush();
+        channel.close();
+    }
+
+    private void write(MappedByteBuffer chunk, int offset, long key, int pn, int dn)
+    {
+        chunk.putLong(offset, key);
+        chunk.putInt(offset + 8, pn);
+        chunk.putInt(offset + 12, dn);
+        if(isSolved(pn, dn)) solved++;
+    }
+
+    private long index(long key)
+    {
+        long h = key * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        return h & (capacity - 1);
+    }
+
+    private static boolean isSolved(int pn, int dn)
+    {
+        return pn == 0 || dn == 0;
+    }
+}
@@ -0,0 +1,593 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Rates players from the results of their games, both by Elo and by Glicko-2.
+ * Results come in one at a time: the Elo ratings move right away, and the result
+ * is kept for the current rating period. Ending the period updates the Glicko-2
+ * ratings, deviations and volatilities of every player from the results of the
+ * period, all at once as Glicko-2 requires.
+ * <p>
+ * Players are numbered from 0, and everything about them is kept in primitive
+ * arrays indexed by that number, which grow as new numbers show up. The results
+ * of a period are kept the same way and sorted by player with a counting sort
+ * when the period ends, after which the players are updated in parallel, each
+ * worker taking a range of them and writing only its own entries.
+ */
+public final class RatingEngine
+{
+    /**
+     * The rating of a new player.
+     */
+    public static final double INITIAL_RATING     = 1500;
+    /**
+     * The Glicko-2 rating deviation of a new player.
+     */
+    public static final double INITIAL_DEVIATION  = 350;
+    /**
+     * The Glicko-2 volatility of a new player.
+     */
+    public static final double INITIAL_VOLATILITY = 0.06;
+    /**
+     * The default Elo factor, the most a rating moves after one game.
+     */
+    public static final double DEFAULT_K          = 24;
+    /**
+     * The default Glicko-2 system constant, which limits how fast volatilities change.
+     */
+    public static final double DEFAULT_TAU        = 0.5;
+
+    // Converts between the Glicko scale and the Glicko-2 scale
+    private static final double SCALE       = 173.7178;
+    private static final double EPSILON     = 1e-6;
+    private static final int    RECORD_SIZE = 2 * Integer.BYTES + 1;
+    // Players per parallel task, so that small periods do not pay for many tasks
+    private static final int    MIN_RANGE   = 4096;
+
+    private final ExecutorService pool;
+    private final int             workers;
+    private final double          k;
+    private final double          tau;
+
+    /* Players */
+    private int      players;
+    private double[] elo        = new double[0];
+    // Glicko-2 scale
+    private double[] mu         = new double[0];
+    private double[] phi        = new double[0];
+    private double[] sigma      = new double[0];
+    private int[]    gamesRated = new int[0];
+
+    /* Current Period */
+    private int    results;
+    private int[]  first  = new int[1024];
+    private int[]  second = new int[1024];
+    // Points of the first player in half points: 2 for a win, 1 for a draw
+    private byte[] points = new byte[1024];
+
+    /* Period Buffers */
+    private int[]    offsets   = new int[0];
+    private int[]    cursors   = new int[0];
+    private int[]    opponents = new int[0];
+    private byte[]   scores    = new byte[0];
+    private double[] g         = new double[0];
+    // The new ratings, swapped with the old ones after each period
+    private double[] nextMu    = new double[0];
+    private double[] nextPhi   = new double[0];
+    private double[] nextSigma = new double[0];
+
+    /**
+     * Constructs a new engine with the default constants.
+     *
+     * @param pool    The pool running the period updates
+     * @param workers The amount of workers, usually the amount of cores
+     */
+    public RatingEngine(ExecutorService pool, int workers)
+    {
+        this(pool, workers, DEFAULT_K, DEFAULT_TAU);
+    }
+
+    /**
+     * Constructs a new engine.
+     *
+     * @param pool    The pool running the period updates
+     * @param workers The amount of workers, usually the amount of cores
+     * @param k       The Elo factor
+     * @param tau     The Glicko-2 system constant, usually between 0.3 and 1.2
+     */
+    public RatingEngine(ExecutorService pool, int workers, double k, double tau)
+    {
+        this.pool = pool;
+        this.workers = workers;
+        this.k = k;
+        this.tau = tau;
+    }
+
+    /**
+     * Adds the result of a game, updating the Elo ratings.
+     *
+     * @param a      The player who played player A
+     * @param b      The player who played player B
+     * @param winner The winning side, {@code MancalaGame.PLAYER_A} or
+     *               {@code MancalaGame.PLAYER_B}, or -1 for a draw
+     * @throws IllegalArgumentException If a player number is negative or the players are the same
+     */
+    public void addResult(int a, int b, int winner)
+    {
+        if(a < 0 || b < 0 || a == b) throw new IllegalArgumentException("Bad players " + a + " and " + b);
+        ensurePlayers(Math.max(a, b) + 1);
+
+        int    half     = winner == -1 ? 1 : winner == MancalaGame.PLAYER_A ? 2 : 0;
+        double expected = 1 / (1 + Math.pow(10, (elo[b] - elo[a]) / 400));
+        double change   = k * (half / 2.0 - expected);
+        elo[a] += change;
+        elo[b] -= change;
+
+        if(results == first.length)
+        {
+            first = Arrays.copyOf(first, results * 2);
+            second = Arrays.copyOf(second, results * 2);
+            points = Arrays.copyOf(points, results * 2);
+        }
+        first[results] = a;
+        second[results] = b;
+        points[results] = (byte) half;
+        results++;
+    }
+
+    /**
+     * Adds the result of a finished game, telling draws from wins by the stores
+     * since {@code getWinningPlayer()} cannot.
+     *
+     * @param a    The player who played player A
+     * @param b    The player who played player B
+     * @param game The finished game
+     * @throws IllegalArgumentException If the game is not over
+     */
+    public void addResult(int a, int b, MancalaGame game)
+    {
+        if(!game.isGameOver()) throw new IllegalArgumentException("The game is not over");
+        int storeA = game.getMancalaModel(MancalaGame.PLAYER_A).getStones();
+        int storeB = game.getMancalaModel(MancalaGame.PLAYER_B).getStones();
+        addResult(a, b, storeA == storeB ? -1 : game.getWinningPlayer());
+    }
+
+    /**
+     * Ends the rating period, updating the Glicko-2 ratings from its results.
+     * Players without games in the period only become less certain.
+     *
+     * @throws Exception If a worker fails or the thread is interrupted
+     */
+    public void endPeriod() throws Exception
+    {
+        sortResults();
+
+        // The opponents' impact factors are computed once rather than once per game
+        if(g.length < players) g = new double[mu.length];
+        parallel((from, to) -> {
+            for(int p = from; p < to; p++)
+            {
+                g[p] = 1 / Math.sqrt(1 + 3 * phi[p] * phi[p] / (Math.PI * Math.PI));
+            }
+        });
+
+        // Every player reads the old ratings of the opponents, so the new ones go elsewhere
+        if(nextMu.length != mu.length)
+        {
+            nextMu = new double[mu.length];
+            nextPhi = new double[mu.length];
+            nextSigma = new double[mu.length];
+        }
+        parallel((from, to) -> {
+            for(int p = from; p < to; p++)
+            {
+                update(p);
+            }
+        });
+
+        double[] old = mu;
+        mu = nextMu;
+        nextMu = old;
+        old = phi;
+        phi = nextPhi;
+        nextPhi = old;
+        old = sigma;
+        sigma = nextSigma;
+        nextSigma = old;
+        results = 0;
+    }
+
+    /**
+     * Sets the Glicko-2 rating of a player, such as one carried over from another
+     * pool of players. The Elo rating is set to the same rating.
+     *
+     * @param player     The player
+     * @param rating     The rating, on the Glicko scale
+     * @param deviation  The rating deviation, on the Glicko scale
+     * @param volatility The volatility
+     */
+    public void setRating(int player, double rating, double deviation, double volatility)
+    {
+        ensurePlayers(player + 1);
+        elo[player] = rating;
+        mu[player] = (rating - INITIAL_RATING) / SCALE;
+        phi[player] = deviation / SCALE;
+        sigma[player] = volatility;
+    }
+
+    /**
+     * Returns the amount of players, which is one more than the highest number seen.
+     *
+     * @return The amount of players
+     */
+    public int getPlayers()
+    {
+        return players;
+    }
+
+    /**
+     * Returns the amount of results in the current period.
+     *
+     * @return The amount of results
+     */
+    public int getPendingResults()
+    {
+        return results;
+    }
+
+    /**
+     * Returns the Elo rating of a player.
+     *
+     * @param player The player
+     * @return The rating
+     */
+    public double getElo(int player)
+    {
+        return player < players ? elo[player] : INITIAL_RATING;
+    }
+
+    /**
+     * Returns the Glicko-2 rating of a player, as of the last period.
+     *
+     * @param player The player
+     * @return The rating, on the Elo like Glicko scale
+     */
+    public double getRating(int player)
+    {
+        return player < players ? mu[player] * SCALE + INITIAL_RATING : INITIAL_RATING;
+    }
+
+    /**
+     * Returns the Glicko-2 rating deviation of a player, as of the last period.
+     *
+     * @param player The player
+     * @return The deviation, on the Glicko scale
+     */
+    public double getDeviation(int player)
+    {
+        return player < players ? phi[player] * SCALE : INITIAL_DEVIATION;
+    }
+
+    /**
+     * Returns the Glicko-2 volatility of a player, as of the last period.
+     *
+     * @param player The player
+     * @return The volatility
+     */
+    public double getVolatility(int player)
+    {
+        return player < players ? sigma[player] : INITIAL_VOLATILITY;
+    }
+
+    /**
+     * Returns the amount of games of a player in ended periods.
+     *
+     * @param player The player
+     * @return The amount of games
+     */
+    public int getGamesRated(int player)
+    {
+        return player < players ? gamesRated[player] : 0;
+    }
+
+    private void ensurePlayers(int count)
+    {
+        if(count <= players) return;
+        if(count > elo.length)
+        {
+            int capacity = Math.max(count, elo.length * 2);
+            elo = Arrays.copyOf(elo, capacity);
+            mu = Arrays.copyOf(mu, capacity);
+            phi = Arrays.copyOf(phi, capacity);
+            sigma = Arrays.copyOf(sigma, capacity);
+            gamesRated = Arrays.copyOf(gamesRated, capacity);
+        }
+        Arrays.fill(elo, players, count, INITIAL_RATING);
+        Arrays.fill(mu, players, count, 0);
+        Arrays.fill(phi, players, count, INITIAL_DEVIATION / SCALE);
+        Arrays.fill(sigma, players, count, INITIAL_VOLATILITY);
+        players = count;
+    }
+
+    // Lists the games of every player together, each game once from either side
+    private void sortResults()
+    {
+        if(offsets.length < players + 1)
+        {
+            offsets = new int[elo.length + 1];
+            cursors = new int[elo.length];
+        }
+        if(opponents.length < 2 * results)
+        {
+            opponents = new int[2 * first.length];
+            scores = new byte[2 * first.length];
+        }
+
+        // Player p's games go from offsets[p] to offsets[p + 1]
+        Arrays.fill(offsets, 0, players + 1, 0);
+        for(int r = 0; r < results; r++)
+        {
+            offsets[first[r] + 1]++;
+            offsets[second[r] + 1]++;
+        }
+        for(int p = 0; p < players; p++)
+        {
+            offsets[p + 1] += offsets[p];
+        }
+        System.arraycopy(offsets, 0, cursors, 0, players);
+        for(int r = 0; r < results; r++)
+        {
+            int a = cursors[first[r]]++;
+            opponents[a] = second[r];
+            scores[a] = points[r];
+            int b = cursors[second[r]]++;
+            opponents[b] = first[r];
+            scores[b] = (byte) (2 - points[r]);
+        }
+    }
+
+    // Glickman's steps 3 to 8 for one player
+    private void update(int p)
+    {
+        int from = offsets[p];
+        int to   = offsets[p + 1];
+        if(from == to)
+        {
+            nextMu[p] = mu[p];
+            nextPhi[p] = Math.min(INITIAL_DEVIATION / SCALE, Math.sqrt(phi[p] * phi[p] + sigma[p] * sigma[p]));
+            nextSigma[p] = sigma[p];
+            return;
+        }
+
+        double inverseV = 0;
+        double sum      = 0;
+        for(int i = from; i < to; i++)
+        {
+            int    o        = opponents[i];
+            double expected = 1 / (1 + Math.exp(-g[o] * (mu[p] - mu[o])));
+            inverseV += g[o] * g[o] * expected * (1 - expected);
+            sum += g[o] * (scores[i] / 2.0 - expected);
+        }
+        double v     = 1 / inverseV;
+        double delta = v * sum;
+
+        double volatility = volatility(phi[p], sigma[p], v, delta);
+        double phiStar    = Math.sqrt(phi[p] * phi[p] + volatility * volatility);
+        double phiNew     = 1 / Math.sqrt(1 / (phiStar * phiStar) + inverseV);
+        nextMu[p] = mu[p] + phiNew * phiNew * sum;
+        nextPhi[p] = phiNew;
+        nextSigma[p] = volatility;
+        gamesRated[p] += to - from;
+    }
+
+    // Glickman's step 5, finding the new volatility by the Illinois algorithm
+    private double volatility(double phi, double sigma, double v, double delta)
+    {
+        double a        = Math.log(sigma * sigma);
+        double phi2     = phi * phi;
+        double delta2   = delta * delta;
+        double low      = a;
+        double high;
+        if(delta2 > phi2 + v)
+        {
+            high = Math.log(delta2 - phi2 - v);
+        }
+        else
+        {
+            int steps = 1;
+            while(f(a - steps * tau, a, phi2, v, delta2) < 0)
+            {
+                steps++;
+            }
+            high = a - steps * tau;
+        }
+
+        double fLow  = f(low, a, phi2, v, delta2);
+        double fHigh = f(high, a, phi2, v, delta2);
+        while(Math.abs(high - low) > EPSILON)
+        {
+            double c  = low + (low - high) * fLow / (fHigh - fLow);
+            double fC = f(c, a, phi2, v, delta2);
+            if(fC * fHigh <= 0)
+            {
+                low = high;
+                fLow = fHigh;
+            }
+            else
+            {
+                fLow /= 2;
+            }
+            high = c;
+            fHigh = fC;
+        }
+        return Math.exp(low / 2);
+    }
+
+    private double f(double x, double a, double phi2, double v, double delta2)
+    {
+        double ex    = Math.exp(x);
+        double denom = phi2 + v + ex;
+        return ex * (delta2 - phi2 - v - ex) / (2 * denom * denom) - (x - a) / (tau * tau);
+    }
+
+    // Runs a task over ranges of the players on the pool
+    private void parallel(Range range) throws Exception
+    {
+        int tasks = Math.max(1, Math.min(workers, players / MIN_RANGE));
+        if(tasks == 1)
+        {
+            range.run(0, players);
+            return;
+        }
+
+        List<Callable<Void>> calls = new ArrayList<>();
+        for(int t = 0; t < tasks; t++)
+        {
+            int from = (int) ((long) players * t / tasks);
+            int to   = (int) ((long) players * (t + 1) / tasks);
+            calls.add(() -> {
+                range.run(from, to);
+                return null;
+            });
+        }
+        for(Future<Void> call : pool.invokeAll(calls))
+        {
+            call.get();
+        }
+    }
+
+    /**
+     * Rates the results in a file, as written by {@link #write(ByteBuffer, int, int, int)},
+     * ending a rating period every {@code periodSize} results and after the last one.
+     *
+     * @param file       The results file
+     * @param periodSize The amount of results per period
+     * @throws Exception If the file cannot be read or a worker fails
+     */
+    public void rate(Path file, int periodSize) throws Exception
+    {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(RECORD_SIZE * 65536);
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            while(true)
+            {
+                int read = channel.read(buffer);
+                buffer.flip();
+                while(buffer.remaining() >= RECORD_SIZE)
+                {
+                    addResult(buffer.getInt(), buffer.getInt(), buffer.get());
+                    if(results == periodSize) endPeriod();
+                }
+                if(read == -1)
+                {
+                    if(buffer.hasRemaining()) throw new IOException(file + " ends in the middle of a result");
+                    break;
+                }
+                buffer.compact();
+            }
+        }
+        if(results > 0) endPeriod();
+    }
+
+    /**
+     * Appends a result in the format read by {@link #rate(Path, int)}.
+     *
+     * @param buffer The buffer
+     * @param a      The player who played player A
+     * @param b      The player who played player B
+     * @param winner The winning side, or -1 for a draw
+     */
+    public static void write(ByteBuffer buffer, int a, int b, int winner)
+    {
+        buffer.putInt(a).putInt(b).put((byte) winner);
+    }
+
+    /**
+     * Rates a results file from the command line and prints the best players.
+     *
+     * @param args Command line arguments
+     * @throws Exception If the file cannot be read
+     */
+    public static void main(String[] args) throws Exception
+    {
+        int periodSize = 1_000_000;
+        int threads    = Runtime.getRuntime().availableProcessors();
+        int top        = 20;
+        int i          = 0;
+        for(; i < args.length - 1; i++)
+        {
+            switch(args[i])
+            {
+                case "-period":
+                    periodSize = Integer.parseInt(args[++i]);
+                    break;
+                case "-threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "-top":
+                    top = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    i = args.length;
+            }
+        }
+        if(i != args.length - 1)
+        {
+            System.err.println("Usage: RatingEngine [-period n] [-threads n] [-top n] results");
+            System.exit(1);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try
+        {
+            RatingEngine engine = new RatingEngine(pool, threads);
+            long         start  = System.nanoTime();
+            engine.rate(Paths.get(args[args.length - 1]), periodSize);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            Integer[] order = new Integer[engine.getPlayers()];
+            for(int p = 0; p < order.length; p++)
+            {
+                order[p] = p;
+            }
+            Arrays.sort(order, (x, y) -> Double.compare(engine.getRating(y), engine.getRating(x)));
+
+            long games = 0;
+            for(int p = 0; p < order.length; p++)
+            {
+                games += engine.getGamesRated(p);
+            }
+            System.out.printf("%,d games of %,d players rated in %.1f s, %,.0f games/s%n", games / 2, order.length,
+                              seconds, games / 2 / seconds);
+            System.out.printf("%8s %8s %6s %8s %8s %8s%n", "Player", "Rating", "RD", "Vol.", "Elo", "Games");
+            for(int p = 0; p < Math.min(top, order.length); p++)
+            {
+                int player = order[p];
+                System.out.printf("%8d %8.1f %6.1f %8.5f %8.1f %8d%n", player, engine.getRating(player),
+                                  engine.getDeviation(player), engine.getVolatility(player),
+                                  engine.getElo(player), engine.getGamesRated(player));
+            }
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    // A task over a range of players
+    private interface Range
+    {
+        void run(int from, int to) throws Exception;
+    }
+}
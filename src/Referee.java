@@ -0,0 +1,321 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Plays engines speaking the {@code EngineProtocol} against each other, with a
+ * {@code MancalaGame} judging every move. An engine that answers too late, sends
+ * an illegal move or exits loses the game on the spot.
+ * <p>
+ * Commands are pipelined: a new game is announced to both engines at once,
+ * together with the {@code isready} that starts their clocks, and the position
+ * and the {@code go} for a move are sent in one flush, so the only round trip
+ * per move is the one for the move itself. Matches run concurrently,
+ * each worker playing its share of the games with its own pair of engine
+ * processes, which are reused from game to game and only restarted after a
+ * forfeit.
+ */
+public final class Referee
+{
+    /**
+     * The default time a move may take in milliseconds.
+     */
+    public static final long DEFAULT_MOVE_TIME = 1000;
+
+    // Extra time allowed on top of the move time for the pipes and the scheduler
+    private static final long GRACE         = 200;
+    // Time an engine gets to start up and set up a new game, which is not on its clock
+    private static final long READY_TIMEOUT = 10_000;
+
+    private final int   initialStones;
+    private final Rules rules;
+    private final long  moveTime;
+
+    /**
+     * Constructs a new referee.
+     *
+     * @param initialStones The stones per pit at the start of each game
+     * @param rules         The rule variant to play by
+     * @param moveTime      The time a move may take in milliseconds
+     */
+    public Referee(int initialStones, Rules rules, long moveTime)
+    {
+        this.initialStones = initialStones;
+        this.rules = rules;
+        this.moveTime = moveTime;
+    }
+
+    /**
+     * Plays a game.
+     *
+     * @param id     The game identifier
+     * @param first  The engine playing player A
+     * @param second The engine playing player B
+     * @return The result
+     * @throws InterruptedException If the thread is interrupted while waiting for a move
+     */
+    public Result play(long id, EngineProcess first, EngineProcess second) throws InterruptedException
+    {
+        EngineProcess[] engines = {first, second};
+        MancalaGame     game    = new MancalaGame(initialStones, rules);
+        int[]           moves   = new int[256];
+        int             count   = 0;
+
+        // Both engines set up the game at the same time, and the clock only starts
+        // once they are done, so that starting a virtual machine is no forfeit
+        String newGame = EngineProtocol.newGame(initialStones, rules);
+        first.send(newGame, EngineProtocol.IS_READY);
+        second.send(newGame, EngineProtocol.IS_READY);
+        // Both replies are awaited even if the first is missing, so that no readyok
+        // is left over to start the clock of the next game early
+        long      deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(READY_TIMEOUT);
+        boolean[] ready    = new boolean[MancalaGame.MAX_PLAYERS];
+        for(int player = 0; player < MancalaGame.MAX_PLAYERS; player++)
+        {
+            long millis = Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+            ready[player] = engines[player].await(EngineProtocol.READY_OK, millis) != null;
+        }
+        if(!ready[MancalaGame.PLAYER_A] || !ready[MancalaGame.PLAYER_B])
+        {
+            GameRecord record = new GameRecord(id, initialStones, new int[0]);
+            if(ready[MancalaGame.PLAYER_A]) return new Result(MancalaGame.PLAYER_A, "not ready", record);
+            if(ready[MancalaGame.PLAYER_B]) return new Result(MancalaGame.PLAYER_B, "not ready", record);
+            return new Result(-1, "neither ready", record);
+        }
+
+        while(!game.isGameOver())
+        {
+            int           player = game.getCurrentPlayer();
+            EngineProcess engine = engines[player];
+            String        reply  = null;
+            if(engine.send(EngineProtocol.position(moves, count), EngineProtocol.go(moveTime)))
+            {
+                reply = engine.await(EngineProtocol.BEST_MOVE, moveTime + GRACE);
+            }
+            if(reply == null)
+            {
+                String reason = engine.isAlive() ? "no move in time" : "engine exited";
+                return new Result(player ^ 1, reason,
+                                  new GameRecord(id, initialStones, Arrays.copyOf(moves, count)));
+            }
+
+            int pit = parsePit(reply);
+            if(pit != -1) game.selectPit(pit);
+            if(!game.hasPendingCommit())
+            {
+                return new Result(player ^ 1, "illegal move: " + reply,
+                                  new GameRecord(id, initialStones, Arrays.copyOf(moves, count)));
+            }
+            game.commitLastSelection();
+
+            if(count == moves.length) moves = Arrays.copyOf(moves, count * 2);
+            moves[count++] = pit;
+        }
+
+        int a      = game.getMancalaModel(MancalaGame.PLAYER_A).getStones();
+        int b      = game.getMancalaModel(MancalaGame.PLAYER_B).getStones();
+        int winner = a == b ? -1 : game.getWinningPlayer();
+        return new Result(winner, null, new GameRecord(id, initialStones, Arrays.copyOf(moves, count)));
+    }
+
+    // Returns the pit of a bestmove reply, or -1 if the reply is malformed
+    private static int parsePit(String reply)
+    {
+        String[] tokens = EngineProtocol.tokens(reply);
+        if(tokens.length != 2) return -1;
+        try
+        {
+            int pit = Integer.parseInt(tokens[1]);
+            return pit >= 0 && pit < MancalaGame.MAX_PITS ? pit : -1;
+        }
+        catch(NumberFormatException e)
+        {
+            return -1;
+        }
+    }
+
+    /**
+     * The outcome of a game.
+     */
+    public static final class Result
+    {
+        private final int        winner;
+        private final String     forfeit;
+        private final GameRecord record;
+
+        /**
+         * Constructs a new result.
+         *
+         * @param winner  The winning player, or -1 for a draw
+         * @param forfeit Why the loser forfeited, or why both did if there is no
+         *                winner, or null if the game was played out
+         * @param record  The moves played
+         */
+        public Result(int winner, String forfeit, GameRecord record)
+        {
+            this.winner = winner;
+            this.forfeit = forfeit;
+            this.record = record;
+        }
+
+        /**
+         * Returns the winning player.
+         *
+         * @return The winning player, or -1 for a draw
+         */
+        public int getWinner()
+        {
+            return winner;
+        }
+
+        /**
+         * Returns why the loser forfeited, or why both engines did if there is no
+         * winner.
+         *
+         * @return The reason, or null if the game was played out
+         */
+        public String getForfeit()
+        {
+            return forfeit;
+        }
+
+        /**
+         * Returns the moves played.
+         *
+         * @return The game record
+         */
+        public GameRecord getRecord()
+        {
+            return record;
+        }
+    }
+
+    /**
+     * Runs a match between two engines from the command line. Each engine is given
+     * as one argument holding its command line, such as {@code "java EngineMain"}.
+     * The engines take turns playing player A.
+     *
+     * @param args Command line arguments
+     * @throws Exception If an engine cannot be started or the archive cannot be written
+     */
+    public static void main(String[] args) throws Exception
+    {
+        int    games       = 100;
+        int    concurrency = Runtime.getRuntime().availableProcessors();
+        long   moveTime    = DEFAULT_MOVE_TIME;
+        int    stones      = MancalaGame.MAX_INITIAL_STONES;
+        String archive     = null;
+        int    i           = 0;
+        for(; i < args.length - 2; i++)
+        {
+            switch(args[i])
+            {
+                case "-games":
+                    games = Integer.parseInt(args[++i]);
+                    break;
+                case "-concurrency":
+                    concurrency = Integer.parseInt(args[++i]);
+                    break;
+                case "-time":
+                    moveTime = Long.parseLong(args[++i]);
+                    break;
+                case "-stones":
+                    stones = Integer.parseInt(args[++i]);
+                    break;
+                case "-archive":
+                    archive = args[++i];
+                    break;
+                default:
+                    i = args.length;
+            }
+        }
+        if(i != args.length - 2)
+        {
+            System.err.println("Usage: Referee [-games n] [-concurrency n] [-time millis] [-stones n] " +
+                               "[-archive file] \"engine 1 command\" \"engine 2 command\"");
+            System.exit(1);
+        }
+
+        List<List<String>> commands = Arrays.asList(Arrays.asList(EngineProtocol.tokens(args[args.length - 2])),
+                                                    Arrays.asList(EngineProtocol.tokens(args[args.length - 1])));
+        Referee       referee = new Referee(stones, Rules.KALAH, moveTime);
+        AtomicInteger next    = new AtomicInteger();
+        // Wins of engine 1, draws and wins of engine 2
+        int[]         tally   = new int[3];
+        int           total   = games;
+
+        BufferedWriter out = archive == null ? null : Files.newBufferedWriter(Paths.get(archive),
+                                                                              StandardCharsets.UTF_8);
+        ExecutorService pool  = Executors.newFixedThreadPool(concurrency);
+        List<Future<?>> tasks = new ArrayList<>();
+        long            start = System.nanoTime();
+        try
+        {
+            for(int w = 0; w < concurrency; w++)
+            {
+                tasks.add(pool.submit(() -> {
+                    EngineProcess[] engines = {new EngineProcess(commands.get(0)), new EngineProcess(commands.get(1))};
+                    try
+                    {
+                        for(int g; (g = next.getAndIncrement()) < total; )
+                        {
+                            // Engine 1 plays A in even games and B in odd ones
+                            int    swap   = g & 1;
+                            Result result = referee.play(g, engines[swap], engines[swap ^ 1]);
+                            int    winner = result.getWinner() == -1 ? -1 : result.getWinner() ^ swap;
+                            // Forfeiting engines are restarted, both of them if neither won
+                            for(int e = 0; e < engines.length && result.getForfeit() != null; e++)
+                            {
+                                if(e == winner) continue;
+                                engines[e].close();
+                                engines[e] = new EngineProcess(commands.get(e));
+                            }
+
+                            synchronized(tally)
+                            {
+                                tally[winner == -1 ? 1 : winner * 2]++;
+                                String outcome = winner == -1 ? "draw" : "engine " + (winner + 1) + " wins";
+                                if(result.getForfeit() != null) outcome += " (" + result.getForfeit() + ")";
+                                System.out.printf("Game %d: engine %d as A, %s after %d moves%n", g, swap + 1,
+                                                  outcome, result.getRecord().getMoveCount());
+                                if(out != null)
+                                {
+                                    out.write(GameArchive.format(result.getRecord()));
+                                    out.newLine();
+                                }
+                            }
+                        }
+                    }
+                    finally
+                    {
+                        engines[0].close();
+                        engines[1].close();
+                    }
+                    return null;
+                }));
+            }
+            for(Future<?> task : tasks)
+            {
+                task.get();
+            }
+        }
+        finally
+        {
+            pool.shutdown();
+            if(out != null) out.close();
+        }
+
+        System.out.printf("Engine 1: %d wins, %d draws, %d losses in %.1f s%n", tally[0], tally[1], tally[2],
+                          (System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,195 @@
+/**
+ * A recorded game that can be moved to any move in constant time. Loading replays
+ * the game once and keeps a keyframe of the board every {@code interval} moves, so
+ * a seek restores the nearest keyframe before the target and plays at most
+ * {@code interval - 1} moves from it. Seeking a little forward plays on from the
+ * current position instead, so stepping through the game plays each move once.
+ * <p>
+ * A keyframe packs the board and the player to move into one byte each, since a
+ * pit never holds more stones than the game started with in total.
+ *
+ * @see ReplayView
+ */
+public final class Replay
+{
+    /**
+     * The default amount of moves between keyframes.
+     */
+    public static final int DEFAULT_INTERVAL = 8;
+
+    // The board array followed by the player to move
+    private static final int FRAME_SIZE = Rules.BOARD_SIZE + 1;
+
+    private final GameRecord game;
+    private final Rules      rules;
+    private final int        interval;
+    private final byte[]     keyframes;
+
+    /* Current Position */
+    private final int[] board = new int[Rules.BOARD_SIZE];
+    private int         moveNumber;
+    private int         currentPlayer;
+
+    /**
+     * Loads a game with the default keyframe interval.
+     *
+     * @param game The game
+     * @throws IllegalArgumentException If the game has an illegal move
+     * @see #Replay(GameRecord, Rules, int)
+     */
+    public Replay(GameRecord game)
+    {
+        this(game, Rules.KALAH, DEFAULT_INTERVAL);
+    }
+
+    /**
+     * Loads a game, replaying it once to build the keyframes. The replay starts at
+     * the starting position.
+     *
+     * @param game     The game
+     * @param rules    The rule variant the game was played with
+     * @param interval The amount of moves between keyframes
+     * @throws IllegalArgumentException If the game has an illegal move or the
+     *                                  interval is not positive
+     */
+    public Replay(GameRecord game, Rules rules, int interval)
+    {
+        if(interval < 1) throw new IllegalArgumentException("The keyframe interval has to be positive");
+        if(game.getInitialStones() * 2 * MancalaGame.MAX_PITS > Byte.MAX_VALUE)
+        {
+            throw new IllegalArgumentException("Too many stones for a keyframe");
+        }
+        this.game = game;
+        this.rules = rules;
+        this.interval = interval;
+        keyframes = new byte[(game.getMoveCount() / interval + 1) * FRAME_SIZE];
+
+        reset();
+        for(int i = 0; i < game.getMoveCount(); i++)
+        {
+            if(i % interval == 0) saveKeyframe(i / interval);
+            step();
+        }
+        if(game.getMoveCount() % interval == 0) saveKeyframe(game.getMoveCount() / interval);
+        reset();
+    }
+
+    /**
+     * Moves the replay to the position after {@code moveNumber} moves.
+     *
+     * @param moveNumber The move number, within {@code 0 <= moveNumber <= getMoveCount()}
+     * @throws IndexOutOfBoundsException If the move number is out of range
+     */
+    public void seek(int moveNumber)
+    {
+        if(moveNumber < 0 || moveNumber > game.getMoveCount())
+        {
+            throw new IndexOutOfBoundsException("Move " + moveNumber + " of " + game.getMoveCount());
+        }
+
+        // Playing on is cheaper than a keyframe unless the target is a keyframe away
+        if(moveNumber < this.moveNumber || moveNumber - this.moveNumber >= interval)
+        {
+            restoreKeyframe(moveNumber / interval);
+        }
+        while(this.moveNumber < moveNumber)
+        {
+            step();
+        }
+    }
+
+    /**
+     * Returns the game being replayed.
+     *
+     * @return The game
+     */
+    public GameRecord getGame()
+    {
+        return game;
+    }
+
+    /**
+     * Returns the amount of moves in the game.
+     *
+     * @return The amount of moves
+     */
+    public int getMoveCount()
+    {
+        return game.getMoveCount();
+    }
+
+    /**
+     * Returns the amount of moves played to reach the current position.
+     *
+     * @return The move number
+     */
+    public int getMoveNumber()
+    {
+        return moveNumber;
+    }
+
+    /**
+     * Returns the player to move in the current position.
+     *
+     * @return The current player
+     */
+    public int getCurrentPlayer()
+    {
+        return currentPlayer;
+    }
+
+    /**
+     * Copies the current board array.
+     *
+     * @param dst An array of at least {@code Rules.BOARD_SIZE} entries
+     * @return {@code dst}
+     */
+    public int[] getPosition(int[] dst)
+    {
+        System.arraycopy(board, 0, dst, 0, Rules.BOARD_SIZE);
+        return dst;
+    }
+
+    // Plays the next move of the game
+    private void step()
+    {
+        int position = game.getMove(moveNumber);
+        int result   = position < 0 || position >= MancalaGame.MAX_PITS ? Rules.ILLEGAL
+                                                                       : rules.move(board, currentPlayer, position);
+        if(result == Rules.ILLEGAL)
+        {
+            throw new IllegalArgumentException("Illegal move " + moveNumber + " in game " + game.getId());
+        }
+        if((result & Rules.EXTRA_TURN) == 0) currentPlayer ^= 1;
+        rules.finish(board, currentPlayer);
+        moveNumber++;
+    }
+
+    private void reset()
+    {
+        System.arraycopy(Rules.newBoard(game.getInitialStones()), 0, board, 0, Rules.BOARD_SIZE);
+        moveNumber = 0;
+        currentPlayer = MancalaGame.PLAYER_A;
+    }
+
+    private void saveKeyframe(int index)
+    {
+        int offset = index * FRAME_SIZE;
+        for(int i = 0; i < Rules.BOARD_SIZE; i++)
+        {
+            keyframes[offset + i] = (byte) board[i];
+        }
+        keyframes[offset + Rules.BOARD_SIZE] = (byte) currentPlayer;
+    }
+
+    private void restoreKeyframe(int index)
+    {
+        int offset = index * FRAME_SIZE;
+        for(int i = 0; i < Rules.BOARD_SIZE; i++)
+        {
+            board[i] = keyframes[offset + i];
+        }
+        currentPlayer = keyframes[offset + Rules.BOARD_SIZE];
+        moveNumber = index * interval;
+    }
+}
@@ -0,0 +1,151 @@
+import javax.swing.*;
+import java.awt.*;
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * A view for reviewing recorded games: a {@code Board} in replay mode above a
+ * slider over the moves. Moving the slider seeks the {@code Replay} and shows the
+ * position through {@link Board#setPosition(int[])}, so the board and its
+ * listeners are built once, also when another game is loaded.
+ */
+public final class ReplayView extends JPanel
+{
+    private final Board   board;
+    private final JSlider slider;
+    private final JLabel  moveLabel;
+    private final int[]   position = new int[Rules.BOARD_SIZE];
+    private Replay        replay;
+
+    /**
+     * Constructs a new view showing {@code replay} at its current move.
+     *
+     * @param replay The replay
+     */
+    public ReplayView(Replay replay)
+    {
+        super(new BorderLayout());
+        // The board only shows positions, so the game behind it is never played
+        board = new Board(new MancalaGame());
+        slider = new JSlider(0, 0, 0);
+        moveLabel = new JLabel();
+
+        slider.addChangeListener(e -> showMove(slider.getValue()));
+
+        JPanel controls = new JPanel(new BorderLayout());
+        controls.add(slider, BorderLayout.CENTER);
+        controls.add(moveLabel, BorderLayout.LINE_END);
+
+        add(board, BorderLayout.CENTER);
+        add(controls, BorderLayout.PAGE_END);
+        setReplay(replay);
+    }
+
+    /**
+     * Shows another replay on the same board, starting at its current move.
+     *
+     * @param replay The replay
+     */
+    public void setReplay(Replay replay)
+    {
+        this.replay = replay;
+        int move = replay.getMoveNumber();
+        slider.setMaximum(replay.getMoveCount());
+        slider.setValue(move);
+        // Setting the value the slider already had fires no change
+        showMove(move);
+    }
+
+    /**
+     * Returns the replay shown.
+     *
+     * @return The replay
+     */
+    public Replay getReplay()
+    {
+        return replay;
+    }
+
+    /**
+     * Returns the board showing the replay, for setting its theme and stone mode.
+     *
+     * @return The board
+     */
+    public Board getBoard()
+    {
+        return board;
+    }
+
+    /**
+     * Returns the slider over the moves.
+     *
+     * @return The slider
+     */
+    public JSlider getSlider()
+    {
+        return slider;
+    }
+
+    private void showMove(int move)
+    {
+        replay.seek(move);
+        board.setPosition(replay.getPosition(position));
+        moveLabel.setText(String.format(" Move %d of %d, Player %s to move ", move, replay.getMoveCount(),
+                                        replay.getCurrentPlayer() == MancalaGame.PLAYER_A ? "A" : "B"));
+    }
+
+    /**
+     * Shows a game of an archive in a window.
+     * <p>
+     * Usage: {@code ReplayView [-interval n] archive [id]} shows the game with the
+     * identifier, or the first game of the archive.
+     *
+     * @param args Command line arguments
+     * @throws Exception If the archive cannot be read
+     */
+    public static void main(String[] args) throws Exception
+    {
+        int interval = Replay.DEFAULT_INTERVAL;
+        int i        = 0;
+        if(args.length > 1 && args[0].equals("-interval"))
+        {
+            interval = Integer.parseInt(args[1]);
+            i = 2;
+        }
+        if(i >= args.length || args.length - i > 2)
+        {
+            System.err.println("Usage: ReplayView [-interval n] archive [id]");
+            System.exit(1);
+        }
+
+        Optional<GameRecord> game;
+        try(Stream<GameRecord> games = GameArchive.read(Paths.get(args[i])))
+        {
+            if(args.length - i == 2)
+            {
+                long id = Long.parseLong(args[i + 1]);
+                game = games.filter(g -> g.getId() == id).findFirst();
+            }
+            else
+            {
+                game = games.findFirst();
+            }
+        }
+        if(!game.isPresent())
+        {
+            System.err.println("No such game in " + args[i]);
+            System.exit(1);
+        }
+
+        Replay replay = new Replay(game.get(), Rules.KALAH, interval);
+        SwingUtilities.invokeLater(() -> {
+            JFrame frame = new JFrame("Mancala Replay " + game.get().getId());
+            frame.setContentPane(new ReplayView(replay));
+            frame.setSize(1280, 500);
+            frame.setLocationRelativeTo(null);
+            frame.setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
+            frame.setVisible(true);
+        });
+    }
+}
@@ -0,0 +1,140 @@
+/**
+ * An interface representing a rule variant of the Mancala game. A rule engine
+ * plays moves on a plain array representation of the board, so the whole sowing
+ * loop lives inside one implementing class and never calls back into another
+ * object. The game picks its engine once at construction, like the board picks a
+ * {@code BoardTheme}, and the interface holds the supported variants as constant
+ * fields.
+ * <p>
+ * The board array has {@code BOARD_SIZE} entries. Player A's pits are at indices
+ * 0 to 5 followed by their store at index 6, and player B's pits are at indices
+ * 7 to 12 followed by their store at index 13. Use {@link #pit(int, int)} and
+ * {@link #store(int)} to compute the indices.
+ */
+public interface Rules
+{
+    /**
+     * The length of a board array.
+     */
+    int BOARD_SIZE = (MancalaGame.MAX_PITS + 1) * MancalaGame.MAX_PLAYERS;
+    /**
+     * Returned by {@link #move(int[], int, int)} when the selected pit is empty.
+     */
+    int ILLEGAL    = -1;
+    /**
+     * Flag set in the result of a move that earned the player another turn.
+     */
+    int EXTRA_TURN = 1;
+    /**
+     * Flag set in the result of a move that captured stones.
+     */
+    int CAPTURE    = 1 << 1;
+
+    /**
+     * Returns the name of the variant.
+     *
+     * @return The name
+     */
+    String getName();
+
+    /**
+     * Plays the pit at {@code position} for {@code player}, updating the board in place.
+     *
+     * @param board    The board array
+     * @param player   The player making the move
+     * @param position The position of the pit. The value should be within {@code 0 <= position < 6}
+     * @return {@code ILLEGAL} if the pit is empty, otherwise a combination of the
+     * {@code EXTRA_TURN} and {@code CAPTURE} flags
+     */
+    int move(int[] board, int player, int position);
+
+    /**
+     * Checks whether the game is over with {@code player} to move. If it is, the
+     * remaining stones are collected into the stores and the winner is returned.
+     *
+     * @param board  The board array
+     * @param player The player to move next
+     * @return The winning player, or -1 if the game is still going
+     */
+    int finish(int[] board, int player);
+
+    /**
+     * Returns the board index of a player's pit.
+     *
+     * @param player   The player
+     * @param position The position of the pit
+     * @return The index
+     */
+    static int pit(int player, int position)
+    {
+        return player * (MancalaGame.MAX_PITS + 1) + position;
+    }
+
+    /**
+     * Returns the board index of a player's store.
+     *
+     * @param player The player
+     * @return The index
+     */
+    static int store(int player)
+    {
+        return player * (MancalaGame.MAX_PITS + 1) + MancalaGame.MAX_PITS;
+    }
+
+    /**
+     * Returns a new board array with {@code initialStones} stones in every pit.
+     *
+     * @param initialStones The amount of stones in each pit
+     * @return The board
+     */
+    static int[] newBoard(int initialStones)
+    {
+        int[] board = new int[BOARD_SIZE];
+        for(int i = 0; i < MancalaGame.MAX_PITS; i++)
+        {
+            board[pit(MancalaGame.PLAYER_A, i)] = initialStones;
+            board[pit(MancalaGame.PLAYER_B, i)] = initialStones;
+        }
+        return board;
+    }
+
+    /**
+     * Returns the index of {@code rules} in {@link #VARIANTS}.
+     *
+     * @param rules The rule variant
+     * @return The index
+     * @throws IllegalArgumentException If the variant is not one of the supported variants
+     */
+    static int indexOf(Rules rules)
+    {
+        for(int i = 0; i < VARIANTS.length; i++)
+        {
+            if(VARIANTS[i] == rules) return i;
+        }
+        throw new IllegalArgumentException("Unknown rule variant " + rules.getName());
+    }
+
+    /**
+     * The standard rules the game has always used. Captures take the last stone
+     * even when the opposite pit is empty.
+     */
+    Rules KALAH = new KalahRules();
+
+    /**
+     * A house rule variant of Kalah where landing in an empty pit only captures
+     * if the opposite pit has stones in it.
+     */
+    Rules KALAH_STRICT_CAPTURE = new StrictCaptureRules();
+
+    /**
+     * Oware-style rules. Stores are skipped while sowing and captures are made on
+     * the opponent's row.
+     */
+    Rules OWARE = new OwareRules();
+
+    /**
+     * Every supported variant. A variant's index in this array identifies it in
+     * saved data, so new variants must only ever be appended.
+     */
+    Rules[] VARIANTS = {KALAH, KALAH_STRICT_CAPTURE, OWARE};
+}
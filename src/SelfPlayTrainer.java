@@ -0,0 +1,375 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Trains an {@code Evaluator} by TD(&lambda;) on games it plays against itself.
+ * Each move is picked by evaluating all of the mover's moves in one batch and
+ * playing the best one, or a random one now and then so that the games vary.
+ * After every move the estimate of the previous position is pulled towards the
+ * estimate of the new one, or towards the result once the game is over, and
+ * the change is spread back over the earlier positions by an eligibility trace.
+ * <p>
+ * Training runs in rounds. In a round every worker thread plays its share of
+ * the games on its own copy of the weights, and the round ends by averaging the
+ * copies, so all cores are busy and the result of a round only depends on the
+ * amount of workers and the seed.
+ */
+public final class SelfPlayTrainer
+{
+    /**
+     * The default step size.
+     */
+    public static final float DEFAULT_ALPHA   = 0.02f;
+    /**
+     * The default decay of the eligibility trace.
+     */
+    public static final float DEFAULT_LAMBDA  = 0.7f;
+    /**
+     * The default chance of playing a random move.
+     */
+    public static final float DEFAULT_EPSILON = 0.1f;
+
+    private static final int PITS = MancalaGame.MAX_PITS;
+
+    private final Rules           rules;
+    private final int             initialStones;
+    private final int             workers;
+    private final ExecutorService pool;
+    private final float           alpha;
+    private final float           lambda;
+    private final float           epsilon;
+
+    /**
+     * Constructs a new trainer with the default parameters.
+     *
+     * @param rules         The rule variant to play by
+     * @param initialStones The stones per pit at the start of each game
+     * @param pool          The pool running the workers
+     * @param workers       The amount of workers, usually the amount of cores
+     * @see #SelfPlayTrainer(Rules, int, ExecutorService, int, float, float, float)
+     */
+    public SelfPlayTrainer(Rules rules, int initialStones, ExecutorService pool, int workers)
+    {
+        this(rules, initialStones, pool, workers, DEFAULT_ALPHA, DEFAULT_LAMBDA, DEFAULT_EPSILON);
+    }
+
+    /**
+     * Constructs a new trainer.
+     *
+     * @param rules         The rule variant to play by
+     * @param initialStones The stones per pit at the start of each game
+     * @param pool          The pool running the workers
+     * @param workers       The amount of workers, usually the amount of cores
+     * @param alpha         The step size
+     * @param lambda        The decay of the eligibility trace, between 0 and 1
+     * @param epsilon       The chance of playing a random move, between 0 and 1
+     */
+    public SelfPlayTrainer(Rules rules, int initialStones, ExecutorService pool, int workers,
+                           float alpha, float lambda, float epsilon)
+    {
+        this.rules = rules;
+        this.initialStones = initialStones;
+        this.pool = pool;
+        this.workers = workers;
+        this.alpha = alpha;
+        this.lambda = lambda;
+        this.epsilon = epsilon;
+    }
+
+    /**
+     * Plays one round of {@code games} games, shared by the workers, and returns
+     * the averaged weights.
+     *
+     * @param evaluator The weights to start from, left alone
+     * @param games     The amount of games
+     * @param seed      The seed of the round
+     * @return The trained evaluator
+     * @throws Exception If a worker fails or the thread is interrupted
+     */
+    public Evaluator train(Evaluator evaluator, int games, long seed) throws Exception
+    {
+        List<Callable<float[]>> tasks = new ArrayList<>();
+        for(int w = 0; w < workers; w++)
+        {
+            int     share  = games / workers + (w < games % workers ? 1 : 0);
+            Random  random = new Random(seed * workers + w);
+            float[] start  = evaluator.getWeights(new float[Evaluator.FEATURES]);
+            tasks.add(() -> {
+                Evaluator copy = new Evaluator(start);
+                Game      game = new Game();
+                for(int g = 0; g < share; g++)
+                {
+                    game.play(copy, random);
+                }
+                return copy.getWeights(start);
+            });
+        }
+
+        float[] average = new float[Evaluator.FEATURES];
+        for(Future<float[]> result : pool.invokeAll(tasks))
+        {
+            float[] weights = result.get();
+            for(int i = 0; i < Evaluator.FEATURES; i++)
+            {
+                average[i] += weights[i] / workers;
+            }
+        }
+        return new Evaluator(average);
+    }
+
+    /**
+     * Plays {@code games} games between the evaluator, moving greedily, and a
+     * player picking random moves, with the evaluator moving first in half of them.
+     *
+     * @param evaluator The evaluator
+     * @param games     The amount of games
+     * @param random    The source of the random moves
+     * @return The share of the games the evaluator won
+     */
+    public double winRate(Evaluator evaluator, int games, Random random)
+    {
+        Game game = new Game();
+        int  won  = 0;
+        for(int g = 0; g < games; g++)
+        {
+            if(game.playRandom(evaluator, g & 1, random)) won++;
+        }
+        return (double) won / games;
+    }
+
+    /**
+     * The buffers of one worker, reused from game to game so that playing does not
+     * allocate.
+     */
+    private final class Game
+    {
+        private final int[]   board    = new int[Rules.BOARD_SIZE];
+        private final int[][] children = new int[PITS][Rules.BOARD_SIZE];
+        private final int[]   movers   = new int[PITS];
+        private final int[]   winners  = new int[PITS];
+        private final float[] values   = new float[PITS];
+        private final float[] features = new float[Evaluator.FEATURES];
+        private final float[] trace    = new float[Evaluator.FEATURES];
+
+        /**
+         * Plays a game against itself, learning after each move.
+         */
+        void play(Evaluator evaluator, Random random)
+        {
+            reset();
+            int player = MancalaGame.PLAYER_A;
+            Arrays.fill(trace, 0);
+            float estimate = trace(evaluator, player);
+
+            while(true)
+            {
+                int legal = expand(player);
+                int pick  = random.nextFloat() < epsilon ? random.nextInt(legal) : best(evaluator, player, legal);
+                System.arraycopy(children[pick], 0, board, 0, Rules.BOARD_SIZE);
+                player = movers[pick];
+
+                if(winners[pick] != -1)
+                {
+                    evaluator.adjust(trace, alpha * (result() - estimate));
+                    return;
+                }
+
+                float next = chanceOfA(evaluator, board, player);
+                evaluator.adjust(trace, alpha * (next - estimate));
+                estimate = trace(evaluator, player);
+            }
+        }
+
+        /**
+         * Plays a game of the evaluator against random moves.
+         *
+         * @return True if the evaluator won
+         */
+        boolean playRandom(Evaluator evaluator, int side, Random random)
+        {
+            reset();
+            int player = MancalaGame.PLAYER_A;
+            while(true)
+            {
+                int legal = expand(player);
+                int pick  = player == side ? best(evaluator, player, legal) : random.nextInt(legal);
+                System.arraycopy(children[pick], 0, board, 0, Rules.BOARD_SIZE);
+                player = movers[pick];
+                if(winners[pick] != -1) return board[Rules.store(side)] > board[Rules.store(side ^ 1)];
+            }
+        }
+
+        private void reset()
+        {
+            for(int i = 0; i < Rules.BOARD_SIZE; i++)
+            {
+                board[i] = i % (PITS + 1) == PITS ? 0 : initialStones;
+            }
+        }
+
+        /**
+         * Plays every legal move of {@code player} into the first children.
+         *
+         * @return The amount of legal moves
+         */
+        private int expand(int player)
+        {
+            int legal = 0;
+            for(int i = 0; i < PITS; i++)
+            {
+                int[] child = children[legal];
+                System.arraycopy(board, 0, child, 0, Rules.BOARD_SIZE);
+                int result = rules.move(child, player, i);
+                if(result == Rules.ILLEGAL) continue;
+
+                int next = (result & Rules.EXTRA_TURN) != 0 ? player : player ^ 1;
+                movers[legal] = next;
+                winners[legal] = rules.finish(child, next);
+                legal++;
+            }
+            return legal;
+        }
+
+        /**
+         * Returns the child that is best for {@code player}, evaluating the children
+         * still in play as one batch.
+         */
+        private int best(Evaluator evaluator, int player, int legal)
+        {
+            evaluator.evaluate(children, movers, legal, values);
+            int   best      = 0;
+            float bestValue = -1;
+            for(int i = 0; i < legal; i++)
+            {
+                float value;
+                if(winners[i] != -1)
+                {
+                    int[] child = children[i];
+                    int   own   = child[Rules.store(player)];
+                    int   other = child[Rules.store(player ^ 1)];
+                    value = own > other ? 1 : own == other ? 0.5f : 0;
+                }
+                else
+                {
+                    value = movers[i] == player ? values[i] : 1 - values[i];
+                }
+
+                if(value > bestValue)
+                {
+                    best = i;
+                    bestValue = value;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Decays the trace and adds the gradient of the chance that A wins the current
+         * position.
+         *
+         * @return The chance that A wins the current position
+         */
+        private float trace(Evaluator evaluator, int player)
+        {
+            float chance   = evaluator.evaluate(board, player);
+            float gradient = chance * (1 - chance);
+            if(player != MancalaGame.PLAYER_A) gradient = -gradient;
+
+            Evaluator.features(board, player, features);
+            for(int i = 0; i < Evaluator.FEATURES; i++)
+            {
+                trace[i] = lambda * trace[i] + gradient * features[i];
+            }
+            return player == MancalaGame.PLAYER_A ? chance : 1 - chance;
+        }
+
+        // The result of the finished game for A, counting a tie as half a win
+        private float result()
+        {
+            int a = board[Rules.store(MancalaGame.PLAYER_A)];
+            int b = board[Rules.store(MancalaGame.PLAYER_B)];
+            return a > b ? 1 : a == b ? 0.5f : 0;
+        }
+    }
+
+    private static float chanceOfA(Evaluator evaluator, int[] board, int player)
+    {
+        float chance = evaluator.evaluate(board, player);
+        return player == MancalaGame.PLAYER_A ? chance : 1 - chance;
+    }
+
+    /**
+     * Trains weights from the command line, saving them after every round so that
+     * a stopped run can be continued.
+     *
+     * @param args Command line arguments
+     * @throws Exception If training fails or the weights cannot be saved
+     */
+    public static void main(String[] args) throws Exception
+    {
+        int  rounds  = 100;
+        int  games   = 10_000;
+        int  threads = Runtime.getRuntime().availableProcessors();
+        Path file    = null;
+        int  i       = 0;
+        for(; i < args.length - 1; i++)
+        {
+            switch(args[i])
+            {
+                case "-rounds":
+                    rounds = Integer.parseInt(args[++i]);
+                    break;
+                case "-games":
+                    games = Integer.parseInt(args[++i]);
+                    break;
+                case "-threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "-weights":
+                    file = Paths.get(args[++i]);
+                    break;
+                default:
+                    i = args.length;
+            }
+        }
+        if(i != args.length - 1)
+        {
+            System.err.println("Usage: SelfPlayTrainer [-rounds n] [-games n] [-threads n] [-weights file] stones");
+            System.exit(1);
+        }
+
+        int stones = Integer.parseInt(args[args.length - 1]);
+        if(file == null) file = Paths.get("kalah-" + stones + ".weights");
+
+        Evaluator evaluator = Files.exists(file) ? Evaluator.load(file) : new Evaluator(new float[Evaluator.FEATURES]);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try
+        {
+            SelfPlayTrainer trainer = new SelfPlayTrainer(Rules.KALAH, stones, pool, threads);
+            Random          random  = new Random();
+            for(int round = 0; round < rounds; round++)
+            {
+                long start = System.nanoTime();
+                evaluator = trainer.train(evaluator, games, random.nextLong());
+                double secs = (System.nanoTime() - start) / 1e9;
+                evaluator.save(file);
+
+                System.out.printf("Round %d: %,.0f games/s, %.1f%% won against random moves%n", round + 1,
+                                  games / secs, trainer.winRate(evaluator, 1000, random) * 100);
+            }
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,286 @@
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps a large amount of mostly idle games. A live {@code MancalaGame} is a few
+ * dozen objects, so dormant games are instead kept as fixed-size slots in a single
+ * off-heap arena, and a game is only materialized when a player acts on it.
+ * Games that have not been acquired for the idle timeout are evicted back to
+ * their slots by {@link #evictIdle()}.
+ * <p>
+ * Live games write every committed or undone selection through to their slot, so
+ * evicting a game only drops the object. A pending selection is never written,
+ * and games with one are not evicted.
+ * <p>
+ * Sessions are identified by a {@code long} holding the slot and a generation
+ * that changes whenever the slot is reused, so an identifier of a removed session
+ * never reaches another game.
+ */
+public final class SessionStore
+{
+    /* Slot Layout */
+    // Stones (14), current player (1), flags (1), variant (1), initial stones (1),
+    // unused (2), generation (4)
+    private static final int SLOT_SIZE         = 24;
+    private static final int PLAYER_OFFSET     = Rules.BOARD_SIZE;
+    private static final int FLAGS_OFFSET      = PLAYER_OFFSET + 1;
+    private static final int VARIANT_OFFSET    = FLAGS_OFFSET + 1;
+    private static final int STONES_OFFSET     = VARIANT_OFFSET + 1;
+    private static final int GENERATION_OFFSET = 20;
+    private static final int IN_USE            = 1;
+    private static final int UNDO_AVAILABLE    = 1 << 1;
+
+    private final ByteBuffer arena;
+    private final int        capacity;
+    private final long       idleTimeout;
+
+    // Stack of unused slots
+    private final int[] free;
+    private int         freeCount;
+
+    // Live games in order of their last access, least recent first
+    private final LinkedHashMap<Integer, Session> live = new LinkedHashMap<>(16, 0.75f, true);
+    private final int[] position = new int[Rules.BOARD_SIZE];
+
+    /**
+     * Constructs a new store.
+     *
+     * @param capacity    The most sessions the store holds at once
+     * @param idleTimeout The time in milliseconds after which an untouched live game is evicted
+     * @throws IllegalArgumentException If the capacity is not positive or too large for one arena
+     */
+    public SessionStore(int capacity, long idleTimeout)
+    {
+        if(capacity <= 0 || capacity > Integer.MAX_VALUE / SLOT_SIZE)
+        {
+            throw new IllegalArgumentException("capacity is out of range");
+        }
+
+        this.capacity = capacity;
+        this.idleTimeout = idleTimeout;
+        arena = ByteBuffer.allocateDirect(capacity * SLOT_SIZE);
+        free = new int[capacity];
+        for(int i = 0; i < capacity; i++)
+        {
+            free[i] = capacity - 1 - i;
+        }
+        freeCount = capacity;
+    }
+
+    /**
+     * Returns the most sessions the store holds at once.
+     *
+     * @return The capacity
+     */
+    public int getCapacity()
+    {
+        return capacity;
+    }
+
+    /**
+     * Returns the amount of sessions in the store.
+     *
+     * @return The amount of sessions
+     */
+    public synchronized int getSessionCount()
+    {
+        return capacity - freeCount;
+    }
+
+    /**
+     * Returns the amount of sessions that currently have a materialized game.
+     *
+     * @return The amount of live games
+     */
+    public synchronized int getLiveCount()
+    {
+        return live.size();
+    }
+
+    /**
+     * Starts a new game in a dormant slot. No {@code MancalaGame} is created until
+     * the session is acquired.
+     *
+     * @param initialStones The amount of stones to fill in each pit
+     * @param rules         The rule variant
+     * @return The session identifier
+     * @throws RuntimeException If the store is full
+     */
+    public synchronized long create(int initialStones, Rules rules)
+    {
+        if(initialStones < MancalaGame.MIN_INITIAL_STONES || initialStones > MancalaGame.MAX_INITIAL_STONES)
+        {
+            throw new RuntimeException("Initial stones is not >=" + MancalaGame.MIN_INITIAL_STONES +
+                                       " nor <=" + MancalaGame.MAX_INITIAL_STONES);
+        }
+        if(freeCount == 0) throw new RuntimeException("The session store is full");
+
+        int slot   = free[--freeCount];
+        int offset = slot * SLOT_SIZE;
+        int[] board = Rules.newBoard(initialStones);
+        for(int i = 0; i < Rules.BOARD_SIZE; i++)
+        {
+            arena.put(offset + i, (byte) board[i]);
+        }
+        arena.put(offset + PLAYER_OFFSET, (byte) MancalaGame.PLAYER_A);
+        arena.put(offset + FLAGS_OFFSET, (byte) (IN_USE | UNDO_AVAILABLE));
+        arena.put(offset + VARIANT_OFFSET, (byte) Rules.indexOf(rules));
+        arena.put(offset + STONES_OFFSET, (byte) initialStones);
+        return (long) arena.getInt(offset + GENERATION_OFFSET) << 32 | slot;
+    }
+
+    /**
+     * Returns the live game of a session, materializing it from its slot if it was
+     * dormant, and marks the session as active. Acquire the game again for every
+     * action rather than holding on to it, since a game that has been evicted no
+     * longer writes through to the store.
+     *
+     * @param session The session identifier
+     * @return The game
+     * @throws IllegalArgumentException If the session does not exist
+     */
+    public synchronized MancalaGame acquire(long session)
+    {
+        int     slot  = slotOf(session);
+        Session state = live.get(slot);
+        if(state == null)
+        {
+            int offset = slot * SLOT_SIZE;
+            for(int i = 0; i < Rules.BOARD_SIZE; i++)
+            {
+                position[i] = arena.get(offset + i) & 0xFF;
+            }
+            int         flags = arena.get(offset + FLAGS_OFFSET);
+            MancalaGame game  = new MancalaGame(arena.get(offset + STONES_OFFSET),
+                                                Rules.VARIANTS[arena.get(offset + VARIANT_OFFSET)],
+                                                position, arena.get(offset + PLAYER_OFFSET),
+                                                (flags & UNDO_AVAILABLE) != 0);
+
+            state = new Session(slot, game);
+            game.addMoveListener(state);
+            live.put(slot, state);
+        }
+        state.lastAccess = System.currentTimeMillis();
+        return state.game;
+    }
+
+    /**
+     * Copies a session's committed position without materializing its game.
+     *
+     * @param session The session identifier
+     * @param dst     An array of at least {@code Rules.BOARD_SIZE} entries
+     * @return The player to move
+     * @throws IllegalArgumentException If the session does not exist
+     */
+    public synchronized int peek(long session, int[] dst)
+    {
+        int offset = slotOf(session) * SLOT_SIZE;
+        for(int i = 0; i < Rules.BOARD_SIZE; i++)
+        {
+            dst[i] = arena.get(offset + i) & 0xFF;
+        }
+        return arena.get(offset + PLAYER_OFFSET);
+    }
+
+    /**
+     * Ends a session and frees its slot.
+     *
+     * @param session The session identifier
+     * @throws IllegalArgumentException If the session does not exist
+     */
+    public synchronized void remove(long session)
+    {
+        int     slot  = slotOf(session);
+        Session state = live.remove(slot);
+        if(state != null) state.game.removeMoveListener(state);
+
+        int offset = slot * SLOT_SIZE;
+        arena.put(offset + FLAGS_OFFSET, (byte) 0);
+        arena.putInt(offset + GENERATION_OFFSET, arena.getInt(offset + GENERATION_OFFSET) + 1);
+        free[freeCount++] = slot;
+    }
+
+    /**
+     * Evicts the live games that have not been acquired for the idle timeout and
+     * have no pending selection. Call this periodically from the thread that plays
+     * the games.
+     *
+     * @return The amount of evicted games
+     */
+    public synchronized int evictIdle()
+    {
+        long cutoff  = System.currentTimeMillis() - idleTimeout;
+        int  evicted = 0;
+
+        // Iteration runs from the least recently acquired game
+        Iterator<Map.Entry<Integer, Session>> it = live.entrySet().iterator();
+        while(it.hasNext())
+        {
+            Session state = it.next().getValue();
+            if(state.lastAccess > cutoff) break;
+            if(state.game.hasPendingCommit()) continue;
+
+            state.game.removeMoveListener(state);
+            it.remove();
+            evicted++;
+        }
+        return evicted;
+    }
+
+    private int slotOf(long session)
+    {
+        int slot = (int) session;
+        if(slot < 0 || slot >= capacity
+           || (arena.get(slot * SLOT_SIZE + FLAGS_OFFSET) & IN_USE) == 0
+           || arena.getInt(slot * SLOT_SIZE + GENERATION_OFFSET) != (int) (session >>> 32))
+        {
+            throw new IllegalArgumentException("Unknown session " + session);
+        }
+        return slot;
+    }
+
+    /**
+     * A materialized game, writing its moves through to its slot.
+     */
+    private final class Session implements MancalaGame.MoveListener
+    {
+        private final int         slot;
+        private final MancalaGame game;
+        private long              lastAccess;
+
+        private Session(int slot, MancalaGame game)
+        {
+            this.slot = slot;
+            this.game = game;
+        }
+
+        @Override
+        public void selectionCommitted(MancalaGame game, int player, int position)
+        {
+            save();
+        }
+
+        @Override
+        public void selectionUndone(MancalaGame game, int player, int position)
+        {
+            save();
+        }
+
+        private void save()
+        {
+            synchronized(SessionStore.this)
+            {
+                int   offset = slot * SLOT_SIZE;
+                int[] board  = game.copyPosition(SessionStore.this.position);
+                for(int i = 0; i < Rules.BOARD_SIZE; i++)
+                {
+                    arena.put(offset + i, (byte) board[i]);
+                }
+                arena.put(offset + PLAYER_OFFSET, (byte) game.getCurrentPlayer());
+                arena.put(offset + FLAGS_OFFSET, (byte) (IN_USE | (game.hasUndoAvailable() ? UNDO_AVAILABLE : 0)));
+            }
+        }
+    }
+}
@@ -0,0 +1,309 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Publishes the live board of a {@code MancalaGame} in a memory-mapped file, so
+ * that bots in other processes can follow the game and move in it without any
+ * serialization. The file is written under a sequence lock: the sequence is odd
+ * while the board is being written, and a reader that sees the same even
+ * sequence before and after reading has a consistent copy. Bots move by writing
+ * into a request slot of the same file, which the board polls while it waits for
+ * a move as the game's {@code Player}.
+ * <p>
+ * The layout, in little endian, is:
+ * <pre>
+ *   0  int   magic
+ *   4  int   layout version
+ *   8  long  sequence, odd while the state is written
+ *  16  int   move number, the committed moves less the undone ones
+ *  20  int   current player
+ *  24  int   winning player, or -1 while the game goes on
+ *  28  int   player whose move is awaited, or -1 if none
+ *  32  int[] the board array, in the layout described in {@code Rules}
+ *  88  int   rule variant, as an index into {@code Rules.VARIANTS}
+ * 128  long  request sequence, raised by the bot after writing a request
+ * 136  long  the state sequence the request answers
+ * 144  int   the pit requested
+ * </pre>
+ * The request slot sits on its own cache line, so bots writing it do not slow
+ * down the board's readers. A request is only taken if it answers the current
+ * state, so a bot cannot move on a board it has not seen.
+ * <p>
+ * The accesses to the file are plain ones, which the memory model lets the
+ * compiler and the processor reorder, so both sides order them with the fences
+ * of {@code sun.misc.Unsafe}, which are looked up by name so that the class
+ * compiles against the public API alone: a writer fences its stores between the sequence and
+ * the data it guards, and a reader fences its loads the same way. See
+ * {@link #storeFence()} and {@link #loadFence()}.
+ *
+ * @see SharedBoardClient
+ */
+public final class SharedBoard implements MancalaGame.MoveListener, Player, Closeable
+{
+    /* Layout */
+    static final int MAGIC          = 0x4D534842;
+    static final int VERSION        = 1;
+    static final int SEQUENCE       = 8;
+    static final int MOVE_NUMBER    = 16;
+    static final int CURRENT_PLAYER = 20;
+    static final int WINNER         = 24;
+    static final int AWAITED        = 28;
+    static final int BOARD          = 32;
+    static final int VARIANT        = 88;
+    static final int REQUEST        = 128;
+    static final int REQUEST_STATE  = 136;
+    static final int REQUEST_PIT    = 144;
+    static final int SIZE           = 192;
+
+    // Polls that only yield before the poller starts to sleep between polls
+    private static final int  SPINS      = 10_000;
+    private static final long POLL_NANOS = 50_000;
+
+    // Bound to the Unsafe instance, so that invoking them compiles to the bare fence
+    private static final MethodHandle STORE_FENCE;
+    private static final MethodHandle LOAD_FENCE;
+
+    static
+    {
+        try
+        {
+            Class<?> type  = Class.forName("sun.misc.Unsafe");
+            Field    field = type.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            Object               unsafe = field.get(null);
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodType           fence  = MethodType.methodType(void.class);
+            STORE_FENCE = lookup.findVirtual(type, "storeFence", fence).bindTo(unsafe);
+            LOAD_FENCE = lookup.findVirtual(type, "loadFence", fence).bindTo(unsafe);
+        }
+        catch(ReflectiveOperationException e)
+        {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final FileChannel      channel;
+    private final MappedByteBuffer buffer;
+    private final int[]            scratch = new int[Rules.BOARD_SIZE];
+    private final Thread           poller;
+
+    private int                                 moveNumber;
+    private long                                lastRequest;
+    private volatile CompletableFuture<Integer> pending;
+    private volatile boolean                    closed;
+
+    /**
+     * Creates or takes over the shared board file.
+     *
+     * @param file The file
+     * @throws IOException If the file cannot be mapped
+     */
+    public SharedBoard(Path file) throws IOException
+    {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                   StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, SIZE);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        // Requests left from an earlier game stay unanswered, and a write cut short
+        // by a crash is finished
+        lastRequest = buffer.getLong(REQUEST);
+        buffer.putLong(SEQUENCE, (buffer.getLong(SEQUENCE) + 1) & ~1L);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(AWAITED, -1);
+
+        poller = new Thread(this::poll, "SharedBoard poller");
+        poller.setDaemon(true);
+        poller.start();
+    }
+
+    /**
+     * Publishes the game and follows its moves from now on.
+     *
+     * @param game The game
+     */
+    public void attach(MancalaGame game)
+    {
+        moveNumber = 0;
+        game.addMoveListener(this);
+        publish(game, -1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void selectionCommitted(MancalaGame game, int player, int position)
+    {
+        moveNumber++;
+        publish(game, -1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void selectionUndone(MancalaGame game, int player, int position)
+    {
+        moveNumber--;
+        publish(game, -1);
+    }
+
+    /**
+     * Publishes that the current player's move is awaited, and completes the
+     * returned future with the first pit a bot requests for the published state.
+     *
+     * @param game The game
+     * @return A future completing with the position of the requested pit
+     */
+    @Override
+    public CompletableFuture<Integer> chooseMove(MancalaGame game)
+    {
+        CompletableFuture<Integer> move = new CompletableFuture<>();
+        publish(game, game.getCurrentPlayer());
+        pending = move;
+        LockSupport.unpark(poller);
+        return move;
+    }
+
+    /**
+     * Returns the sequence of the published state.
+     *
+     * @return The sequence, always even
+     */
+    public long getSequence()
+    {
+        return buffer.getLong(SEQUENCE);
+    }
+
+    /**
+     * Stops polling for requests and unmaps the file as far as Java allows.
+     *
+     * @throws IOException If the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException
+    {
+        closed = true;
+        LockSupport.unpark(poller);
+        CompletableFuture<Integer> move = pending;
+        if(move != null) move.cancel(false);
+        channel.close();
+    }
+
+    // Writes the state under the sequence lock, from the one thread updating the game
+    private void publish(MancalaGame game, int awaited)
+    {
+        game.copyPosition(scratch);
+        long sequence = buffer.getLong(SEQUENCE);
+        buffer.putLong(SEQUENCE, sequence + 1);
+        storeFence();
+
+        buffer.putInt(MOVE_NUMBER, moveNumber);
+        buffer.putInt(CURRENT_PLAYER, game.getCurrentPlayer());
+        buffer.putInt(WINNER, game.getWinningPlayer());
+        buffer.putInt(AWAITED, awaited);
+        buffer.putInt(VARIANT, Rules.indexOf(game.getRules()));
+        for(int i = 0; i < Rules.BOARD_SIZE; i++)
+        {
+            buffer.putInt(BOARD + i * Integer.BYTES, scratch[i]);
+        }
+
+        storeFence();
+        buffer.putLong(SEQUENCE, sequence + 2);
+    }
+
+    // Waits for requests while a move is pending
+    private void poll()
+    {
+        int idle = 0;
+        while(!closed)
+        {
+            CompletableFuture<Integer> move = pending;
+            if(move == null || move.isDone())
+            {
+                LockSupport.park(this);
+                idle = 0;
+                continue;
+            }
+
+            int pit = takeRequest();
+            if(pit != -1)
+            {
+                pending = null;
+                move.complete(pit);
+            }
+            else if(++idle < SPINS)
+            {
+                Thread.yield();
+            }
+            else
+            {
+                LockSupport.parkNanos(this, POLL_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Keeps the loads and stores before the call ahead of the stores after it. A
+     * writer calls it after marking the data as being written and before marking
+     * it as written.
+     */
+    static void storeFence()
+    {
+        try
+        {
+            STORE_FENCE.invokeExact();
+        }
+        catch(Throwable e)
+        {
+            throw new AssertionError("A fence cannot fail", e);
+        }
+    }
+
+    /**
+     * Keeps the loads before the call ahead of the loads and stores after it. A
+     * reader calls it after reading the sequence guarding the data and before
+     * reading the sequence again.
+     */
+    static void loadFence()
+    {
+        try
+        {
+            LOAD_FENCE.invokeExact();
+        }
+        catch(Throwable e)
+        {
+            throw new AssertionError("A fence cannot fail", e);
+        }
+    }
+
+    // Returns the pit of a new request for the current state, or -1 if there is none
+    private int takeRequest()
+    {
+        long request = buffer.getLong(REQUEST);
+        if(request == lastRequest) return -1;
+        loadFence();
+        long state = buffer.getLong(REQUEST_STATE);
+        int  pit   = buffer.getInt(REQUEST_PIT);
+        loadFence();
+        // A bot rewriting the slot meanwhile is read again on the next poll
+        if(buffer.getLong(REQUEST) != request) return -1;
+
+        lastRequest = request;
+        if(state != buffer.getLong(SEQUENCE) || pit < 0 || pit >= MancalaGame.MAX_PITS) return -1;
+        return pit;
+    }
+}
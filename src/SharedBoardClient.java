@@ -0,0 +1,273 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bot's view of a {@code SharedBoard} from another process. A refresh copies
+ * the published state under the board's sequence lock, and a move is submitted
+ * by writing the request slot, all through the mapped file.
+ * <p>
+ * A client is meant for one thread; it keeps the last state it read.
+ */
+public final class SharedBoardClient implements Closeable
+{
+    /**
+     * The default search depth of the bot.
+     */
+    public static final int DEFAULT_DEPTH = 8;
+
+    // Polls that only yield before the client starts to sleep between polls
+    private static final int  SPINS      = 10_000;
+    private static final long POLL_NANOS = 50_000;
+
+    private final FileChannel      channel;
+    private final MappedByteBuffer buffer;
+
+    /* Last State Read */
+    private final int[] board = new int[Rules.BOARD_SIZE];
+    private long        sequence;
+    private int         moveNumber;
+    private int         currentPlayer;
+    private int         winner;
+    private int         awaited;
+    private Rules       rules = Rules.KALAH;
+
+    /**
+     * Opens a shared board file.
+     *
+     * @param file The file the board publishes to
+     * @throws IOException If the file cannot be mapped or is no shared board
+     */
+    public SharedBoardClient(Path file) throws IOException
+    {
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if(channel.size() < SharedBoard.SIZE)
+        {
+            channel.close();
+            throw new IOException(file + " is not a shared board");
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, SharedBoard.SIZE);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if(buffer.getInt(0) != SharedBoard.MAGIC || buffer.getInt(4) != SharedBoard.VERSION)
+        {
+            channel.close();
+            throw new IOException(file + " is not a shared board");
+        }
+    }
+
+    /**
+     * Reads the published state if it changed since the last refresh.
+     *
+     * @return True if the state changed, false otherwise
+     */
+    public boolean refresh()
+    {
+        while(true)
+        {
+            long before = buffer.getLong(SharedBoard.SEQUENCE);
+            if(before == sequence) return false;
+            if((before & 1) != 0)
+            {
+                Thread.yield();
+                continue;
+            }
+
+            SharedBoard.loadFence();
+            int number  = buffer.getInt(SharedBoard.MOVE_NUMBER);
+            int player  = buffer.getInt(SharedBoard.CURRENT_PLAYER);
+            int won     = buffer.getInt(SharedBoard.WINNER);
+            int wanted  = buffer.getInt(SharedBoard.AWAITED);
+            int variant = buffer.getInt(SharedBoard.VARIANT);
+            for(int i = 0; i < Rules.BOARD_SIZE; i++)
+            {
+                board[i] = buffer.getInt(SharedBoard.BOARD + i * Integer.BYTES);
+            }
+            SharedBoard.loadFence();
+
+            // The board was written while it was read, so it has to be read again
+            if(buffer.getLong(SharedBoard.SEQUENCE) != before) continue;
+            sequence = before;
+            moveNumber = number;
+            currentPlayer = player;
+            winner = won;
+            awaited = wanted;
+            rules = Rules.VARIANTS[variant];
+            return true;
+        }
+    }
+
+    /**
+     * Waits until the published state changes, and reads it.
+     *
+     * @param millis The time to wait at most
+     * @return True if the state changed, false if the time ran out
+     */
+    public boolean awaitChange(long millis)
+    {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        for(int polls = 0; !refresh(); polls++)
+        {
+            if(System.nanoTime() - deadline >= 0) return false;
+            if(polls < SPINS)
+            {
+                Thread.yield();
+            }
+            else
+            {
+                LockSupport.parkNanos(POLL_NANOS);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Requests a move for the state read last. The board ignores the request if the
+     * state changed meanwhile or does not await a move.
+     *
+     * @param pit The position of the pit
+     */
+    public void submitMove(int pit)
+    {
+        buffer.putLong(SharedBoard.REQUEST_STATE, sequence);
+        buffer.putInt(SharedBoard.REQUEST_PIT, pit);
+        SharedBoard.storeFence();
+        buffer.putLong(SharedBoard.REQUEST, buffer.getLong(SharedBoard.REQUEST) + 1);
+    }
+
+    /**
+     * Copies the board array read last.
+     *
+     * @param dst An array of at least {@code Rules.BOARD_SIZE} entries
+     * @return {@code dst}
+     */
+    public int[] getBoard(int[] dst)
+    {
+        System.arraycopy(board, 0, dst, 0, Rules.BOARD_SIZE);
+        return dst;
+    }
+
+    /**
+     * Returns the sequence of the state read last.
+     *
+     * @return The sequence, or 0 before the first refresh
+     */
+    public long getSequence()
+    {
+        return sequence;
+    }
+
+    /**
+     * Returns the move number of the state read last.
+     *
+     * @return The committed moves less the undone ones
+     */
+    public int getMoveNumber()
+    {
+        return moveNumber;
+    }
+
+    /**
+     * Returns the current player of the state read last.
+     *
+     * @return The current player
+     */
+    public int getCurrentPlayer()
+    {
+        return currentPlayer;
+    }
+
+    /**
+     * Returns the winning player of the state read last.
+     *
+     * @return The winning player, or -1 if the game goes on
+     */
+    public int getWinningPlayer()
+    {
+        return winner;
+    }
+
+    /**
+     * Returns the rule variant of the state read last.
+     *
+     * @return The rules
+     */
+    public Rules getRules()
+    {
+        return rules;
+    }
+
+    /**
+     * Returns the player whose move the board awaited in the state read last.
+     *
+     * @return The player, or -1 if the board awaited no move
+     */
+    public int getAwaitedPlayer()
+    {
+        return awaited;
+    }
+
+    /**
+     * Closes the file.
+     *
+     * @throws IOException If the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException
+    {
+        channel.close();
+    }
+
+    /**
+     * Runs a searching bot on a shared board from the command line, moving whenever
+     * the board awaits a move of the bot's player.
+     *
+     * @param args Command line arguments
+     * @throws IOException If the board cannot be opened
+     */
+    public static void main(String[] args) throws IOException
+    {
+        int player = MancalaGame.PLAYER_B;
+        int depth  = DEFAULT_DEPTH;
+        int i      = 0;
+        for(; i < args.length - 1; i++)
+        {
+            switch(args[i])
+            {
+                case "-player":
+                    player = "A".equalsIgnoreCase(args[++i]) ? MancalaGame.PLAYER_A : MancalaGame.PLAYER_B;
+                    break;
+                case "-depth":
+                    depth = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    i = args.length;
+            }
+        }
+        if(i != args.length - 1)
+        {
+            System.err.println("Usage: SharedBoardClient [-player A|B] [-depth n] file");
+            System.exit(1);
+        }
+
+        Strategy strategy = Strategy.search(depth);
+        int[]    board    = new int[Rules.BOARD_SIZE];
+        try(SharedBoardClient client = new SharedBoardClient(Paths.get(args[args.length - 1])))
+        {
+            while(true)
+            {
+                if(client.awaitChange(1000) && client.getAwaitedPlayer() == player)
+                {
+                    int pit = strategy.choosePit(client.getRules(), client.getBoard(board), player, null);
+                    client.submitMove(pit);
+                }
+            }
+        }
+    }
+}
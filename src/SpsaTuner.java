@@ -0,0 +1,347 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Tunes the weights of an {@code Evaluator} by simultaneous perturbation
+ * stochastic approximation. Every iteration moves all weights a small step in a
+ * random direction of signs, once up and once down, and plays the two versions
+ * against each other with greedy {@code Strategy} players. The games come in
+ * pairs sharing a random opening, each version playing player A in one of them,
+ * so that the openings and the first move advantage cancel out. The result of
+ * the match estimates the slope along the direction, and the weights move along
+ * it with a step that shrinks from iteration to iteration.
+ * <p>
+ * The pairs are shared by the worker threads, and every random choice is seeded
+ * by the seed of the run, the iteration and the pair, so an iteration gives the
+ * same weights no matter how many workers play it. The state is small enough to
+ * be saved to a checkpoint after every iteration, from which a stopped run
+ * continues as if it had never stopped.
+ */
+public final class SpsaTuner
+{
+    /**
+     * The default size of the first step, for a match won by every game.
+     */
+    public static final float DEFAULT_STEP         = 2;
+    /**
+     * The default size of the first perturbation.
+     */
+    public static final float DEFAULT_PERTURBATION = 0.5f;
+
+    // Random moves at the start of every pair of games, so that greedy players see many positions
+    private static final int    OPENING_MOVES = 4;
+    // The gain sequences from Spall's guidelines, with the step held back for a while
+    private static final double STEP_DECAY    = 0.602;
+    private static final double PERTURB_DECAY = 0.101;
+    private static final int    STABILITY     = 50;
+    private static final long   GOLDEN        = 0x9E3779B97F4A7C15L;
+
+    private final int             initialStones;
+    private final ExecutorService pool;
+    private final int             workers;
+    private final int             pairs;
+    private final long            seed;
+    private final float           step;
+    private final float           perturbation;
+    private final float[]         weights;
+    private int                   iteration;
+
+    /* Last Iteration */
+    private double score;
+    private double gamesPerSecond;
+
+    /**
+     * Constructs a new tuner with the default gains.
+     *
+     * @param initialStones The stones per pit at the start of each game
+     * @param pool          The pool running the workers
+     * @param workers       The amount of workers, usually the amount of cores
+     * @param pairs         The pairs of games per iteration
+     * @param seed          The seed of the run
+     * @param start         The weights to start from
+     */
+    public SpsaTuner(int initialStones, ExecutorService pool, int workers, int pairs, long seed, Evaluator start)
+    {
+        this(initialStones, pool, workers, pairs, seed, DEFAULT_STEP, DEFAULT_PERTURBATION,
+             start.getWeights(new float[Evaluator.FEATURES]), 0);
+    }
+
+    private SpsaTuner(int initialStones, ExecutorService pool, int workers, int pairs, long seed, float step,
+                      float perturbation, float[] weights, int iteration)
+    {
+        if(pairs < 1) throw new IllegalArgumentException("There has to be at least one pair of games");
+        this.initialStones = initialStones;
+        this.pool = pool;
+        this.workers = workers;
+        this.pairs = pairs;
+        this.seed = seed;
+        this.step = step;
+        this.perturbation = perturbation;
+        this.weights = weights;
+        this.iteration = iteration;
+    }
+
+    /**
+     * Continues the run saved in a checkpoint.
+     *
+     * @param checkpoint The checkpoint written by {@link #save(Path)}
+     * @param pool       The pool running the workers
+     * @param workers    The amount of workers, which may differ from the saved run's
+     * @return The tuner
+     * @throws IOException If the checkpoint cannot be read
+     */
+    public static SpsaTuner load(Path checkpoint, ExecutorService pool, int workers) throws IOException
+    {
+        Properties properties = new Properties();
+        try(InputStream in = Files.newInputStream(checkpoint))
+        {
+            properties.load(in);
+        }
+
+        String[] values  = properties.getProperty("weights", "").split(",");
+        float[]  weights = new float[Evaluator.FEATURES];
+        if(values.length != weights.length) throw new IOException(checkpoint + " does not hold the weights");
+        for(int i = 0; i < weights.length; i++)
+        {
+            weights[i] = Float.parseFloat(values[i]);
+        }
+        return new SpsaTuner(Integer.parseInt(properties.getProperty("stones")), pool, workers,
+                             Integer.parseInt(properties.getProperty("pairs")),
+                             Long.parseLong(properties.getProperty("seed")),
+                             Float.parseFloat(properties.getProperty("step")),
+                             Float.parseFloat(properties.getProperty("perturbation")), weights,
+                             Integer.parseInt(properties.getProperty("iteration")));
+    }
+
+    /**
+     * Writes the state of the run to a checkpoint, replacing the old one in one
+     * move so that a crash leaves one or the other.
+     *
+     * @param checkpoint The checkpoint
+     * @throws IOException If the checkpoint cannot be written
+     */
+    public void save(Path checkpoint) throws IOException
+    {
+        StringBuilder values = new StringBuilder();
+        for(float weight : weights)
+        {
+            if(values.length() > 0) values.append(',');
+            values.append(weight);
+        }
+
+        Properties properties = new Properties();
+        properties.setProperty("stones", Integer.toString(initialStones));
+        properties.setProperty("pairs", Integer.toString(pairs));
+        properties.setProperty("seed", Long.toString(seed));
+        properties.setProperty("step", Float.toString(step));
+        properties.setProperty("perturbation", Float.toString(perturbation));
+        properties.setProperty("iteration", Integer.toString(iteration));
+        properties.setProperty("weights", values.toString());
+
+        Path next = checkpoint.resolveSibling(checkpoint.getFileName() + ".next");
+        try(OutputStream out = Files.newOutputStream(next))
+        {
+            properties.store(out, "SpsaTuner checkpoint");
+        }
+        Files.move(next, checkpoint, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Runs an iteration: plays the perturbed weights against each other and moves
+     * the weights towards the winning side.
+     *
+     * @throws Exception If a worker fails or the thread is interrupted
+     */
+    public void iterate() throws Exception
+    {
+        long    start   = System.nanoTime();
+        Random  random  = new Random(seed * GOLDEN + iteration);
+        float   size    = (float) (perturbation / Math.pow(iteration + 1, PERTURB_DECAY));
+        float[] signs   = new float[Evaluator.FEATURES];
+        float[] plus    = new float[Evaluator.FEATURES];
+        float[] minus   = new float[Evaluator.FEATURES];
+        for(int i = 0; i < Evaluator.FEATURES; i++)
+        {
+            signs[i] = random.nextBoolean() ? 1 : -1;
+            plus[i] = weights[i] + size * signs[i];
+            minus[i] = weights[i] - size * signs[i];
+        }
+
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for(int w = 0; w < workers; w++)
+        {
+            int first = w;
+            tasks.add(() -> {
+                Strategy   up     = Strategy.greedy(new Evaluator(plus));
+                Strategy   down   = Strategy.greedy(new Evaluator(minus));
+                Strategy[] games  = new Strategy[MancalaGame.MAX_PLAYERS];
+                // In half points, so that draws stay integers
+                int        points = 0;
+                for(int p = first; p < pairs; p += workers)
+                {
+                    long opening = (seed * GOLDEN + iteration) * GOLDEN + p;
+                    for(int side = 0; side < MancalaGame.MAX_PLAYERS; side++)
+                    {
+                        games[side] = up;
+                        games[side ^ 1] = down;
+                        int winner = TournamentMatch.play(initialStones, games, OPENING_MOVES, new Random(opening));
+                        points += winner == -1 ? 1 : winner == side ? 2 : 0;
+                    }
+                }
+                return points;
+            });
+        }
+
+        long points = 0;
+        for(Future<Integer> result : pool.invokeAll(tasks))
+        {
+            points += result.get();
+        }
+
+        // From -1 if the weights moved down won every game to 1 if the ones moved up did
+        score = (points - 2.0 * pairs) / (2.0 * pairs);
+        float gain = (float) (step / Math.pow(iteration + 1 + STABILITY, STEP_DECAY) * score / (2 * size));
+        for(int i = 0; i < Evaluator.FEATURES; i++)
+        {
+            weights[i] += gain * signs[i];
+        }
+        iteration++;
+        gamesPerSecond = 2.0 * pairs / ((System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Returns the current weights.
+     *
+     * @return The evaluator
+     */
+    public Evaluator getEvaluator()
+    {
+        return new Evaluator(weights);
+    }
+
+    /**
+     * Returns the amount of iterations run so far, including those before the
+     * checkpoint the run continued from.
+     *
+     * @return The amount of iterations
+     */
+    public int getIteration()
+    {
+        return iteration;
+    }
+
+    /**
+     * Returns the result of the last iteration's match.
+     *
+     * @return From -1 if the weights moved down won every game to 1 if the weights
+     *         moved up did
+     */
+    public double getScore()
+    {
+        return score;
+    }
+
+    /**
+     * Returns the speed of the last iteration.
+     *
+     * @return The games played per second
+     */
+    public double getGamesPerSecond()
+    {
+        return gamesPerSecond;
+    }
+
+    /**
+     * Tunes weights from the command line, saving a checkpoint after every iteration
+     * and continuing from it when started again.
+     *
+     * @param args Command line arguments
+     * @throws Exception If tuning fails or a file cannot be read or written
+     */
+    public static void main(String[] args) throws Exception
+    {
+        int  iterations = 1000;
+        int  pairs      = 1000;
+        int  threads    = Runtime.getRuntime().availableProcessors();
+        Path checkpoint = Paths.get("spsa.properties");
+        Path start      = null;
+        Path output     = null;
+        int  i          = 0;
+        for(; i < args.length - 1; i++)
+        {
+            switch(args[i])
+            {
+                case "-iterations":
+                    iterations = Integer.parseInt(args[++i]);
+                    break;
+                case "-pairs":
+                    pairs = Integer.parseInt(args[++i]);
+                    break;
+                case "-threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "-checkpoint":
+                    checkpoint = Paths.get(args[++i]);
+                    break;
+                case "-start":
+                    start = Paths.get(args[++i]);
+                    break;
+                case "-weights":
+                    output = Paths.get(args[++i]);
+                    break;
+                default:
+                    i = args.length;
+            }
+        }
+        if(i != args.length - 1)
+        {
+            System.err.println("Usage: SpsaTuner [-iterations n] [-pairs n] [-threads n] [-checkpoint file] " +
+                               "[-start weights] [-weights file] stones");
+            System.exit(1);
+        }
+
+        int             stones = Integer.parseInt(args[args.length - 1]);
+        ExecutorService pool   = Executors.newFixedThreadPool(threads);
+        try
+        {
+            SpsaTuner tuner;
+            if(Files.exists(checkpoint))
+            {
+                tuner = load(checkpoint, pool, threads);
+                System.out.printf("Continuing from iteration %d%n", tuner.getIteration());
+            }
+            else
+            {
+                Evaluator evaluator = start == null ? new Evaluator() : Evaluator.load(start);
+                tuner = new SpsaTuner(stones, pool, threads, pairs, new Random().nextLong(), evaluator);
+            }
+
+            while(tuner.getIteration() < iterations)
+            {
+                tuner.iterate();
+                tuner.save(checkpoint);
+                if(output != null) tuner.getEvaluator().save(output);
+                System.out.printf("Iteration %d: score %+.3f, %,.0f games/s, %,.0f games/s per core%n",
+                                  tuner.getIteration(), tuner.getScore(), tuner.getGamesPerSecond(),
+                                  tuner.getGamesPerSecond() / threads);
+            }
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+}
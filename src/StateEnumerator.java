@@ -0,0 +1,421 @@
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the distinct positions reachable from the opening, breadth first. Each
+ * ply expands the positions first reached in the previous ply, the frontier, by
+ * every legal move, and keeps the children that were never seen before as the
+ * next frontier. Positions are {@code PositionCodec} codes, and finished games
+ * count as one position whoever would be to move.
+ * <p>
+ * Everything lives in sorted files in a work directory, so the amount of
+ * positions is only limited by the disk: the children of a ply are sorted and
+ * deduplicated by an {@code ExternalSorter}, then merged with the sorted file of
+ * every position seen so far, which yields the new frontier and the new set of
+ * seen positions in one pass. The frontier is expanded in chunks on a worker
+ * pool, each worker sorting its own children. The progress is saved after every
+ * ply, so a stopped enumeration continues from the last finished ply.
+ */
+public final class StateEnumerator
+{
+    private static final int PITS = MancalaGame.MAX_PITS;
+
+    /* Work Files */
+    // The sets of a ply are named after it, so that the previous ply's are only
+    // deleted once the progress points to the new ones
+    private static final String VISITED  = "visited-%d.bin";
+    private static final String FRONTIER = "frontier-%d.bin";
+    private static final String CHILDREN = "children.bin";
+    private static final String PROGRESS = "progress.properties";
+
+    private final Rules           rules;
+    private final Path            directory;
+    private final ExecutorService pool;
+    private final int             workers;
+    private final int             chunkSize;
+    private final AtomicLong      generated = new AtomicLong();
+
+    /* Progress */
+    private int  initialStones;
+    private int  ply;
+    private long total;
+    private long frontier;
+
+    /**
+     * Opens an enumeration in {@code directory}, continuing the one saved there if any.
+     *
+     * @param rules       The rule variant to play by
+     * @param directory   The work directory
+     * @param pool        The pool expanding the frontier
+     * @param workers     The amount of chunks expanded at once, usually the amount of cores
+     * @param memoryBytes The memory the chunks may take
+     * @throws IOException If the saved progress cannot be read
+     */
+    public StateEnumerator(Rules rules, Path directory, ExecutorService pool, int workers, long memoryBytes)
+            throws IOException
+    {
+        this.rules = rules;
+        this.directory = directory;
+        this.pool = pool;
+        this.workers = workers;
+        // Twice as many chunks as workers are in flight, each with room for its children
+        this.chunkSize = (int) Math.min(Integer.MAX_VALUE / PITS,
+                                        Math.max(1024, memoryBytes / (2L * workers * 8 * (PITS + 1))));
+
+        Path progress = directory.resolve(PROGRESS);
+        if(Files.exists(progress))
+        {
+            Properties properties = new Properties();
+            try(InputStream in = Files.newInputStream(progress))
+            {
+                properties.load(in);
+            }
+            initialStones = Integer.parseInt(properties.getProperty("stones"));
+            ply = Integer.parseInt(properties.getProperty("ply"));
+            total = Long.parseLong(properties.getProperty("total"));
+            frontier = Long.parseLong(properties.getProperty("frontier"));
+            generated.set(Long.parseLong(properties.getProperty("generated")));
+        }
+    }
+
+    /**
+     * Starts a new enumeration from the opening, discarding a saved one.
+     *
+     * @param initialStones The stones per pit in the opening
+     * @throws IOException If the work files cannot be written
+     */
+    public void start(int initialStones) throws IOException
+    {
+        long opening = PositionCodec.encode(Rules.newBoard(initialStones), MancalaGame.PLAYER_A);
+        for(String name : new String[] {VISITED, FRONTIER})
+        {
+            try(DataOutputStream out = ExternalSorter.writer(file(name, 0)))
+            {
+                out.writeLong(opening);
+            }
+        }
+
+        this.initialStones = initialStones;
+        ply = 0;
+        total = 1;
+        frontier = 1;
+        generated.set(0);
+        saveProgress();
+    }
+
+    /**
+     * Returns true if there is an enumeration, started or continued.
+     *
+     * @return True if there is an enumeration, false otherwise
+     */
+    public boolean isStarted()
+    {
+        return total > 0;
+    }
+
+    /**
+     * Expands the frontier by one ply.
+     *
+     * @return The amount of positions first reached in the new ply, which is zero
+     * once every reachable position has been found
+     * @throws Exception If a work file cannot be read or written, or a worker fails
+     */
+    public long step() throws Exception
+    {
+        if(!isStarted()) throw new RuntimeException("The enumeration has to be started first");
+        if(frontier == 0) return 0;
+
+        // Runs left behind by a stopped ply are of no use
+        try(DirectoryStream<Path> runs = Files.newDirectoryStream(directory, "*.run"))
+        {
+            for(Path run : runs)
+            {
+                Files.delete(run);
+            }
+        }
+
+        Path children = directory.resolve(CHILDREN);
+        try(ExternalSorter sorter = new ExternalSorter(directory, "ply" + (ply + 1) + "-"))
+        {
+            expand(sorter);
+            sorter.merge(children);
+        }
+
+        long added = 0;
+        try(ExternalSorter.Reader seen  = new ExternalSorter.Reader(file(VISITED, ply));
+            ExternalSorter.Reader found = new ExternalSorter.Reader(children);
+            DataOutputStream      all   = ExternalSorter.writer(file(VISITED, ply + 1));
+            DataOutputStream      fresh = ExternalSorter.writer(file(FRONTIER, ply + 1)))
+        {
+            boolean hasSeen  = seen.next();
+            boolean hasFound = found.next();
+            while(hasSeen || hasFound)
+            {
+                if(!hasFound || hasSeen && seen.get() < found.get())
+                {
+                    all.writeLong(seen.get());
+                    hasSeen = seen.next();
+                }
+                else if(!hasSeen || found.get() < seen.get())
+                {
+                    all.writeLong(found.get());
+                    fresh.writeLong(found.get());
+                    added++;
+                    hasFound = found.next();
+                }
+                else
+                {
+                    all.writeLong(seen.get());
+                    hasSeen = seen.next();
+                    hasFound = found.next();
+                }
+            }
+        }
+
+        Files.delete(children);
+
+        ply++;
+        total += added;
+        frontier = added;
+        saveProgress();
+        Files.delete(file(VISITED, ply - 1));
+        Files.delete(file(FRONTIER, ply - 1));
+        return added;
+    }
+
+    /**
+     * Returns the stones per pit in the opening.
+     *
+     * @return The initial stones
+     */
+    public int getInitialStones()
+    {
+        return initialStones;
+    }
+
+    /**
+     * Returns the amount of plies expanded.
+     *
+     * @return The ply
+     */
+    public int getPly()
+    {
+        return ply;
+    }
+
+    /**
+     * Returns the amount of distinct positions found.
+     *
+     * @return The amount of positions
+     */
+    public long getTotal()
+    {
+        return total;
+    }
+
+    /**
+     * Returns the amount of positions first reached in the last ply.
+     *
+     * @return The size of the frontier
+     */
+    public long getFrontier()
+    {
+        return frontier;
+    }
+
+    /**
+     * Returns the amount of children generated in every ply so far, duplicates included.
+     *
+     * @return The amount of children
+     */
+    public long getGenerated()
+    {
+        return generated.get();
+    }
+
+    // Reads the frontier in chunks, with a bounded amount of them being expanded at once
+    private void expand(ExternalSorter sorter) throws Exception
+    {
+        Semaphore       inFlight = new Semaphore(2 * workers);
+        List<Future<?>> tasks    = new ArrayList<>();
+        try(ExternalSorter.Reader in = new ExternalSorter.Reader(file(FRONTIER, ply)))
+        {
+            boolean more = in.next();
+            while(more)
+            {
+                long[] chunk = new long[chunkSize];
+                int    count = 0;
+                for(; more && count < chunkSize; more = in.next())
+                {
+                    chunk[count++] = in.get();
+                }
+
+                inFlight.acquire();
+                int size = count;
+                tasks.add(pool.submit(() -> {
+                    try
+                    {
+                        expand(chunk, size, sorter);
+                    }
+                    finally
+                    {
+                        inFlight.release();
+                    }
+                    return null;
+                }));
+            }
+        }
+        for(Future<?> task : tasks)
+        {
+            task.get();
+        }
+    }
+
+    private void expand(long[] codes, int count, ExternalSorter sorter) throws IOException
+    {
+        int[]  board    = new int[Rules.BOARD_SIZE];
+        int[]  child    = new int[Rules.BOARD_SIZE];
+        long[] children = new long[count * PITS];
+        int    size     = 0;
+        for(int c = 0; c < count; c++)
+        {
+            int player = PositionCodec.decode(codes[c], board);
+            if(rules.finish(board, player) != -1) continue;
+
+            for(int i = 0; i < PITS; i++)
+            {
+                System.arraycopy(board, 0, child, 0, Rules.BOARD_SIZE);
+                int result = rules.move(child, player, i);
+                if(result == Rules.ILLEGAL) continue;
+
+                int next = (result & Rules.EXTRA_TURN) != 0 ? player : player ^ 1;
+                if(rules.finish(child, next) != -1) next = MancalaGame.PLAYER_A;
+                children[size++] = PositionCodec.encode(child, next);
+            }
+        }
+        generated.addAndGet(size);
+        sorter.add(children, size);
+    }
+
+    private Path file(String name, int ply)
+    {
+        return directory.resolve(String.format(name, ply));
+    }
+
+    private void saveProgress() throws IOException
+    {
+        Properties properties = new Properties();
+        properties.setProperty("stones", Integer.toString(initialStones));
+        properties.setProperty("ply", Integer.toString(ply));
+        properties.setProperty("total", Long.toString(total));
+        properties.setProperty("frontier", Long.toString(frontier));
+        properties.setProperty("generated", Long.toString(generated.get()));
+
+        Path progress = directory.resolve(PROGRESS);
+        Path next     = directory.resolve(PROGRESS + ".next");
+        try(OutputStream out = Files.newOutputStream(next))
+        {
+            properties.store(out, "StateEnumerator progress");
+        }
+        Files.move(next, progress, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Enumerates from the command line, continuing an enumeration saved in the work
+     * directory if there is one for the same amount of stones.
+     *
+     * @param args Command line arguments
+     * @throws Exception If the enumeration fails
+     */
+    public static void main(String[] args) throws Exception
+    {
+        long memory  = 1024;
+        int  threads = Runtime.getRuntime().availableProcessors();
+        int  plies   = Integer.MAX_VALUE;
+        Path dir     = null;
+        int  i       = 0;
+        for(; i < args.length - 1; i++)
+        {
+            switch(args[i])
+            {
+                case "-memory":
+                    memory = Long.parseLong(args[++i]);
+                    break;
+                case "-threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "-plies":
+                    plies = Integer.parseInt(args[++i]);
+                    break;
+                case "-dir":
+                    dir = Paths.get(args[++i]);
+                    break;
+                default:
+                    i = args.length;
+            }
+        }
+        if(i != args.length - 1)
+        {
+            System.err.println("Usage: StateEnumerator [-memory megabytes] [-threads n] [-plies n] [-dir directory] " +
+                               "stones");
+            System.exit(1);
+        }
+
+        int stones = Integer.parseInt(args[args.length - 1]);
+        if(dir == null) dir = Paths.get("kalah-" + stones + "-states");
+        Files.createDirectories(dir);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try
+        {
+            StateEnumerator enumerator = new StateEnumerator(Rules.KALAH, dir, pool, threads, memory * 1024 * 1024);
+            if(!enumerator.isStarted() || enumerator.getInitialStones() != stones)
+            {
+                enumerator.start(stones);
+            }
+            else
+            {
+                System.out.printf("Continuing after ply %d: %,d positions%n", enumerator.getPly(),
+                                  enumerator.getTotal());
+            }
+
+            long begin = System.nanoTime();
+            while(enumerator.getFrontier() > 0 && enumerator.getPly() < plies)
+            {
+                long   start     = System.nanoTime();
+                long   expanded  = enumerator.getFrontier();
+                long   generated = enumerator.getGenerated();
+                long   added     = enumerator.step();
+                double secs      = (System.nanoTime() - start) / 1e9;
+                System.out.printf("Ply %d: %,d new positions, %,d in total, %,d expanded (%,.0f/s), " +
+                                  "%,d children (%,.0f/s), %.1f s%n",
+                                  enumerator.getPly(), added, enumerator.getTotal(), expanded, expanded / secs,
+                                  enumerator.getGenerated() - generated,
+                                  (enumerator.getGenerated() - generated) / secs, secs);
+            }
+
+            String state = enumerator.getFrontier() == 0 ? "every reachable position" : "stopped early";
+            System.out.printf("%d stones: %,d distinct positions after %d plies, %s (%.1f s)%n", stones,
+                              enumerator.getTotal(), enumerator.getPly(), state, (System.nanoTime() - begin) / 1e9);
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A cache of pre-rendered stone images. For every stone size in use there is one
+ * atlas image holding a row of differently colored stones, so painting a stone is
+ * a single image copy instead of drawing gradients and shapes every time.
+ */
+public final class StoneSprites
+{
+    /**
+     * The amount of different stone looks in an atlas.
+     */
+    public static final int VARIANTS = 6;
+
+    private static final Color[] COLORS = {
+            new Color(0x3B6EA8),
+            new Color(0xC0392B),
+            new Color(0x27AE60),
+            new Color(0xE6B325),
+            new Color(0x8E44AD),
+            new Color(0x7F8C8D)
+    };
+
+    // Atlases by stone diameter. Only a handful of sizes are used at a time,
+    // so the cache is simply dropped if it ever grows past this
+    private static final int                         MAX_ATLASES = 16;
+    private static final Map<Integer, BufferedImage> ATLASES     = new ConcurrentHashMap<>();
+
+    private StoneSprites()
+    {
+    }
+
+    /**
+     * Returns the atlas for stones of {@code diameter} pixels, rendering it on first use.
+     *
+     * @param diameter The stone diameter
+     * @return The atlas
+     */
+    public static BufferedImage getAtlas(int diameter)
+    {
+        BufferedImage atlas = ATLASES.get(diameter);
+        if(atlas == null)
+        {
+            if(ATLASES.size() >= MAX_ATLASES) ATLASES.clear();
+            atlas = ATLASES.computeIfAbsent(diameter, StoneSprites::createAtlas);
+        }
+        return atlas;
+    }
+
+    /**
+     * Draws one stone from an atlas.
+     *
+     * @param g2       The graphics object
+     * @param atlas    The atlas returned by {@link #getAtlas(int)}
+     * @param diameter The stone diameter of the atlas
+     * @param variant  The stone look, within {@code 0 <= variant < VARIANTS}
+     * @param x        The left edge of the stone
+     * @param y        The top edge of the stone
+     */
+    public static void drawStone(Graphics2D g2, BufferedImage atlas, int diameter, int variant, int x, int y)
+    {
+        int sx = variant * diameter;
+        g2.drawImage(atlas, x, y, x + diameter, y + diameter, sx, 0, sx + diameter, diameter, null);
+    }
+
+    private static BufferedImage createAtlas(int diameter)
+    {
+        BufferedImage atlas = new BufferedImage(diameter * VARIANTS, diameter, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D    g2    = atlas.createGraphics();
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                            RenderingHints.VALUE_ANTIALIAS_ON);
+
+        for(int i = 0; i < VARIANTS; i++)
+        {
+            float x = i * diameter;
+            // A highlight towards the top left makes the stones look round
+            g2.setPaint(new RadialGradientPaint(x + diameter * 0.35f, diameter * 0.35f, diameter * 0.7f,
+                                                new float[]{0f, 1f},
+                                                new Color[]{COLORS[i].brighter().brighter(), COLORS[i].darker()}));
+            g2.fillOval(i * diameter, 0, diameter - 1, diameter - 1);
+            g2.setColor(new Color(0, 0, 0, 80));
+            g2.drawOval(i * diameter, 0, diameter - 1, diameter - 1);
+        }
+        g2.dispose();
+        return atlas;
+    }
+}
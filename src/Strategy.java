@@ -0,0 +1,155 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * An interface representing an automatic way of picking moves on board arrays,
+ * for self-play jobs that play far too many games to go through
+ * {@code MancalaGame}. Strategies are named by short specifications, so that
+ * they can be given on a command line and sent to other processes:
+ * <ul>
+ * <li>{@code random} picks a random legal pit.</li>
+ * <li>{@code greedy} picks the move leading to the best position according to
+ * an untrained {@code Evaluator}, which counts the stores.</li>
+ * <li>{@code evaluator:<file>} does the same with the weights in the file.</li>
+ * <li>{@code search:<depth>} picks the best move of a {@code MoveSearch} of the
+ * given depth.</li>
+ * </ul>
+ * A strategy keeps scratch buffers, so each thread needs its own instance.
+ */
+public interface Strategy
+{
+    /**
+     * Picks a pit for {@code player}.
+     *
+     * @param rules  The rule variant
+     * @param board  The board array, left as it is
+     * @param player The player to move, who has at least one legal move
+     * @param random The source of randomness
+     * @return The position of the pit
+     */
+    int choosePit(Rules rules, int[] board, int player, Random random);
+
+    /**
+     * Creates the strategy named by {@code specification}.
+     *
+     * @param specification The specification
+     * @return The strategy
+     * @throws IllegalArgumentException If the specification names no strategy
+     */
+    static Strategy parse(String specification)
+    {
+        String[] parts = specification.split(":", 2);
+        switch(parts[0])
+        {
+            case "random":
+                return Strategy::randomPit;
+            case "greedy":
+                return greedy(new Evaluator());
+            case "evaluator":
+                try
+                {
+                    return greedy(Evaluator.load(Paths.get(parts[1])));
+                }
+                catch(IOException | ArrayIndexOutOfBoundsException e)
+                {
+                    throw new IllegalArgumentException("Cannot load the weights of " + specification, e);
+                }
+            case "search":
+                int depth = parts.length == 2 ? Integer.parseInt(parts[1]) : 0;
+                if(depth < 1) throw new IllegalArgumentException("The search depth has to be at least 1");
+                return search(depth);
+            default:
+                throw new IllegalArgumentException("Unknown strategy " + specification);
+        }
+    }
+
+    /**
+     * Picks a random legal pit.
+     *
+     * @param rules  The rule variant
+     * @param board  The board array
+     * @param player The player to move
+     * @param random The source of randomness
+     * @return The position of the pit
+     */
+    static int randomPit(Rules rules, int[] board, int player, Random random)
+    {
+        int legal = 0;
+        for(int i = 0; i < MancalaGame.MAX_PITS; i++)
+        {
+            if(board[Rules.pit(player, i)] != 0) legal++;
+        }
+
+        int pick = random.nextInt(legal);
+        for(int i = 0; ; i++)
+        {
+            if(board[Rules.pit(player, i)] != 0 && pick-- == 0) return i;
+        }
+    }
+
+    /**
+     * Returns a strategy playing the move whose result {@code evaluator} likes best.
+     *
+     * @param evaluator The evaluator
+     * @return The strategy
+     */
+    static Strategy greedy(Evaluator evaluator)
+    {
+        int[] child = new int[Rules.BOARD_SIZE];
+        return (rules, board, player, random) -> {
+            int   best      = -1;
+            float bestValue = -1;
+            for(int i = 0; i < MancalaGame.MAX_PITS; i++)
+            {
+                System.arraycopy(board, 0, child, 0, Rules.BOARD_SIZE);
+                int result = rules.move(child, player, i);
+                if(result == Rules.ILLEGAL) continue;
+
+                int   next   = (result & Rules.EXTRA_TURN) != 0 ? player : player ^ 1;
+                int   winner = rules.finish(child, next);
+                float value;
+                if(winner != -1)
+                {
+                    int own   = child[Rules.store(player)];
+                    int other = child[Rules.store(player ^ 1)];
+                    value = own > other ? 1 : own == other ? 0.5f : 0;
+                }
+                else
+                {
+                    float chance = evaluator.evaluate(child, next);
+                    value = next == player ? chance : 1 - chance;
+                }
+
+                if(value > bestValue)
+                {
+                    best = i;
+                    bestValue = value;
+                }
+            }
+            return best;
+        };
+    }
+
+    /**
+     * Returns a strategy playing the best move of a fixed depth search.
+     *
+     * @param depth The depth
+     * @return The strategy
+     */
+    static Strategy search(int depth)
+    {
+        float[]      scores   = new float[MancalaGame.MAX_PITS];
+        MoveSearch[] searches = new MoveSearch[MancalaGame.MAX_PLAYERS];
+        Rules[]      searched = new Rules[MancalaGame.MAX_PLAYERS];
+        return (rules, board, player, random) -> {
+            if(searched[player] != rules)
+            {
+                searches[player] = new MoveSearch(rules, player, depth, () -> false);
+                searched[player] = rules;
+            }
+            searches[player].scorePits(board, depth, scores);
+            return MoveSearch.bestPit(scores);
+        };
+    }
+}
@@ -0,0 +1,35 @@
+/**
+ * Kalah with the house rule that a capture only happens when the opposite pit
+ * has stones in it. Otherwise the last stone simply stays in the empty pit.
+ *
+ * @see Rules#KALAH_STRICT_CAPTURE
+ */
+public final class StrictCaptureRules implements Rules
+{
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName()
+    {
+        return "Kalah (strict capture)";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int move(int[] board, int player, int position)
+    {
+        return KalahRules.move(board, player, position, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int finish(int[] board, int player)
+    {
+        return KalahRules.finish(board);
+    }
+}
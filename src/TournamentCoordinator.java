@@ -0,0 +1,611 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands the games of a {@code TournamentMatch} out to {@code TournamentWorker}
+ * processes over loopback sockets, so that a long match uses every core and a
+ * crashing strategy only takes one process down with it.
+ * <p>
+ * Every worker starts with an even share of the games, a contiguous range it
+ * plays in order. A worker that finishes its range steals the unplayed back half
+ * of the range with the most games left: the coordinator asks that worker to
+ * stop at the split point, and hands the games past where it actually stopped to
+ * the idle one. Since results come in order within a range, a worker that dies
+ * leaves behind exactly the games after its last result, which are queued for
+ * the next idle worker while a new process is started in its place. Games are
+ * pure functions of their numbers, so replaying them elsewhere gives the same
+ * results.
+ */
+public final class TournamentCoordinator implements Closeable
+{
+    /* Messages to Workers */
+    static final byte ASSIGN = 1;
+    static final byte SPLIT  = 2;
+    static final byte STOP   = 3;
+
+    /* Messages from Workers */
+    static final byte RESULT     = 1;
+    static final byte SPLIT_DONE = 2;
+
+    // Ranges smaller than this are not worth splitting
+    private static final int MIN_STEAL = 2;
+
+    private final TournamentMatch match;
+    private final int             games;
+    private final int             workers;
+    private final int             maxRestarts;
+    private final ServerSocket    server;
+
+    /* Results, guarded by this */
+    private final byte[]           winners;
+    private final boolean[]        played;
+    private final List<Connection> connections = new ArrayList<>();
+    private final Deque<int[]>     orphans     = new ArrayDeque<>();
+    private final List<Process>    processes   = new ArrayList<>();
+    private int                    unassigned;
+    private int                    completed;
+    private int                    steals;
+    private int                    requeued;
+    private int                    restarts;
+    private boolean                closed;
+
+    /**
+     * Constructs a new coordinator listening on a free loopback port.
+     *
+     * @param match       The match to play
+     * @param games       The amount of games
+     * @param workers     The amount of workers the games are shared between at first
+     * @param maxRestarts The amount of dead workers that are replaced at most
+     * @throws IOException If no port can be opened
+     */
+    public TournamentCoordinator(TournamentMatch match, int games, int workers, int maxRestarts) throws IOException
+    {
+        if(games < 1 || workers < 1) throw new IllegalArgumentException("There has to be a game and a worker");
+        this.match = match;
+        this.games = games;
+        this.workers = workers;
+        this.maxRestarts = maxRestarts;
+        this.winners = new byte[games];
+        this.played = new boolean[games];
+        this.server = new ServerSocket(0, workers, InetAddress.getLoopbackAddress());
+
+        Thread acceptor = new Thread(this::accept, "TournamentCoordinator acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Returns the port the workers connect to.
+     *
+     * @return The port
+     */
+    public int getPort()
+    {
+        return server.getLocalPort();
+    }
+
+    /**
+     * Starts a worker process on this machine, using the class path of this one.
+     *
+     * @return The process
+     * @throws IOException If the process cannot be started
+     */
+    public Process launchWorker() throws IOException
+    {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                                             TournamentWorker.class.getName(),
+                                             InetAddress.getLoopbackAddress().getHostAddress(),
+                                             String.valueOf(getPort()))
+                .redirectOutput(ProcessBuilder.Redirect.INHERIT)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        synchronized(this)
+        {
+            processes.add(process);
+        }
+        return process;
+    }
+
+    /**
+     * Waits until every game has a result.
+     *
+     * @param millis The time to wait at most
+     * @return True if every game has a result, false if the time ran out
+     * @throws InterruptedException If the thread is interrupted while waiting
+     */
+    public synchronized boolean await(long millis) throws InterruptedException
+    {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        while(completed < games)
+        {
+            long left = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if(left <= 0) return false;
+            wait(left);
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether games are left that no worker will ever play: every worker
+     * process has died, the restarts are used up, and no other worker is connected.
+     *
+     * @return True if the match cannot be completed
+     */
+    public synchronized boolean isStalled()
+    {
+        if(completed == games) return false;
+        for(Connection connection : connections)
+        {
+            if(connection.alive) return false;
+        }
+        for(Process process : processes)
+        {
+            if(process.isAlive()) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the result of a game.
+     *
+     * @param game The game number
+     * @return The strategy that won, 0 or 1, or -1 for a draw
+     * @throws IllegalStateException If the game has no result yet
+     */
+    public synchronized int getWinner(int game)
+    {
+        if(!played[game]) throw new IllegalStateException("Game " + game + " has not been played");
+        return winners[game];
+    }
+
+    /**
+     * Returns the tally of the games played so far.
+     *
+     * @return The wins of the first strategy, the draws and the wins of the second
+     */
+    public synchronized int[] getTally()
+    {
+        int[] tally = new int[3];
+        for(int g = 0; g < games; g++)
+        {
+            if(played[g]) tally[winners[g] + 1]++;
+        }
+        return new int[] {tally[1], tally[0], tally[2]};
+    }
+
+    /**
+     * Returns the amount of games with a result.
+     *
+     * @return The amount of games
+     */
+    public synchronized int getCompleted()
+    {
+        return completed;
+    }
+
+    /**
+     * Returns how many times an idle worker took games from a busy one.
+     *
+     * @return The amount of steals
+     */
+    public synchronized int getSteals()
+    {
+        return steals;
+    }
+
+    /**
+     * Returns the amount of games left behind by dead workers and played again.
+     *
+     * @return The amount of games
+     */
+    public synchronized int getRequeued()
+    {
+        return requeued;
+    }
+
+    /**
+     * Returns the amount of dead workers that were replaced.
+     *
+     * @return The amount of workers
+     */
+    public synchronized int getRestarts()
+    {
+        return restarts;
+    }
+
+    /**
+     * Tells the workers to stop, stops listening, and kills the worker processes
+     * that do not exit on their own.
+     */
+    @Override
+    public void close()
+    {
+        List<Process> started;
+        synchronized(this)
+        {
+            closed = true;
+            for(Connection connection : connections)
+            {
+                connection.send(STOP);
+                connection.close();
+            }
+            started = new ArrayList<>(processes);
+        }
+        try
+        {
+            server.close();
+        }
+        catch(IOException e)
+        {
+            // Nothing is accepted any more either way
+        }
+
+        for(Process process : started)
+        {
+            try
+            {
+                if(!process.waitFor(1, TimeUnit.SECONDS)) process.destroyForcibly();
+            }
+            catch(InterruptedException e)
+            {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // Accepts workers until the coordinator is closed
+    private void accept()
+    {
+        while(true)
+        {
+            Socket socket;
+            try
+            {
+                socket = server.accept();
+                socket.setTcpNoDelay(true);
+            }
+            catch(IOException e)
+            {
+                return;
+            }
+
+            Thread reader = new Thread(() -> serve(socket), "TournamentCoordinator worker");
+            reader.setDaemon(true);
+            reader.start();
+        }
+    }
+
+    // Reads one worker's messages until its connection ends
+    private void serve(Socket socket)
+    {
+        Connection connection;
+        try
+        {
+            connection = new Connection(socket);
+            match.write(connection.out);
+            connection.out.flush();
+        }
+        catch(IOException e)
+        {
+            return;
+        }
+
+        synchronized(this)
+        {
+            if(closed)
+            {
+                connection.send(STOP);
+                connection.close();
+                return;
+            }
+            connections.add(connection);
+            giveWork(connection);
+        }
+
+        try
+        {
+            while(true)
+            {
+                byte message = connection.in.readByte();
+                if(message == RESULT)
+                {
+                    int game   = connection.in.readInt();
+                    int winner = connection.in.readByte();
+                    resultReceived(connection, game, winner);
+                }
+                else if(message == SPLIT_DONE)
+                {
+                    splitDone(connection, connection.in.readInt());
+                }
+                else
+                {
+                    throw new IOException("Unknown message " + message);
+                }
+            }
+        }
+        catch(IOException e)
+        {
+            connectionLost(connection);
+        }
+    }
+
+    private synchronized void resultReceived(Connection connection, int game, int winner)
+    {
+        if(!played[game])
+        {
+            played[game] = true;
+            winners[game] = (byte) winner;
+            if(++completed == games) notifyAll();
+        }
+        connection.next = game + 1;
+        if(connection.next >= connection.end && connection.thief == null) giveWork(connection);
+    }
+
+    private synchronized void splitDone(Connection victim, int end)
+    {
+        int        stolen = victim.end;
+        Connection thief  = victim.thief;
+        victim.end = end;
+        victim.thief = null;
+
+        if(thief.alive && end < stolen)
+        {
+            steals++;
+            assign(thief, end, stolen);
+        }
+        else if(end < stolen)
+        {
+            // The thief died while waiting, so the games go back in the queue
+            orphans.add(new int[] {end, stolen});
+            requeued += stolen - end;
+            giveIdleWork();
+        }
+        else
+        {
+            giveWork(thief);
+        }
+        if(victim.next >= victim.end) giveWork(victim);
+    }
+
+    private synchronized void connectionLost(Connection connection)
+    {
+        connection.alive = false;
+        connection.close();
+        connections.remove(connection);
+        if(closed || completed == games) return;
+
+        // With a split under way, the thief gets the left over games once the split is answered,
+        // which will not happen any more, so everything left over is orphaned
+        if(connection.next < connection.end)
+        {
+            orphans.add(new int[] {connection.next, connection.end});
+            requeued += connection.end - connection.next;
+        }
+        if(connection.thief != null && connection.thief.alive) connection.thief.idle = true;
+        giveIdleWork();
+
+        if(restarts < maxRestarts)
+        {
+            restarts++;
+            try
+            {
+                launchWorker();
+            }
+            catch(IOException e)
+            {
+                System.err.println("Cannot restart a worker: " + e.getMessage());
+            }
+        }
+    }
+
+    // Called with the lock held, on a worker without games
+    private void giveWork(Connection connection)
+    {
+        connection.idle = false;
+        if(!connection.alive || closed) return;
+
+        if(!orphans.isEmpty())
+        {
+            int[] range = orphans.poll();
+            assign(connection, range[0], range[1]);
+            return;
+        }
+        if(unassigned < games)
+        {
+            int share = Math.min((games + workers - 1) / workers, games - unassigned);
+            assign(connection, unassigned, unassigned + share);
+            unassigned += share;
+            return;
+        }
+
+        Connection victim = null;
+        for(Connection other : connections)
+        {
+            if(other.alive && other.thief == null && other.end - other.next >= MIN_STEAL
+               && (victim == null || other.end - other.next > victim.end - victim.next))
+            {
+                victim = other;
+            }
+        }
+        if(victim == null)
+        {
+            // Stays idle unless a dead worker leaves games behind
+            connection.idle = true;
+            return;
+        }
+
+        victim.thief = connection;
+        int mid = victim.next + (victim.end - victim.next + 1) / 2;
+        if(!victim.send(SPLIT, mid))
+        {
+            victim.thief = null;
+            connection.idle = true;
+        }
+    }
+
+    // Called with the lock held
+    private void giveIdleWork()
+    {
+        for(Connection connection : new ArrayList<>(connections))
+        {
+            if(connection.idle) giveWork(connection);
+        }
+    }
+
+    // Called with the lock held
+    private void assign(Connection connection, int first, int end)
+    {
+        connection.next = first;
+        connection.end = end;
+        connection.send(ASSIGN, first, end);
+    }
+
+    /**
+     * Plays a match with worker processes from the command line.
+     *
+     * @param args Command line arguments
+     * @throws Exception If the workers cannot be started
+     */
+    public static void main(String[] args) throws Exception
+    {
+        int  workers = Runtime.getRuntime().availableProcessors();
+        int  games   = 1000;
+        int  stones  = MancalaGame.MAX_INITIAL_STONES;
+        long seed    = 1;
+        int  i       = 0;
+        for(; i < args.length - 2; i++)
+        {
+            switch(args[i])
+            {
+                case "-workers":
+                    workers = Integer.parseInt(args[++i]);
+                    break;
+                case "-games":
+                    games = Integer.parseInt(args[++i]);
+                    break;
+                case "-stones":
+                    stones = Integer.parseInt(args[++i]);
+                    break;
+                case "-seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                default:
+                    i = args.length;
+            }
+        }
+        if(i != args.length - 2)
+        {
+            System.err.println("Usage: TournamentCoordinator [-workers n] [-games n] [-stones n] [-seed n] " +
+                               "strategy1 strategy2");
+            System.err.println("Strategies: random, greedy, evaluator:<file>, search:<depth>");
+            System.exit(1);
+        }
+
+        String first  = args[args.length - 2];
+        String second = args[args.length - 1];
+        // Fail here rather than in every worker
+        Strategy.parse(first);
+        Strategy.parse(second);
+
+        long start = System.nanoTime();
+        try(TournamentCoordinator coordinator = new TournamentCoordinator(
+                new TournamentMatch(stones, first, second, seed), games, workers, workers))
+        {
+            for(int w = 0; w < workers; w++)
+            {
+                coordinator.launchWorker();
+            }
+            while(!coordinator.await(TimeUnit.SECONDS.toMillis(5)))
+            {
+                if(coordinator.isStalled())
+                {
+                    System.err.printf("Every worker died with %d of %d games played%n", coordinator.getCompleted(),
+                                      games);
+                    coordinator.close();
+                    System.exit(1);
+                }
+                System.out.printf("%d of %d games played%n", coordinator.getCompleted(), games);
+            }
+
+            double seconds = (System.nanoTime() - start) / 1e9;
+            int[]  tally   = coordinator.getTally();
+            System.out.printf("%s: %d wins, %d draws, %d losses against %s%n", first, tally[0], tally[1],
+                              tally[2], second);
+            System.out.printf("%d games in %.1f s, %.0f games/s, %d steals, %d games requeued, %d restarts%n",
+                              games, seconds, games / seconds, coordinator.getSteals(),
+                              coordinator.getRequeued(), coordinator.getRestarts());
+        }
+    }
+
+    /**
+     * A worker as seen by the coordinator. Guarded by the coordinator's lock, except
+     * for the input stream, which only its reader thread uses.
+     */
+    private static final class Connection
+    {
+        private final Socket           socket;
+        private final DataInputStream  in;
+        private final DataOutputStream out;
+
+        // The next game without a result and the end of the range
+        private int        next;
+        private int        end;
+        // The idle worker waiting for this one to answer a split
+        private Connection thief;
+        private boolean    idle;
+        private boolean    alive = true;
+
+        private Connection(Socket socket) throws IOException
+        {
+            this.socket = socket;
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        // Returns false if the worker is gone, which its reader thread finds out as well
+        private boolean send(byte message, int... values)
+        {
+            try
+            {
+                out.writeByte(message);
+                for(int value : values)
+                {
+                    out.writeInt(value);
+                }
+                out.flush();
+                return true;
+            }
+            catch(IOException e)
+            {
+                return false;
+            }
+        }
+
+        private void close()
+        {
+            try
+            {
+                socket.close();
+            }
+            catch(IOException e)
+            {
+                // Closing is all that was left to do
+            }
+        }
+    }
+}
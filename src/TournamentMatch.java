@@ -0,0 +1,133 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * A match of Kalah games between two strategies. Every game is a pure function
+ * of the match and the game's number: the first strategy plays player A in even
+ * games and player B in odd ones, and each game opens with a few random moves
+ * drawn from a generator seeded by the match seed and the game number, so games
+ * between deterministic strategies still differ. That lets any process play any
+ * game and get the same result, which is what makes handing games around
+ * between workers safe.
+ *
+ * @see TournamentCoordinator
+ */
+public final class TournamentMatch
+{
+    // Random moves at the start of every game
+    private static final int OPENING_MOVES = 2;
+
+    private final int      initialStones;
+    private final String[] specifications;
+    private final long     seed;
+    // Created on first use, so that a match can be passed around before it is played
+    private Strategy[]     strategies;
+
+    /**
+     * Constructs a new match.
+     *
+     * @param initialStones The stones per pit at the start of each game
+     * @param first         The specification of the first strategy
+     * @param second        The specification of the second strategy
+     * @param seed          The seed of the random openings
+     * @see Strategy#parse(String)
+     */
+    public TournamentMatch(int initialStones, String first, String second, long seed)
+    {
+        this.initialStones = initialStones;
+        this.specifications = new String[] {first, second};
+        this.seed = seed;
+    }
+
+    /**
+     * Reads a match written by {@link #write(DataOutputStream)}.
+     *
+     * @param in The stream
+     * @return The match
+     * @throws IOException If the stream cannot be read
+     */
+    public static TournamentMatch read(DataInputStream in) throws IOException
+    {
+        int    initialStones = in.readInt();
+        String first         = in.readUTF();
+        String second        = in.readUTF();
+        return new TournamentMatch(initialStones, first, second, in.readLong());
+    }
+
+    /**
+     * Writes the match, so that another process can play its games.
+     *
+     * @param out The stream
+     * @throws IOException If the stream cannot be written
+     */
+    public void write(DataOutputStream out) throws IOException
+    {
+        out.writeInt(initialStones);
+        out.writeUTF(specifications[0]);
+        out.writeUTF(specifications[1]);
+        out.writeLong(seed);
+    }
+
+    /**
+     * Returns the specification of a strategy.
+     *
+     * @param strategy 0 for the first strategy, 1 for the second
+     * @return The specification
+     */
+    public String getSpecification(int strategy)
+    {
+        return specifications[strategy];
+    }
+
+    /**
+     * Plays a game of the match. Not thread safe, since the strategies keep scratch
+     * buffers; each thread should play its own instance of the match.
+     *
+     * @param game The game number
+     * @return The strategy that won, 0 or 1, or -1 for a draw
+     */
+    public int play(int game)
+    {
+        if(strategies == null)
+        {
+            strategies = new Strategy[] {Strategy.parse(specifications[0]), Strategy.parse(specifications[1])};
+        }
+
+        // The strategy playing player A
+        int        first   = game & 1;
+        Strategy[] players = {strategies[first], strategies[first ^ 1]};
+        int        winner  = play(initialStones, players, OPENING_MOVES,
+                                  new Random(seed * 0x9E3779B97F4A7C15L + game));
+        return winner == -1 ? -1 : first ^ winner;
+    }
+
+    /**
+     * Plays a game between two strategies.
+     *
+     * @param initialStones The stones per pit at the start of the game
+     * @param players       The strategies playing player A and player B
+     * @param openingMoves  The amount of random moves the game starts with
+     * @param random        The source of the random moves, also given to the strategies
+     * @return The winning player, or -1 for a draw
+     */
+    public static int play(int initialStones, Strategy[] players, int openingMoves, Random random)
+    {
+        int[] board  = Rules.newBoard(initialStones);
+        int   player = MancalaGame.PLAYER_A;
+        for(int move = 0; ; move++)
+        {
+            int pit = move < openingMoves ? Strategy.randomPit(Rules.KALAH, board, player, random)
+                                          : players[player].choosePit(Rules.KALAH, board, player, random);
+            int result = Rules.KALAH.move(board, player, pit);
+            if(result == Rules.ILLEGAL) throw new RuntimeException("A strategy picked the empty pit " + pit);
+            if((result & Rules.EXTRA_TURN) == 0) player ^= 1;
+            if(Rules.KALAH.finish(board, player) != -1) break;
+        }
+
+        int a = board[Rules.store(MancalaGame.PLAYER_A)];
+        int b = board[Rules.store(MancalaGame.PLAYER_B)];
+        return a == b ? -1 : a > b ? MancalaGame.PLAYER_A : MancalaGame.PLAYER_B;
+    }
+}
@@ -0,0 +1,168 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.Socket;
+
+/**
+ * A worker process playing games for a {@code TournamentCoordinator}. The worker
+ * connects to the coordinator, receives the match, and then plays the range of
+ * games it is assigned one after the other, sending back each result. While it
+ * plays, a second thread listens to the coordinator, which may assign a new
+ * range once the old one is done or take back the unplayed end of the current
+ * one for an idle worker, and tells the worker when to stop.
+ * <p>
+ * Results are sent in batches, flushed every so often and whenever the worker
+ * runs out of games, so that fast games do not pay for a write each.
+ */
+public final class TournamentWorker
+{
+    // Time between flushes of the results, in nanoseconds
+    private static final long FLUSH_INTERVAL = 100_000_000L;
+
+    private final DataInputStream  in;
+    private final DataOutputStream out;
+
+    /* Assigned Games */
+    private final Object lock = new Object();
+    private int          next;
+    private int          end;
+    private boolean      stopped;
+    private long         lastFlush;
+
+    /**
+     * Constructs a worker talking to the coordinator over {@code socket}.
+     *
+     * @param socket The connection to the coordinator
+     * @throws IOException If the streams of the socket cannot be opened
+     */
+    public TournamentWorker(Socket socket) throws IOException
+    {
+        in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    /**
+     * Plays games until the coordinator says stop or goes away.
+     *
+     * @throws IOException If the coordinator cannot be reached
+     */
+    public void run() throws IOException
+    {
+        TournamentMatch match = TournamentMatch.read(in);
+
+        Thread listener = new Thread(this::listen, "TournamentWorker listener");
+        listener.setDaemon(true);
+        listener.start();
+
+        while(true)
+        {
+            int game;
+            synchronized(lock)
+            {
+                while(next >= end && !stopped)
+                {
+                    flush();
+                    try
+                    {
+                        lock.wait();
+                    }
+                    catch(InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                if(stopped) return;
+                game = next++;
+            }
+
+            int winner = match.play(game);
+            synchronized(lock)
+            {
+                out.writeByte(TournamentCoordinator.RESULT);
+                out.writeInt(game);
+                out.writeByte(winner);
+                if(System.nanoTime() - lastFlush >= FLUSH_INTERVAL) flush();
+            }
+        }
+    }
+
+    // Handles the coordinator's messages until it says stop or the connection ends
+    private void listen()
+    {
+        try
+        {
+            while(true)
+            {
+                byte message = in.readByte();
+                synchronized(lock)
+                {
+                    switch(message)
+                    {
+                        case TournamentCoordinator.ASSIGN:
+                            next = in.readInt();
+                            end = in.readInt();
+                            break;
+                        case TournamentCoordinator.SPLIT:
+                            // Games already started stay here, the rest from the split point on go
+                            end = Math.min(end, Math.max(in.readInt(), next));
+                            out.writeByte(TournamentCoordinator.SPLIT_DONE);
+                            out.writeInt(end);
+                            flush();
+                            break;
+                        case TournamentCoordinator.STOP:
+                            stopped = true;
+                            break;
+                        default:
+                            throw new IOException("Unknown message " + message);
+                    }
+                    lock.notifyAll();
+                    if(stopped) return;
+                }
+            }
+        }
+        catch(IOException e)
+        {
+            synchronized(lock)
+            {
+                stopped = true;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    // Called with the lock held
+    private void flush() throws IOException
+    {
+        out.flush();
+        lastFlush = System.nanoTime();
+    }
+
+    /**
+     * Connects to a coordinator and plays its games.
+     *
+     * @param args Command line arguments
+     * @throws IOException If the coordinator cannot be reached
+     */
+    public static void main(String[] args) throws IOException
+    {
+        if(args.length != 2)
+        {
+            System.err.println("Usage: TournamentWorker host port");
+            System.exit(1);
+        }
+
+        try(Socket socket = new Socket(args[0], Integer.parseInt(args[1])))
+        {
+            socket.setTcpNoDelay(true);
+            new TournamentWorker(socket).run();
+        }
+        catch(EOFException e)
+        {
+            // The coordinator went away, there is nobody left to play for
+        }
+    }
+}
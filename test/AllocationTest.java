@@ -0,0 +1,232 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Guards the hot paths against allocating. Scripted games are played through the
+ * game, the rule engines and the batch engine while the bytes allocated by the
+ * test thread are counted, and each test fails when a move allocates more than
+ * its budget. The scripts and games are all created before counting starts, and
+ * every path is run a few times first so that the JIT compiler has settled.
+ * <p>
+ * Counting needs HotSpot's {@code com.sun.management.ThreadMXBean}; on other
+ * virtual machines the tests are skipped.
+ */
+public final class AllocationTest
+{
+    // Bytes a move may allocate on average. The hot paths are meant to allocate nothing
+    private static final double BUDGET_PER_MOVE = 0.5;
+    private static final int    GAMES           = 500;
+    private static final int    WARMUP_ROUNDS   = 20;
+
+    private com.sun.management.ThreadMXBean threads;
+    private long                            threadId;
+    // Bytes the counter itself allocates between two readings
+    private long                            overhead;
+
+    // The legal moves of each scripted game, in order. Negative entries stand for
+    // a selection of the pit -1 - entry that is undone right away
+    private int[][] scripts;
+
+    /**
+     * Sets up the allocation counter and the scripted games.
+     *
+     * @throws Exception Because unit test
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue("Allocation counting is not supported",
+                   bean instanceof com.sun.management.ThreadMXBean);
+        threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue("Allocation counting is not supported", threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        threadId = Thread.currentThread().getId();
+
+        overhead = Long.MAX_VALUE;
+        for(int i = 0; i < 10; i++)
+        {
+            long start = threads.getThreadAllocatedBytes(threadId);
+            overhead = Math.min(overhead, threads.getThreadAllocatedBytes(threadId) - start);
+        }
+
+        Random random = new Random(36);
+        scripts = new int[GAMES][];
+        int[] moves = new int[1024];
+        for(int g = 0; g < GAMES; g++)
+        {
+            int[] board  = Rules.newBoard(MancalaGame.MAX_INITIAL_STONES);
+            int   player = MancalaGame.PLAYER_A;
+            int   count  = 0;
+            while(Rules.KALAH.finish(board, player) == -1)
+            {
+                int position = random.nextInt(MancalaGame.MAX_PITS);
+                int result   = Rules.KALAH.move(board, player, position);
+                if(result == Rules.ILLEGAL) continue;
+
+                if(random.nextInt(8) == 0) moves[count++] = -1 - position;
+                moves[count++] = position;
+                if((result & Rules.EXTRA_TURN) == 0) player ^= 1;
+            }
+            scripts[g] = Arrays.copyOf(moves, count);
+        }
+    }
+
+    /**
+     * Tests that selecting, committing and undoing allocate nothing, with change
+     * listeners on every model and a move listener publishing to a ring buffer,
+     * the way the board and spectators use the game.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testGameMoves() throws Exception
+    {
+        for(int round = 0; round < WARMUP_ROUNDS; round++)
+        {
+            playGames(newGames());
+        }
+
+        MancalaGame[] games = newGames();
+        long          start = threads.getThreadAllocatedBytes(threadId);
+        long          moves = playGames(games);
+        assertBudget("MancalaGame", threads.getThreadAllocatedBytes(threadId) - start, moves);
+    }
+
+    /**
+     * Tests that the rule engines allocate nothing.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testRuleEngines() throws Exception
+    {
+        int[] board = new int[Rules.BOARD_SIZE];
+        for(int round = 0; round < WARMUP_ROUNDS; round++)
+        {
+            playRules(board);
+        }
+
+        long start = threads.getThreadAllocatedBytes(threadId);
+        long moves = playRules(board);
+        assertBudget("Rules.KALAH", threads.getThreadAllocatedBytes(threadId) - start, moves);
+    }
+
+    /**
+     * Tests that the batch engine allocates nothing.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testBatchMoves() throws Exception
+    {
+        BatchBoards batch   = new BatchBoards(GAMES);
+        int[]       results = new int[GAMES];
+        int[]       winners = new int[GAMES];
+        for(int round = 0; round < WARMUP_ROUNDS; round++)
+        {
+            playBatch(batch, results, winners);
+        }
+
+        long start = threads.getThreadAllocatedBytes(threadId);
+        long moves = playBatch(batch, results, winners);
+        assertBudget("BatchBoards", threads.getThreadAllocatedBytes(threadId) - start, moves);
+    }
+
+    private void assertBudget(String name, long allocated, long moves)
+    {
+        double perMove = (double) Math.max(0, allocated - overhead) / moves;
+        assertTrue(String.format("%s allocated %.2f bytes per move, the budget is %.2f",
+                                 name, perMove, BUDGET_PER_MOVE),
+                   perMove <= BUDGET_PER_MOVE);
+    }
+
+    private MancalaGame[] newGames()
+    {
+        MancalaGame[] games = new MancalaGame[GAMES];
+        int[]         seen  = new int[1];
+        MoveEventRing ring  = new MoveEventRing(1024);
+        for(int g = 0; g < GAMES; g++)
+        {
+            MancalaGame game = new MancalaGame(MancalaGame.MAX_INITIAL_STONES);
+            for(int i = 0; i < MancalaGame.MAX_PLAYERS; i++)
+            {
+                game.getMancalaModel(i).addChangeListener(event -> seen[0]++);
+                for(int j = 0; j < MancalaGame.MAX_PITS; j++)
+                {
+                    game.getPitModel(i, j).addChangeListener(event -> seen[0]++);
+                }
+            }
+            game.addMoveListener(ring);
+            games[g] = game;
+        }
+        return games;
+    }
+
+    private long playGames(MancalaGame[] games)
+    {
+        long moves = 0;
+        for(int g = 0; g < GAMES; g++)
+        {
+            MancalaGame game = games[g];
+            for(int move : scripts[g])
+            {
+                if(move < 0)
+                {
+                    game.selectPit(-1 - move);
+                    game.undoLastSelection();
+                }
+                else
+                {
+                    game.selectPit(move);
+                    game.commitLastSelection();
+                }
+                moves++;
+            }
+        }
+        return moves;
+    }
+
+    private long playRules(int[] board)
+    {
+        long moves = 0;
+        for(int g = 0; g < GAMES; g++)
+        {
+            for(int i = 0; i < Rules.BOARD_SIZE; i++)
+            {
+                board[i] = i % (MancalaGame.MAX_PITS + 1) == MancalaGame.MAX_PITS ? 0 : MancalaGame.MAX_INITIAL_STONES;
+            }
+            int player = MancalaGame.PLAYER_A;
+            for(int move : scripts[g])
+            {
+                if(move < 0) continue;
+
+                int result = Rules.KALAH.move(board, player, move);
+                if((result & Rules.EXTRA_TURN) == 0) player ^= 1;
+                Rules.KALAH.finish(board, player);
+                moves++;
+            }
+        }
+        return moves;
+    }
+
+    private long playBatch(BatchBoards batch, int[] results, int[] winners)
+    {
+        batch.reset(MancalaGame.MAX_INITIAL_STONES);
+        long moves = 0;
+        for(int m = 0; m < 200; m++)
+        {
+            batch.move(m % MancalaGame.MAX_PITS, results);
+            batch.finish(winners);
+            moves += GAMES;
+        }
+        return moves;
+    }
+}
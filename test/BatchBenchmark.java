@@ -0,0 +1,115 @@
+/**
+ * Benchmarks applying one move across many boards. The same sequence of moves is
+ * played on a batch of boards three ways: with the closed form batch engine, with
+ * the batch engine's board by board fallback, and with one {@code MancalaGame}
+ * per board. Boards whose game ends are reset, so the positions stay varied.
+ * <p>
+ * Run with {@code gradle benchmark -Pbenchmark=BatchBenchmark}.
+ */
+public final class BatchBenchmark
+{
+    private static final int  BOARDS = 4096;
+    private static final int  MOVES  = 2_000;
+    private static final int  ROUNDS = 5;
+    private static final long SEED   = 0x5DEECE66DL;
+
+    /**
+     * The entry point of the benchmark.
+     *
+     * @param args Command line arguments
+     */
+    public static void main(String[] args)
+    {
+        for(int round = 0; round < ROUNDS; round++)
+        {
+            boolean warmup = round < ROUNDS - 1;
+
+            long start = System.nanoTime();
+            long sum   = playBatch(true);
+            report(warmup, "BatchBoards.move", sum, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            sum = playBatch(false);
+            report(warmup, "BatchBoards.moveEach", sum, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            sum = playGames(MOVES / 10);
+            report(warmup, "MancalaGame (1/10 of the moves)", sum, (System.nanoTime() - start) * 10);
+        }
+    }
+
+    private static void report(boolean warmup, String name, long checksum, long nanos)
+    {
+        if(warmup) return;
+        System.out.printf("%-34s %8.2f ns/board-move  (checksum %d)%n", name,
+                          (double) nanos / ((long) BOARDS * MOVES), checksum);
+    }
+
+    private static long playBatch(boolean closedForm)
+    {
+        BatchBoards batch   = new BatchBoards(BOARDS);
+        int[]       results = new int[BOARDS];
+        int[]       winners = new int[BOARDS];
+        int[]       opening = Rules.newBoard(MancalaGame.MAX_INITIAL_STONES);
+        batch.reset(MancalaGame.MAX_INITIAL_STONES);
+
+        long sum = 0;
+        long x   = SEED;
+        for(int m = 0; m < MOVES; m++)
+        {
+            x ^= x << 13;
+            x ^= x >>> 7;
+            x ^= x << 17;
+            int position = (int) ((x >>> 33) % MancalaGame.MAX_PITS);
+            if(closedForm)
+            {
+                batch.move(position, results);
+            }
+            else
+            {
+                batch.moveEach(position, results);
+            }
+
+            batch.finish(winners);
+            for(int i = 0; i < BOARDS; i++)
+            {
+                sum += results[i];
+                if(winners[i] != -1) batch.set(i, opening, MancalaGame.PLAYER_A);
+            }
+        }
+        return sum;
+    }
+
+    private static long playGames(int moves)
+    {
+        MancalaGame[] games = new MancalaGame[BOARDS];
+        for(int i = 0; i < BOARDS; i++)
+        {
+            games[i] = new MancalaGame(MancalaGame.MAX_INITIAL_STONES);
+        }
+
+        long sum = 0;
+        long x   = SEED;
+        for(int m = 0; m < moves; m++)
+        {
+            x ^= x << 13;
+            x ^= x >>> 7;
+            x ^= x << 17;
+            int position = (int) ((x >>> 33) % MancalaGame.MAX_PITS);
+            for(int i = 0; i < BOARDS; i++)
+            {
+                MancalaGame game = games[i];
+                game.selectPit(position);
+                if(!game.hasPendingCommit())
+                {
+                    sum--;
+                    continue;
+                }
+
+                game.commitLastSelection();
+                if(game.isGameOver()) games[i] = new MancalaGame(MancalaGame.MAX_INITIAL_STONES);
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,79 @@
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for the batch move engine.
+ */
+public final class BatchBoardsTest
+{
+    /**
+     * Tests that the closed form moves match the rule engine on boards that have
+     * drifted into many different positions, including finished ones.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testMatchesRules() throws Exception
+    {
+        int         size      = 257;
+        BatchBoards batch     = new BatchBoards(size);
+        BatchBoards reference = new BatchBoards(size);
+        batch.reset(MancalaGame.MAX_INITIAL_STONES);
+        reference.reset(MancalaGame.MAX_INITIAL_STONES);
+
+        // Scatter the boards by playing a different random opening on each
+        Random random = new Random(11);
+        int[]  board  = new int[Rules.BOARD_SIZE];
+        for(int i = 0; i < size; i++)
+        {
+            int player = batch.get(i, board);
+            for(int m = random.nextInt(12); m > 0 && Rules.KALAH.finish(board, player) == -1; m--)
+            {
+                int result = Rules.KALAH.move(board, player, random.nextInt(MancalaGame.MAX_PITS));
+                if(result != Rules.ILLEGAL && (result & Rules.EXTRA_TURN) == 0) player ^= 1;
+            }
+            batch.set(i, board, player);
+            reference.set(i, board, player);
+        }
+
+        int[] results   = new int[size];
+        int[] expected  = new int[size];
+        int[] winners   = new int[size];
+        int[] finished  = new int[size];
+        int[] actual    = new int[Rules.BOARD_SIZE];
+        int   seen      = 0;
+        for(int round = 0; round < 200; round++)
+        {
+            int position = random.nextInt(MancalaGame.MAX_PITS);
+            batch.move(position, results);
+            reference.moveEach(position, expected);
+            assertArrayEquals(expected, results);
+            for(int result : results)
+            {
+                seen |= result == Rules.ILLEGAL ? 1 << 2 : result;
+            }
+
+            batch.finish(winners);
+            for(int i = 0; i < size; i++)
+            {
+                int player = reference.get(i, board);
+                finished[i] = Rules.KALAH.finish(board, player);
+                reference.set(i, board, player);
+            }
+            assertArrayEquals(finished, winners);
+
+            for(int i = 0; i < size; i++)
+            {
+                assertEquals(reference.get(i, board), batch.get(i, actual));
+                assertArrayEquals(board, actual);
+            }
+        }
+
+        // Every kind of result has to have come up
+        assertEquals(Rules.EXTRA_TURN | Rules.CAPTURE | 1 << 2, seen);
+    }
+}
@@ -0,0 +1,71 @@
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the board view.
+ */
+public final class BoardTest
+{
+    /**
+     * Tests that showing a position copied from a game gives every pit and mancala
+     * view the count that the game's models give them.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testSetPosition() throws Exception
+    {
+        MancalaGame game  = new MancalaGame(MancalaGame.MAX_INITIAL_STONES);
+        Board       board = new Board(game);
+        // Uneven counts on both sides, so a mirrored row shows up
+        for(int pit : new int[] { 0, 2, 5, 1 })
+        {
+            game.selectPit(pit);
+            game.commitLastSelection();
+        }
+
+        Board copy = new Board(new MancalaGame(MancalaGame.MIN_INITIAL_STONES));
+        copy.setPosition(game.copyPosition(new int[Rules.BOARD_SIZE]));
+        for(int player = 0; player < MancalaGame.MAX_PLAYERS; player++)
+        {
+            for(int pit = 0; pit < MancalaGame.MAX_PITS; pit++)
+            {
+                int stones = game.getPitModel(player, pit).getStones();
+                assertEquals(stones, board.getPit(player, pit).getStoneCount());
+                assertEquals(stones, copy.getPit(player, pit).getStoneCount());
+            }
+        }
+    }
+
+    /**
+     * Tests that each hint lands on the pit it was computed for, for both players.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testPitHints() throws Exception
+    {
+        Board   board = new Board(new MancalaGame(MancalaGame.MAX_INITIAL_STONES));
+        float[] hints = { 0, 0.2f, 0.4f, 0.6f, 0.8f, 1 };
+        for(int player = 0; player < MancalaGame.MAX_PLAYERS; player++)
+        {
+            board.setPitHints(player, hints);
+            for(int pit = 0; pit < MancalaGame.MAX_PITS; pit++)
+            {
+                assertEquals(hints[pit], board.getPit(player, pit).getHint(), 0);
+                assertTrue(Float.isNaN(board.getPit(player ^ 1, pit).getHint()));
+            }
+        }
+
+        board.clearPitHints();
+        for(int player = 0; player < MancalaGame.MAX_PLAYERS; player++)
+        {
+            for(int pit = 0; pit < MancalaGame.MAX_PITS; pit++)
+            {
+                assertTrue(Float.isNaN(board.getPit(player, pit).getHint()));
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the computer player.
+ */
+public final class ComputerPlayerTest
+{
+    private ExecutorService          pool;
+    private ScheduledExecutorService timer;
+
+    /**
+     * Sets up the search pool and the timer.
+     *
+     * @throws Exception Because unit test
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        pool = Executors.newCachedThreadPool();
+        timer = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    /**
+     * Shuts the search pool and the timer down.
+     *
+     * @throws Exception Because unit test
+     */
+    @After
+    public void tearDown() throws Exception
+    {
+        pool.shutdownNow();
+        timer.shutdownNow();
+    }
+
+    /**
+     * Tests that the chosen pit is legal and arrives by the deadline, even though
+     * the search would take far longer to reach its maximum depth.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testDeadline() throws Exception
+    {
+        MancalaGame    game     = new MancalaGame(MancalaGame.MAX_INITIAL_STONES);
+        ComputerPlayer computer = new ComputerPlayer(pool, timer, 200, 40);
+
+        long start = System.nanoTime();
+        int  pit   = computer.chooseMove(game).get(5, TimeUnit.SECONDS);
+        long took  = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue("The move took " + took + " ms", took < 2000);
+        assertTrue(pit >= 0 && pit < MancalaGame.MAX_PITS);
+        game.selectPit(pit);
+        assertTrue(game.hasPendingCommit());
+    }
+
+    /**
+     * Tests that a forced win is found and played, and that the game is left alone.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testFindsWin() throws Exception
+    {
+        // A's last stone lands in the store and ends the game with A ahead
+        int[]       position = {0, 0, 0, 0, 0, 1, 20, 1, 1, 1, 0, 0, 0, 10};
+        MancalaGame game     = new MancalaGame(MancalaGame.MAX_INITIAL_STONES, Rules.KALAH, position,
+                                               MancalaGame.PLAYER_A, true);
+
+        int pit = new ComputerPlayer(pool, timer, 5000, 6).chooseMove(game).get(5, TimeUnit.SECONDS);
+        assertEquals(5, pit);
+        assertFalse(game.hasPendingCommit());
+    }
+
+    /**
+     * Tests that cancelling a move frees the search thread well before the deadline.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testCancel() throws Exception
+    {
+        ExecutorService single = Executors.newSingleThreadExecutor();
+        try
+        {
+            MancalaGame                game = new MancalaGame(MancalaGame.MAX_INITIAL_STONES);
+            CompletableFuture<Integer> move = new ComputerPlayer(single, timer, 60000, 40).chooseMove(game);
+            Thread.sleep(50);
+            move.cancel(false);
+
+            // The next task can only run once the cancelled search has given up
+            single.submit(() -> { }).get(5, TimeUnit.SECONDS);
+            assertTrue(move.isCancelled());
+        }
+        finally
+        {
+            single.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+import java.util.Random;
+
+/**
+ * Benchmarks evaluating leaves with the learned evaluator, one call per leaf and
+ * in batches of the size a search expands at once, on random positions.
+ * <p>
+ * Run with {@code gradle benchmark -Pbenchmark=EvaluatorBenchmark}.
+ */
+public final class EvaluatorBenchmark
+{
+    private static final int  POSITIONS = 4098;
+    private static final int  BATCH     = MancalaGame.MAX_PITS;
+    private static final int  PASSES    = 2_000;
+    private static final int  ROUNDS    = 5;
+    private static final long SEED      = 38;
+
+    /**
+     * The entry point of the benchmark.
+     *
+     * @param args Command line arguments
+     */
+    public static void main(String[] args)
+    {
+        Random  random  = new Random(SEED);
+        int[][] boards  = new int[POSITIONS][Rules.BOARD_SIZE];
+        int[]   players = new int[POSITIONS];
+        float[] weights = new float[Evaluator.FEATURES];
+        for(int b = 0; b < POSITIONS; b++)
+        {
+            for(int stones = 2 * MancalaGame.MAX_PITS * MancalaGame.MAX_INITIAL_STONES; stones > 0; stones--)
+            {
+                boards[b][random.nextInt(Rules.BOARD_SIZE)]++;
+            }
+            players[b] = random.nextInt(MancalaGame.MAX_PLAYERS);
+        }
+        for(int i = 0; i < weights.length; i++)
+        {
+            weights[i] = random.nextFloat() * 4 - 2;
+        }
+        Evaluator evaluator = new Evaluator(weights);
+
+        for(int round = 0; round < ROUNDS; round++)
+        {
+            boolean warmup = round < ROUNDS - 1;
+
+            long   start = System.nanoTime();
+            double sum   = evaluateEach(evaluator, boards, players);
+            report(warmup, "evaluate(board, player)", sum, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            sum = evaluateBatches(evaluator, boards, players);
+            report(warmup, "evaluate(boards, ..., " + BATCH + ")", sum, System.nanoTime() - start);
+        }
+    }
+
+    private static void report(boolean warmup, String name, double checksum, long nanos)
+    {
+        if(warmup) return;
+        long leaves = (long) POSITIONS * PASSES;
+        System.out.printf("%-30s %6.2f ns/leaf, %,.0f leaves/s  (checksum %.3f)%n", name,
+                          (double) nanos / leaves, leaves * 1e9 / nanos, checksum);
+    }
+
+    private static double evaluateEach(Evaluator evaluator, int[][] boards, int[] players)
+    {
+        double sum = 0;
+        for(int p = 0; p < PASSES; p++)
+        {
+            for(int b = 0; b < POSITIONS; b++)
+            {
+                sum += evaluator.evaluate(boards[b], players[b]);
+            }
+        }
+        return sum;
+    }
+
+    private static double evaluateBatches(Evaluator evaluator, int[][] boards, int[] players)
+    {
+        int[][] batch  = new int[BATCH][];
+        int[]   movers = new int[BATCH];
+        float[] values = new float[BATCH];
+        double  sum    = 0;
+        for(int p = 0; p < PASSES; p++)
+        {
+            for(int b = 0; b + BATCH <= POSITIONS; b += BATCH)
+            {
+                System.arraycopy(boards, b, batch, 0, BATCH);
+                System.arraycopy(players, b, movers, 0, BATCH);
+                evaluator.evaluate(batch, movers, BATCH, values);
+                for(int i = 0; i < BATCH; i++)
+                {
+                    sum += values[i];
+                }
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,143 @@
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the evaluator and its trainer.
+ */
+public final class EvaluatorTest
+{
+    /**
+     * Tests that single and batched evaluations agree with the features weighted
+     * by the weights.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testFeatures() throws Exception
+    {
+        Random  random  = new Random(38);
+        float[] weights = new float[Evaluator.FEATURES];
+        for(int i = 0; i < weights.length; i++)
+        {
+            weights[i] = random.nextFloat() * 4 - 2;
+        }
+        Evaluator evaluator = new Evaluator(weights);
+
+        int[][] boards   = new int[100][];
+        int[]   players  = new int[boards.length];
+        float[] values   = new float[boards.length];
+        float[] features = new float[Evaluator.FEATURES];
+        for(int b = 0; b < boards.length; b++)
+        {
+            boards[b] = randomPosition(random);
+            players[b] = random.nextInt(MancalaGame.MAX_PLAYERS);
+        }
+        evaluator.evaluate(boards, players, boards.length, values);
+
+        for(int b = 0; b < boards.length; b++)
+        {
+            Evaluator.features(boards[b], players[b], features);
+            double sum = 0;
+            for(int i = 0; i < Evaluator.FEATURES; i++)
+            {
+                sum += weights[i] * features[i];
+            }
+            assertEquals(1 / (1 + Math.exp(-sum)), values[b], 1e-5);
+            assertEquals(values[b], evaluator.evaluate(boards[b], players[b]), 0);
+        }
+    }
+
+    /**
+     * Tests that the untrained evaluator prefers the player with more stones in their store.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testUntrained() throws Exception
+    {
+        int[] board = Rules.newBoard(MancalaGame.MIN_INITIAL_STONES);
+        board[Rules.store(MancalaGame.PLAYER_A)] = 10;
+        Evaluator evaluator = new Evaluator();
+
+        assertTrue(evaluator.evaluate(board, MancalaGame.PLAYER_A) > 0.5f);
+        assertTrue(evaluator.evaluate(board, MancalaGame.PLAYER_B) < 0.5f);
+    }
+
+    /**
+     * Tests that weights survive saving and loading.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testSaveLoad() throws Exception
+    {
+        float[] weights = new float[Evaluator.FEATURES];
+        for(int i = 0; i < weights.length; i++)
+        {
+            weights[i] = i * 0.25f - 1;
+        }
+
+        Path file = Files.createTempFile("evaluator", ".weights");
+        try
+        {
+            new Evaluator(weights).save(file);
+            float[] loaded = Evaluator.load(file).getWeights(new float[Evaluator.FEATURES]);
+            assertArrayEquals(weights, loaded, 0);
+        }
+        finally
+        {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Tests that a few rounds of self-play starting from nothing learn to value
+     * the stores and to beat random moves more often than the empty weights do.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testTraining() throws Exception
+    {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try
+        {
+            SelfPlayTrainer trainer   = new SelfPlayTrainer(Rules.KALAH, MancalaGame.MAX_INITIAL_STONES, pool, 2);
+            Evaluator       evaluator = new Evaluator(new float[Evaluator.FEATURES]);
+            double          untrained = trainer.winRate(evaluator, 400, new Random(38));
+            for(int round = 0; round < 5; round++)
+            {
+                evaluator = trainer.train(evaluator, 400, round);
+            }
+
+            float[] weights = evaluator.getWeights(new float[Evaluator.FEATURES]);
+            int     store   = MancalaGame.MAX_PITS;
+            assertTrue(weights[store] > weights[store + MancalaGame.MAX_PITS + 1]);
+            double rate = trainer.winRate(evaluator, 400, new Random(38));
+            assertTrue("Won " + rate + " against random moves", rate > 0.6 && rate > untrained);
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    private static int[] randomPosition(Random random)
+    {
+        int[] board = new int[Rules.BOARD_SIZE];
+        for(int stones = 2 * MancalaGame.MAX_PITS * MancalaGame.MAX_INITIAL_STONES; stones > 0; stones--)
+        {
+            board[random.nextInt(Rules.BOARD_SIZE)]++;
+        }
+        return board;
+    }
+}
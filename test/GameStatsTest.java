@@ -0,0 +1,94 @@
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Unit tests for archive parsing and game statistics.
+ */
+public final class GameStatsTest
+{
+    // The winning game from MancalaGameTest, which player B wins
+    private static final String WINNING_GAME = "42 4 0 0 1 2 0 3 0 4 0 5";
+
+    /**
+     * Tests that an archive line survives parsing and formatting.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testArchiveRoundTrip() throws Exception
+    {
+        GameRecord game = GameArchive.parse(WINNING_GAME);
+        assertEquals(42, game.getId());
+        assertEquals(4, game.getInitialStones());
+        assertEquals(10, game.getMoveCount());
+        assertEquals(WINNING_GAME, GameArchive.format(game));
+    }
+
+    /**
+     * Tests that replayed games are counted the same way the game plays them.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testReplay() throws Exception
+    {
+        GameStats stats = new GameStats();
+        stats.accept(GameArchive.parse(WINNING_GAME));
+        stats.accept(GameArchive.parse("43 4 0 0"));
+        stats.accept(GameArchive.parse("44 4 0 0 0"));
+
+        GameStats merged = new GameStats();
+        merged.combine(stats);
+
+        assertEquals(1, merged.getGames());
+        assertEquals(1, merged.getUnfinishedGames());
+        assertEquals(1, merged.getInvalidGames());
+        assertEquals(10, merged.getAverageLength(), 0);
+        assertEquals(0, merged.getFirstPlayerWinRate(4), 0);
+        assertEquals(1, merged.getGames(4, 0));
+    }
+
+    /**
+     * Tests that an archive with Windows line endings and malformed lines in the
+     * middle is analyzed, with the malformed lines counted as invalid.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testMalformedLines() throws Exception
+    {
+        assertEquals(WINNING_GAME, GameArchive.format(GameArchive.parse(" " + WINNING_GAME + "\r")));
+        assertNull(GameArchive.tryParse("45 4 x 1"));
+        assertNull(GameArchive.tryParse("46"));
+
+        StringBuilder archive = new StringBuilder("# id stones moves...\r\n");
+        for(int i = 0; i < 100; i++)
+        {
+            archive.append(WINNING_GAME).append("\r\n");
+            if(i == 50) archive.append("45 4 x 1\r\n46\r\n\r\n");
+        }
+
+        Path         file = Files.createTempFile("archive", ".txt");
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try
+        {
+            Files.write(file, archive.toString().getBytes(StandardCharsets.US_ASCII));
+            GameStats stats = GameAnalytics.analyze(pool, file);
+            assertEquals(100, stats.getGames());
+            assertEquals(0, stats.getUnfinishedGames());
+            assertEquals(2, stats.getInvalidGames());
+        }
+        finally
+        {
+            pool.shutdown();
+            Files.delete(file);
+        }
+    }
+}
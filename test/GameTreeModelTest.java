@@ -0,0 +1,161 @@
+import org.junit.Test;
+
+import javax.swing.*;
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the game tree model.
+ */
+public final class GameTreeModelTest
+{
+    /**
+     * Tests that children load in the background behind a placeholder, follow the
+     * rules including extra turns, and that the cache stays within its budget
+     * while keeping the children of expanded nodes.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testLazyExpansion() throws Exception
+    {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try
+        {
+            int[]         start = Rules.newBoard(MancalaGame.MAX_INITIAL_STONES);
+            GameTreeModel model = onEdt(() -> new GameTreeModel(Rules.KALAH, start, MancalaGame.PLAYER_A, pool, 12));
+            Object        root  = model.getRoot();
+            List<Object>  loads = new ArrayList<>();
+            model.addTreeModelListener(new TreeModelListener()
+            {
+                @Override
+                public void treeNodesChanged(TreeModelEvent event)
+                {
+                }
+
+                @Override
+                public void treeNodesInserted(TreeModelEvent event)
+                {
+                }
+
+                @Override
+                public void treeNodesRemoved(TreeModelEvent event)
+                {
+                }
+
+                @Override
+                public void treeStructureChanged(TreeModelEvent event)
+                {
+                    loads.add(event.getTreePath().getLastPathComponent());
+                }
+            });
+
+            assertEquals(1, (int) onEdt(() -> model.getChildCount(root)));
+            assertEquals(GameTreeModel.LOADING, onEdt(() -> model.getChild(root, 0)));
+            await(model);
+            assertEquals(root, loads.get(0));
+            assertEquals(6, (int) onEdt(() -> model.getChildCount(root)));
+
+            // Pit 2 of 4 stones ends in A's store, so A moves again
+            int[]              board = start.clone();
+            GameTreeModel.Node child = (GameTreeModel.Node) onEdt(() -> model.getChild(root, 2));
+            assertEquals(Rules.EXTRA_TURN, Rules.KALAH.move(board, MancalaGame.PLAYER_A, 2) & Rules.EXTRA_TURN);
+            assertTrue(child.isExtraTurn());
+            assertEquals(MancalaGame.PLAYER_A, child.getPlayer());
+            assertEquals(MancalaGame.PLAYER_A, child.getMover());
+            assertArrayEquals(board, child.getBoard(new int[Rules.BOARD_SIZE]));
+            assertEquals(2, child.getPath().getPathCount());
+
+            // Loading the children of every root child goes past the budget, so all but
+            // the root's and the latest are dropped
+            Object[] grandchildren = new Object[6];
+            for(int i = 0; i < 6; i++)
+            {
+                int pit = i;
+                onEdt(() -> model.getChildCount(model.getChild(root, pit)));
+                await(model);
+                grandchildren[i] = onEdt(() -> model.getChild(model.getChild(root, pit), 0));
+                assertTrue(grandchildren[i] instanceof GameTreeModel.Node);
+            }
+            assertTrue(onEdt(model::getCachedCount) <= 12);
+            assertEquals(6, (int) onEdt(() -> model.getChildCount(root)));
+
+            // A dropped node is loaded again and equals the first one
+            assertEquals(GameTreeModel.LOADING, onEdt(() -> model.getChild(model.getChild(root, 0), 0)));
+            await(model);
+            assertEquals(grandchildren[0], onEdt(() -> model.getChild(model.getChild(root, 0), 0)));
+
+            // Expanded nodes keep their children, while a collapsed one gives them up
+            GameTreeModel.Node pinned = (GameTreeModel.Node) onEdt(() -> model.getChild(root, 1));
+            onEdt(() -> {
+                model.setExpanded(pinned, true);
+                return model.getChildCount(pinned);
+            });
+            await(model);
+            Object kept = onEdt(() -> model.getChild(pinned, 0));
+            for(int i = 2; i < 6; i++)
+            {
+                int pit = i;
+                onEdt(() -> model.getChildCount(model.getChild(root, pit)));
+                await(model);
+            }
+            assertNotSame(GameTreeModel.LOADING, onEdt(() -> model.getChild(pinned, 0)));
+            assertEquals(kept, onEdt(() -> model.getChild(pinned, 0)));
+            assertTrue(onEdt(model::getCachedCount) > 12);
+            onEdt(() -> {
+                model.setExpanded(pinned, false);
+                return null;
+            });
+            assertTrue(onEdt(model::getCachedCount) <= 12);
+        }
+        finally
+        {
+            pool.shutdown();
+            pool.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private interface Call<T>
+    {
+        T call() throws Exception;
+    }
+
+    private static <T> T onEdt(Call<T> call) throws Exception
+    {
+        List<T>         result = new ArrayList<>();
+        List<Exception> error  = new ArrayList<>();
+        SwingUtilities.invokeAndWait(() -> {
+            try
+            {
+                result.add(call.call());
+            }
+            catch(Exception e)
+            {
+                error.add(e);
+            }
+        });
+        if(!error.isEmpty()) throw error.get(0);
+        return result.get(0);
+    }
+
+    // Waits until no children are being loaded
+    private static void await(GameTreeModel model) throws Exception
+    {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while(onEdt(model::getLoadingCount) > 0)
+        {
+            assertTrue(System.nanoTime() < deadline);
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+import org.junit.Test;
+
+import javax.swing.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the latency recorder.
+ */
+public final class LatencyRecorderTest
+{
+    /**
+     * Tests that percentiles are found to within their bucket, along with the
+     * averages per click.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testPercentiles() throws Exception
+    {
+        LatencyRecorder recorder = new LatencyRecorder();
+        assertEquals(0, recorder.getPercentile(50));
+
+        for(int i = 1; i <= 1000; i++)
+        {
+            recorder.record(i * 100, 14, i % 2 == 0 ? 4 : 2);
+        }
+        assertEquals(1000, recorder.getCount());
+        assertEquals(100_000, recorder.getMax());
+        assertEquals(14, recorder.getListenersPerClick(), 0);
+        assertEquals(3, recorder.getPaintsPerClick(), 0);
+
+        long p50 = recorder.getPercentile(50);
+        long p99 = recorder.getPercentile(99);
+        assertTrue("p50 was " + p50, p50 >= 50_000 && p50 <= 50_000 * 9 / 8);
+        assertTrue("p99 was " + p99, p99 >= 99_000 && p99 <= 100_000);
+        assertEquals(100_000, recorder.getPercentile(100));
+        assertEquals(100, recorder.getPercentile(0.1), 100 / 8);
+
+        recorder.reset();
+        assertEquals(0, recorder.getCount());
+        assertEquals(0, recorder.getPercentile(99));
+    }
+
+    /**
+     * Tests that a click is only recorded once the work it queued is done.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testClickSettles() throws Exception
+    {
+        LatencyRecorder recorder = new LatencyRecorder();
+        CountDownLatch  recorded = new CountDownLatch(1);
+        recorder.setSampleListener(recorded::countDown);
+
+        SwingUtilities.invokeAndWait(() -> {
+            recorder.clickStarted(System.currentTimeMillis());
+            // The move is applied by a queued event, which then queues the paints
+            SwingUtilities.invokeLater(() -> {
+                for(int i = 0; i < 3; i++)
+                {
+                    recorder.listenerCalled();
+                }
+                SwingUtilities.invokeLater(() -> {
+                    recorder.painted();
+                    recorder.painted();
+                });
+            });
+            recorder.clickHandled();
+        });
+
+        assertTrue(recorded.await(5, TimeUnit.SECONDS));
+        assertEquals(1, recorder.getCount());
+        assertEquals(3, recorder.getListenersPerClick(), 0);
+        assertEquals(2, recorder.getPaintsPerClick(), 0);
+
+        // Work outside of a click is not counted
+        recorder.listenerCalled();
+        recorder.painted();
+        assertEquals(3, recorder.getListenersPerClick(), 0);
+    }
+}
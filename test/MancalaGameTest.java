@@ -199,6 +199,28 @@ public final class MancalaGameTest
         assertEquals(game.getWinningPlayer(), MancalaGame.PLAYER_B);
     }
 
+    /**
+     * Tests that moves made on a copy of the game do not reach the original.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testCopyIsIndependent() throws Exception
+    {
+        game.selectPit(3);
+        game.commitLastSelection();
+
+        MancalaGame copy = new MancalaGame(game);
+        assertEquals(game.getCurrentPlayer(), copy.getCurrentPlayer());
+        copy.selectPit(4);
+        copy.commitLastSelection();
+
+        int[] expectedRowB = {5, 4, 4, 4, 4, 4};
+        assertArrayEquals(expectedRowB, board[MancalaGame.PLAYER_B]);
+        assertEquals(0, copy.getPitModel(MancalaGame.PLAYER_B, 4).getStones());
+        assertEquals(MancalaGame.PLAYER_B, game.getCurrentPlayer());
+    }
+
     /**
      * Runs the {@code game} object through a winning game.
      *
@@ -0,0 +1,91 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the move event ring buffer.
+ */
+public final class MoveEventRingTest
+{
+    private MancalaGame   game;
+    private MoveEventRing ring;
+
+    /**
+     * Sets up a game publishing to a small ring.
+     *
+     * @throws Exception Because unit test
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        game = new MancalaGame(MancalaGame.MAX_INITIAL_STONES);
+        ring = new MoveEventRing(4);
+        game.addMoveListener(ring);
+    }
+
+    /**
+     * Tests that a committed move is published once with the resulting board.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testCommitPublishesEvent() throws Exception
+    {
+        MoveEventRing.Cursor cursor = ring.newCursor();
+        MoveEvent            event  = new MoveEvent();
+
+        game.selectPit(3);
+        assertFalse(cursor.poll(event));
+        game.commitLastSelection();
+
+        assertTrue(cursor.poll(event));
+        assertEquals(0, event.getSequence());
+        assertEquals(MancalaGame.PLAYER_A, event.getPlayer());
+        assertEquals(3, event.getPosition());
+        assertEquals(MancalaGame.PLAYER_B, event.getCurrentPlayer());
+        assertEquals(1, event.getStones(Rules.store(MancalaGame.PLAYER_A)));
+        assertEquals(5, event.getStones(Rules.pit(MancalaGame.PLAYER_B, 0)));
+        assertFalse(cursor.poll(event));
+    }
+
+    /**
+     * Tests that undone selections are not published.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testUndoIsNotPublished() throws Exception
+    {
+        MoveEventRing.Cursor cursor = ring.newCursor();
+        game.selectPit(0);
+        game.undoLastSelection();
+        assertFalse(cursor.poll(new MoveEvent()));
+    }
+
+    /**
+     * Tests that a cursor lapped by the producer skips to the latest event.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testSlowCursorSkipsToLatest() throws Exception
+    {
+        MoveEventRing.Cursor slow  = ring.newCursor();
+        MoveEvent            event = new MoveEvent();
+
+        int[] moves = {0, 0, 1, 2, 0, 3};
+        for(int move : moves)
+        {
+            game.selectPit(move);
+            game.commitLastSelection();
+        }
+
+        assertTrue(slow.poll(event));
+        assertEquals(moves.length - 1, event.getSequence());
+        assertEquals(moves.length - 1, slow.getDropped());
+        assertFalse(slow.poll(event));
+    }
+}
@@ -0,0 +1,159 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for the move journal.
+ */
+public final class MoveJournalTest
+{
+    private Path directory;
+
+    /**
+     * Creates an empty journal directory.
+     *
+     * @throws Exception Because unit test
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        directory = Files.createTempDirectory("journal");
+    }
+
+    /**
+     * Deletes the journal directory.
+     *
+     * @throws Exception Because unit test
+     */
+    @After
+    public void tearDown() throws Exception
+    {
+        File[] files = directory.toFile().listFiles();
+        if(files != null)
+        {
+            for(File file : files)
+            {
+                file.delete();
+            }
+        }
+        Files.delete(directory);
+    }
+
+    /**
+     * Tests that games are rebuilt with their moves, undos and rule variants,
+     * across several segments.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testRecover() throws Exception
+    {
+        MancalaGame gameA = new MancalaGame(MancalaGame.MAX_INITIAL_STONES);
+        MancalaGame gameB = new MancalaGame(MancalaGame.MIN_INITIAL_STONES, Rules.OWARE);
+
+        // Four records per segment, so the moves below roll over a few times
+        try(MoveJournal journal = new MoveJournal(directory, 64, 1))
+        {
+            journal.register(gameA, 1);
+            journal.register(gameB, 2);
+
+            gameA.selectPit(3);
+            gameA.commitLastSelection();
+            gameB.selectPit(0);
+            gameB.commitLastSelection();
+            gameA.selectPit(4);
+            gameA.undoLastSelection();
+            gameA.selectPit(5);
+            gameA.commitLastSelection();
+
+            journal.awaitDurable(journal.getAppendedPosition() - 1);
+        }
+
+        Map<Long, MancalaGame> games = MoveJournal.recover(directory);
+        assertEquals(2, games.size());
+        assertSamePosition(gameA, games.get(1L));
+        assertSamePosition(gameB, games.get(2L));
+        assertEquals(Rules.OWARE, games.get(2L).getRules());
+    }
+
+    /**
+     * Tests that a reopened journal appends after the existing records.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testReopen() throws Exception
+    {
+        MancalaGame game = new MancalaGame(MancalaGame.MAX_INITIAL_STONES);
+        try(MoveJournal journal = new MoveJournal(directory))
+        {
+            journal.register(game, 7);
+            game.selectPit(0);
+            game.commitLastSelection();
+        }
+
+        MancalaGame recovered = MoveJournal.recover(directory).get(7L);
+        try(MoveJournal journal = new MoveJournal(directory))
+        {
+            journal.resume(recovered, 7);
+            recovered.selectPit(1);
+            recovered.commitLastSelection();
+        }
+
+        // The first journal is closed, so the original game plays on without journaling
+        game.selectPit(1);
+        game.commitLastSelection();
+        assertSamePosition(game, MoveJournal.recover(directory).get(7L));
+    }
+
+    /**
+     * Tests that an unregistered game stops journaling and keeps its other listeners.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testUnregister() throws Exception
+    {
+        MancalaGame game      = new MancalaGame(MancalaGame.MAX_INITIAL_STONES);
+        int[]       commits   = new int[1];
+        int[]       journaled = new int[Rules.BOARD_SIZE];
+        game.addMoveListener(new MancalaGame.MoveListener()
+        {
+            @Override
+            public void selectionCommitted(MancalaGame game, int player, int position)
+            {
+                commits[0]++;
+            }
+        });
+        try(MoveJournal journal = new MoveJournal(directory))
+        {
+            journal.register(game, 3);
+            game.selectPit(0);
+            game.commitLastSelection();
+            game.copyPosition(journaled);
+
+            journal.unregister(game);
+            game.selectPit(1);
+            game.commitLastSelection();
+        }
+
+        assertEquals(2, commits[0]);
+        assertArrayEquals(journaled, MoveJournal.recover(directory).get(3L).copyPosition(new int[Rules.BOARD_SIZE]));
+    }
+
+    private static void assertSamePosition(MancalaGame expected, MancalaGame actual)
+    {
+        assertArrayEquals(expected.copyPosition(new int[Rules.BOARD_SIZE]),
+                          actual.copyPosition(new int[Rules.BOARD_SIZE]));
+        assertEquals(expected.getCurrentPlayer(), actual.getCurrentPlayer());
+        assertEquals(expected.hasUndoAvailable(), actual.hasUndoAvailable());
+    }
+}
@@ -0,0 +1,56 @@
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for the multi-table view.
+ */
+public final class MultiTableViewTest
+{
+    /**
+     * Tests that a tick takes the latest position of every table that moved, once
+     * however many moves it made, and leaves the others alone.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testCoalescedTicks() throws Exception
+    {
+        MultiTableView view  = new MultiTableView(BoardTheme.THEME_1);
+        MancalaGame[]  games = new MancalaGame[3];
+        for(int i = 0; i < games.length; i++)
+        {
+            games[i] = new MancalaGame(4);
+            assertEquals(i, view.addTable(games[i], "Table " + i));
+        }
+        view.setSize(1280, 800);
+        view.doLayout();
+        assertEquals(3, view.tick());
+        assertEquals(0, view.tick());
+
+        int[] moves = {5, 3, 0, 1, 4};
+        for(int pit : moves)
+        {
+            if(games[0].isGameOver()) break;
+            games[0].selectPit(pit);
+            if(games[0].hasPendingCommit()) games[0].commitLastSelection();
+        }
+        games[2].selectPit(2);
+        games[2].commitLastSelection();
+
+        assertEquals(2, view.tick());
+        assertEquals(0, view.tick());
+        for(int i = 0; i < games.length; i++)
+        {
+            assertArrayEquals(games[i].copyPosition(new int[Rules.BOARD_SIZE]),
+                              view.getPosition(i, new int[Rules.BOARD_SIZE]));
+        }
+
+        // A new game on a table shows its opening position
+        games[2] = new MancalaGame(3);
+        view.setGame(2, games[2]);
+        assertEquals(1, view.tick());
+        assertArrayEquals(Rules.newBoard(3), view.getPosition(2, new int[Rules.BOARD_SIZE]));
+    }
+}
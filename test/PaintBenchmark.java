@@ -0,0 +1,77 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmarks painting a whole board, in count mode and in stone mode, over the
+ * late positions of random 4 stone games, where the mancalas hold the most
+ * stones. Every paint shows another position, so the views cannot reuse what
+ * they drew before, and the board is painted into an image the way Swing
+ * paints a window without a display.
+ * <p>
+ * Run with {@code gradle benchmark -Pbenchmark=PaintBenchmark}.
+ */
+public final class PaintBenchmark
+{
+    private static final int WIDTH     = 1280;
+    private static final int HEIGHT    = 360;
+    private static final int POSITIONS = 200;
+    // Positions from this move on count as late in the game
+    private static final int LATE_MOVE = 20;
+    private static final int PAINTS    = 5_000;
+    private static final int ROUNDS    = 5;
+
+    /**
+     * The entry point of the benchmark.
+     *
+     * @param args Command line arguments
+     */
+    public static void main(String[] args)
+    {
+        List<int[]> positions = latePositions(new Random(31));
+        Board       board     = new Board(new MancalaGame(MancalaGame.MAX_INITIAL_STONES));
+        board.setSize(WIDTH, HEIGHT);
+        board.doLayout();
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+
+        for(int round = 0; round < ROUNDS; round++)
+        {
+            for(boolean stones : new boolean[] { false, true })
+            {
+                board.setShowStones(stones);
+                long start = System.nanoTime();
+                for(int i = 0; i < PAINTS; i++)
+                {
+                    board.setPosition(positions.get(i % positions.size()));
+                    Graphics2D g2 = image.createGraphics();
+                    board.printAll(g2);
+                    g2.dispose();
+                }
+                double millis = (System.nanoTime() - start) / 1e6 / PAINTS;
+                System.out.printf("%s%s: %.3f ms per board%n", round < ROUNDS - 1 ? "(warmup) " : "",
+                                  stones ? "Stones" : "Counts", millis);
+            }
+        }
+    }
+
+    // Plays random games and keeps their positions from LATE_MOVE on
+    private static List<int[]> latePositions(Random random)
+    {
+        List<int[]> positions = new ArrayList<>();
+        while(positions.size() < POSITIONS)
+        {
+            int[] board  = Rules.newBoard(MancalaGame.MAX_INITIAL_STONES);
+            int   player = MancalaGame.PLAYER_A;
+            for(int move = 0; Rules.KALAH.finish(board, player) == -1; )
+            {
+                int result = Rules.KALAH.move(board, player, random.nextInt(MancalaGame.MAX_PITS));
+                if(result == Rules.ILLEGAL) continue;
+                if((result & Rules.EXTRA_TURN) == 0) player ^= 1;
+                if(++move >= LATE_MOVE && positions.size() < POSITIONS) positions.add(board.clone());
+            }
+        }
+        return positions;
+    }
+}
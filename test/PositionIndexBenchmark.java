@@ -0,0 +1,119 @@
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/**
+ * Benchmarks building a position index over an archive of random games and
+ * looking up positions from those games in it. The archive and the index are
+ * written to a temporary directory, which needs about 20 bytes per indexed
+ * position, and deleted at the end.
+ * <p>
+ * Run with {@code gradle benchmark -Pbenchmark=PositionIndexBenchmark}; the
+ * default of 5 million games gives about 200 million positions.
+ */
+public final class PositionIndexBenchmark
+{
+    private static final int  GAMES   = 5_000_000;
+    private static final int  LOOKUPS = 1_000_000;
+    private static final long SEED    = 50;
+
+    /**
+     * The entry point of the benchmark.
+     *
+     * @param args Command line arguments: the amount of games, optionally
+     * @throws Exception If a file cannot be written
+     */
+    public static void main(String[] args) throws Exception
+    {
+        int  games     = args.length > 0 ? Integer.parseInt(args[0]) : GAMES;
+        Path directory = Files.createTempDirectory("index-benchmark");
+        try
+        {
+            Path             archive = directory.resolve("games.txt");
+            SplittableRandom random  = new SplittableRandom(SEED);
+            try(Writer out = Files.newBufferedWriter(archive, StandardCharsets.US_ASCII))
+            {
+                for(int i = 0; i < games; i++)
+                {
+                    out.write(GameArchive.format(randomGame(random, i)));
+                    out.write('\n');
+                }
+            }
+
+            int    threads = Runtime.getRuntime().availableProcessors();
+            Path   index   = directory.resolve("games.index");
+            long   start   = System.nanoTime();
+            long   entries = PositionIndex.build(index, directory, new ForkJoinPool(threads), archive);
+            double secs    = (System.nanoTime() - start) / 1e9;
+            System.out.printf("Built %,d entries from %,d games in %.1f s, %,.0f games/s (%d threads), %,d MB%n",
+                              entries, games, secs, games / secs, threads, Files.size(index) >> 20);
+
+            // Positions from the middle of games, which few other games reach
+            random = new SplittableRandom(SEED + 1);
+            long[] codes = new long[LOOKUPS];
+            for(int i = 0; i < codes.length; i++)
+            {
+                GameRecord game   = randomGame(random, i);
+                int[]      board  = Rules.newBoard(game.getInitialStones());
+                int        player = MancalaGame.PLAYER_A;
+                for(int m = 0; m < Math.min(8, game.getMoveCount()); m++)
+                {
+                    if((Rules.KALAH.move(board, player, game.getMove(m)) & Rules.EXTRA_TURN) == 0) player ^= 1;
+                }
+                codes[i] = PositionIndex.key(Rules.KALAH, board, player);
+            }
+
+            try(PositionIndex positions = new PositionIndex(index))
+            {
+                long[] ids = new long[16];
+                for(int round = 0; round < 3; round++)
+                {
+                    long found = 0;
+                    start = System.nanoTime();
+                    for(long code : codes)
+                    {
+                        found += positions.count(code);
+                        positions.getGames(code, 0, ids);
+                    }
+                    long nanos = System.nanoTime() - start;
+                    System.out.printf("Round %d: %,d lookups, %.2f us each, %,d games found%n", round + 1,
+                                      codes.length, nanos / 1e3 / codes.length, found);
+                }
+            }
+        }
+        finally
+        {
+            try(Stream<Path> files = Files.list(directory))
+            {
+                for(Path file : (Iterable<Path>) files::iterator)
+                {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+
+    // Plays random legal moves until the game is over
+    private static GameRecord randomGame(SplittableRandom random, long id)
+    {
+        int[] moves  = new int[1000];
+        int   count  = 0;
+        int[] board  = Rules.newBoard(MancalaGame.MAX_INITIAL_STONES);
+        int   player = MancalaGame.PLAYER_A;
+        while(Rules.KALAH.finish(board, player) == -1)
+        {
+            int pit    = random.nextInt(MancalaGame.MAX_PITS);
+            int result = Rules.KALAH.move(board, player, pit);
+            if(result == Rules.ILLEGAL) continue;
+            if((result & Rules.EXTRA_TURN) == 0) player ^= 1;
+            moves[count++] = pit;
+        }
+        return new GameRecord(id, MancalaGame.MAX_INITIAL_STONES, Arrays.copyOf(moves, count));
+    }
+}
@@ -0,0 +1,203 @@
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for the position index.
+ */
+public final class PositionIndexTest
+{
+    /**
+     * Tests that every position of every game finds exactly the games reaching it,
+     * with runs small enough to need more than one merge pass and blocks small
+     * enough that positions span several of them.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testLookup() throws Exception
+    {
+        Random                   random   = new Random(50);
+        Map<Long, TreeSet<Long>> expected = new HashMap<>();
+        List<GameRecord>         games    = new ArrayList<>();
+        for(int i = 0; i < 400; i++)
+        {
+            GameRecord game = randomGame(random, i * 7 + 3);
+            games.add(game);
+
+            int[] board  = Rules.newBoard(game.getInitialStones());
+            int   player = MancalaGame.PLAYER_A;
+            expected.computeIfAbsent(PositionIndex.key(Rules.KALAH, board, player), k -> new TreeSet<>())
+                    .add(game.getId());
+            for(int m = 0; m < game.getMoveCount(); m++)
+            {
+                if((Rules.KALAH.move(board, player, game.getMove(m)) & Rules.EXTRA_TURN) == 0) player ^= 1;
+                expected.computeIfAbsent(PositionIndex.key(Rules.KALAH, board, player), k -> new TreeSet<>())
+                        .add(game.getId());
+            }
+        }
+
+        Path         directory = Files.createTempDirectory("index");
+        ForkJoinPool pool      = new ForkJoinPool(2);
+        try
+        {
+            Path archive = directory.resolve("games.txt");
+            write(archive, games);
+
+            Path index   = directory.resolve("games.index");
+            long entries = PositionIndex.build(index, directory, pool, 32, 4, archive);
+            assertEquals(expected.values().stream().mapToLong(TreeSet::size).sum(), entries);
+            // Only the index is left
+            try(Stream<Path> files = Files.list(directory))
+            {
+                assertEquals(2, files.count());
+            }
+
+            try(PositionIndex positions = new PositionIndex(index))
+            {
+                assertEquals(entries, positions.getEntryCount());
+                for(Map.Entry<Long, TreeSet<Long>> entry : expected.entrySet())
+                {
+                    long[] ids = entry.getValue().stream().mapToLong(Long::longValue).toArray();
+                    assertEquals(ids.length, positions.count(entry.getKey()));
+
+                    long[] found = new long[ids.length + 1];
+                    assertEquals(ids.length, positions.getGames(entry.getKey(), 0, found));
+                    assertArrayEquals(ids, Arrays.copyOf(found, ids.length));
+
+                    // Paging through the ids
+                    if(ids.length > 2)
+                    {
+                        long[] page = new long[2];
+                        assertEquals(2, positions.getGames(entry.getKey(), 1, page));
+                        assertArrayEquals(Arrays.copyOfRange(ids, 1, 3), page);
+                    }
+
+                    // Codes next to an indexed one are usually missing
+                    for(long code : new long[] { entry.getKey() - 2, entry.getKey() + 2 })
+                    {
+                        TreeSet<Long> reached = expected.get(code);
+                        assertEquals(reached == null ? 0 : reached.size(), positions.count(code));
+                    }
+                }
+                assertEquals(0, positions.count(0));
+                assertEquals(0, positions.count(Long.MAX_VALUE - 1));
+            }
+
+            // A game with an illegal move fails the build, as does one moving from a
+            // store, even one holding a stone after an extra turn, or off the board
+            int[][] illegal = { { 0, 6 }, { 2, 6 }, { 2, 40 } };
+            for(int[] moves : illegal)
+            {
+                write(archive, Arrays.asList(new GameRecord(1, 4, moves)));
+                try
+                {
+                    PositionIndex.build(index, directory, pool, archive);
+                    fail("Expected an IOException");
+                }
+                catch(IOException e)
+                {
+                    assertTrue(e.getMessage().contains("Illegal move 1"));
+                }
+            }
+        }
+        finally
+        {
+            pool.shutdown();
+            delete(directory);
+        }
+    }
+
+    /**
+     * Tests that the external sorter orders the index's (code, id) records by code
+     * and then id.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testSort() throws Exception
+    {
+        Random random = new Random(5);
+        for(int size : new int[] { 0, 1, 2, 17, 1000, 20000 })
+        {
+            long[]   entries = new long[2 * size];
+            long[][] pairs   = new long[size][];
+            for(int i = 0; i < size; i++)
+            {
+                // Few distinct codes, so that ids decide many comparisons, and sorted
+                // stretches, as games replayed one after the other give
+                entries[2 * i] = i % 3 == 0 ? i : random.nextInt(50);
+                entries[2 * i + 1] = random.nextInt(10);
+                pairs[i] = new long[] { entries[2 * i], entries[2 * i + 1] };
+            }
+            ExternalSorter.sort(entries, 2, 0, size);
+            Arrays.sort(pairs, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+            for(int i = 0; i < size; i++)
+            {
+                assertEquals(pairs[i][0], entries[2 * i]);
+                assertEquals(pairs[i][1], entries[2 * i + 1]);
+            }
+        }
+    }
+
+    // Plays random legal moves until the game is over
+    private static GameRecord randomGame(Random random, long id)
+    {
+        int   stones = random.nextBoolean() ? MancalaGame.MIN_INITIAL_STONES : MancalaGame.MAX_INITIAL_STONES;
+        int[] moves  = new int[1000];
+        int   count  = 0;
+        int[] board  = Rules.newBoard(stones);
+        int   player = MancalaGame.PLAYER_A;
+        while(Rules.KALAH.finish(board, player) == -1)
+        {
+            int pit    = random.nextInt(MancalaGame.MAX_PITS);
+            int result = Rules.KALAH.move(board, player, pit);
+            if(result == Rules.ILLEGAL) continue;
+            if((result & Rules.EXTRA_TURN) == 0) player ^= 1;
+            moves[count++] = pit;
+        }
+        return new GameRecord(id, stones, Arrays.copyOf(moves, count));
+    }
+
+    private static void write(Path archive, List<GameRecord> games) throws IOException
+    {
+        try(Writer out = Files.newBufferedWriter(archive, StandardCharsets.US_ASCII))
+        {
+            for(GameRecord game : games)
+            {
+                out.write(GameArchive.format(game));
+                out.write('\n');
+            }
+        }
+    }
+
+    private static void delete(Path directory) throws Exception
+    {
+        try(Stream<Path> files = Files.list(directory))
+        {
+            for(Path file : (Iterable<Path>) files::iterator)
+            {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+}
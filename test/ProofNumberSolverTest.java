@@ -0,0 +1,136 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the position codec and the proof-number solver.
+ */
+public final class ProofNumberSolverTest
+{
+    private Path file;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        file = Files.createTempFile("proof", ".pns");
+        Files.delete(file);
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Tests that positions reached in random games decode to themselves.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testCodecRoundTrip() throws Exception
+    {
+        Random random  = new Random(7);
+        int[]  decoded = new int[Rules.BOARD_SIZE];
+        for(int game = 0; game < 200; game++)
+        {
+            int[] board  = Rules.newBoard(MancalaGame.MAX_INITIAL_STONES);
+            int   player = MancalaGame.PLAYER_A;
+            while(Rules.KALAH.finish(board, player) == -1)
+            {
+                long code = PositionCodec.encode(board, player);
+                assertEquals(player, PositionCodec.decode(code, decoded));
+                assertArrayEquals(board, decoded);
+                assertNotEquals(code, PositionCodec.encode(board, player ^ 1));
+
+                int result = Rules.KALAH.move(board, player, random.nextInt(MancalaGame.MAX_PITS));
+                if(result != Rules.ILLEGAL && (result & Rules.EXTRA_TURN) == 0) player ^= 1;
+            }
+        }
+    }
+
+    /**
+     * Tests the solver against plain minimax on a game small enough for both,
+     * and that the table resumes with the solved value.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testSolveSmallGame() throws Exception
+    {
+        int[] board    = Rules.newBoard(1);
+        boolean aWins  = minimax(board, MancalaGame.PLAYER_A);
+
+        try(ProofTable table = new ProofTable(file, 1 << 20))
+        {
+            ProofNumberSolver solver = new ProofNumberSolver(table);
+            assertEquals(aWins, solver.solve(1));
+
+            // The principal variation has to end the game with the solved outcome
+            int player = MancalaGame.PLAYER_A;
+            for(int move : solver.getPrincipalVariation(1))
+            {
+                int result = Rules.KALAH.move(board, player, move);
+                assertNotEquals(Rules.ILLEGAL, result);
+                if((result & Rules.EXTRA_TURN) == 0) player ^= 1;
+            }
+            int winner = Rules.KALAH.finish(board, player);
+            assertEquals(aWins ? MancalaGame.PLAYER_A : MancalaGame.PLAYER_B, winner);
+        }
+
+        try(ProofTable table = new ProofTable(file, 0))
+        {
+            assertTrue(table.getSolved() > 0);
+            ProofNumberSolver solver = new ProofNumberSolver(table);
+            assertEquals(aWins, solver.solve(1));
+            assertEquals(0, solver.getNodes());
+        }
+    }
+
+    /**
+     * Tests that a table too small to hold every position still gives the minimax
+     * value, as positions that end the game are settled again when the search
+     * reaches them after their entries were evicted.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testSolveSmallTable() throws Exception
+    {
+        boolean aWins = minimax(Rules.newBoard(1), MancalaGame.PLAYER_A);
+        try(ProofTable table = new ProofTable(file, 1 << 14))
+        {
+            ProofNumberSolver solver = new ProofNumberSolver(table);
+            assertEquals(aWins, solver.solve(1));
+            assertTrue(solver.getNodes() > table.getCapacity());
+        }
+    }
+
+    private static boolean minimax(int[] board, int player)
+    {
+        int[] copy = board.clone();
+        int winner = Rules.KALAH.finish(copy, player);
+        if(winner != -1) return winner == MancalaGame.PLAYER_A;
+
+        for(int i = 0; i < MancalaGame.MAX_PITS; i++)
+        {
+            int[] child  = board.clone();
+            int   result = Rules.KALAH.move(child, player, i);
+            if(result == Rules.ILLEGAL) continue;
+
+            int     next  = (result & Rules.EXTRA_TURN) != 0 ? player : player ^ 1;
+            boolean aWins = minimax(child, next);
+            if(aWins == (player == MancalaGame.PLAYER_A)) return aWins;
+        }
+        return player != MancalaGame.PLAYER_A;
+    }
+}
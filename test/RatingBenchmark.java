@@ -0,0 +1,67 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Benchmarks rating a long history of results between players of hidden
+ * strengths, adding every result and ending a rating period every million.
+ * <p>
+ * Run with {@code gradle benchmark -Pbenchmark=RatingBenchmark}.
+ */
+public final class RatingBenchmark
+{
+    private static final int  PLAYERS = 1_000_000;
+    private static final int  GAMES   = 20_000_000;
+    private static final int  PERIOD  = 1_000_000;
+    private static final int  ROUNDS  = 3;
+    private static final long SEED    = 44;
+
+    /**
+     * The entry point of the benchmark.
+     *
+     * @param args Command line arguments
+     * @throws Exception If a worker fails
+     */
+    public static void main(String[] args) throws Exception
+    {
+        int             threads = Runtime.getRuntime().availableProcessors();
+        ExecutorService pool    = Executors.newFixedThreadPool(threads);
+        try
+        {
+            for(int round = 0; round < ROUNDS; round++)
+            {
+                SplittableRandom random = new SplittableRandom(SEED);
+                RatingEngine     engine = new RatingEngine(pool, threads);
+                long             start  = System.nanoTime();
+                long             rating = 0;
+                for(int i = 0; i < GAMES; i++)
+                {
+                    // The higher a player's number, the stronger the player
+                    int a      = random.nextInt(PLAYERS);
+                    int b      = (a + 1 + random.nextInt(PLAYERS - 1)) % PLAYERS;
+                    int winner = random.nextInt(PLAYERS * 2) < PLAYERS + a - b ? MancalaGame.PLAYER_A
+                                                                               : MancalaGame.PLAYER_B;
+                    engine.addResult(a, b, winner);
+                    if(engine.getPendingResults() == PERIOD)
+                    {
+                        long periodStart = System.nanoTime();
+                        engine.endPeriod();
+                        rating += System.nanoTime() - periodStart;
+                    }
+                }
+                long nanos = System.nanoTime() - start;
+                if(round < ROUNDS - 1) continue;
+
+                System.out.printf("%,d games, %,d players: %.2f s, %,.0f games/s, %.0f%% in period updates " +
+                                  "(%d threads)%n", GAMES, PLAYERS, nanos / 1e9, GAMES * 1e9 / nanos,
+                                  rating * 100.0 / nanos, threads);
+                System.out.printf("100M games would take about %.0f s (checksum %.3f)%n",
+                                  nanos / 1e9 * 100_000_000 / GAMES, engine.getRating(PLAYERS - 1));
+            }
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+}
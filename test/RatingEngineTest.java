@@ -0,0 +1,114 @@
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the rating engine.
+ */
+public final class RatingEngineTest
+{
+    /**
+     * Tests the Elo update of one game and the Glicko-2 update of the worked example
+     * in Glickman's description of the system.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testRatings() throws Exception
+    {
+        RatingEngine engine = new RatingEngine(null, 1);
+        engine.addResult(0, 1, MancalaGame.PLAYER_A);
+        assertEquals(1512, engine.getElo(0), 1e-9);
+        assertEquals(1488, engine.getElo(1), 1e-9);
+
+        engine = new RatingEngine(null, 1);
+        engine.setRating(0, 1500, 200, 0.06);
+        engine.setRating(1, 1400, 30, 0.06);
+        engine.setRating(2, 1550, 100, 0.06);
+        engine.setRating(3, 1700, 300, 0.06);
+        engine.addResult(0, 1, MancalaGame.PLAYER_A);
+        engine.addResult(2, 0, MancalaGame.PLAYER_A);
+        engine.addResult(0, 3, MancalaGame.PLAYER_B);
+        assertEquals(3, engine.getPendingResults());
+        engine.endPeriod();
+
+        assertEquals(1464.06, engine.getRating(0), 0.01);
+        assertEquals(151.52, engine.getDeviation(0), 0.01);
+        assertEquals(0.05999, engine.getVolatility(0), 1e-5);
+        assertEquals(3, engine.getGamesRated(0));
+        assertEquals(0, engine.getPendingResults());
+    }
+
+    /**
+     * Tests that parallel periods and rating a results file give the same ratings as
+     * adding the results one by one on one thread, and that better players end up
+     * rated higher.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testParallelFile() throws Exception
+    {
+        int             players = 20_000;
+        int             games   = 200_000;
+        int             period  = 50_000;
+        ExecutorService pool    = Executors.newFixedThreadPool(4);
+        Path            file    = Files.createTempFile("ratings", ".bin");
+        try
+        {
+            RatingEngine serial   = new RatingEngine(null, 1);
+            Random       random   = new Random(44);
+            ByteBuffer   buffer   = ByteBuffer.allocate(games * 9);
+            for(int i = 0; i < games; i++)
+            {
+                // A player's strength is its number, so higher numbers should win more often
+                int    a      = random.nextInt(players);
+                int    b      = (a + 1 + random.nextInt(players - 1)) % players;
+                double chance = 1 / (1 + Math.exp((b - a) * 4.0 / players));
+                int    winner = random.nextDouble() < chance ? MancalaGame.PLAYER_A : MancalaGame.PLAYER_B;
+                serial.addResult(a, b, winner);
+                RatingEngine.write(buffer, a, b, winner);
+                if(serial.getPendingResults() == period) serial.endPeriod();
+            }
+            buffer.flip();
+            try(FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE))
+            {
+                channel.write(buffer);
+            }
+
+            RatingEngine parallel = new RatingEngine(pool, 4);
+            parallel.rate(file, period);
+            assertEquals(players, parallel.getPlayers());
+            for(int p = 0; p < players; p++)
+            {
+                assertEquals(serial.getRating(p), parallel.getRating(p), 0);
+                assertEquals(serial.getDeviation(p), parallel.getDeviation(p), 0);
+                assertEquals(serial.getElo(p), parallel.getElo(p), 0);
+            }
+
+            double low  = 0;
+            double high = 0;
+            for(int p = 0; p < 1000; p++)
+            {
+                low += parallel.getRating(p);
+                high += parallel.getRating(players - 1 - p);
+            }
+            assertTrue(high > low + 1000 * 200);
+        }
+        finally
+        {
+            pool.shutdown();
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the engine protocol and the referee.
+ */
+public final class RefereeTest
+{
+    /**
+     * Tests that the reference engine answers pipelined commands in order.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testEngineCommands() throws Exception
+    {
+        String commands = "newgame 4 0\n" +
+                          "position 2\n" +
+                          "isready\n" +
+                          "go 100\n" +
+                          "position 2 5 0\n" +
+                          "go 100\n" +
+                          "quit\n" +
+                          "go 100\n";
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new EngineMain(EngineMain.DEFAULT_MAX_DEPTH, new PrintStream(bytes, true, "UTF-8"))
+                .run(new BufferedReader(new StringReader(commands)));
+
+        String[] replies = new String(bytes.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, replies.length);
+        assertEquals(EngineProtocol.READY_OK, replies[0]);
+        for(int i = 1; i < replies.length; i++)
+        {
+            String[] tokens = EngineProtocol.tokens(replies[i]);
+            assertEquals(EngineProtocol.BEST_MOVE, tokens[0]);
+            int pit = Integer.parseInt(tokens[1]);
+            assertTrue(pit >= 0 && pit < MancalaGame.MAX_PITS);
+        }
+    }
+
+    /**
+     * Tests a whole game between two engine processes, replaying the recorded moves
+     * to check the result.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testGame() throws Exception
+    {
+        Referee referee = new Referee(MancalaGame.MIN_INITIAL_STONES, Rules.KALAH, 50);
+        try(EngineProcess first = new EngineProcess(java("EngineMain", "-depth", "4"));
+            EngineProcess second = new EngineProcess(java("EngineMain", "-depth", "2")))
+        {
+            Referee.Result result = referee.play(7, first, second);
+            assertNull(result.getForfeit());
+            assertEquals(7, result.getRecord().getId());
+
+            MancalaGame game = new MancalaGame(MancalaGame.MIN_INITIAL_STONES);
+            for(int i = 0; i < result.getRecord().getMoveCount(); i++)
+            {
+                game.selectPit(result.getRecord().getMove(i));
+                game.commitLastSelection();
+            }
+            assertTrue(game.isGameOver());
+            int a = game.getMancalaModel(MancalaGame.PLAYER_A).getStones();
+            int b = game.getMancalaModel(MancalaGame.PLAYER_B).getStones();
+            assertEquals(a == b ? -1 : game.getWinningPlayer(), result.getWinner());
+        }
+    }
+
+    /**
+     * Tests that an engine that never answers loses on time.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testTimeout() throws Exception
+    {
+        Referee referee = new Referee(MancalaGame.MIN_INITIAL_STONES, Rules.KALAH, 50);
+        try(EngineProcess first = new EngineProcess(java("RefereeTest$IdleEngine"));
+            EngineProcess second = new EngineProcess(java("EngineMain")))
+        {
+            long           start  = System.nanoTime();
+            Referee.Result result = referee.play(0, first, second);
+            assertEquals(MancalaGame.PLAYER_B, result.getWinner());
+            assertEquals("no move in time", result.getForfeit());
+            assertArrayEquals(new int[0], toArray(result));
+            assertTrue(System.nanoTime() - start < 5_000_000_000L);
+        }
+    }
+
+    /**
+     * Tests that an engine that is not ready loses, and that the other engine's
+     * readyok is consumed rather than left for its next game.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testNotReady() throws Exception
+    {
+        Referee referee = new Referee(MancalaGame.MIN_INITIAL_STONES, Rules.KALAH, 50);
+        try(EngineProcess first = new EngineProcess(java("RefereeTest$ExitingEngine"));
+            EngineProcess second = new EngineProcess(java("EngineMain")))
+        {
+            Referee.Result result = referee.play(0, first, second);
+            assertEquals(MancalaGame.PLAYER_B, result.getWinner());
+            assertEquals("not ready", result.getForfeit());
+
+            // The only readyok left is the one for this isready
+            second.send(EngineProtocol.IS_READY);
+            assertNotNull(second.await(EngineProtocol.READY_OK, 10_000));
+            assertNull(second.await(EngineProtocol.READY_OK, 500));
+        }
+    }
+
+    private static int[] toArray(Referee.Result result)
+    {
+        int[] moves = new int[result.getRecord().getMoveCount()];
+        for(int i = 0; i < moves.length; i++)
+        {
+            moves[i] = result.getRecord().getMove(i);
+        }
+        return moves;
+    }
+
+    private static List<String> java(String... mainAndArgs)
+    {
+        String   java    = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        String[] command = new String[mainAndArgs.length + 3];
+        command[0] = java;
+        command[1] = "-cp";
+        command[2] = System.getProperty("java.class.path");
+        System.arraycopy(mainAndArgs, 0, command, 3, mainAndArgs.length);
+        return Arrays.asList(command);
+    }
+
+    /**
+     * An engine that is always ready and never moves.
+     */
+    public static final class IdleEngine
+    {
+        /**
+         * Answers every {@code isready} until the input ends.
+         *
+         * @param args Command line arguments
+         * @throws Exception If the input cannot be read
+         */
+        public static void main(String[] args) throws Exception
+        {
+            BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+            String         line;
+            while((line = in.readLine()) != null)
+            {
+                if(line.equals(EngineProtocol.IS_READY)) System.out.println(EngineProtocol.READY_OK);
+            }
+        }
+    }
+
+    /**
+     * An engine that exits right away.
+     */
+    public static final class ExitingEngine
+    {
+        /**
+         * Exits without reading any command.
+         *
+         * @param args Command line arguments
+         */
+        public static void main(String[] args)
+        {
+        }
+    }
+}
@@ -0,0 +1,121 @@
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for the replay and its view.
+ */
+public final class ReplayTest
+{
+    /**
+     * Tests that seeking in any order, across keyframes and between them, gives the
+     * positions of playing the game straight through.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testSeek() throws Exception
+    {
+        Random random = new Random(48);
+        for(int interval : new int[] { 1, 3, 8, 1000 })
+        {
+            GameRecord game     = randomGame(random);
+            int[][]    expected = new int[game.getMoveCount() + 1][];
+            int[]      players  = new int[game.getMoveCount() + 1];
+            int[]      board    = Rules.newBoard(game.getInitialStones());
+            int        player   = MancalaGame.PLAYER_A;
+            expected[0] = board.clone();
+            for(int i = 0; i < game.getMoveCount(); i++)
+            {
+                if((Rules.KALAH.move(board, player, game.getMove(i)) & Rules.EXTRA_TURN) == 0) player ^= 1;
+                Rules.KALAH.finish(board, player);
+                expected[i + 1] = board.clone();
+                players[i + 1] = player;
+            }
+
+            Replay replay   = new Replay(game, Rules.KALAH, interval);
+            int[]  position = new int[Rules.BOARD_SIZE];
+            assertEquals(0, replay.getMoveNumber());
+            for(int seek = 0; seek < 200; seek++)
+            {
+                int move = seek < 2 ? seek * game.getMoveCount() : random.nextInt(game.getMoveCount() + 1);
+                replay.seek(move);
+                assertEquals(move, replay.getMoveNumber());
+                assertEquals(players[move], replay.getCurrentPlayer());
+                assertArrayEquals(expected[move], replay.getPosition(position));
+            }
+        }
+    }
+
+    /**
+     * Tests that the slider seeks the replay and that another game reuses the board.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testView() throws Exception
+    {
+        Random     random = new Random(7);
+        ReplayView view   = new ReplayView(new Replay(randomGame(random)));
+        Board      board  = view.getBoard();
+
+        view.getSlider().setValue(5);
+        assertEquals(5, view.getReplay().getMoveNumber());
+
+        GameRecord other = randomGame(random);
+        view.setReplay(new Replay(other));
+        assertEquals(board, view.getBoard());
+        assertEquals(other.getMoveCount(), view.getSlider().getMaximum());
+        view.getSlider().setValue(other.getMoveCount());
+        assertEquals(other.getMoveCount(), view.getReplay().getMoveNumber());
+    }
+
+    /**
+     * Tests that moves outside the pits are rejected, including a store holding
+     * stones after an extra turn.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testMoveOutOfRange() throws Exception
+    {
+        GameRecord[] games = { GameArchive.parse("1 4 2 6"), GameArchive.parse("2 4 2 40"),
+                               new GameRecord(3, 4, new int[] { -1 }) };
+        for(GameRecord game : games)
+        {
+            try
+            {
+                new Replay(game);
+                fail("Loaded game " + game.getId());
+            }
+            catch(IllegalArgumentException e)
+            {
+                assertTrue(e.getMessage().startsWith("Illegal move"));
+            }
+        }
+    }
+
+    // Plays random legal moves until the game is over
+    private static GameRecord randomGame(Random random)
+    {
+        int[] moves  = new int[1000];
+        int   count  = 0;
+        int[] board  = Rules.newBoard(MancalaGame.MAX_INITIAL_STONES);
+        int   player = MancalaGame.PLAYER_A;
+        while(Rules.KALAH.finish(board, player) == -1)
+        {
+            int pit    = random.nextInt(MancalaGame.MAX_PITS);
+            int result = Rules.KALAH.move(board, player, pit);
+            if(result == Rules.ILLEGAL) continue;
+            if((result & Rules.EXTRA_TURN) == 0) player ^= 1;
+            moves[count++] = pit;
+        }
+        return new GameRecord(count, MancalaGame.MAX_INITIAL_STONES, Arrays.copyOf(moves, count));
+    }
+}
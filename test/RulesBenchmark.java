@@ -0,0 +1,414 @@
+/**
+ * Benchmarks the rule engines. Every variant is timed three times: through a
+ * {@code Rules} reference that has seen all variants, the way {@code MancalaGame}
+ * calls it, through a call site of its concrete class, which shows what the
+ * shared interface costs, and as a hand-written loop over the board array that
+ * shares no code with the engines, the baseline a separately written engine would
+ * reach. The hand-written loops play the same random pits as the engines, and the
+ * benchmark fails if they make a different amount of moves. The object based game
+ * is timed as well to show what replaying through the data models costs.
+ * <p>
+ * Run with {@code gradle benchmark}.
+ */
+public final class RulesBenchmark
+{
+    private static final int  GAMES  = 200_000;
+    private static final int  ROUNDS = 5;
+    private static final long SEED   = 0x5DEECE66DL;
+
+    /**
+     * The entry point of the benchmark.
+     *
+     * @param args Command line arguments
+     */
+    public static void main(String[] args)
+    {
+        Rules[] variants = {Rules.KALAH, Rules.KALAH_STRICT_CAPTURE, Rules.OWARE};
+
+        for(int round = 0; round < ROUNDS; round++)
+        {
+            boolean warmup = round < ROUNDS - 1;
+            for(Rules rules : variants)
+            {
+                long start = System.nanoTime();
+                long moves = playGames(rules, GAMES, SEED);
+                report(warmup, rules.getName() + " (engine)", moves, System.nanoTime() - start);
+            }
+
+            long start = System.nanoTime();
+            long moves = playKalah((KalahRules) Rules.KALAH, GAMES, SEED);
+            report(warmup, "Kalah (concrete call site)", moves, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            long handWritten = playKalahHandWritten(GAMES, SEED);
+            report(warmup, "Kalah (hand-written)", handWritten, System.nanoTime() - start);
+            // The same random pits only give the same games if both play by the same rules
+            if(handWritten != moves) throw new IllegalStateException("The hand-written Kalah disagrees with the engine");
+
+            start = System.nanoTime();
+            moves = playStrictCapture((StrictCaptureRules) Rules.KALAH_STRICT_CAPTURE, GAMES, SEED);
+            report(warmup, "Kalah (strict capture) (concrete call site)", moves, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            handWritten = playStrictCaptureHandWritten(GAMES, SEED);
+            report(warmup, "Kalah (strict capture) (hand-written)", handWritten, System.nanoTime() - start);
+            if(handWritten != moves)
+            {
+                throw new IllegalStateException("The hand-written strict capture Kalah disagrees with the engine");
+            }
+
+            start = System.nanoTime();
+            moves = playOware((OwareRules) Rules.OWARE, GAMES, SEED);
+            report(warmup, "Oware (concrete call site)", moves, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            handWritten = playOwareHandWritten(GAMES, SEED);
+            report(warmup, "Oware (hand-written)", handWritten, System.nanoTime() - start);
+            if(handWritten != moves) throw new IllegalStateException("The hand-written Oware disagrees with the engine");
+
+            start = System.nanoTime();
+            moves = playModels(GAMES / 10, SEED);
+            report(warmup, "MancalaGame", moves, System.nanoTime() - start);
+        }
+    }
+
+    private static void report(boolean warmup, String name, long moves, long nanos)
+    {
+        if(warmup) return;
+        System.out.printf("%-45s %8.1f ns/move %12d moves%n", name, (double) nanos / moves, moves);
+    }
+
+    private static long playGames(Rules rules, int games, long seed)
+    {
+        int[] board = new int[Rules.BOARD_SIZE];
+        long  moves = 0;
+        long  x     = seed;
+        for(int g = 0; g < games; g++)
+        {
+            reset(board);
+            int player = MancalaGame.PLAYER_A;
+            do
+            {
+                x ^= x << 13;
+                x ^= x >>> 7;
+                x ^= x << 17;
+                int result = rules.move(board, player, (int) ((x >>> 33) % MancalaGame.MAX_PITS));
+                if(result == Rules.ILLEGAL) continue;
+
+                moves++;
+                if((result & Rules.EXTRA_TURN) == 0) player ^= 1;
+            }
+            while(rules.finish(board, player) == -1);
+        }
+        return moves;
+    }
+
+    private static long playKalah(KalahRules rules, int games, long seed)
+    {
+        int[] board = new int[Rules.BOARD_SIZE];
+        long  moves = 0;
+        long  x     = seed;
+        for(int g = 0; g < games; g++)
+        {
+            reset(board);
+            int player = MancalaGame.PLAYER_A;
+            do
+            {
+                x ^= x << 13;
+                x ^= x >>> 7;
+                x ^= x << 17;
+                int result = rules.move(board, player, (int) ((x >>> 33) % MancalaGame.MAX_PITS));
+                if(result == Rules.ILLEGAL) continue;
+
+                moves++;
+                if((result & Rules.EXTRA_TURN) == 0) player ^= 1;
+            }
+            while(rules.finish(board, player) == -1);
+        }
+        return moves;
+    }
+
+    // Kalah written out over the board array, sowing one pit at a time
+    private static long playKalahHandWritten(int games, long seed)
+    {
+        int[] board = new int[Rules.BOARD_SIZE];
+        long  moves = 0;
+        long  x     = seed;
+        for(int g = 0; g < games; g++)
+        {
+            reset(board);
+            int player = MancalaGame.PLAYER_A;
+            while(true)
+            {
+                x ^= x << 13;
+                x ^= x >>> 7;
+                x ^= x << 17;
+                int first  = player * 7;
+                int store  = first + 6;
+                int pit    = first + (int) ((x >>> 33) % MancalaGame.MAX_PITS);
+                int stones = board[pit];
+                if(stones != 0)
+                {
+                    moves++;
+                    board[pit] = 0;
+                    // The opponent's store is skipped
+                    int skip = 13 - first;
+                    while(stones > 0)
+                    {
+                        pit = pit == 13 ? 0 : pit + 1;
+                        if(pit == skip) continue;
+                        board[pit]++;
+                        stones--;
+                    }
+
+                    if(pit != store)
+                    {
+                        // Landing in an empty pit of one's own captures the opposite pit
+                        if(pit >= first && pit < store && board[pit] == 1)
+                        {
+                            board[store] += board[12 - pit] + 1;
+                            board[12 - pit] = 0;
+                            board[pit] = 0;
+                        }
+                        player ^= 1;
+                    }
+                }
+
+                int a = board[0] + board[1] + board[2] + board[3] + board[4] + board[5];
+                int b = board[7] + board[8] + board[9] + board[10] + board[11] + board[12];
+                if(a != 0 && b != 0) continue;
+
+                // Either row is empty, so both players collect what is left on their side
+                board[6] += a;
+                board[13] += b;
+                for(int i = 0; i < MancalaGame.MAX_PITS; i++)
+                {
+                    board[i] = 0;
+                    board[7 + i] = 0;
+                }
+                break;
+            }
+        }
+        return moves;
+    }
+
+    private static long playStrictCapture(StrictCaptureRules rules, int games, long seed)
+    {
+        int[] board = new int[Rules.BOARD_SIZE];
+        long  moves = 0;
+        long  x     = seed;
+        for(int g = 0; g < games; g++)
+        {
+            reset(board);
+            int player = MancalaGame.PLAYER_A;
+            do
+            {
+                x ^= x << 13;
+                x ^= x >>> 7;
+                x ^= x << 17;
+                int result = rules.move(board, player, (int) ((x >>> 33) % MancalaGame.MAX_PITS));
+                if(result == Rules.ILLEGAL) continue;
+
+                moves++;
+                if((result & Rules.EXTRA_TURN) == 0) player ^= 1;
+            }
+            while(rules.finish(board, player) == -1);
+        }
+        return moves;
+    }
+
+    // Kalah with strict captures written out the same way
+    private static long playStrictCaptureHandWritten(int games, long seed)
+    {
+        int[] board = new int[Rules.BOARD_SIZE];
+        long  moves = 0;
+        long  x     = seed;
+        for(int g = 0; g < games; g++)
+        {
+            reset(board);
+            int player = MancalaGame.PLAYER_A;
+            while(true)
+            {
+                x ^= x << 13;
+                x ^= x >>> 7;
+                x ^= x << 17;
+                int first  = player * 7;
+                int store  = first + 6;
+                int pit    = first + (int) ((x >>> 33) % MancalaGame.MAX_PITS);
+                int stones = board[pit];
+                if(stones != 0)
+                {
+                    moves++;
+                    board[pit] = 0;
+                    // The opponent's store is skipped
+                    int skip = 13 - first;
+                    while(stones > 0)
+                    {
+                        pit = pit == 13 ? 0 : pit + 1;
+                        if(pit == skip) continue;
+                        board[pit]++;
+                        stones--;
+                    }
+
+                    if(pit != store)
+                    {
+                        // Landing in an empty pit of one's own only captures a pit holding stones
+                        if(pit >= first && pit < store && board[pit] == 1 && board[12 - pit] != 0)
+                        {
+                            board[store] += board[12 - pit] + 1;
+                            board[12 - pit] = 0;
+                            board[pit] = 0;
+                        }
+                        player ^= 1;
+                    }
+                }
+
+                int a = board[0] + board[1] + board[2] + board[3] + board[4] + board[5];
+                int b = board[7] + board[8] + board[9] + board[10] + board[11] + board[12];
+                if(a != 0 && b != 0) continue;
+
+                board[6] += a;
+                board[13] += b;
+                for(int i = 0; i < MancalaGame.MAX_PITS; i++)
+                {
+                    board[i] = 0;
+                    board[7 + i] = 0;
+                }
+                break;
+            }
+        }
+        return moves;
+    }
+
+    private static long playOware(OwareRules rules, int games, long seed)
+    {
+        int[] board = new int[Rules.BOARD_SIZE];
+        long  moves = 0;
+        long  x     = seed;
+        for(int g = 0; g < games; g++)
+        {
+            reset(board);
+            int player = MancalaGame.PLAYER_A;
+            do
+            {
+                x ^= x << 13;
+                x ^= x >>> 7;
+                x ^= x << 17;
+                int result = rules.move(board, player, (int) ((x >>> 33) % MancalaGame.MAX_PITS));
+                if(result == Rules.ILLEGAL) continue;
+
+                moves++;
+                if((result & Rules.EXTRA_TURN) == 0) player ^= 1;
+            }
+            while(rules.finish(board, player) == -1);
+        }
+        return moves;
+    }
+
+    // Oware written out over the board array, sowing around the twelve pits
+    private static long playOwareHandWritten(int games, long seed)
+    {
+        int[] board = new int[Rules.BOARD_SIZE];
+        int   total = 2 * MancalaGame.MAX_PITS * MancalaGame.MAX_INITIAL_STONES;
+        long  moves = 0;
+        long  x     = seed;
+        for(int g = 0; g < games; g++)
+        {
+            reset(board);
+            int player = MancalaGame.PLAYER_A;
+            while(true)
+            {
+                x ^= x << 13;
+                x ^= x >>> 7;
+                x ^= x << 17;
+                int origin = player * 7 + (int) ((x >>> 33) % MancalaGame.MAX_PITS);
+                int stones = board[origin];
+                if(stones != 0)
+                {
+                    moves++;
+                    board[origin] = 0;
+                    // Both stores and the emptied pit are skipped
+                    int pit = origin;
+                    while(stones > 0)
+                    {
+                        pit = pit == 5 ? 7 : pit == 12 ? 0 : pit + 1;
+                        if(pit == origin) continue;
+                        board[pit]++;
+                        stones--;
+                    }
+
+                    // Pits of two or three stones on the opponent's row are captured
+                    // back from the last one, unless that takes all of the opponent's stones
+                    int base = 7 - player * 7;
+                    if(pit >= base && pit < base + 6)
+                    {
+                        int captured = 0;
+                        int last     = pit;
+                        for(; last >= base && (board[last] == 2 || board[last] == 3); last--)
+                        {
+                            captured += board[last];
+                        }
+                        int remaining = board[base] + board[base + 1] + board[base + 2] + board[base + 3] +
+                                        board[base + 4] + board[base + 5];
+                        if(captured != 0 && captured != remaining)
+                        {
+                            for(int i = pit; i > last; i--)
+                            {
+                                board[i] = 0;
+                            }
+                            board[player * 7 + 6] += captured;
+                        }
+                    }
+                    player ^= 1;
+                }
+
+                // The game goes on while the player to move has stones and neither
+                // player has captured more than half
+                int own = player * 7;
+                int row = board[own] + board[own + 1] + board[own + 2] + board[own + 3] + board[own + 4] +
+                          board[own + 5];
+                if(row != 0 && board[6] * 2 <= total && board[13] * 2 <= total) continue;
+
+                for(int i = 0; i < MancalaGame.MAX_PITS; i++)
+                {
+                    board[6] += board[i];
+                    board[13] += board[7 + i];
+                    board[i] = 0;
+                    board[7 + i] = 0;
+                }
+                break;
+            }
+        }
+        return moves;
+    }
+
+    private static long playModels(int games, long seed)
+    {
+        long moves = 0;
+        long x     = seed;
+        for(int g = 0; g < games; g++)
+        {
+            MancalaGame game = new MancalaGame(MancalaGame.MAX_INITIAL_STONES);
+            while(!game.isGameOver())
+            {
+                x ^= x << 13;
+                x ^= x >>> 7;
+                x ^= x << 17;
+                game.selectPit((int) ((x >>> 33) % MancalaGame.MAX_PITS));
+                if(!game.hasPendingCommit()) continue;
+
+                moves++;
+                game.commitLastSelection();
+            }
+        }
+        return moves;
+    }
+
+    private static void reset(int[] board)
+    {
+        for(int i = 0; i < Rules.BOARD_SIZE; i++)
+        {
+            board[i] = i % (MancalaGame.MAX_PITS + 1) == MancalaGame.MAX_PITS ? 0 : MancalaGame.MAX_INITIAL_STONES;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for the rule variants.
+ */
+public final class RulesTest
+{
+    /**
+     * Tests that the Kalah engine reports extra turns.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testKalahExtraTurn() throws Exception
+    {
+        int[] board = Rules.newBoard(MancalaGame.MAX_INITIAL_STONES);
+        assertEquals(Rules.EXTRA_TURN, Rules.KALAH.move(board, MancalaGame.PLAYER_A, 2));
+        assertEquals(1, board[Rules.store(MancalaGame.PLAYER_A)]);
+    }
+
+    /**
+     * Tests that the Kalah engine rejects empty pits without changing the board.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testEmptyPitIsIllegal() throws Exception
+    {
+        int[] board = Rules.newBoard(MancalaGame.MIN_INITIAL_STONES);
+        board[Rules.pit(MancalaGame.PLAYER_B, 3)] = 0;
+
+        int[] expected = board.clone();
+        assertEquals(Rules.ILLEGAL, Rules.KALAH.move(board, MancalaGame.PLAYER_B, 3));
+        assertArrayEquals(expected, board);
+    }
+
+    /**
+     * Tests that landing in an empty pit across from an empty pit captures the
+     * last stone in Kalah, but not with the strict capture house rule.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testStrictCapture() throws Exception
+    {
+        int[] board = new int[Rules.BOARD_SIZE];
+        board[Rules.pit(MancalaGame.PLAYER_A, 0)] = 1;
+        board[Rules.pit(MancalaGame.PLAYER_B, 0)] = 5;
+
+        int[] kalah = board.clone();
+        assertEquals(Rules.CAPTURE, Rules.KALAH.move(kalah, MancalaGame.PLAYER_A, 0));
+        assertEquals(1, kalah[Rules.store(MancalaGame.PLAYER_A)]);
+
+        int[] strict = board.clone();
+        assertEquals(0, Rules.KALAH_STRICT_CAPTURE.move(strict, MancalaGame.PLAYER_A, 0));
+        assertEquals(1, strict[Rules.pit(MancalaGame.PLAYER_A, 1)]);
+        assertEquals(0, strict[Rules.store(MancalaGame.PLAYER_A)]);
+    }
+
+    /**
+     * Tests that Oware skips the stores while sowing and captures twos and threes
+     * on the opponent's row.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testOwareCapture() throws Exception
+    {
+        int[] board = new int[Rules.BOARD_SIZE];
+        board[Rules.pit(MancalaGame.PLAYER_A, 4)] = 3;
+        board[Rules.pit(MancalaGame.PLAYER_B, 0)] = 1;
+        board[Rules.pit(MancalaGame.PLAYER_B, 1)] = 2;
+        board[Rules.pit(MancalaGame.PLAYER_B, 5)] = 4;
+
+        assertEquals(Rules.CAPTURE, Rules.OWARE.move(board, MancalaGame.PLAYER_A, 4));
+        assertEquals(5, board[Rules.store(MancalaGame.PLAYER_A)]);
+        assertEquals(1, board[Rules.pit(MancalaGame.PLAYER_A, 5)]);
+        assertEquals(0, board[Rules.pit(MancalaGame.PLAYER_B, 0)]);
+        assertEquals(0, board[Rules.pit(MancalaGame.PLAYER_B, 1)]);
+    }
+
+    /**
+     * Tests that an Oware capture taking every stone the opponent has is forfeited.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testOwareGrandSlam() throws Exception
+    {
+        int[] board = new int[Rules.BOARD_SIZE];
+        board[Rules.pit(MancalaGame.PLAYER_A, 5)] = 1;
+        board[Rules.pit(MancalaGame.PLAYER_B, 0)] = 2;
+
+        assertEquals(0, Rules.OWARE.move(board, MancalaGame.PLAYER_A, 5));
+        assertEquals(3, board[Rules.pit(MancalaGame.PLAYER_B, 0)]);
+    }
+
+    /**
+     * Tests that a game constructed with a rule variant plays with it.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testGameUsesVariant() throws Exception
+    {
+        MancalaGame game = new MancalaGame(MancalaGame.MAX_INITIAL_STONES, Rules.OWARE);
+        game.selectPit(2);
+        game.commitLastSelection();
+
+        // No stone goes into the store and there is no extra turn
+        assertEquals(0, game.getMancalaModel(MancalaGame.PLAYER_A).getStones());
+        assertEquals(MancalaGame.PLAYER_B, game.getCurrentPlayer());
+        assertEquals(5, game.getPitModel(MancalaGame.PLAYER_B, 0).getStones());
+    }
+}
@@ -0,0 +1,80 @@
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for the session store.
+ */
+public final class SessionStoreTest
+{
+    /**
+     * Tests that an evicted game comes back in the same state.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testEvictAndRestore() throws Exception
+    {
+        SessionStore store   = new SessionStore(4, 0);
+        long         session = store.create(4, Rules.KALAH);
+        assertEquals(0, store.getLiveCount());
+
+        MancalaGame game = store.acquire(session);
+        assertSame(game, store.acquire(session));
+        game.selectPit(2);
+        game.commitLastSelection();
+        game.selectPit(0);
+        game.undoLastSelection();
+
+        int[] expected = game.copyPosition(new int[Rules.BOARD_SIZE]);
+        int[] peeked   = new int[Rules.BOARD_SIZE];
+        assertEquals(game.getCurrentPlayer(), store.peek(session, peeked));
+        assertArrayEquals(expected, peeked);
+
+        // A game with a pending selection stays live
+        game.selectPit(1);
+        assertEquals(0, store.evictIdle());
+        game.commitLastSelection();
+        assertEquals(1, store.evictIdle());
+        assertEquals(0, store.getLiveCount());
+
+        MancalaGame restored = store.acquire(session);
+        assertNotSame(game, restored);
+        assertArrayEquals(game.copyPosition(new int[Rules.BOARD_SIZE]),
+                          restored.copyPosition(new int[Rules.BOARD_SIZE]));
+        assertEquals(game.getCurrentPlayer(), restored.getCurrentPlayer());
+        assertEquals(game.hasUndoAvailable(), restored.hasUndoAvailable());
+        assertEquals(4, restored.getInitialStones());
+    }
+
+    /**
+     * Tests that a removed session's identifier does not reach the slot's next game.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testRemovedSession() throws Exception
+    {
+        SessionStore store = new SessionStore(1, 0);
+        long         first = store.create(3, Rules.OWARE);
+        store.remove(first);
+
+        long second = store.create(4, Rules.KALAH);
+        assertEquals(1, store.getSessionCount());
+        assertFalse(first == second);
+        try
+        {
+            store.acquire(first);
+            fail("A removed session was acquired");
+        }
+        catch(IllegalArgumentException e)
+        {
+            assertEquals(Rules.KALAH, store.acquire(second).getRules());
+        }
+    }
+}
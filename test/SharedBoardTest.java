@@ -0,0 +1,111 @@
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the shared board and its client.
+ */
+public final class SharedBoardTest
+{
+    /**
+     * Tests that the client sees the published moves and that its move requests
+     * complete the board's pending move, unless they answer an old state.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testMoves() throws Exception
+    {
+        Path file = Files.createTempFile("shared", ".board");
+        try(SharedBoard shared = new SharedBoard(file); SharedBoardClient client = new SharedBoardClient(file))
+        {
+            MancalaGame game = new MancalaGame(4);
+            shared.attach(game);
+            assertTrue(client.refresh());
+            assertFalse(client.refresh());
+            assertArrayEquals(game.copyPosition(new int[Rules.BOARD_SIZE]), client.getBoard(new int[Rules.BOARD_SIZE]));
+            assertEquals(-1, client.getAwaitedPlayer());
+            assertEquals(Rules.KALAH, client.getRules());
+
+            CompletableFuture<Integer> move = shared.chooseMove(game);
+            assertTrue(client.refresh());
+            assertEquals(MancalaGame.PLAYER_A, client.getAwaitedPlayer());
+            client.submitMove(2);
+            assertEquals(2, (int) move.get(5, TimeUnit.SECONDS));
+
+            game.selectPit(2);
+            game.commitLastSelection();
+            assertTrue(client.refresh());
+            assertEquals(1, client.getMoveNumber());
+            assertEquals(game.getCurrentPlayer(), client.getCurrentPlayer());
+            assertArrayEquals(game.copyPosition(new int[Rules.BOARD_SIZE]), client.getBoard(new int[Rules.BOARD_SIZE]));
+
+            // A request made before the state changed is dropped
+            move = shared.chooseMove(game);
+            client.submitMove(1);
+            Thread.sleep(50);
+            assertFalse(move.isDone());
+            assertTrue(client.refresh());
+            client.submitMove(4);
+            assertEquals(4, (int) move.get(5, TimeUnit.SECONDS));
+        }
+        finally
+        {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Tests that a client reading while the board is written always gets one of the
+     * written boards whole.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testConsistentReads() throws Exception
+    {
+        Path file = Files.createTempFile("shared", ".board");
+        try(SharedBoard shared = new SharedBoard(file); SharedBoardClient client = new SharedBoardClient(file))
+        {
+            MancalaGame first  = new MancalaGame(3);
+            MancalaGame second = new MancalaGame(4);
+            second.selectPit(0);
+            second.commitLastSelection();
+            int[] one = first.copyPosition(new int[Rules.BOARD_SIZE]);
+            int[] two = second.copyPosition(new int[Rules.BOARD_SIZE]);
+
+            Thread writer = new Thread(() -> {
+                for(int i = 0; i < 200_000; i++)
+                {
+                    shared.chooseMove((i & 1) == 0 ? first : second).cancel(false);
+                }
+            });
+            writer.start();
+
+            int[] board = new int[Rules.BOARD_SIZE];
+            int   reads = 0;
+            while(writer.isAlive())
+            {
+                if(!client.refresh()) continue;
+                client.getBoard(board);
+                assertTrue(Arrays.toString(board), Arrays.equals(board, one) || Arrays.equals(board, two));
+                reads++;
+            }
+            writer.join();
+            assertTrue(reads > 0);
+        }
+        finally
+        {
+            Files.delete(file);
+        }
+    }
+}
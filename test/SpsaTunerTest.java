@@ -0,0 +1,106 @@
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the SPSA tuner.
+ */
+public final class SpsaTunerTest
+{
+    /**
+     * Tests that a run gives the same weights with any amount of workers, and when
+     * stopped and continued from its checkpoint.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testDeterministicResume() throws Exception
+    {
+        ExecutorService pool       = Executors.newFixedThreadPool(3);
+        Path            checkpoint = Files.createTempFile("spsa", ".properties");
+        try
+        {
+            SpsaTuner straight = new SpsaTuner(4, pool, 1, 50, 5, new Evaluator());
+            for(int i = 0; i < 3; i++)
+            {
+                straight.iterate();
+            }
+
+            SpsaTuner first = new SpsaTuner(4, pool, 3, 50, 5, new Evaluator());
+            first.iterate();
+            first.save(checkpoint);
+            SpsaTuner resumed = SpsaTuner.load(checkpoint, pool, 2);
+            assertEquals(1, resumed.getIteration());
+            resumed.iterate();
+            resumed.iterate();
+
+            float[] expected = straight.getEvaluator().getWeights(new float[Evaluator.FEATURES]);
+            float[] actual   = resumed.getEvaluator().getWeights(new float[Evaluator.FEATURES]);
+            assertArrayEquals(expected, actual, 0);
+            assertFalse(expected[0] == new Evaluator().getWeights(new float[Evaluator.FEATURES])[0]);
+            assertEquals(straight.getScore(), resumed.getScore(), 0);
+        }
+        finally
+        {
+            pool.shutdown();
+            Files.delete(checkpoint);
+        }
+    }
+
+    /**
+     * Tests that a few iterations improve on weights that favour the opponent's
+     * store, by playing the tuned weights against them in paired games.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testConverges() throws Exception
+    {
+        ExecutorService pool = Executors.newFixedThreadPool(1);
+        try
+        {
+            float[] weights = new float[Evaluator.FEATURES];
+            weights[MancalaGame.MAX_PITS] = -8;
+            weights[2 * MancalaGame.MAX_PITS + 1] = 8;
+            Evaluator start = new Evaluator(weights);
+
+            SpsaTuner tuner = new SpsaTuner(4, pool, 1, 50, 7, start);
+            for(int i = 0; i < 10; i++)
+            {
+                tuner.iterate();
+            }
+
+            Strategy   tuned   = Strategy.greedy(tuner.getEvaluator());
+            Strategy   old     = Strategy.greedy(start);
+            Strategy[] players = new Strategy[MancalaGame.MAX_PLAYERS];
+            int        pairs   = 200;
+            // In half points, so that draws stay integers
+            int        points  = 0;
+            for(int p = 0; p < pairs; p++)
+            {
+                for(int side = 0; side < MancalaGame.MAX_PLAYERS; side++)
+                {
+                    players[side] = tuned;
+                    players[side ^ 1] = old;
+                    int winner = TournamentMatch.play(4, players, 4, new Random(p));
+                    points += winner == -1 ? 1 : winner == side ? 2 : 0;
+                }
+            }
+            double share = points / (4.0 * pairs);
+            assertTrue("The tuned weights scored " + share, share > 0.5);
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+}
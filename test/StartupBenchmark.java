@@ -0,0 +1,131 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Benchmarks the time from launching the desktop client in a new virtual
+ * machine until its window is first painted, once as it is and once the way
+ * {@code gradle run} launches it, with the class data sharing archive, if there
+ * is one. Without a display, such as under
+ * {@code java.awt.headless}, the client paints its window's contents into an
+ * image instead, which leaves out only the window system's part of the start.
+ * <p>
+ * Run with {@code gradle startupBenchmark}, which builds the archive first, or
+ * with {@code gradle benchmark -Pbenchmark=StartupBenchmark} for the plain
+ * start alone.
+ */
+public final class StartupBenchmark
+{
+    // The first launches warm the file system cache and are not counted
+    private static final int WARMUP = 2;
+
+    /**
+     * The entry point of the benchmark.
+     *
+     * @param args Command line arguments
+     * @throws Exception If a launch fails
+     */
+    public static void main(String[] args) throws Exception
+    {
+        int    runs      = 10;
+        String classpath = System.getProperty("java.class.path");
+        String archive   = null;
+        for(int i = 0; i < args.length; i++)
+        {
+            switch(args[i])
+            {
+                case "-runs":
+                    runs = Integer.parseInt(args[++i]);
+                    break;
+                case "-classpath":
+                    classpath = args[++i];
+                    break;
+                case "-archive":
+                    archive = args[++i];
+                    break;
+                default:
+                    System.err.println("Usage: StartupBenchmark [-runs n] [-classpath path] [-archive file]");
+                    System.exit(1);
+            }
+        }
+
+        double plain = measure("Default", classpath, runs);
+        if(archive == null || !Files.exists(Paths.get(archive))) return;
+        double shared = measure("Launcher", classpath, runs, "-XX:SharedArchiveFile=" + archive, "-Xshare:auto");
+        System.out.printf("The launcher takes %.0f%% of the default time%n", shared * 100 / plain);
+    }
+
+    /**
+     * Launches the client repeatedly and prints the times to the first paint.
+     *
+     * @param name      The name of the configuration
+     * @param classpath The class path of the client
+     * @param runs      The amount of counted launches
+     * @param options   Further options of the virtual machine
+     * @return The median time in milliseconds
+     * @throws Exception If a launch fails
+     */
+    private static double measure(String name, String classpath, int runs, String... options) throws Exception
+    {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(Arrays.asList(options));
+        command.add("-D" + MancalaTester.EXIT_AFTER_FIRST_PAINT + "=true");
+        command.add("-cp");
+        command.add(classpath);
+        command.add("MancalaTester");
+
+        double[] millis = new double[runs];
+        for(int run = -WARMUP; run < runs; run++)
+        {
+            double time = launch(command);
+            if(run >= 0) millis[run] = time;
+        }
+        Arrays.sort(millis);
+        System.out.printf("%s: median %.0f ms, best %.0f ms, worst %.0f ms to the first paint%n", name,
+                          millis[runs / 2], millis[0], millis[runs - 1]);
+        return millis[runs / 2];
+    }
+
+    /**
+     * Launches the client once and waits until it reports its first paint.
+     *
+     * @param command The command line
+     * @return The time to the first paint in milliseconds
+     * @throws Exception If the client fails or exits without painting
+     */
+    private static double launch(List<String> command) throws Exception
+    {
+        ProcessBuilder builder = new ProcessBuilder(command);
+        builder.redirectErrorStream(true);
+
+        long          start   = System.nanoTime();
+        Process       process = builder.start();
+        StringBuilder output  = new StringBuilder();
+        try(BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream(),
+                                                                         StandardCharsets.UTF_8)))
+        {
+            for(String line = in.readLine(); line != null; line = in.readLine())
+            {
+                if(line.equals(MancalaTester.FIRST_PAINT))
+                {
+                    double millis = (System.nanoTime() - start) / 1e6;
+                    process.waitFor();
+                    return millis;
+                }
+                output.append(line).append(System.lineSeparator());
+            }
+        }
+        finally
+        {
+            process.destroy();
+        }
+        throw new IOException("The client exited without painting:" + System.lineSeparator() + output);
+    }
+}
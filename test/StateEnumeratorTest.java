@@ -0,0 +1,163 @@
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the external sorter and the state enumerator.
+ */
+public final class StateEnumeratorTest
+{
+    /**
+     * Tests that runs are merged sorted and without duplicates, also when it takes
+     * more than one pass.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testSorter() throws Exception
+    {
+        Path directory = Files.createTempDirectory("sorter");
+        try(ExternalSorter sorter = new ExternalSorter(directory, "test-", 3))
+        {
+            Random        random   = new Random(39);
+            TreeSet<Long> expected = new TreeSet<>();
+            for(int run = 0; run < 10; run++)
+            {
+                long[] values = new long[1000];
+                for(int i = 0; i < values.length; i++)
+                {
+                    values[i] = random.nextInt(5000) - 2500;
+                    expected.add(values[i]);
+                }
+                sorter.add(values, values.length);
+            }
+            assertEquals(10, sorter.getRuns());
+
+            Path output = directory.resolve("sorted.bin");
+            assertEquals(expected.size(), sorter.merge(output));
+            assertEquals(0, sorter.getRuns());
+
+            try(ExternalSorter.Reader reader = new ExternalSorter.Reader(output))
+            {
+                for(long value : expected)
+                {
+                    assertTrue(reader.next());
+                    assertEquals(value, reader.get());
+                }
+                assertFalse(reader.next());
+            }
+        }
+        finally
+        {
+            delete(directory);
+        }
+    }
+
+    /**
+     * Tests that the enumeration of the 1-stone game finds the same positions in
+     * each ply as a breadth-first search in memory, and that it continues from
+     * saved progress.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testEnumerate() throws Exception
+    {
+        List<Integer> expected = breadthFirst(1);
+
+        Path            directory = Files.createTempDirectory("states");
+        ExecutorService pool      = Executors.newFixedThreadPool(2);
+        try
+        {
+            // A small budget, so that every ply is expanded in several chunks
+            StateEnumerator enumerator = new StateEnumerator(Rules.KALAH, directory, pool, 2, 0);
+            enumerator.start(1);
+            for(int ply = 1; ply <= 10; ply++)
+            {
+                assertEquals(expected.get(ply).longValue(), enumerator.step());
+            }
+
+            enumerator = new StateEnumerator(Rules.KALAH, directory, pool, 2, 0);
+            assertEquals(10, enumerator.getPly());
+            long total = 1 + expected.subList(1, 11).stream().mapToLong(Integer::longValue).sum();
+            assertEquals(total, enumerator.getTotal());
+
+            for(int ply = 11; ply < expected.size(); ply++)
+            {
+                assertEquals(expected.get(ply).longValue(), enumerator.step());
+                total += expected.get(ply);
+            }
+            assertEquals(0, enumerator.step());
+            assertEquals(total, enumerator.getTotal());
+        }
+        finally
+        {
+            pool.shutdown();
+            delete(directory);
+        }
+    }
+
+    // The amount of positions first reached in each ply
+    private static List<Integer> breadthFirst(int initialStones)
+    {
+        int[]      board    = Rules.newBoard(initialStones);
+        Set<Long>  seen     = new HashSet<>();
+        List<Long> frontier = new ArrayList<>();
+        long       opening  = PositionCodec.encode(board, MancalaGame.PLAYER_A);
+        seen.add(opening);
+        frontier.add(opening);
+
+        List<Integer> counts = new ArrayList<>();
+        counts.add(1);
+        while(!frontier.isEmpty())
+        {
+            List<Long> next = new ArrayList<>();
+            for(long code : frontier)
+            {
+                int player = PositionCodec.decode(code, board);
+                if(Rules.KALAH.finish(board, player) != -1) continue;
+
+                for(int i = 0; i < MancalaGame.MAX_PITS; i++)
+                {
+                    int[] child  = board.clone();
+                    int   result = Rules.KALAH.move(child, player, i);
+                    if(result == Rules.ILLEGAL) continue;
+
+                    int mover = (result & Rules.EXTRA_TURN) != 0 ? player : player ^ 1;
+                    if(Rules.KALAH.finish(child, mover) != -1) mover = MancalaGame.PLAYER_A;
+                    long childCode = PositionCodec.encode(child, mover);
+                    if(seen.add(childCode)) next.add(childCode);
+                }
+            }
+            if(!next.isEmpty()) counts.add(next.size());
+            frontier = next;
+        }
+        return counts;
+    }
+
+    private static void delete(Path directory) throws Exception
+    {
+        try(Stream<Path> files = Files.list(directory))
+        {
+            for(Path file : (Iterable<Path>) files::iterator)
+            {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+}
@@ -0,0 +1,111 @@
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the tournament coordinator and its workers.
+ */
+public final class TournamentTest
+{
+    /**
+     * Tests that a game gives the same result in any instance of the match, also
+     * after being sent to another process.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testDeterministicGames() throws Exception
+    {
+        TournamentMatch match = new TournamentMatch(4, "greedy", "random", 7);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        match.write(new DataOutputStream(bytes));
+        TournamentMatch copy = TournamentMatch.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals("random", copy.getSpecification(1));
+
+        int[] tally = new int[3];
+        for(int g = 99; g >= 0; g--)
+        {
+            int winner = match.play(g);
+            assertEquals(winner, copy.play(g));
+            tally[winner + 1]++;
+        }
+        // The greedy strategy should beat random moves most of the time
+        assertTrue(tally[1] > tally[2]);
+    }
+
+    /**
+     * Tests that every game gets the result it gets when played here, even when a
+     * worker is killed halfway through its games.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testCoordinator() throws Exception
+    {
+        int             games = 400;
+        TournamentMatch match = new TournamentMatch(3, "search:4", "greedy", 11);
+        try(TournamentCoordinator coordinator = new TournamentCoordinator(match, games, 3, 1))
+        {
+            Process victim = coordinator.launchWorker();
+            coordinator.launchWorker();
+            coordinator.launchWorker();
+
+            while(coordinator.getCompleted() < games / 10)
+            {
+                Thread.sleep(10);
+            }
+            victim.destroyForcibly();
+
+            assertTrue(coordinator.await(60_000));
+            for(int g = 0; g < games; g++)
+            {
+                assertEquals(match.play(g), coordinator.getWinner(g));
+            }
+            assertEquals(1, coordinator.getRestarts());
+            // The killed worker left games behind, and the uneven ranges that follow get split
+            assertTrue(coordinator.getRequeued() > 0);
+            assertTrue(coordinator.getSteals() > 0);
+            int[] tally = coordinator.getTally();
+            assertEquals(games, tally[0] + tally[1] + tally[2]);
+        }
+    }
+
+    /**
+     * Tests that the coordinator notices when no worker is left to play the
+     * remaining games.
+     *
+     * @throws Exception Because unit test
+     */
+    @Test
+    public void testStalled() throws Exception
+    {
+        TournamentMatch match = new TournamentMatch(3, "search:4", "greedy", 11);
+        try(TournamentCoordinator coordinator = new TournamentCoordinator(match, 400, 1, 0))
+        {
+            Process worker = coordinator.launchWorker();
+            while(coordinator.getCompleted() == 0)
+            {
+                Thread.sleep(10);
+            }
+            assertFalse(coordinator.isStalled());
+
+            worker.destroyForcibly().waitFor();
+            long deadline = System.currentTimeMillis() + 10_000;
+            while(!coordinator.isStalled() && System.currentTimeMillis() < deadline)
+            {
+                Thread.sleep(10);
+            }
+            assertTrue(coordinator.isStalled());
+            assertTrue(coordinator.getCompleted() < 400);
+            assertEquals(0, coordinator.getRestarts());
+        }
+    }
+}